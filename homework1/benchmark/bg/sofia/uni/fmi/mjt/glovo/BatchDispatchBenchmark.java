@@ -0,0 +1,83 @@
+package bg.sofia.uni.fmi.mjt.glovo;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryOrder;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the throughput of dispatching orders one at a time with {@link Glovo#getDeliveries(List)}.
+ * Usage: {@code BatchDispatchBenchmark [size] [orders]}
+ */
+public class BatchDispatchBenchmark {
+
+    private static final int DEFAULT_SIZE = 500;
+    private static final int DEFAULT_ORDERS = 2000;
+    private static final double WALL_DENSITY = 0.2;
+    private static final int RESTAURANTS = 200;
+    private static final int CLIENTS = 2000;
+    private static final int DELIVERY_GUYS = 300;
+    private static final int ROUNDS = 5;
+    private static final double NANOS_IN_SECOND = 1_000_000_000d;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        int ordersCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ORDERS;
+
+        char[][] layout = new MapGenerator(1).generate(size, size, WALL_DENSITY,
+            RESTAURANTS, CLIENTS, DELIVERY_GUYS, DELIVERY_GUYS);
+        Glovo glovo = new Glovo(layout);
+        List<DeliveryOrder> orders = generateOrders(layout, ordersCount);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (DeliveryOrder order : orders) {
+                glovo.getDeliveries(List.of(order));
+            }
+            long sequential = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            glovo.getDeliveries(orders);
+            long batch = System.nanoTime() - start;
+
+            System.out.printf("round %d: one at a time %.0f orders/s, batch %.0f orders/s%n", round,
+                ordersCount * NANOS_IN_SECOND / sequential, ordersCount * NANOS_IN_SECOND / batch);
+        }
+    }
+
+    private static List<DeliveryOrder> generateOrders(char[][] layout, int count) {
+        List<MapEntity> restaurants = new ArrayList<>();
+        List<MapEntity> clients = new ArrayList<>();
+
+        for (int row = 0; row < layout.length; row++) {
+            for (int col = 0; col < layout[row].length; col++) {
+                MapEntityType type = MapEntityType.fromSymbol(layout[row][col]);
+
+                if (type == MapEntityType.RESTAURANT) {
+                    restaurants.add(new MapEntity(new Location(row, col), type));
+                } else if (type == MapEntityType.CLIENT) {
+                    clients.add(new MapEntity(new Location(row, col), type));
+                }
+            }
+        }
+
+        Random random = new Random(2);
+        List<DeliveryOrder> orders = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            orders.add(new DeliveryOrder(
+                clients.get(random.nextInt(clients.size())),
+                restaurants.get(random.nextInt(restaurants.size())),
+                "Lukanka", -1, -1,
+                random.nextBoolean() ? ShippingMethod.CHEAPEST : ShippingMethod.FASTEST));
+        }
+
+        return orders;
+    }
+}
@@ -0,0 +1,172 @@
+package bg.sofia.uni.fmi.mjt.glovo;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenter;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenterApi;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.SearchAlgorithm;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryInfo;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+import bg.sofia.uni.fmi.mjt.glovo.exception.UnreachableDestinationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of a single order on generated maps of several kinds and sizes, so that regressions
+ * in the searches show up per kind of map. Run with
+ * {@code java -cp <classpath> org.openjdk.jmh.Main DispatchBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+    /**
+     * The kinds of generated maps.
+     */
+    public enum MapKind {
+        OPEN_FIELD,
+        MAZE,
+        SPARSE_COURIERS,
+        DENSE_COURIERS
+    }
+
+    private static final int QUERIES = 256;
+    private static final double WALL_DENSITY = 0.2;
+    private static final double MAZE_OPENNESS = 0.1;
+    private static final int SPARSE_COURIERS_PER_MILLION = 20;
+    private static final int DENSE_COURIERS_PER_MILLION = 4000;
+    private static final int DEFAULT_COURIERS_PER_MILLION = 400;
+    private static final int ENTITIES_PER_MILLION = 800;
+    private static final int MILLION = 1_000_000;
+
+    @Param({"OPEN_FIELD", "MAZE", "SPARSE_COURIERS", "DENSE_COURIERS"})
+    private MapKind kind;
+
+    @Param({"100", "300", "1000"})
+    private int size;
+
+    @Param({"BFS", "A_STAR", "REGIONAL"})
+    private SearchAlgorithm algorithm;
+
+    private ControlCenterApi withDistanceFields;
+    private ControlCenterApi withSearch;
+    private ControlCenterApi withResultCache;
+    private Location[] restaurants;
+    private Location[] clients;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        char[][] layout = generate();
+        withDistanceFields = new ControlCenter(layout, QUERIES, algorithm, 0);
+        withSearch = new ControlCenter(layout, 0, algorithm, 0);
+        withResultCache = new ControlCenter(layout, 0, algorithm, QUERIES);
+
+        List<Location> restaurantLocations = locationsOf(layout, MapEntityType.RESTAURANT);
+        List<Location> clientLocations = locationsOf(layout, MapEntityType.CLIENT);
+        Random random = new Random(size);
+
+        restaurants = new Location[QUERIES];
+        clients = new Location[QUERIES];
+
+        for (int i = 0; i < QUERIES; i++) {
+            restaurants[i] = restaurantLocations.get(random.nextInt(restaurantLocations.size()));
+            clients[i] = clientLocations.get(random.nextInt(clientLocations.size()));
+        }
+    }
+
+    @Benchmark
+    public DeliveryInfo cheapestWithSearch() {
+        return find(withSearch, ShippingMethod.CHEAPEST);
+    }
+
+    @Benchmark
+    public DeliveryInfo fastestWithSearch() {
+        return find(withSearch, ShippingMethod.FASTEST);
+    }
+
+    @Benchmark
+    public DeliveryInfo cheapestWithDistanceFields() {
+        return find(withDistanceFields, ShippingMethod.CHEAPEST);
+    }
+
+    @Benchmark
+    public DeliveryInfo cheapestWithResultCache() {
+        return find(withResultCache, ShippingMethod.CHEAPEST);
+    }
+
+    @Benchmark
+    public int distance() {
+        int query = next++ % QUERIES;
+
+        try {
+            return withSearch.getDistance(restaurants[query], clients[query]);
+        } catch (UnreachableDestinationException e) {
+            return -1;
+        }
+    }
+
+    private DeliveryInfo find(ControlCenterApi controlCenter, ShippingMethod method) {
+        int query = next++ % QUERIES;
+
+        try {
+            return controlCenter.findOptimalDeliveryGuy(restaurants[query], clients[query], -1, -1, method);
+        } catch (UnreachableDestinationException e) {
+            return null;
+        }
+    }
+
+    private char[][] generate() {
+        MapGenerator generator = new MapGenerator(size);
+        int entities = Math.max(1, (int) ((long) size * size * ENTITIES_PER_MILLION / MILLION));
+
+        return switch (kind) {
+            case OPEN_FIELD -> generator.generate(size, size, 0, entities, entities,
+                couriers(DEFAULT_COURIERS_PER_MILLION), couriers(DEFAULT_COURIERS_PER_MILLION));
+            case MAZE -> generator.generateMaze(size, size, MAZE_OPENNESS, entities, entities,
+                couriers(DEFAULT_COURIERS_PER_MILLION), couriers(DEFAULT_COURIERS_PER_MILLION));
+            case SPARSE_COURIERS -> generator.generate(size, size, WALL_DENSITY, entities, entities,
+                couriers(SPARSE_COURIERS_PER_MILLION), couriers(SPARSE_COURIERS_PER_MILLION));
+            case DENSE_COURIERS -> generator.generate(size, size, WALL_DENSITY, entities, entities,
+                couriers(DENSE_COURIERS_PER_MILLION), couriers(DENSE_COURIERS_PER_MILLION));
+        };
+    }
+
+    private int couriers(int perMillion) {
+        return Math.max(1, (int) ((long) size * size * perMillion / MILLION));
+    }
+
+    private static List<Location> locationsOf(char[][] layout, MapEntityType type) {
+        List<Location> locations = new ArrayList<>();
+
+        for (int row = 0; row < layout.length; row++) {
+            for (int col = 0; col < layout[row].length; col++) {
+                if (layout[row][col] == type.getSymbol()) {
+                    locations.add(new Location(row, col));
+                }
+            }
+        }
+
+        return locations;
+    }
+}
@@ -3,11 +3,16 @@ package bg.sofia.uni.fmi.mjt.glovo;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenter;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenterApi;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.region.RegionWorkers;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.Delivery;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryInfo;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryOrder;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
 import bg.sofia.uni.fmi.mjt.glovo.exception.InvalidOrderException;
 import bg.sofia.uni.fmi.mjt.glovo.exception.NoAvailableDeliveryGuyException;
+import bg.sofia.uni.fmi.mjt.glovo.exception.UnreachableDestinationException;
+
+import java.util.List;
 
 public class Glovo implements GlovoApi {
 
@@ -15,8 +20,45 @@ public class Glovo implements GlovoApi {
 
     ControlCenterApi controlCenter;
 
+    private final RegionWorkers workers;
+
     public Glovo(char[][] mapLayout) {
         controlCenter = new ControlCenter(mapLayout);
+        workers = null;
+    }
+
+    /**
+     * Creates a Glovo instance over an existing control center, for example one
+     * loaded from a {@link bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapFile}.
+     *
+     * @param controlCenter the control center to dispatch the orders to
+     * @throws IllegalArgumentException if the control center is null
+     */
+    public Glovo(ControlCenterApi controlCenter) {
+        if (controlCenter == null) {
+            throw new IllegalArgumentException("Control center cannot be null");
+        }
+
+        this.controlCenter = controlCenter;
+        this.workers = null;
+    }
+
+    /**
+     * Creates a Glovo instance which evaluates the orders of a batch on the worker pool of the region
+     * of their restaurant, so that busy regions do not hold back the orders of the others.
+     * The workers are not closed by this instance.
+     *
+     * @param controlCenter the control center to dispatch the orders to
+     * @param workers       the worker pools of the map regions
+     * @throws IllegalArgumentException if any of the arguments is null
+     */
+    public Glovo(ControlCenterApi controlCenter, RegionWorkers workers) {
+        if (controlCenter == null || workers == null) {
+            throw new IllegalArgumentException("Control center and workers cannot be null");
+        }
+
+        this.controlCenter = controlCenter;
+        this.workers = workers;
     }
 
     /**
@@ -34,16 +76,12 @@ public class Glovo implements GlovoApi {
             throw new IllegalArgumentException("Given entity is null");
         }
 
-        int entityRow = entity.location().x();
-        int entityCol = entity.location().y();
+        MapEntity entityToMatch = controlCenter.getMapEntity(entity.location());
 
-        if ((entityRow < 0 || entityRow >= controlCenter.getLayout().length) ||
-            (entityCol < 0 || entityCol >= controlCenter.getLayout()[entityRow].length)) {
+        if (entityToMatch == null) {
             throw new InvalidOrderException("Given entity is out of the map");
         }
 
-        MapEntity entityToMatch = controlCenter.getLayout()[entityRow][entityCol];
-
         if (!entity.equals(entityToMatch)) {
             throw new InvalidOrderException("Entity does not match the one on the specified location");
         }
@@ -246,4 +284,98 @@ public class Glovo implements GlovoApi {
             foodItem, delivery.price(), delivery.estimatedTime());
     }
 
+    /**
+     * Returns the optimal delivery option for each order in a batch. The orders are validated first
+     * and then evaluated in parallel on the worker pools of their regions, or on the common fork-join pool
+     * without region workers, and the workers reuse the pooled search buffers of the control center.
+     *
+     * @param orders The orders to be delivered.
+     * @return A List with the Delivery for each order, in the order of the given orders. An element is null
+     * if no delivery guy is able to complete the corresponding order within its constraints.
+     * @throws InvalidOrderException    If there is no client or restaurant at the specified location of any
+     *                                  of the orders, or if the location is outside the map's defined boundaries.
+     * @throws IllegalArgumentException If the list or any of the orders is invalid.
+     */
+    public List<Delivery> getDeliveries(List<DeliveryOrder> orders) {
+        if (orders == null) {
+            throw new IllegalArgumentException("Orders cannot be null");
+        }
+
+        for (DeliveryOrder order : orders) {
+            validateOrder(order);
+        }
+
+        if (workers != null) {
+            return workers.map(orders,
+                order -> controlCenter.getRegion(order.restaurant().location()), this::processOrder);
+        }
+
+        return orders.parallelStream()
+            .map(this::processOrder)
+            .toList();
+    }
+
+    /**
+     * Validates a single order of a batch.
+     *
+     * @param order the {@link DeliveryOrder} to validate
+     * @throws IllegalArgumentException if the order or any of its fields is invalid
+     * @throws InvalidOrderException if the client or the restaurant do not match the map
+     */
+    private void validateOrder(DeliveryOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+
+        validateEntity(order.client());
+        validateEntity(order.restaurant());
+
+        if (order.foodItem() == null || order.foodItem().isBlank()) {
+            throw new IllegalArgumentException("Food item cannot be null, empty or blank");
+        }
+
+        if (order.maxPrice() < 0 && order.maxPrice() != noLimitation) {
+            throw new IllegalArgumentException("Max price should not be negative");
+        }
+
+        if (order.maxTime() < 0 && order.maxTime() != noLimitation) {
+            throw new IllegalArgumentException("Max time should not be negative");
+        }
+
+        if (order.shippingMethod() == null) {
+            throw new IllegalArgumentException("Shipping method cannot be null");
+        }
+    }
+
+    /**
+     * Finds the optimal delivery for a single, already validated order of a batch.
+     *
+     * @param order the {@link DeliveryOrder} to process
+     * @return the {@link Delivery} for the order, or null if no delivery guy can complete it
+     */
+    private Delivery processOrder(DeliveryOrder order) {
+        DeliveryInfo delivery;
+
+        try {
+            delivery = controlCenter.findOptimalDeliveryGuy(
+                order.restaurant().location(),
+                order.client().location(),
+                order.maxPrice(),
+                order.maxTime(),
+                order.shippingMethod());
+        } catch (UnreachableDestinationException e) {
+            return null;
+        }
+
+        if (delivery == null) {
+            return null;
+        }
+
+        return new Delivery(
+            order.client().location(),
+            order.restaurant().location(),
+            delivery.deliveryGuyLocation(),
+            order.foodItem(), delivery.price(), delivery.estimatedTime());
+    }
+
 }
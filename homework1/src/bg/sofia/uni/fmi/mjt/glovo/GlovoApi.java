@@ -2,9 +2,12 @@ package bg.sofia.uni.fmi.mjt.glovo;
 
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.Delivery;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryOrder;
 import bg.sofia.uni.fmi.mjt.glovo.exception.NoAvailableDeliveryGuyException;
 import bg.sofia.uni.fmi.mjt.glovo.exception.InvalidOrderException;
 
+import java.util.List;
+
 public interface GlovoApi {
 
     /**
@@ -76,4 +79,17 @@ public interface GlovoApi {
     Delivery getCheapestDeliveryWithinTimeLimit(MapEntity client, MapEntity restaurant, String foodItem, int maxTime)
         throws NoAvailableDeliveryGuyException;
 
+    /**
+     * Returns the optimal delivery option for each order in a batch. The orders are evaluated
+     * in parallel against the current map.
+     *
+     * @param orders The orders to be delivered.
+     * @return A List with the Delivery for each order, in the order of the given orders. An element is null
+     * if no delivery guy is able to complete the corresponding order within its constraints.
+     * @throws InvalidOrderException    If there is no client or restaurant at the specified location of any
+     *                                  of the orders, or if the location is outside the map's defined boundaries.
+     * @throws IllegalArgumentException If the list or any of the orders is invalid.
+     */
+    List<Delivery> getDeliveries(List<DeliveryOrder> orders);
+
 }
\ No newline at end of file
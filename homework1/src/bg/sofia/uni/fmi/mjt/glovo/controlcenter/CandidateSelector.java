@@ -0,0 +1,218 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter;
+
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+
+import java.util.Arrays;
+
+/**
+ * Picks the best delivery guy of a single type for an order from candidates offered in order of
+ * their distance to the restaurant. The time of a delivery grows with the distance, so the fastest
+ * candidates within the price limit are the first ones and no candidate after one over the time limit
+ * can be accepted. The length of a route is at least its cost divided by the highest traversal cost,
+ * which bounds the price of every candidate still to come, so the cheapest candidate is known as soon
+ * as that bound reaches its price. On maps without weighted roads this means that the nearest
+ * delivery guys decide the order.
+ * <p>
+ * Candidates at the same distance may be offered in any order, so ties are broken by the candidates
+ * themselves: the fastest delivery goes to the cheaper one of equally fast candidates, the cheapest to
+ * the faster one of equally cheap candidates, and then to the tile which comes first in row-major order.
+ * This is the order of {@code Fleet#forEachFree}, so a search and a distance field pick the same delivery
+ * guy. The selector is done once a candidate farther than the best one cannot tie with it, which
+ * {@link #passed(int)} lets a search detect without waiting for the next candidate.
+ * <p>
+ * Candidates may be offered before the distance from the restaurant to the client is known,
+ * in which case they are kept until {@link #setClient(int, int)} is called.
+ */
+final class CandidateSelector {
+
+    static final int NONE = -1;
+
+    private static final int INITIAL_PENDING_CAPACITY = 8;
+    private static final int PENDING_FIELDS = 3;
+
+    private final DeliveryType type;
+    private final double maxPrice;
+    private final int maxTime;
+    private final ShippingMethod method;
+    private final int maxCost;
+
+    private int clientDistance = NONE;
+    private int clientKilometers;
+
+    private int[] pending = new int[INITIAL_PENDING_CAPACITY * PENDING_FIELDS];
+    private int pendingSize;
+
+    private int best = NONE;
+    private int bestPrice;
+    private int bestTime;
+    private int bestDistance;
+    private boolean done;
+    private int radius = Integer.MAX_VALUE;
+
+    /**
+     * Creates a selector for a single order.
+     *
+     * @param type     the type of the delivery guys offered
+     * @param maxPrice the maximum price allowed for the delivery, -1 for no cost constraint
+     * @param maxTime  the maximum time allowed for the delivery, -1 for no time constraint
+     * @param method   the method for shipping the delivery
+     * @param maxCost  the highest traversal cost of a move on the map
+     */
+    CandidateSelector(DeliveryType type, double maxPrice, int maxTime, ShippingMethod method, int maxCost) {
+        this.type = type;
+        this.maxPrice = maxPrice;
+        this.maxTime = maxTime;
+        this.method = method;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Sets the route from the restaurant to the client and evaluates the candidates offered so far.
+     *
+     * @param distance   the cost of the route from the restaurant to the client
+     * @param kilometers the length of the route from the restaurant to the client
+     */
+    void setClient(int distance, int kilometers) {
+        clientDistance = distance;
+        clientKilometers = kilometers;
+
+        for (int i = 0; i < pendingSize && !done; i += PENDING_FIELDS) {
+            evaluate(pending[i], pending[i + 1], pending[i + 2]);
+        }
+
+        pending = null;
+    }
+
+    /**
+     * Offers the next candidate. Candidates should be offered in order of their distance.
+     *
+     * @param deliveryGuy the index of the delivery guy's tile
+     * @param distance    the cost of the route from the delivery guy to the restaurant
+     * @param kilometers  the length of the route from the delivery guy to the restaurant
+     * @return {@code true} if later candidates may still be better, {@code false} otherwise
+     */
+    boolean offer(int deliveryGuy, int distance, int kilometers) {
+        if (done) {
+            return false;
+        }
+
+        if (clientDistance == NONE) {
+            if (pendingSize == pending.length) {
+                pending = Arrays.copyOf(pending, pendingSize * 2);
+            }
+
+            pending[pendingSize++] = deliveryGuy;
+            pending[pendingSize++] = distance;
+            pending[pendingSize++] = kilometers;
+            return true;
+        }
+
+        evaluate(deliveryGuy, distance, kilometers);
+        return !done;
+    }
+
+    /**
+     * Tells the selector that every candidate closer than the given distance was offered, so it can be
+     * done before a farther candidate is offered.
+     *
+     * @param distance the cost of the route from the restaurant to the tile being searched
+     */
+    void passed(int distance) {
+        if (done || clientDistance == NONE) {
+            return;
+        }
+
+        int lowestPrice = ((distance + maxCost - 1) / maxCost + clientKilometers) * type.getPricePerKM();
+        int lowestTime = (distance + clientDistance) * type.getTimePerKM();
+
+        if ((maxTime != -1 && lowestTime > maxTime) || (maxPrice != -1 && lowestPrice > maxPrice)) {
+            done = true;
+            radius = distance;
+        } else if (best != NONE && method == ShippingMethod.FASTEST && distance > bestDistance) {
+            done = true;
+            radius = bestDistance;
+        } else if (best != NONE && method == ShippingMethod.CHEAPEST &&
+            (lowestPrice > bestPrice || (lowestPrice == bestPrice && distance > bestDistance))) {
+            done = true;
+            radius = distance;
+        }
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    int best() {
+        return best;
+    }
+
+    int bestPrice() {
+        return bestPrice;
+    }
+
+    int bestTime() {
+        return bestTime;
+    }
+
+    DeliveryType type() {
+        return type;
+    }
+
+    /**
+     * Returns the distance of the candidate after which no farther one could change the result.
+     *
+     * @return the distance of the last candidate needed, or {@link Integer#MAX_VALUE} if every candidate was needed
+     */
+    int radius() {
+        return radius;
+    }
+
+    /**
+     * Checks a candidate against the constraints of the order and the best candidate so far.
+     *
+     * @param deliveryGuy the index of the delivery guy's tile
+     * @param distance    the cost of the route from the delivery guy to the restaurant
+     * @param kilometers  the length of the route from the delivery guy to the restaurant
+     */
+    private void evaluate(int deliveryGuy, int distance, int kilometers) {
+        passed(distance);
+
+        if (done) {
+            return;
+        }
+
+        int price = (kilometers + clientKilometers) * type.getPricePerKM();
+        int time = (distance + clientDistance) * type.getTimePerKM();
+
+        if ((maxPrice == -1 || price <= maxPrice) && (best == NONE || isBetter(deliveryGuy, price, time))) {
+            best = deliveryGuy;
+            bestPrice = price;
+            bestTime = time;
+            bestDistance = distance;
+        }
+
+        passed(distance);
+    }
+
+    /**
+     * Compares a candidate within the limits with the best one so far.
+     *
+     * @param deliveryGuy the index of the delivery guy's tile
+     * @param price       the price of the delivery with the candidate
+     * @param time        the time of the delivery with the candidate
+     * @return {@code true} if the candidate makes a better delivery, {@code false} otherwise
+     */
+    private boolean isBetter(int deliveryGuy, int price, int time) {
+        int primary = method == ShippingMethod.FASTEST ? Integer.compare(time, bestTime) :
+            Integer.compare(price, bestPrice);
+        int secondary = method == ShippingMethod.FASTEST ? Integer.compare(price, bestPrice) :
+            Integer.compare(time, bestTime);
+
+        if (primary != 0) {
+            return primary < 0;
+        }
+
+        return secondary != 0 ? secondary < 0 : deliveryGuy < best;
+    }
+}
@@ -1,49 +1,342 @@
 package bg.sofia.uni.fmi.mjt.glovo.controlcenter;
 
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment.AssignmentSolver;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment.GreedyAssignmentSolver;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment.HungarianAssignmentSolver;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.cache.LruCache;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.cache.ResultCache;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.fleet.Fleet;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy.ContractionHierarchy;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy.HierarchySearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.ConnectedComponents;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEdit;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapFile;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.DispatchCounters;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.DispatchMetrics;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.DispatchOperation;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.region.RegionLayout;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.region.RegionOverlay;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.region.RegionalSearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.route.RoutePlanner;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.AStarSearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.DistanceField;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.Route;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.SearchAlgorithm;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryInfo;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryRequest;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.RoutePlan;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.RouteStop;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.RouteStopType;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
 import bg.sofia.uni.fmi.mjt.glovo.exception.UnreachableDestinationException;
 
-import java.util.ArrayDeque;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Dispatches orders over a map which may be edited while it is in use. Every version of the map is
+ * an immutable {@link MapSnapshot}: an operation reads the current snapshot once and works on it until
+ * it finishes, while {@link #editMap(List)} builds the next version on the side and publishes it with
+ * a single write. Readers never wait for edits, and an edited map shares the unchanged tiles with the
+ * previous version.
+ * <p>
+ * The search buffers are as large as the map, so they are pooled instead of kept per thread: an operation
+ * takes a free set of buffers and returns it when it finishes. The pool grows to the number of operations
+ * running at the same time, which stays small even when the callers are many virtual threads.
+ */
 public class ControlCenter implements ControlCenterApi {
 
-    record Pair<K, V> (K fst, V snd) { }
+    /**
+     * The search buffers used by a single operation at a time for a single version of the map.
+     */
+    private static final class SearchContext {
+        private final MapSnapshot map;
+        private final GridSearch search;
+        private final AStarSearch aStar;
+        private final RegionalSearch regional;
+        private final HierarchySearch hierarchy;
+        private boolean used;
 
-    public final MapEntity[][] layout;
+        private SearchContext(MapSnapshot map, SearchAlgorithm algorithm) {
+            this.map = map;
+            this.search = new GridSearch(map.grid());
+            this.aStar = algorithm == SearchAlgorithm.A_STAR ? new AStarSearch(map.grid()) : null;
+            this.regional = algorithm == SearchAlgorithm.REGIONAL ? new RegionalSearch(map.overlay(), search) : null;
+            this.hierarchy = algorithm == SearchAlgorithm.CONTRACTION_HIERARCHY ?
+                new HierarchySearch(map.hierarchy()) : null;
+        }
 
-    public ControlCenter(char[][] mapLayout) {
-        layout = new MapEntity[mapLayout.length][];
-
-        for (int row = 0; row < mapLayout.length; row++) {
-            layout[row] = new MapEntity[mapLayout[row].length];
-
-            for (int col = 0; col < mapLayout[row].length; col++) {
-                char current = mapLayout[row][col];
-                Location currLocation = new Location(row, col);
-
-                MapEntityType type =  switch(current) {
-                    case '.' -> MapEntityType.ROAD;
-                    case '#' -> MapEntityType.WALL;
-                    case 'R' -> MapEntityType.RESTAURANT;
-                    case 'C' -> MapEntityType.CLIENT;
-                    case 'A' -> MapEntityType.DELIVERY_GUY_CAR;
-                    case 'B' -> MapEntityType.DELIVERY_GUY_BIKE;
-                    default -> null;
-                };
-
-                layout[row][col] = new MapEntity(currLocation, type);
+        /**
+         * Calculates the cost of the cheapest route between two tiles with the configured algorithm.
+         *
+         * @param from the index of the starting tile
+         * @param to   the index of the target tile
+         * @return the cost of the route, or {@link GridSearch#NOT_FOUND} if the target is unreachable
+         */
+        private int distance(int from, int to) {
+            if (aStar != null) {
+                return aStar.distance(from, to);
             }
+
+            if (hierarchy != null) {
+                return hierarchy.distance(from, to);
+            }
+
+            return regional != null ? regional.distance(from, to) : search.distance(from, to);
+        }
+
+        /**
+         * Returns the number of moves on the route found by the last call to {@link #distance(int, int)}.
+         *
+         * @param to the index of the target tile of the last search
+         * @return the number of moves to the target, or {@link GridSearch#NOT_FOUND} if it was not reached
+         */
+        private int hopsTo(int to) {
+            if (aStar != null) {
+                return aStar.hopsTo(to);
+            }
+
+            if (hierarchy != null) {
+                return hierarchy.hopsTo(to);
+            }
+
+            return regional != null ? regional.hopsTo(to) : search.hopsTo(to);
+        }
+
+        private long expandedTiles() {
+            return search.expandedTiles() + (aStar != null ? aStar.expandedTiles() : 0) +
+                (regional != null ? regional.expandedPortals() : 0) +
+                (hierarchy != null ? hierarchy.settledNodes() : 0);
         }
     }
 
+    private static final DeliveryType[] DELIVERY_TYPES = DeliveryType.values();
+
+    private static final int DEFAULT_DISTANCE_FIELDS_CAPACITY = 64;
+    private static final long DISTANCE_FIELDS_BUDGET_BYTES = 256L * 1024 * 1024;
+    private static final int DEFAULT_RESULT_CACHE_CAPACITY = 4096;
+    private static final int FLEET_BUCKET_SIZE = 32;
+    private static final int HUNGARIAN_MAX_ORDERS = 64;
+
+    private static final AssignmentSolver GREEDY_SOLVER = new GreedyAssignmentSolver();
+    private static final AssignmentSolver HUNGARIAN_SOLVER = new HungarianAssignmentSolver();
+    private static final RoutePlanner ROUTE_PLANNER = new RoutePlanner();
+
+    private final SearchAlgorithm algorithm;
+    private final int distanceFieldsCapacity;
+    private final Queue<SearchContext> searchContexts = new ConcurrentLinkedQueue<>();
+
+    private final RegionLayout regions;
+
+    private volatile MapSnapshot snapshot;
+
+    private final Fleet fleet;
+    private final ResultCache results;
+    private final DispatchCounters counters = new DispatchCounters();
+
+    public ControlCenter(char[][] mapLayout) {
+        this(mapLayout, DEFAULT_DISTANCE_FIELDS_CAPACITY);
+    }
+
+    /**
+     * Creates a control center which keeps the distance fields of up to
+     * {@code distanceFieldsCapacity} restaurants in memory. The field of a restaurant is built
+     * on its first order and the least recently used field is dropped when the limit is reached.
+     * Every field is as large as the map, so the fields never take more than 256 MB together: on large
+     * maps fewer fields are kept, and none if a single field does not fit, in which case every order
+     * searches only around its restaurant.
+     *
+     * @param mapLayout              the layout of the map
+     * @param distanceFieldsCapacity the maximum number of resident distance fields, 0 disables them
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public ControlCenter(char[][] mapLayout, int distanceFieldsCapacity) {
+        this(mapLayout, distanceFieldsCapacity, SearchAlgorithm.BFS);
+    }
+
+    /**
+     * Creates a control center which keeps the distance fields of up to
+     * {@code distanceFieldsCapacity} restaurants in memory and uses the given algorithm
+     * for the distance between two locations. With {@link SearchAlgorithm#A_STAR} an order
+     * without a cached distance field finds the distance to the client with A* and only
+     * searches around the restaurant for the delivery guys. {@link SearchAlgorithm#REGIONAL} does
+     * the same over the portals of map regions, which are found on startup, and
+     * {@link SearchAlgorithm#CONTRACTION_HIERARCHY} over a contraction hierarchy of the map, which
+     * is built on startup and after every edit. Large maps should use a preprocessed hierarchy instead,
+     * see {@link #ControlCenter(MapFile, ContractionHierarchy, int)}.
+     *
+     * @param mapLayout              the layout of the map
+     * @param distanceFieldsCapacity the maximum number of resident distance fields, 0 disables them
+     * @param algorithm              the algorithm for the distance between two locations
+     * @throws IllegalArgumentException if the capacity is negative or the algorithm is null
+     */
+    public ControlCenter(char[][] mapLayout, int distanceFieldsCapacity, SearchAlgorithm algorithm) {
+        this(mapLayout, distanceFieldsCapacity, algorithm, DEFAULT_RESULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates a control center which also keeps the optimal deliveries of up to {@code resultCacheCapacity}
+     * recent orders. A cached order is answered without searching until a delivery guy close enough to its
+     * restaurant to change the result moves or becomes busy or free.
+     *
+     * @param mapLayout              the layout of the map
+     * @param distanceFieldsCapacity the maximum number of resident distance fields, 0 disables them
+     * @param algorithm              the algorithm for the distance between two locations
+     * @param resultCacheCapacity    the maximum number of cached orders, 0 disables the cache
+     * @throws IllegalArgumentException if any of the capacities is negative or the algorithm is null
+     */
+    public ControlCenter(char[][] mapLayout, int distanceFieldsCapacity, SearchAlgorithm algorithm,
+                         int resultCacheCapacity) {
+        this(new Grid(mapLayout), distanceFieldsCapacity, algorithm, resultCacheCapacity);
+    }
+
+    public ControlCenter(MapFile mapFile) {
+        this(mapFile, DEFAULT_DISTANCE_FIELDS_CAPACITY, SearchAlgorithm.BFS);
+    }
+
+    /**
+     * Creates a control center over a map loaded from a {@link MapFile}. The tiles and the
+     * connected components are read from the file as they are needed instead of being built
+     * on startup.
+     *
+     * @param mapFile                the loaded map
+     * @param distanceFieldsCapacity the maximum number of resident distance fields, 0 disables them
+     * @param algorithm              the algorithm for the distance between two locations
+     * @throws IllegalArgumentException if the map file or the algorithm is null or the capacity is negative
+     */
+    public ControlCenter(MapFile mapFile, int distanceFieldsCapacity, SearchAlgorithm algorithm) {
+        this(mapFile, distanceFieldsCapacity, algorithm, DEFAULT_RESULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates a control center over a map loaded from a {@link MapFile} with a cache of the optimal
+     * deliveries of up to {@code resultCacheCapacity} recent orders.
+     *
+     * @param mapFile                the loaded map
+     * @param distanceFieldsCapacity the maximum number of resident distance fields, 0 disables them
+     * @param algorithm              the algorithm for the distance between two locations
+     * @param resultCacheCapacity    the maximum number of cached orders, 0 disables the cache
+     * @throws IllegalArgumentException if the map file or the algorithm is null or any of the capacities is negative
+     */
+    public ControlCenter(MapFile mapFile, int distanceFieldsCapacity, SearchAlgorithm algorithm,
+                         int resultCacheCapacity) {
+        this(requireMapFile(mapFile).grid(), mapFile.components(), null, distanceFieldsCapacity, algorithm,
+            resultCacheCapacity);
+    }
+
+    /**
+     * Creates a control center over a map loaded from a {@link MapFile} which uses
+     * {@link SearchAlgorithm#CONTRACTION_HIERARCHY} with a hierarchy preprocessed offline,
+     * for example loaded with {@link ContractionHierarchy#load(java.nio.file.Path)}, so nothing
+     * has to be built on startup. The hierarchy is rebuilt when the map is edited.
+     *
+     * @param mapFile                the loaded map
+     * @param hierarchy              the contraction hierarchy of the map
+     * @param distanceFieldsCapacity the maximum number of resident distance fields, 0 disables them
+     * @throws IllegalArgumentException if the map file or the hierarchy is null, the hierarchy was built
+     *                                  for a different map or the capacity is negative
+     */
+    public ControlCenter(MapFile mapFile, ContractionHierarchy hierarchy, int distanceFieldsCapacity) {
+        this(requireMapFile(mapFile).grid(), mapFile.components(), requireHierarchy(hierarchy, mapFile.grid()),
+            distanceFieldsCapacity, SearchAlgorithm.CONTRACTION_HIERARCHY, DEFAULT_RESULT_CACHE_CAPACITY);
+    }
+
+    private ControlCenter(Grid grid, int distanceFieldsCapacity, SearchAlgorithm algorithm, int resultCacheCapacity) {
+        this(grid, new ConnectedComponents(grid), null, distanceFieldsCapacity, algorithm, resultCacheCapacity);
+    }
+
+    private ControlCenter(Grid grid, ConnectedComponents components, ContractionHierarchy hierarchy,
+                          int distanceFieldsCapacity, SearchAlgorithm algorithm, int resultCacheCapacity) {
+        if (distanceFieldsCapacity < 0) {
+            throw new IllegalArgumentException("Distance fields capacity should not be negative");
+        }
+
+        if (resultCacheCapacity < 0) {
+            throw new IllegalArgumentException("Result cache capacity should not be negative");
+        }
+
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Search algorithm cannot be null");
+        }
+
+        this.algorithm = algorithm;
+        this.distanceFieldsCapacity = distanceFieldsCapacity;
+
+        regions = new RegionLayout(grid.rows(), grid.cols(), RegionOverlay.DEFAULT_REGION_SIZE);
+        snapshot = createSnapshot(0, grid, components, hierarchy);
+
+        fleet = new Fleet(grid, FLEET_BUCKET_SIZE);
+        results = resultCacheCapacity > 0 ? new ResultCache(grid, resultCacheCapacity) : null;
+    }
+
+    /**
+     * Creates a version of the map with empty caches, building the region overlay or the contraction
+     * hierarchy if it is needed.
+     *
+     * @param version    the number of the version
+     * @param grid       the tiles of the version
+     * @param components the connected components of the tiles
+     * @param hierarchy  the preprocessed contraction hierarchy of the tiles, or null to build it if needed
+     * @return the new {@link MapSnapshot}
+     */
+    private MapSnapshot createSnapshot(long version, Grid grid, ConnectedComponents components,
+                                       ContractionHierarchy hierarchy) {
+        RegionOverlay overlay = algorithm == SearchAlgorithm.REGIONAL ?
+            new RegionOverlay(grid, RegionOverlay.DEFAULT_REGION_SIZE) : null;
+
+        if (hierarchy == null && algorithm == SearchAlgorithm.CONTRACTION_HIERARCHY) {
+            hierarchy = ContractionHierarchy.build(grid);
+        }
+
+        int fieldsCapacity = distanceFieldsCapacity(distanceFieldsCapacity, grid, DISTANCE_FIELDS_BUDGET_BYTES);
+
+        return new MapSnapshot(version, grid, components, overlay, hierarchy,
+            fieldsCapacity > 0 ? new LruCache<>(fieldsCapacity) : null);
+    }
+
+    /**
+     * Returns the number of distance fields of the map which fit in the given budget, up to the requested one.
+     *
+     * @param capacity    the requested number of resident distance fields
+     * @param grid        the map of the fields
+     * @param budgetBytes the most memory the fields may take together
+     * @return the number of distance fields to keep, 0 if none should be kept
+     */
+    static int distanceFieldsCapacity(int capacity, Grid grid, long budgetBytes) {
+        return (int) Math.min(capacity, budgetBytes / Math.max(1, DistanceField.bytesOn(grid)));
+    }
+
+    private static MapFile requireMapFile(MapFile mapFile) {
+        if (mapFile == null) {
+            throw new IllegalArgumentException("Map file cannot be null");
+        }
+
+        return mapFile;
+    }
+
+    private static ContractionHierarchy requireHierarchy(ContractionHierarchy hierarchy, Grid grid) {
+        if (hierarchy == null) {
+            throw new IllegalArgumentException("Hierarchy cannot be null");
+        }
+
+        if (!hierarchy.matches(grid)) {
+            throw new IllegalArgumentException("Hierarchy was built for a different map");
+        }
+
+        return hierarchy;
+    }
+
     /**
      * Finds the optimal delivery person for a given delivery task. The method
      * selects the best delivery option based on the provided cost and time constraints.
@@ -56,7 +349,8 @@ public class ControlCenter implements ControlCenterApi {
      * @param shippingMethod     The method for shipping the delivery.
      * @return A DeliveryInfo object containing the optimal delivery guy, the total cost,
      * the total time, and the delivery type. Returns null if no valid path is found.
-     * @throws IllegalArgumentException if any of the locations or shipping method is null
+     * @throws IllegalArgumentException if any of the locations is null or outside of the map,
+     *                                  or if the shipping method is null
      * @throws UnreachableDestinationException if the client could not be reached from the restaurant
      */
     public DeliveryInfo findOptimalDeliveryGuy(Location restaurantLocation, Location clientLocation,
@@ -70,38 +364,342 @@ public class ControlCenter implements ControlCenterApi {
             throw new IllegalArgumentException("Shipping method cannot be null");
         }
 
-        int distanceFromRestaurantToClient = getDistance(layout[restaurantLocation.x()][restaurantLocation.y()],
-                                                                layout[clientLocation.x()][clientLocation.y()]);
+        long start = System.nanoTime();
+        long stamp = results != null ? results.stamp() : 0;
+        MapSnapshot map = snapshot;
+
+        if (!isInside(map.grid(), restaurantLocation) || !isInside(map.grid(), clientLocation)) {
+            throw new IllegalArgumentException("Locations should be inside of the map");
+        }
+
+        SearchContext context = acquireContext(map);
+        long expandedBefore = context.expandedTiles();
+
+        int restaurant = map.grid().index(restaurantLocation.x(), restaurantLocation.y());
+        int client = map.grid().index(clientLocation.x(), clientLocation.y());
+
+        try {
+            if (!map.components().areConnected(restaurant, client)) {
+                throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+            }
 
-        Pair<MapEntity, Integer> carDeliveryGuy = getClosestEntityTo(restaurantLocation, MapEntityType.DELIVERY_GUY_CAR);
-        Pair<MapEntity, Integer> bikeDeliveryGuy = getClosestEntityTo(restaurantLocation, MapEntityType.DELIVERY_GUY_BIKE);
+            return findOptimalDeliveryGuy(context, stamp, restaurant, client, maxPrice, maxTime, shippingMethod);
+        } finally {
+            recordOperation(DispatchOperation.FIND_OPTIMAL_DELIVERY_GUY, start, context, expandedBefore);
+        }
+    }
+
+    /**
+     * Finds the optimal delivery for an order between two connected tiles, taking it from the result
+     * cache when possible and caching it otherwise. The stamp of the cache is taken before the snapshot
+     * is read, so a result computed on a version replaced in the meantime is never cached.
+     *
+     * @param context        the search buffers of the version of the map to search
+     * @param stamp          the stamp of the result cache taken before the snapshot was read
+     * @param restaurant     the index of the restaurant's tile
+     * @param client         the index of the client's tile
+     * @param maxPrice       the maximum price allowed for the delivery, -1 for no cost constraint
+     * @param maxTime        the maximum time allowed for the delivery, -1 for no time constraint
+     * @param shippingMethod the method for shipping the delivery
+     * @return the optimal {@link DeliveryInfo}, or null if no delivery guy meets the constraints
+     * @throws UnreachableDestinationException if the client could not be reached from the restaurant
+     */
+    private DeliveryInfo findOptimalDeliveryGuy(SearchContext context, long stamp, int restaurant, int client,
+                                                double maxPrice, int maxTime, ShippingMethod shippingMethod) {
+        MapSnapshot map = context.map;
+        ResultCache.Key key = null;
+
+        if (results != null) {
+            key = new ResultCache.Key(restaurant, client, maxPrice, maxTime, shippingMethod);
+            ResultCache.Entry cached = results.get(key);
+            counters.recordResultCacheLookup(cached != null);
+
+            if (cached != null) {
+                return cached.delivery();
+            }
+        }
+
+        CandidateSelector[] selectors = map.distanceFields() != null ?
+            findWithDistanceField(context, restaurant, client, maxPrice, maxTime, shippingMethod) :
+            findWithSearch(context, restaurant, client, maxPrice, maxTime, shippingMethod);
+        DeliveryInfo delivery = findOptimalDelivery(map, selectors, maxPrice, maxTime, shippingMethod);
+
+        if (results != null) {
+            int[] radii = new int[selectors.length];
+
+            for (int type = 0; type < selectors.length; type++) {
+                radii[type] = selectors[type].radius();
+            }
+
+            results.put(key, delivery, radii, stamp);
+        }
+
+        return delivery;
+    }
+
+    /**
+     * Returns the {@link DispatchMetrics} of this control center, which are updated as orders are processed.
+     *
+     * @return the metrics of this control center
+     */
+    @Override
+    public DispatchMetrics getMetrics() {
+        return counters;
+    }
+
+    /**
+     * Records the latency of an operation and the tiles expanded by the searches it ran, and returns its
+     * search buffers to the pool.
+     *
+     * @param operation      the finished operation
+     * @param start          the value of {@link System#nanoTime()} when the operation started
+     * @param context        the search buffers of the operation
+     * @param expandedBefore the number of tiles expanded with the buffers before the operation started
+     */
+    private void recordOperation(DispatchOperation operation, long start, SearchContext context, long expandedBefore) {
+        counters.recordLatency(operation, System.nanoTime() - start);
+        counters.addTilesExpanded(context.expandedTiles() - expandedBefore);
+        releaseContext(context);
+    }
+
+    /**
+     * Takes free search buffers for the given version of the map from the pool, dropping the buffers of
+     * older versions, or creates new ones if there are none.
+     *
+     * @param map the version of the map
+     * @return the {@link SearchContext} of the operation, to be returned with {@link #releaseContext(SearchContext)}
+     */
+    private SearchContext acquireContext(MapSnapshot map) {
+        SearchContext context;
+
+        while ((context = searchContexts.poll()) != null && context.map != map) {
+            if (context.map == snapshot) {
+                searchContexts.offer(context);
+                break;
+            }
+        }
+
+        return context != null && context.map == map ? context : new SearchContext(map, algorithm);
+    }
+
+    /**
+     * Returns search buffers to the pool, unless the map was edited since they were created.
+     *
+     * @param context the search buffers of a finished operation
+     */
+    private void releaseContext(SearchContext context) {
+        if (context.map == snapshot) {
+            searchContexts.offer(context);
+        }
+    }
+
+    /**
+     * Marks the search buffers of an operation as used by a search, counting the searches which reuse
+     * the buffers of an earlier one instead of allocating new ones.
+     *
+     * @param context the search buffers of the operation
+     * @return the same {@link SearchContext}
+     */
+    private SearchContext searchWith(SearchContext context) {
+        if (context.used) {
+            counters.recordReusedSearchBuffers();
+        }
+
+        context.used = true;
+        return context;
+    }
+
+    /**
+     * Finds the optimal delivery using the precomputed distance field of the restaurant,
+     * so every distance needed for the order is a single lookup. The delivery guys of each type
+     * are considered in order of their distance until no farther one can make a better delivery.
+     *
+     * @param context        the search buffers of the version of the map to search
+     * @param restaurant     the index of the restaurant's tile
+     * @param client         the index of the client's tile
+     * @param maxPrice       the maximum price allowed for the delivery, -1 for no cost constraint
+     * @param maxTime        the maximum time allowed for the delivery, -1 for no time constraint
+     * @param shippingMethod the method for shipping the delivery
+     * @return the selectors of the delivery types, indexed by their ordinal
+     * @throws UnreachableDestinationException if the client could not be reached from the restaurant
+     */
+    private CandidateSelector[] findWithDistanceField(SearchContext context, int restaurant, int client,
+                                               double maxPrice, int maxTime, ShippingMethod shippingMethod) {
+        MapSnapshot map = context.map;
+        DistanceField field = getDistanceField(context, restaurant);
+
+        int distanceFromRestaurantToClient = field.distanceTo(client);
+
+        if (distanceFromRestaurantToClient == GridSearch.NOT_FOUND) {
+            throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+        }
+
+        CandidateSelector[] selectors = createSelectors(map, maxPrice, maxTime, shippingMethod);
+
+        for (CandidateSelector selector : selectors) {
+            selector.setClient(distanceFromRestaurantToClient, field.hopsTo(client));
+            fleet.forEachFree(selector.type(), field, deliveryGuy ->
+                selector.offer(deliveryGuy, field.distanceTo(deliveryGuy), field.hopsTo(deliveryGuy)));
+        }
+
+        return selectors;
+    }
+
+    /**
+     * Finds the optimal delivery with a single search from the restaurant, which offers the free
+     * delivery guys it reaches in order of their distance and stops once the client is found and
+     * no farther delivery guy can make a better delivery. Every settled tile is passed to the selectors,
+     * so they are done as soon as the search leaves the distance of their best delivery guy. With A* and the regional search the distance
+     * to the client is found separately and the search looks only for the delivery guys.
+     *
+     * @param context        the search buffers of the version of the map to search
+     * @param restaurant     the index of the restaurant's tile
+     * @param client         the index of the client's tile
+     * @param maxPrice       the maximum price allowed for the delivery, -1 for no cost constraint
+     * @param maxTime        the maximum time allowed for the delivery, -1 for no time constraint
+     * @param shippingMethod the method for shipping the delivery
+     * @return the selectors of the delivery types, indexed by their ordinal
+     * @throws UnreachableDestinationException if the client could not be reached from the restaurant
+     */
+    private CandidateSelector[] findWithSearch(SearchContext context, int restaurant, int client,
+                                        double maxPrice, int maxTime, ShippingMethod shippingMethod) {
+        MapSnapshot map = context.map;
+        GridSearch search = searchWith(context).search;
+        CandidateSelector[] selectors = createSelectors(map, maxPrice, maxTime, shippingMethod);
+
+        if (algorithm != SearchAlgorithm.BFS) {
+            int distanceFromRestaurantToClient = context.distance(restaurant, client);
+
+            if (distanceFromRestaurantToClient == GridSearch.NOT_FOUND) {
+                throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+            }
+
+            for (CandidateSelector selector : selectors) {
+                selector.setClient(distanceFromRestaurantToClient, context.hopsTo(client));
+            }
+        }
+
+        search.explore(restaurant, index -> {
+            boolean searching = false;
+
+            for (CandidateSelector selector : selectors) {
+                if (index == client && algorithm == SearchAlgorithm.BFS) {
+                    selector.setClient(search.distanceTo(client), search.hopsTo(client));
+                }
+
+                selector.passed(search.distanceTo(index));
+
+                if (!selector.isDone() && fleet.hasFree(selector.type().ordinal(), index)) {
+                    selector.offer(index, search.distanceTo(index), search.hopsTo(index));
+                }
+
+                searching |= !selector.isDone();
+            }
+
+            return searching;
+        });
+
+        if (search.distanceTo(client) == GridSearch.NOT_FOUND && algorithm == SearchAlgorithm.BFS) {
+            throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+        }
+
+        return selectors;
+    }
+
+    /**
+     * Creates a candidate selector for every delivery type.
+     *
+     * @param map            the version of the map to search
+     * @param maxPrice       the maximum price allowed for the delivery, -1 for no cost constraint
+     * @param maxTime        the maximum time allowed for the delivery, -1 for no time constraint
+     * @param shippingMethod the method for shipping the delivery
+     * @return the selectors, indexed by the ordinal of the delivery type
+     */
+    private CandidateSelector[] createSelectors(MapSnapshot map, double maxPrice, int maxTime,
+                                                ShippingMethod shippingMethod) {
+        CandidateSelector[] selectors = new CandidateSelector[DELIVERY_TYPES.length];
+
+        for (DeliveryType type : DELIVERY_TYPES) {
+            selectors[type.ordinal()] = new CandidateSelector(type, maxPrice, maxTime, shippingMethod,
+                map.grid().maxCost());
+        }
+
+        return selectors;
+    }
+
+    /**
+     * Finds the optimal delivery among the best delivery guys of each type.
+     *
+     * @param map            the version of the map which was searched
+     * @param selectors      the selectors of the delivery types, indexed by their ordinal
+     * @param maxPrice       the maximum price allowed for the delivery, -1 for no cost constraint
+     * @param maxTime        the maximum time allowed for the delivery, -1 for no time constraint
+     * @param shippingMethod the method for shipping the delivery
+     * @return the optimal {@link DeliveryInfo}, or null if no delivery guy meets the constraints
+     */
+    private DeliveryInfo findOptimalDelivery(MapSnapshot map, CandidateSelector[] selectors,
+                                             double maxPrice, int maxTime, ShippingMethod shippingMethod) {
+        return findOptimalDelivery(deliveryOf(map.grid(), selectors[DeliveryType.CAR.ordinal()]),
+            deliveryOf(map.grid(), selectors[DeliveryType.BIKE.ordinal()]), maxPrice, maxTime, shippingMethod);
+    }
 
-        if (carDeliveryGuy == null && bikeDeliveryGuy == null) {
+    private DeliveryInfo deliveryOf(Grid grid, CandidateSelector selector) {
+        if (selector.best() == CandidateSelector.NONE) {
             return null;
         }
 
-        DeliveryInfo carDelivery = carDeliveryGuy != null ? calculateDeliveryInfo(carDeliveryGuy, distanceFromRestaurantToClient, DeliveryType.CAR) : null;
-        DeliveryInfo bikeDelivery = bikeDeliveryGuy != null ? calculateDeliveryInfo(bikeDeliveryGuy, distanceFromRestaurantToClient, DeliveryType.BIKE) : null;
+        return new DeliveryInfo(new Location(grid.rowOf(selector.best()), grid.colOf(selector.best())),
+            selector.bestPrice(), selector.bestTime(), selector.type());
+    }
+
+    /**
+     * Returns the distance field of the given restaurant, building it on first use.
+     * The field is built outside of the cache lock, so concurrent orders from other
+     * restaurants are not blocked while it is computed.
+     *
+     * @param context    the search buffers of the version of the map the field is built on
+     * @param restaurant the index of the restaurant's tile
+     * @return the {@link DistanceField} of the restaurant
+     */
+    private DistanceField getDistanceField(SearchContext context, int restaurant) {
+        LruCache<Integer, DistanceField> distanceFields = context.map.distanceFields();
+        DistanceField field;
+
+        synchronized (distanceFields) {
+            field = distanceFields.get(restaurant);
+        }
 
-        return findOptimalDelivery(carDelivery, bikeDelivery, maxPrice, maxTime, shippingMethod);
+        counters.recordDistanceFieldLookup(field != null);
+
+        if (field == null) {
+            field = searchWith(context).search.distanceField(restaurant);
+
+            synchronized (distanceFields) {
+                distanceFields.put(restaurant, field);
+            }
+        }
+
+        return field;
     }
 
     /**
-     * Calculates the delivery information based on the delivery guy's distance to restaurant,
-     * the distance from the restaurant to the client, and the type of delivery.
+     * Calculates the delivery information of a route from the delivery guy through the restaurant
+     * to the client. The price depends on the length of the route and the time on its cost, which
+     * is longer than its length on roads with a traversal cost above {@value Grid#DEFAULT_COST}.
      *
-     * @param deliveryGuy a Pair containing the delivery person's MapEntity
-     *                    and the distance to the restaurant (in kilometers)
-     * @param distanceFromRestToClient the distance from the restaurant to the client (in kilometers)
-     * @param type the {@link DeliveryType} indicating the pricing and time calculation rules
+     * @param grid        the map of the delivery
+     * @param deliveryGuy the index of the delivery guy's tile in the grid
+     * @param kilometers  the length of the whole route (in kilometers)
+     * @param cost        the traversal cost of the whole route
+     * @param type        the {@link DeliveryType} indicating the pricing and time calculation rules
      * @return a {@link DeliveryInfo} object containing the starting location of the delivery,
      *         the total price, the total time, and the delivery type
      */
-    private DeliveryInfo calculateDeliveryInfo(Pair<MapEntity, Integer> deliveryGuy, int distanceFromRestToClient, DeliveryType type) {
-        int totalDistance = deliveryGuy.snd + distanceFromRestToClient;
-        int totalPrice = totalDistance * type.getPricePerKM();
-        int totalTime = totalDistance * type.getTimePerKM();
-        return new DeliveryInfo(deliveryGuy.fst.location(), totalPrice, totalTime, type);
+    private DeliveryInfo calculateDeliveryInfo(Grid grid, int deliveryGuy, int kilometers, int cost, DeliveryType type) {
+        int totalPrice = kilometers * type.getPricePerKM();
+        int totalTime = cost * type.getTimePerKM();
+        return new DeliveryInfo(new Location(grid.rowOf(deliveryGuy), grid.colOf(deliveryGuy)),
+            totalPrice, totalTime, type);
     }
 
     /**
@@ -120,15 +718,11 @@ public class ControlCenter implements ControlCenterApi {
     private DeliveryInfo findOptimalDelivery(DeliveryInfo carDelivery, DeliveryInfo bikeDelivery,
                                              double maxPrice, int maxTime, ShippingMethod method) {
 
-        if (carDelivery != null &&
-            ((maxPrice != -1 && carDelivery.price() > maxPrice) ||
-                (maxTime != -1 && carDelivery.estimatedTime() > maxTime))) {
+        if (carDelivery != null && exceedsLimits(carDelivery.price(), carDelivery.estimatedTime(), maxPrice, maxTime)) {
             carDelivery = null;
         }
 
-        if (bikeDelivery != null &&
-            ((maxPrice != -1 && bikeDelivery.price() > maxPrice) ||
-                (maxTime != -1 && bikeDelivery.estimatedTime() > maxTime))) {
+        if (bikeDelivery != null && exceedsLimits(bikeDelivery.price(), bikeDelivery.estimatedTime(), maxPrice, maxTime)) {
             bikeDelivery = null;
         }
 
@@ -143,126 +737,662 @@ public class ControlCenter implements ControlCenterApi {
     }
 
     /**
-     * Calculates the shortest distance in kilometers between two map entities using
-     * a breadth-first search (BFS) algorithm.
+     * Checks whether a delivery with the given price and time violates the constraints of an order.
+     *
+     * @param price    the price of the delivery
+     * @param time     the estimated time of the delivery
+     * @param maxPrice the maximum acceptable price for the delivery; if -1, price is not limited
+     * @param maxTime  the maximum acceptable time for the delivery; if -1, time is not limited
+     * @return {@code true} if the delivery is too expensive or too slow, {@code false} otherwise
+     */
+    private boolean exceedsLimits(double price, int time, double maxPrice, int maxTime) {
+        return (maxPrice != -1 && price > maxPrice) || (maxTime != -1 && time > maxTime);
+    }
+
+    /**
+     * Assigns distinct delivery guys to a batch of pending orders, so that no delivery guy
+     * is given two orders at the same time. The cost of every order - delivery guy pair is read from
+     * the distance field of the order's restaurant. Batches of up to {@value #HUNGARIAN_MAX_ORDERS} orders
+     * are solved optimally with the Hungarian algorithm and larger ones greedily.
+     *
+     * @param requests  The pending orders.
+     * @param objective CHEAPEST to minimize the total price, FASTEST to minimize the total time.
+     * @return A List with the DeliveryInfo of each order, in the order of the given requests. An element
+     * is null if no delivery guy could be assigned to the corresponding order, including when the client
+     * cannot be reached from the restaurant.
+     * @throws IllegalArgumentException if the requests or the objective is null, or any of the locations is null
+     *                                  or outside of the map
+     */
+    @Override
+    public List<DeliveryInfo> assignDeliveryGuys(List<DeliveryRequest> requests, ShippingMethod objective) {
+        if (requests == null || objective == null) {
+            throw new IllegalArgumentException("Requests and objective cannot be null");
+        }
+
+        long start = System.nanoTime();
+        MapSnapshot map = snapshot;
+        SearchContext context = acquireContext(map);
+        long expandedBefore = context.expandedTiles();
+
+        try {
+            return assign(context, requests, objective);
+        } finally {
+            recordOperation(DispatchOperation.ASSIGN_DELIVERY_GUYS, start, context, expandedBefore);
+        }
+    }
+
+    /**
+     * Assigns distinct delivery guys to a batch of pending orders, see {@link #assignDeliveryGuys(List, ShippingMethod)}.
      *
-     * @param from the starting {@link MapEntity} from which the search begins
-     * @param to the target {@link MapEntity} to which the distance is calculated
-     * @return the shortest distance (in kilometers) between the two entities, or -1
-     *         if the target cannot be reached from the starting point
+     * @param context   the search buffers of the version of the map to search
+     * @param requests  the pending orders
+     * @param objective CHEAPEST to minimize the total price, FASTEST to minimize the total time
+     * @return the DeliveryInfo of each order, in the order of the given requests, null for unassigned orders
+     * @throws IllegalArgumentException if any of the requests or their locations is null or outside of the map
      */
-    private int getDistance(MapEntity from, MapEntity to) {
-        Set<MapEntity> visited = new HashSet<>();
-        Queue<Pair<MapEntity, Integer>> toVisit = new ArrayDeque<>();
+    private List<DeliveryInfo> assign(SearchContext context, List<DeliveryRequest> requests, ShippingMethod objective) {
+        Grid grid = context.map.grid();
+        int[] carDeliveryGuys = fleet.freeLocations(DeliveryType.CAR);
+        int[] bikeDeliveryGuys = fleet.freeLocations(DeliveryType.BIKE);
+        int[] deliveryGuys = new int[carDeliveryGuys.length + bikeDeliveryGuys.length];
+        System.arraycopy(carDeliveryGuys, 0, deliveryGuys, 0, carDeliveryGuys.length);
+        System.arraycopy(bikeDeliveryGuys, 0, deliveryGuys, carDeliveryGuys.length, bikeDeliveryGuys.length);
 
-        toVisit.add(new Pair<>(from, 0));
+        Map<Integer, DistanceField> fields = new HashMap<>();
+        DistanceField[] orderFields = new DistanceField[requests.size()];
+        double[][] costs = new double[requests.size()][];
 
-        while (!toVisit.isEmpty()) {
-            Pair<MapEntity, Integer> curr = toVisit.poll();
+        for (int order = 0; order < requests.size(); order++) {
+            DeliveryRequest request = requests.get(order);
 
-            if (curr.fst == to) {
-                return curr.snd;
+            if (request == null || !isInside(grid, request.restaurantLocation()) ||
+                !isInside(grid, request.clientLocation())) {
+                throw new IllegalArgumentException("Requests and their locations should be inside of the map");
             }
 
-            if (!visited.contains(curr.fst)) {
-                Set<MapEntity> neighbours = getValidNeighboursOf(curr.fst);
+            int restaurant = grid.index(request.restaurantLocation().x(), request.restaurantLocation().y());
+            orderFields[order] = fields.computeIfAbsent(restaurant, tile -> distanceFieldOf(context, tile));
+            costs[order] = calculateCosts(grid, request, orderFields[order], deliveryGuys, carDeliveryGuys.length,
+                objective);
+        }
 
-                for (MapEntity neighbour : neighbours) {
-                    toVisit.add(new Pair<>(neighbour, curr.snd + 1));
-                }
+        int[] assignment = (requests.size() <= HUNGARIAN_MAX_ORDERS ? HUNGARIAN_SOLVER : GREEDY_SOLVER).solve(costs);
 
-                visited.add(curr.fst);
+        List<DeliveryInfo> result = new ArrayList<>(requests.size());
+
+        for (int order = 0; order < requests.size(); order++) {
+            if (assignment[order] == AssignmentSolver.UNASSIGNED) {
+                result.add(null);
+                continue;
             }
+
+            DeliveryRequest request = requests.get(order);
+            int deliveryGuy = deliveryGuys[assignment[order]];
+            int client = grid.index(request.clientLocation().x(), request.clientLocation().y());
+
+            result.add(calculateDeliveryInfo(grid, deliveryGuy,
+                orderFields[order].hopsTo(deliveryGuy) + orderFields[order].hopsTo(client),
+                orderFields[order].distanceTo(deliveryGuy) + orderFields[order].distanceTo(client),
+                assignment[order] < carDeliveryGuys.length ? DeliveryType.CAR : DeliveryType.BIKE));
         }
 
-        throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+        return result;
     }
 
     /**
-     * Finds the closest map entity of a specific type to a given location using
-     * a breadth-first search (BFS) algorithm.
+     * Calculates the cost of assigning each delivery guy to the given order.
      *
-     * @param location the {@link Location} from which the search begins
-     * @param ofType the {@link MapEntityType} specifying the type of entity to find
-     * @return a {@link Pair} containing the closest {@link MapEntity} of the specified type
-     *         and the distance (in kilometers) to it, or null if no such entity is reachable
+     * @param grid         the map of the order
+     * @param request      the pending order
+     * @param field        the distance field of the order's restaurant
+     * @param deliveryGuys the indexes of the tiles of all free delivery guys, cars first
+     * @param cars         the number of delivery guys with a car
+     * @param objective    CHEAPEST to use the price as cost, FASTEST to use the time
+     * @return the cost of every delivery guy, {@link AssignmentSolver#INFEASIBLE} for delivery guys
+     *         which cannot complete the order within its constraints
      */
-    private Pair<MapEntity, Integer> getClosestEntityTo(Location location, MapEntityType ofType) {
+    private double[] calculateCosts(Grid grid, DeliveryRequest request, DistanceField field,
+                                    int[] deliveryGuys, int cars, ShippingMethod objective) {
+        double[] costs = new double[deliveryGuys.length];
+        Arrays.fill(costs, AssignmentSolver.INFEASIBLE);
 
-        Set<MapEntity> visited = new HashSet<>();
-        Queue<Pair<MapEntity, Integer>> toVisit = new ArrayDeque<>();
+        int client = grid.index(request.clientLocation().x(), request.clientLocation().y());
+        int distanceToClient = field.distanceTo(client);
 
-        toVisit.add(new Pair<>(layout[location.x()][location.y()], 0));
+        if (distanceToClient == GridSearch.NOT_FOUND) {
+            return costs;
+        }
+
+        int kilometersToClient = field.hopsTo(client);
 
-        while (!toVisit.isEmpty()) {
-            Pair<MapEntity, Integer> curr = toVisit.poll();
+        for (int i = 0; i < deliveryGuys.length; i++) {
+            int distanceToRestaurant = field.distanceTo(deliveryGuys[i]);
 
-            if (curr.fst.type() == ofType) {
-                return curr;
+            if (distanceToRestaurant == GridSearch.NOT_FOUND) {
+                continue;
             }
 
-            if (!visited.contains(curr.fst)) {
-                Set<MapEntity> neighbours =  getValidNeighboursOf(curr.fst());
+            DeliveryType type = i < cars ? DeliveryType.CAR : DeliveryType.BIKE;
+            int price = (field.hopsTo(deliveryGuys[i]) + kilometersToClient) * type.getPricePerKM();
+            int time = (distanceToRestaurant + distanceToClient) * type.getTimePerKM();
 
-                for (MapEntity neighbour : neighbours) {
-                    toVisit.add(new Pair<>(neighbour, curr.snd + 1));
-                }
+            if (!exceedsLimits(price, time, request.maxPrice(), request.maxTime())) {
+                costs[i] = objective == ShippingMethod.CHEAPEST ? price : time;
+            }
+        }
+
+        return costs;
+    }
+
+    /**
+     * Returns the distance field of the given restaurant, taking it from the cache when
+     * distance fields are enabled and building a temporary one otherwise.
+     *
+     * @param context    the search buffers of the version of the map the field is built on
+     * @param restaurant the index of the restaurant's tile
+     * @return the {@link DistanceField} of the restaurant
+     */
+    private DistanceField distanceFieldOf(SearchContext context, int restaurant) {
+        if (context.map.distanceFields() != null) {
+            return getDistanceField(context, restaurant);
+        }
+
+        return searchWith(context).search.distanceField(restaurant);
+    }
+
+    /**
+     * Plans the route of a single delivery guy who carries several orders at once. The route starts at the
+     * delivery guy, picks up every order at its restaurant before dropping it off at its client and visits
+     * the stops in the order which keeps the total time low, see {@link RoutePlanner}. The distances between
+     * the stops are read from their distance fields, which are cached like the ones of the restaurants.
+     * The delivery guy may be busy, so orders can be added to a route in progress by planning from the
+     * current location. The price and time limits of the requests are not applied to a shared route;
+     * the estimated time of every stop can be checked against them instead.
+     *
+     * @param deliveryGuyId the id of the delivery guy
+     * @param requests      the orders to carry
+     * @return the {@link RoutePlan} of the delivery guy
+     * @throws IllegalArgumentException if the requests, any of their locations is null or outside of the map,
+     *                                  or if there is no delivery guy with the given id
+     * @throws UnreachableDestinationException if any of the stops cannot be reached by the delivery guy
+     */
+    @Override
+    public RoutePlan planRoute(int deliveryGuyId, List<DeliveryRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Requests cannot be null");
+        }
+
+        long start = System.nanoTime();
+        MapSnapshot map = snapshot;
+        SearchContext context = acquireContext(map);
+        long expandedBefore = context.expandedTiles();
+
+        try {
+            return planRoute(context, fleet.locationOf(deliveryGuyId), fleet.typeOf(deliveryGuyId), requests);
+        } finally {
+            recordOperation(DispatchOperation.PLAN_ROUTE, start, context, expandedBefore);
+        }
+    }
+
+    /**
+     * Plans the route of a delivery guy through the stops of the given orders,
+     * see {@link #planRoute(int, List)}.
+     *
+     * @param context     the search buffers of the version of the map to search
+     * @param deliveryGuy the index of the tile of the delivery guy
+     * @param type        the type of the delivery guy
+     * @param requests    the orders to carry
+     * @return the {@link RoutePlan} of the delivery guy
+     * @throws IllegalArgumentException if any of the requests or their locations is null or outside of the map
+     * @throws UnreachableDestinationException if any of the stops cannot be reached by the delivery guy
+     */
+    private RoutePlan planRoute(SearchContext context, int deliveryGuy, DeliveryType type,
+                                List<DeliveryRequest> requests) {
+        MapSnapshot map = context.map;
+        Grid grid = map.grid();
+        int[] tiles = new int[1 + 2 * requests.size()];
+        tiles[RoutePlanner.START] = deliveryGuy;
+
+        for (int order = 0; order < requests.size(); order++) {
+            DeliveryRequest request = requests.get(order);
+
+            if (request == null || !isInside(grid, request.restaurantLocation()) ||
+                !isInside(grid, request.clientLocation())) {
+                throw new IllegalArgumentException("Requests and their locations should be inside of the map");
+            }
+
+            tiles[RoutePlanner.pickupOf(order)] =
+                grid.index(request.restaurantLocation().x(), request.restaurantLocation().y());
+            tiles[RoutePlanner.dropOffOf(order)] =
+                grid.index(request.clientLocation().x(), request.clientLocation().y());
+        }
+
+        for (int tile : tiles) {
+            if (!map.components().areConnected(deliveryGuy, tile)) {
+                throw new UnreachableDestinationException("Stop could not be reached by the delivery guy");
+            }
+        }
+
+        long[][] costs = calculateRouteCosts(context, tiles);
+        int[] route = ROUTE_PLANNER.plan(costs);
+
+        List<RouteStop> stops = new ArrayList<>(route.length);
+        int previous = RoutePlanner.START;
+        int kilometers = 0;
+        int cost = 0;
+
+        for (int stop : route) {
+            kilometers += routeHops(costs[previous][stop]);
+            cost += routeCost(costs[previous][stop]);
+            previous = stop;
+
+            stops.add(new RouteStop(new Location(grid.rowOf(tiles[stop]), grid.colOf(tiles[stop])),
+                RoutePlanner.isPickup(stop) ? RouteStopType.PICKUP : RouteStopType.DROP_OFF,
+                RoutePlanner.orderOf(stop), cost * type.getTimePerKM()));
+        }
+
+        return new RoutePlan(new Location(grid.rowOf(deliveryGuy), grid.colOf(deliveryGuy)), stops,
+            kilometers * type.getPricePerKM(), cost * type.getTimePerKM(), type);
+    }
+
+    /**
+     * Calculates the cost of travelling between every two stops of a route. A cost packs the traversal cost
+     * of the route in the upper 32 bits and its length in the lower ones, so the planner prefers the shorter
+     * of two equally fast routes. The map is undirected, so a single distance field per stop is enough.
+     *
+     * @param context the search buffers of the version of the map to search
+     * @param tiles   the tile of every stop, the delivery guy first
+     * @return the cost matrix of the stops
+     */
+    private long[][] calculateRouteCosts(SearchContext context, int[] tiles) {
+        long[][] costs = new long[tiles.length][tiles.length];
+        Map<Integer, DistanceField> fields = new HashMap<>();
+
+        for (int to = 1; to < tiles.length; to++) {
+            DistanceField field = fields.computeIfAbsent(tiles[to], tile -> distanceFieldOf(context, tile));
+
+            for (int from = 0; from < tiles.length; from++) {
+                costs[from][to] = ((long) field.distanceTo(tiles[from]) << Integer.SIZE) | field.hopsTo(tiles[from]);
+            }
+
+            costs[to][RoutePlanner.START] = costs[RoutePlanner.START][to];
+        }
+
+        return costs;
+    }
+
+    private static int routeCost(long weight) {
+        return (int) (weight >>> Integer.SIZE);
+    }
+
+    private static int routeHops(long weight) {
+        return (int) weight;
+    }
+
+    private static boolean isInside(Grid grid, Location location) {
+        return location != null && grid.contains(location.x(), location.y());
+    }
+
+    /**
+     * Calculates the distance in kilometers between two locations with the configured
+     * {@link SearchAlgorithm}. Locations in different connected components are rejected without searching.
+     * On maps with weighted roads this is the length of the fastest route, which may be longer than
+     * the shortest one.
+     *
+     * @param from the starting location
+     * @param to   the target location
+     * @return the distance (in kilometers) between the two locations
+     * @throws IllegalArgumentException if any of the locations is null or outside of the map
+     * @throws UnreachableDestinationException if the target cannot be reached from the starting point
+     */
+    @Override
+    public int getDistance(Location from, Location to) {
+        MapSnapshot map = snapshot;
+        Grid grid = map.grid();
+
+        if (from == null || to == null || !grid.contains(from.x(), from.y()) || !grid.contains(to.x(), to.y())) {
+            throw new IllegalArgumentException("Locations should be inside of the map");
+        }
+
+        int start = grid.index(from.x(), from.y());
+        int target = grid.index(to.x(), to.y());
+
+        if (start != target && !map.components().areConnected(start, target)) {
+            throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+        }
 
-                visited.add(curr.fst);
+        long startTime = System.nanoTime();
+        SearchContext context = searchWith(acquireContext(map));
+        long expandedBefore = context.expandedTiles();
+
+        try {
+            context.distance(start, target);
+            return context.hopsTo(target);
+        } finally {
+            recordOperation(DispatchOperation.GET_DISTANCE, startTime, context, expandedBefore);
+        }
+    }
+
+    /**
+     * Finds the route between two locations. The route is rebuilt from the moves recorded by a search,
+     * or from the cached distance field of either location if there is one, so no object is created per tile.
+     * Like {@link #getDistance(Location, Location)} it is the fastest route with the fewest moves, but it is
+     * always found with a full search instead of the configured {@link SearchAlgorithm}.
+     *
+     * @param from the starting location
+     * @param to   the target location
+     * @return the {@link Route} between the two locations
+     * @throws IllegalArgumentException if any of the locations is null or outside of the map
+     * @throws UnreachableDestinationException if the target cannot be reached from the starting point
+     */
+    @Override
+    public Route findRoute(Location from, Location to) {
+        MapSnapshot map = snapshot;
+        Grid grid = map.grid();
+
+        if (!isInside(grid, from) || !isInside(grid, to)) {
+            throw new IllegalArgumentException("Locations should be inside of the map");
+        }
+
+        int start = grid.index(from.x(), from.y());
+        int target = grid.index(to.x(), to.y());
+
+        if (start != target && !map.components().areConnected(start, target)) {
+            throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+        }
+
+        long startTime = System.nanoTime();
+        SearchContext context = searchWith(acquireContext(map));
+        long expandedBefore = context.expandedTiles();
+
+        try {
+            Route route = cachedRoute(map, start, target);
+
+            if (route != null) {
+                return route;
+            }
+
+            context.search.distance(start, target);
+            return context.search.routeTo(target);
+        } finally {
+            recordOperation(DispatchOperation.FIND_ROUTE, startTime, context, expandedBefore);
+        }
+    }
+
+    /**
+     * Rebuilds a route from a cached distance field of one of its ends, without building a new field.
+     * The map is undirected, so the field of the start gives the reversed route.
+     *
+     * @param map    the version of the map
+     * @param start  the index of the starting tile
+     * @param target the index of the target tile
+     * @return the {@link Route} between the tiles, or null if neither of them has a cached field
+     */
+    private Route cachedRoute(MapSnapshot map, int start, int target) {
+        LruCache<Integer, DistanceField> distanceFields = map.distanceFields();
+
+        if (distanceFields == null) {
+            return null;
+        }
+
+        DistanceField toField;
+        DistanceField fromField;
+
+        synchronized (distanceFields) {
+            toField = distanceFields.get(target);
+            fromField = toField == null ? distanceFields.get(start) : null;
+        }
+
+        if (toField != null) {
+            return toField.routeFrom(map.grid(), start);
+        }
+
+        return fromField != null ? fromField.routeFrom(map.grid(), target).reversed() : null;
+    }
+
+    /**
+     * Finds the route of a delivery through the restaurant. Both legs are rebuilt from a single search from
+     * the restaurant: its distance field when the fields are cached, otherwise a search which stops once
+     * the delivery guy and the client are reached. The legs are the same as the ones priced by
+     * {@link #findOptimalDeliveryGuy(Location, Location, double, int, ShippingMethod)}.
+     *
+     * @param deliveryGuyLocation the location of the delivery guy
+     * @param restaurantLocation  the location of the restaurant
+     * @param clientLocation      the location of the client
+     * @return the {@link Route} from the delivery guy through the restaurant to the client
+     * @throws IllegalArgumentException if any of the locations is null or outside of the map
+     * @throws UnreachableDestinationException if the restaurant or the client cannot be reached
+     */
+    @Override
+    public Route getDeliveryRoute(Location deliveryGuyLocation, Location restaurantLocation,
+                                  Location clientLocation) {
+        MapSnapshot map = snapshot;
+        Grid grid = map.grid();
+
+        if (!isInside(grid, deliveryGuyLocation) || !isInside(grid, restaurantLocation) ||
+            !isInside(grid, clientLocation)) {
+            throw new IllegalArgumentException("Locations should be inside of the map");
+        }
+
+        int deliveryGuy = grid.index(deliveryGuyLocation.x(), deliveryGuyLocation.y());
+        int restaurant = grid.index(restaurantLocation.x(), restaurantLocation.y());
+        int client = grid.index(clientLocation.x(), clientLocation.y());
+
+        if (!map.components().areConnected(restaurant, deliveryGuy) ||
+            !map.components().areConnected(restaurant, client)) {
+            throw new UnreachableDestinationException("Destination could not be reached from the given starting point");
+        }
+
+        long startTime = System.nanoTime();
+        SearchContext context = acquireContext(map);
+        long expandedBefore = context.expandedTiles();
+
+        try {
+            if (map.distanceFields() != null) {
+                DistanceField field = getDistanceField(context, restaurant);
+                return field.routeFrom(grid, deliveryGuy).then(field.routeFrom(grid, client).reversed());
             }
+
+            GridSearch search = searchWith(context).search;
+            int[] pending = {deliveryGuy == client ? 1 : 2};
+
+            search.explore(restaurant, index -> (index != deliveryGuy && index != client) || --pending[0] > 0);
+            return search.routeTo(deliveryGuy).reversed().then(search.routeTo(client));
+        } finally {
+            recordOperation(DispatchOperation.FIND_ROUTE, startTime, context, expandedBefore);
+        }
+    }
+
+    /**
+     * Returns the region of the map which the location belongs to. The map is split into squares of
+     * {@value RegionOverlay#DEFAULT_REGION_SIZE} x {@value RegionOverlay#DEFAULT_REGION_SIZE} tiles,
+     * which are the regions of the overlay with {@link SearchAlgorithm#REGIONAL}.
+     *
+     * @param location the location
+     * @return the index of the region of the location
+     * @throws IllegalArgumentException if the location is null or outside of the map
+     */
+    @Override
+    public int getRegion(Location location) {
+        if (location == null || !snapshot.grid().contains(location.x(), location.y())) {
+            throw new IllegalArgumentException("Location should be inside of the map");
         }
 
-        return null;
+        return regions.regionOf(location.x(), location.y());
+    }
+
+    @Override
+    public int getDeliveryGuyId(Location location, DeliveryType type) {
+        if (location == null || type == null) {
+            throw new IllegalArgumentException("Location and type cannot be null");
+        }
+
+        Grid grid = snapshot.grid();
+
+        if (!grid.contains(location.x(), location.y())) {
+            return Fleet.NOT_FOUND;
+        }
+
+        return fleet.idAt(grid.index(location.x(), location.y()), type);
+    }
+
+    @Override
+    public int getDeliveryGuyCount() {
+        return fleet.size();
     }
 
     /**
-     * Retrieves all valid neighboring map entities adjacent to the given map entity.
-     * A neighbor is considered valid if it is within the bounds of the layout and
-     * passes the {@link #isValidNeighbour(int, int)} check.
+     * Moves a delivery guy to a new location without rebuilding the map. The entities returned
+     * by {@link #getMapEntity(Location)} show a road tile as a delivery guy while someone stands on it.
+     * The cached orders which the move may affect are dropped.
      *
-     * @param tile the {@link MapEntity} whose valid neighbors are to be found
-     * @return a {@link Set} of valid neighboring {@link MapEntity} objects
+     * @param id       the id of the delivery guy
+     * @param location the new location of the delivery guy
+     * @throws IllegalArgumentException if the location is null, outside of the map or a wall,
+     *                                  or if there is no delivery guy with the given id
      */
-    private Set<MapEntity> getValidNeighboursOf(MapEntity tile) {
-        Set<MapEntity> neighbours = new HashSet<>();
+    @Override
+    public void moveDeliveryGuy(int id, Location location) {
+        Grid grid = snapshot.grid();
+
+        if (location == null || !grid.contains(location.x(), location.y())) {
+            throw new IllegalArgumentException("Location should be inside of the map");
+        }
 
-        int rowIndex = tile.location().x();
-        int colIndex = tile.location().y();
+        int from = fleet.locationOf(id);
+        int to = grid.index(location.x(), location.y());
 
-        if (rowIndex - 1 >= 0 && isValidNeighbour(rowIndex - 1, colIndex)) {
-            neighbours.add(layout[rowIndex - 1][colIndex]);
+        if (fleet.move(id, to) && results != null) {
+            results.invalidate(from, fleet.typeOf(id));
+            results.invalidate(to, fleet.typeOf(id));
+        }
+    }
+
+    /**
+     * Marks a delivery guy as busy or free. The cached orders which the change may affect are dropped.
+     *
+     * @param id   the id of the delivery guy
+     * @param busy whether the delivery guy is busy
+     * @throws IllegalArgumentException if there is no delivery guy with the given id
+     */
+    @Override
+    public void setDeliveryGuyBusy(int id, boolean busy) {
+        if (fleet.setBusy(id, busy) && results != null) {
+            results.invalidate(fleet.locationOf(id), fleet.typeOf(id));
+        }
+    }
+
+    /**
+     * Applies a batch of edits to the map, such as closed roads or new restaurants, and publishes the
+     * result as a new version. The new version is built while orders keep being served on the current
+     * one, so reads never wait for an edit; operations which started before the edit finish on the
+     * version they started with. Only the parts of the tiles touched by the edits are copied. The
+     * connected components, the region overlay and the contraction hierarchy are rebuilt, and the cached
+     * distance fields and orders are dropped. Edits are applied one batch at a time.
+     *
+     * @param edits the changes of the tiles, later edits of the same tile win
+     * @return the version of the edited map
+     * @throws IllegalArgumentException if the edits are invalid, place delivery guys, which are moved
+     *                                  with {@link #moveDeliveryGuy(int, Location)} instead, or wall
+     *                                  in a delivery guy
+     */
+    @Override
+    public synchronized long editMap(List<MapEdit> edits) {
+        if (edits != null && edits.stream().anyMatch(edit -> edit != null &&
+            (edit.type() == MapEntityType.DELIVERY_GUY_CAR || edit.type() == MapEntityType.DELIVERY_GUY_BIKE))) {
+            throw new IllegalArgumentException("Delivery guys cannot be placed with map edits");
         }
-        if (rowIndex + 1 < layout.length && isValidNeighbour(rowIndex + 1, colIndex)) {
-            neighbours.add(layout[rowIndex + 1][colIndex]);
+
+        MapSnapshot current = snapshot;
+        Grid grid = current.grid().edit(edits);
+        MapSnapshot edited = createSnapshot(current.version() + 1, grid, new ConnectedComponents(grid), null);
+
+        fleet.updateGrid(grid);
+        snapshot = edited;
+
+        if (results != null) {
+            results.clear();
         }
-        if (colIndex - 1 >= 0 && isValidNeighbour(rowIndex, colIndex - 1)) {
-            neighbours.add(layout[rowIndex][colIndex - 1]);
+
+        return edited.version();
+    }
+
+    /**
+     * Returns the version of the map, which is the number of batches of edits applied to it.
+     *
+     * @return the current version of the map
+     */
+    @Override
+    public long getMapVersion() {
+        return snapshot.version();
+    }
+
+    /**
+     * Returns the entity on the given location. Road tiles show the delivery guy standing on
+     * them, while tiles with restaurants and clients keep showing them.
+     *
+     * @param location the location of the entity
+     * @return the {@link MapEntity} on the location, or null if the location is outside of the map
+     * @throws IllegalArgumentException if the location is null
+     */
+    @Override
+    public MapEntity getMapEntity(Location location) {
+        if (location == null) {
+            throw new IllegalArgumentException("Location cannot be null");
         }
-        if (colIndex + 1 < layout[0].length && isValidNeighbour(rowIndex, colIndex + 1)) {
-            neighbours.add(layout[rowIndex][colIndex + 1]);
+
+        Grid grid = snapshot.grid();
+
+        if (!grid.contains(location.x(), location.y())) {
+            return null;
         }
 
-        return neighbours;
+        return new MapEntity(location, typeAt(grid, grid.index(location.x(), location.y())));
     }
 
     /**
-     * Checks if the map entity at the specified position is a valid neighbor.
-     * A neighbor is considered valid if it is not of type {@link MapEntityType#WALL}.
+     * Determines the type of the entity on a tile, taking the current positions of the delivery guys
+     * into account.
      *
-     * @param row the row index of the map entity to check
-     * @param col the column index of the map entity to check
-     * @return {@code true} if the map entity at the specified position is valid, {@code false} otherwise
+     * @param grid  the version of the map to read
+     * @param index the index of the tile
+     * @return the {@link MapEntityType} on the tile, or null for unknown tiles
      */
-    private boolean isValidNeighbour(int row, int col) {
-        return layout[row][col].type() != MapEntityType.WALL;
+    private MapEntityType typeAt(Grid grid, int index) {
+        MapEntityType type = Grid.decode(grid.tileAt(index));
+
+        if (type != MapEntityType.ROAD &&
+            type != MapEntityType.DELIVERY_GUY_CAR &&
+            type != MapEntityType.DELIVERY_GUY_BIKE) {
+            return type;
+        }
+
+        DeliveryType standing = fleet.typeAt(index);
+
+        return standing == null ? MapEntityType.ROAD :
+            standing == DeliveryType.CAR ? MapEntityType.DELIVERY_GUY_CAR : MapEntityType.DELIVERY_GUY_BIKE;
     }
 
     /**
-     * Returns the map
+     * Returns the map. The layout is not kept in memory: every call materializes the whole map, with
+     * a new {@link MapEntity} and {@link Location} for every tile, which is 100 million objects per call
+     * on a 10k x 10k map.
      *
      * @return A MapEntity[][] containing the map
+     * @deprecated Use {@link #getMapEntity(Location)}, which reads a single tile.
      */
+    @Deprecated
+    @Override
     public MapEntity[][] getLayout() {
-        return this.layout;
+        Grid grid = snapshot.grid();
+        MapEntity[][] layout = new MapEntity[grid.rows()][grid.cols()];
+
+        for (int row = 0; row < grid.rows(); row++) {
+            for (int col = 0; col < grid.cols(); col++) {
+                layout[row][col] = new MapEntity(new Location(row, col), typeAt(grid, grid.index(row, col)));
+            }
+        }
+
+        return layout;
     }
 }
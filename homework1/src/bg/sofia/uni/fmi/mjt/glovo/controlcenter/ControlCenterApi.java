@@ -1,10 +1,18 @@
 package bg.sofia.uni.fmi.mjt.glovo.controlcenter;
 
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEdit;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.DispatchMetrics;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.Route;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryInfo;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryRequest;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.RoutePlan;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
 
+import java.util.List;
+
 public interface ControlCenterApi {
 
     /**
@@ -24,10 +32,136 @@ public interface ControlCenterApi {
                                         double maxPrice, int maxTime, ShippingMethod shippingMethod);
 
     /**
-     * Returns the map
+     * Assigns distinct delivery guys to a batch of pending orders, so that no delivery guy
+     * is given two orders at the same time. The assignment minimizes the total price or the
+     * total time of the batch, depending on the objective, while respecting the constraints of every order.
+     *
+     * @param requests  The pending orders.
+     * @param objective CHEAPEST to minimize the total price, FASTEST to minimize the total time.
+     * @return A List with the DeliveryInfo of each order, in the order of the given requests. An element
+     * is null if no delivery guy could be assigned to the corresponding order.
+     */
+    List<DeliveryInfo> assignDeliveryGuys(List<DeliveryRequest> requests, ShippingMethod objective);
+
+    /**
+     * Plans the route of a single delivery guy who carries several orders at once, picking up every order
+     * at its restaurant before dropping it off at its client, so that the total time of the route stays low.
+     *
+     * @param deliveryGuyId The id of the delivery guy.
+     * @param requests      The orders to carry.
+     * @return The RoutePlan with the stops in the order of visiting, the total price and the total time.
+     */
+    RoutePlan planRoute(int deliveryGuyId, List<DeliveryRequest> requests);
+
+    /**
+     * Calculates the shortest distance in kilometers between two locations.
+     *
+     * @param from The starting location.
+     * @param to   The target location.
+     * @return The shortest distance between the two locations.
+     */
+    int getDistance(Location from, Location to);
+
+    /**
+     * Finds the shortest route between two locations, as the turn-by-turn directions for a delivery guy.
+     *
+     * @param from The starting location.
+     * @param to   The target location.
+     * @return The Route between the two locations, whose length is the distance between them.
+     */
+    Route findRoute(Location from, Location to);
+
+    /**
+     * Finds the route of a delivery: from the delivery guy to the restaurant and from there to the client,
+     * for example for the delivery guy of a DeliveryInfo.
+     *
+     * @param deliveryGuyLocation The location of the delivery guy.
+     * @param restaurantLocation  The location of the restaurant.
+     * @param clientLocation      The location of the client.
+     * @return The Route of the delivery, passing through the restaurant.
+     */
+    Route getDeliveryRoute(Location deliveryGuyLocation, Location restaurantLocation, Location clientLocation);
+
+    /**
+     * Returns the region of the map which the location belongs to. Orders from the same region
+     * can be served by the same workers.
+     *
+     * @param location The location.
+     * @return The index of the region of the location.
+     */
+    int getRegion(Location location);
+
+    /**
+     * Finds the id of a delivery guy standing on the given location, for example the one
+     * returned in a DeliveryInfo. Free delivery guys are preferred.
+     *
+     * @param location The location of the delivery guy.
+     * @param type     The type of the delivery guy.
+     * @return The id of the delivery guy, or -1 if there is no such delivery guy on the location.
+     */
+    int getDeliveryGuyId(Location location, DeliveryType type);
+
+    /**
+     * Returns the number of delivery guys, whose ids go from 0 to one less than it.
+     *
+     * @return The number of delivery guys on the map.
+     */
+    int getDeliveryGuyCount();
+
+    /**
+     * Moves a delivery guy to a new location.
+     *
+     * @param id       The id of the delivery guy.
+     * @param location The new location of the delivery guy.
+     */
+    void moveDeliveryGuy(int id, Location location);
+
+    /**
+     * Marks a delivery guy as busy or free. Busy delivery guys are not offered for new orders.
+     *
+     * @param id   The id of the delivery guy.
+     * @param busy Whether the delivery guy is busy.
+     */
+    void setDeliveryGuyBusy(int id, boolean busy);
+
+    /**
+     * Applies a batch of edits to the map, such as closed roads or new restaurants. Orders which are
+     * already being processed finish on the previous version of the map.
+     *
+     * @param edits The changes of the tiles.
+     * @return The version of the edited map.
+     */
+    long editMap(List<MapEdit> edits);
+
+    /**
+     * Returns the version of the map, which grows with every batch of edits.
+     *
+     * @return The current version of the map.
+     */
+    long getMapVersion();
+
+    /**
+     * Returns the entity on the given location of the map.
+     *
+     * @param location The location of the entity.
+     * @return The MapEntity on the location, or null if the location is outside of the map.
+     */
+    MapEntity getMapEntity(Location location);
+
+    /**
+     * Returns the counters and latency percentiles of the control center.
+     *
+     * @return The DispatchMetrics of the control center.
+     */
+    DispatchMetrics getMetrics();
+
+    /**
+     * Returns the map. Every call materializes the whole map, with a new entity for every tile.
      *
      * @return A MapEntity[][] containing the map
+     * @deprecated Use {@link #getMapEntity(Location)}, which reads a single tile without building the map.
      */
+    @Deprecated
     MapEntity[][] getLayout();
 
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.cache.LruCache;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy.ContractionHierarchy;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.ConnectedComponents;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.region.RegionOverlay;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.DistanceField;
+
+/**
+ * A version of the map together with everything derived from it. A snapshot is never changed once
+ * it is published, except for the distance fields cached for it, so an operation which reads the current
+ * snapshot once sees a consistent map for its whole duration, while edits publish newer versions.
+ *
+ * @param version        the number of edits applied to the original map
+ * @param grid           the tiles of the map
+ * @param components     the connected components of the tiles
+ * @param overlay        the region overlay of the map, or null if the regional search is not used
+ * @param hierarchy      the contraction hierarchy of the map, or null if it is not used
+ * @param distanceFields the distance fields of the restaurants built on this version, or null if disabled
+ */
+record MapSnapshot(long version, Grid grid, ConnectedComponents components, RegionOverlay overlay,
+                   ContractionHierarchy hierarchy, LruCache<Integer, DistanceField> distanceFields) {
+}
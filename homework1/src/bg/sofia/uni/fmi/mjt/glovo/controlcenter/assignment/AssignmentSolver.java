@@ -0,0 +1,24 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment;
+
+public interface AssignmentSolver {
+
+    /**
+     * The cost of an order - delivery guy pair which cannot be assigned.
+     */
+    double INFEASIBLE = Double.POSITIVE_INFINITY;
+
+    /**
+     * The assignment of an order which did not get a delivery guy.
+     */
+    int UNASSIGNED = -1;
+
+    /**
+     * Assigns a distinct delivery guy to as many orders as possible, minimizing the total cost.
+     *
+     * @param costs the cost of every order (row) - delivery guy (column) pair,
+     *              {@link #INFEASIBLE} for pairs which cannot be assigned
+     * @return the index of the delivery guy assigned to each order, or {@link #UNASSIGNED}
+     */
+    int[] solve(double[][] costs);
+
+}
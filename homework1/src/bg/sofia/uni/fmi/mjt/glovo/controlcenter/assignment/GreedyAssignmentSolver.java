@@ -0,0 +1,63 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Repeatedly assigns the cheapest remaining order - delivery guy pair. Every order keeps its
+ * feasible delivery guys sorted by cost and a priority queue holds the cheapest free candidate
+ * of each order, so taken delivery guys are skipped lazily.
+ */
+public class GreedyAssignmentSolver implements AssignmentSolver {
+
+    @Override
+    public int[] solve(double[][] costs) {
+        int orders = costs.length;
+        int[] assignment = new int[orders];
+        Arrays.fill(assignment, UNASSIGNED);
+
+        if (orders == 0) {
+            return assignment;
+        }
+
+        int deliveryGuys = costs[0].length;
+        boolean[] taken = new boolean[deliveryGuys];
+        int[][] candidates = new int[orders][];
+        int[] nextCandidate = new int[orders];
+
+        PriorityQueue<Integer> queue = new PriorityQueue<>(
+            Comparator.comparingDouble(order -> costs[order][candidates[order][nextCandidate[order]]]));
+
+        for (int order = 0; order < orders; order++) {
+            double[] orderCosts = costs[order];
+
+            candidates[order] = IntStream.range(0, deliveryGuys)
+                .filter(deliveryGuy -> orderCosts[deliveryGuy] != INFEASIBLE)
+                .boxed()
+                .sorted(Comparator.comparingDouble(deliveryGuy -> orderCosts[deliveryGuy]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+            if (candidates[order].length > 0) {
+                queue.add(order);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int order = queue.poll();
+            int deliveryGuy = candidates[order][nextCandidate[order]];
+
+            if (!taken[deliveryGuy]) {
+                taken[deliveryGuy] = true;
+                assignment[order] = deliveryGuy;
+            } else if (++nextCandidate[order] < candidates[order].length) {
+                queue.add(order);
+            }
+        }
+
+        return assignment;
+    }
+
+}
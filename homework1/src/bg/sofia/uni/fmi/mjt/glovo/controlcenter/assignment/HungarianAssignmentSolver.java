@@ -0,0 +1,117 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment;
+
+import java.util.Arrays;
+
+/**
+ * Finds an assignment with minimal total cost using the Hungarian algorithm in O(n^2 * m) time,
+ * where n is the number of orders and m the number of delivery guys. Intended for small batches.
+ * Every order may also be left unassigned at a cost higher than any combination of feasible pairs,
+ * so the number of assigned orders is maximized first and the total cost second.
+ */
+public class HungarianAssignmentSolver implements AssignmentSolver {
+
+    @Override
+    public int[] solve(double[][] costs) {
+        int orders = costs.length;
+        int[] assignment = new int[orders];
+        Arrays.fill(assignment, UNASSIGNED);
+
+        if (orders == 0) {
+            return assignment;
+        }
+
+        int deliveryGuys = costs[0].length;
+        int columns = deliveryGuys + orders;
+        double unassignedCost = unassignedCost(costs);
+
+        double[] rowPotentials = new double[orders + 1];
+        double[] columnPotentials = new double[columns + 1];
+        int[] rowOfColumn = new int[columns + 1];
+        int[] previousColumn = new int[columns + 1];
+
+        for (int order = 1; order <= orders; order++) {
+            rowOfColumn[0] = order;
+            int currentColumn = 0;
+            double[] minSlack = new double[columns + 1];
+            boolean[] used = new boolean[columns + 1];
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+
+            do {
+                used[currentColumn] = true;
+                int currentRow = rowOfColumn[currentColumn];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+
+                for (int column = 1; column <= columns; column++) {
+                    if (!used[column]) {
+                        double slack = cost(costs, currentRow - 1, column - 1, unassignedCost)
+                            - rowPotentials[currentRow] - columnPotentials[column];
+
+                        if (slack < minSlack[column]) {
+                            minSlack[column] = slack;
+                            previousColumn[column] = currentColumn;
+                        }
+                        if (minSlack[column] < delta) {
+                            delta = minSlack[column];
+                            nextColumn = column;
+                        }
+                    }
+                }
+
+                for (int column = 0; column <= columns; column++) {
+                    if (used[column]) {
+                        rowPotentials[rowOfColumn[column]] += delta;
+                        columnPotentials[column] -= delta;
+                    } else {
+                        minSlack[column] -= delta;
+                    }
+                }
+
+                currentColumn = nextColumn;
+            } while (rowOfColumn[currentColumn] != 0);
+
+            do {
+                int column = previousColumn[currentColumn];
+                rowOfColumn[currentColumn] = rowOfColumn[column];
+                currentColumn = column;
+            } while (currentColumn != 0);
+        }
+
+        for (int column = 1; column <= deliveryGuys; column++) {
+            int order = rowOfColumn[column] - 1;
+
+            if (order >= 0 && costs[order][column - 1] != INFEASIBLE) {
+                assignment[order] = column - 1;
+            }
+        }
+
+        return assignment;
+    }
+
+    private double cost(double[][] costs, int order, int column, double unassignedCost) {
+        if (column >= costs[order].length || costs[order][column] == INFEASIBLE) {
+            return unassignedCost;
+        }
+
+        return costs[order][column];
+    }
+
+    private double unassignedCost(double[][] costs) {
+        double total = 1;
+
+        for (double[] orderCosts : costs) {
+            double max = 0;
+
+            for (double cost : orderCosts) {
+                if (cost != INFEASIBLE) {
+                    max = Math.max(max, cost);
+                }
+            }
+
+            total += max;
+        }
+
+        return total;
+    }
+
+}
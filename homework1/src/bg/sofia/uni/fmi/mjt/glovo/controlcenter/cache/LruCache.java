@@ -0,0 +1,34 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map bounded by capacity that evicts its least recently used entry when it grows past it.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    private final int capacity;
+
+    public LruCache(int capacity) {
+        super(16, 0.75f, true);
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity should be positive");
+        }
+
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > capacity;
+    }
+}
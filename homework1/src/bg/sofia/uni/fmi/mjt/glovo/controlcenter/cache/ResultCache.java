@@ -0,0 +1,325 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.cache;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryInfo;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Bounded concurrent cache of the optimal deliveries of orders. The entries are split into segments
+ * by restaurant, each a {@link LruCache} behind its own lock, so lookups for different restaurants
+ * rarely wait for each other.
+ * <p>
+ * Every entry keeps, for each type of delivery guys, the distance up to which the search looked at them.
+ * A delivery guy farther away could not change the result, and a route is never shorter than the Manhattan
+ * distance between its ends, so a change of a delivery guy only drops the entries whose restaurant is within
+ * that radius of it. Every segment indexes its entries by square buckets of restaurants, which keep the
+ * largest radius of their entries, so a change only looks at the entries of the buckets it can reach.
+ * <p>
+ * The last changes of the fleet are kept in a short log. A result computed while the fleet changed is
+ * stored only if none of the changes since its stamp was within its radius, since the search may have seen
+ * the fleet before such a change.
+ */
+public class ResultCache {
+
+    /**
+     * The parameters of an order which determine its optimal delivery.
+     *
+     * @param restaurant the index of the restaurant's tile
+     * @param client     the index of the client's tile
+     * @param maxPrice   the maximum price allowed for the delivery, -1 for no cost constraint
+     * @param maxTime    the maximum time allowed for the delivery, -1 for no time constraint
+     * @param method     the method for shipping the delivery
+     */
+    public record Key(int restaurant, int client, double maxPrice, int maxTime, ShippingMethod method) {
+    }
+
+    /**
+     * A cached result of an order.
+     *
+     * @param delivery the optimal delivery, or null if no delivery guy could complete the order
+     * @param radii    the distance up to which the delivery guys of each type were searched, by type ordinal
+     */
+    public record Entry(DeliveryInfo delivery, int[] radii) {
+    }
+
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final int BUCKET_SIZE = 16;
+    private static final int CHANGE_LOG_SIZE = 64;
+    private static final int CLEARED = -1;
+
+    /**
+     * The cached orders of the restaurants in a square of the map.
+     */
+    private static final class Bucket {
+        private final int top;
+        private final int left;
+        private final Map<Key, int[]> entries = new HashMap<>();
+        private final int[] radii = new int[DeliveryType.values().length];
+
+        private Bucket(int top, int left) {
+            this.top = top;
+            this.left = left;
+        }
+
+        private void add(Key key, int[] entryRadii) {
+            entries.put(key, entryRadii);
+
+            for (int type = 0; type < radii.length; type++) {
+                radii[type] = Math.max(radii[type], entryRadii[type]);
+            }
+        }
+
+        private boolean isWithinReach(int row, int col, int type) {
+            int rowDistance = Math.max(0, Math.max(top - row, row - (top + BUCKET_SIZE - 1)));
+            int colDistance = Math.max(0, Math.max(left - col, col - (left + BUCKET_SIZE - 1)));
+
+            return (long) rowDistance + colDistance <= radii[type];
+        }
+    }
+
+    /**
+     * A segment of the cache with the index of its entries by bucket. Evicted entries are removed from
+     * the index as well.
+     */
+    private final class Segment extends LruCache<Key, Entry> {
+        private final Map<Integer, Bucket> buckets = new HashMap<>();
+
+        private Segment(int capacity) {
+            super(capacity);
+        }
+
+        private void index(Key key, Entry entry) {
+            int restaurant = key.restaurant();
+
+            buckets.computeIfAbsent(bucketOf(restaurant),
+                    bucket -> new Bucket(grid.rowOf(restaurant) / BUCKET_SIZE * BUCKET_SIZE,
+                        grid.colOf(restaurant) / BUCKET_SIZE * BUCKET_SIZE))
+                .add(key, entry.radii());
+        }
+
+        private void unindex(Key key) {
+            int bucketId = bucketOf(key.restaurant());
+            Bucket bucket = buckets.get(bucketId);
+
+            if (bucket != null && bucket.entries.remove(key) != null && bucket.entries.isEmpty()) {
+                buckets.remove(bucketId);
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (!super.removeEldestEntry(eldest)) {
+                return false;
+            }
+
+            unindex(eldest.getKey());
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            buckets.clear();
+        }
+    }
+
+    /**
+     * The tiles and types of the last changes of the fleet, numbered from the creation of the cache.
+     */
+    private final class ChangeLog {
+        private final int[] locations = new int[CHANGE_LOG_SIZE];
+        private final int[] types = new int[CHANGE_LOG_SIZE];
+        private long count;
+
+        private synchronized long count() {
+            return count;
+        }
+
+        private synchronized void record(int location, int type) {
+            int slot = (int) (count % CHANGE_LOG_SIZE);
+
+            locations[slot] = location;
+            types[slot] = type;
+            count++;
+        }
+
+        /**
+         * Checks whether any change since the stamp may affect a result with the given radii. Changes which
+         * are no longer in the log are assumed to affect it.
+         */
+        private synchronized boolean affects(int restaurant, int[] radii, long stamp) {
+            if (count - stamp > CHANGE_LOG_SIZE) {
+                return true;
+            }
+
+            for (long change = stamp; change < count; change++) {
+                int slot = (int) (change % CHANGE_LOG_SIZE);
+
+                if (types[slot] == CLEARED || manhattan(restaurant, locations[slot]) <= radii[types[slot]]) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private final Grid grid;
+    private final int bucketCols;
+    private final Segment[] segments;
+    private final ChangeLog changes = new ChangeLog();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param grid     the map of the orders
+     * @param capacity the maximum number of cached orders
+     * @throws IllegalArgumentException if the grid is null or the capacity is not positive
+     */
+    public ResultCache(Grid grid, int capacity) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid cannot be null");
+        }
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity should be positive");
+        }
+
+        int segmentCount = Math.min(DEFAULT_SEGMENTS, capacity);
+
+        this.grid = grid;
+        this.bucketCols = (grid.cols() + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        this.segments = new Segment[segmentCount];
+
+        for (int segment = 0; segment < segmentCount; segment++) {
+            segments[segment] = new Segment((capacity + segmentCount - 1) / segmentCount);
+        }
+    }
+
+    /**
+     * Returns a stamp to pass to {@link #put(Key, DeliveryInfo, int[], long)} for a result computed
+     * after this call.
+     *
+     * @return the number of changes of the fleet seen by the cache so far
+     */
+    public long stamp() {
+        return changes.count();
+    }
+
+    /**
+     * Returns the cached result of an order.
+     *
+     * @param key the order
+     * @return the cached {@link Entry}, or null if the order is not cached
+     */
+    public Entry get(Key key) {
+        Segment segment = segmentOf(key);
+
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Caches the delivery of an order, unless a change of the fleet since the stamp was taken may affect it.
+     *
+     * @param key      the order
+     * @param delivery the optimal delivery, or null if no delivery guy can complete the order
+     * @param radii    the distance up to which the delivery guys of each type were searched, by type ordinal
+     * @param stamp    the value of {@link #stamp()} taken before the delivery was computed
+     * @return {@code true} if the delivery was cached, {@code false} otherwise
+     */
+    public boolean put(Key key, DeliveryInfo delivery, int[] radii, long stamp) {
+        Segment segment = segmentOf(key);
+
+        synchronized (segment) {
+            if (changes.affects(key.restaurant(), radii, stamp)) {
+                return false;
+            }
+
+            Entry entry = new Entry(delivery, radii.clone());
+            Entry previous = segment.put(key, entry);
+
+            if (previous != null) {
+                segment.unindex(key);
+            }
+
+            segment.index(key, entry);
+            return true;
+        }
+    }
+
+    /**
+     * Drops the orders whose result may depend on a delivery guy of the given type on the given tile.
+     * It should be called after every change of a free delivery guy: on both tiles of a move and when
+     * one becomes busy or free. Only the buckets whose largest radius reaches the tile are looked at.
+     *
+     * @param location the index of the delivery guy's tile
+     * @param type     the type of the delivery guy
+     */
+    public void invalidate(int location, DeliveryType type) {
+        changes.record(location, type.ordinal());
+
+        int row = grid.rowOf(location);
+        int col = grid.colOf(location);
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<Bucket> buckets = segment.buckets.values().iterator();
+
+                while (buckets.hasNext()) {
+                    Bucket bucket = buckets.next();
+
+                    if (!bucket.isWithinReach(row, col, type.ordinal())) {
+                        continue;
+                    }
+
+                    Iterator<Map.Entry<Key, int[]>> entries = bucket.entries.entrySet().iterator();
+
+                    while (entries.hasNext()) {
+                        Map.Entry<Key, int[]> entry = entries.next();
+
+                        if (manhattan(entry.getKey().restaurant(), location) <= entry.getValue()[type.ordinal()]) {
+                            segment.remove(entry.getKey());
+                            entries.remove();
+                        }
+                    }
+
+                    if (bucket.entries.isEmpty()) {
+                        buckets.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every cached order, for example when the layout of the map changes.
+     */
+    public void clear() {
+        changes.record(0, CLEARED);
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentOf(Key key) {
+        return segments[Math.floorMod(Integer.hashCode(key.restaurant()) * 0x9E3779B9, segments.length)];
+    }
+
+    private int bucketOf(int tile) {
+        return grid.rowOf(tile) / BUCKET_SIZE * bucketCols + grid.colOf(tile) / BUCKET_SIZE;
+    }
+
+    private long manhattan(int from, int to) {
+        return Math.abs(grid.rowOf(from) - grid.rowOf(to)) + Math.abs(grid.colOf(from) - grid.colOf(to));
+    }
+}
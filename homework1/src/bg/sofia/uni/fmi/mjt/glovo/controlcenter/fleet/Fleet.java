@@ -0,0 +1,511 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.fleet;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.DistanceField;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.TileVisitor;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps track of the current position and availability of every delivery guy.
+ * Delivery guys are indexed in square buckets of tiles, so the closest ones to a restaurant
+ * can be found by looking only at the buckets around it. Position updates touch at most two
+ * buckets and never rebuild the map. Updates take a write lock and lookups a read lock,
+ * so many lookups can run concurrently.
+ * <p>
+ * Searches ask for every tile they visit whether a free delivery guy stands on it, so that is kept in one
+ * bit per tile and type. When a delivery guy leaves a tile or becomes busy, the bit is recomputed from the
+ * bucket of the tile.
+ */
+public class Fleet {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final DeliveryType[] TYPES = DeliveryType.values();
+
+    /**
+     * The ids of the delivery guys of a single type in a single bucket.
+     */
+    private static final class Bucket {
+        private int[] ids = new int[2];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            ids[size++] = id;
+        }
+
+        private void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Binary min-heap of the tiles of delivery guys, ordered by their distance, then by the number of moves
+     * to them and finally by their position in row-major order. The distance and the moves are packed
+     * in one {@code long} key next to a parallel array of tiles, so no tile is boxed.
+     */
+    private static final class CandidateHeap {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] tiles = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int peekDistance() {
+            return (int) (keys[0] >>> Integer.SIZE);
+        }
+
+        private void push(int distance, int hops, int tile) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                tiles = Arrays.copyOf(tiles, size * 2);
+            }
+
+            long key = ((long) distance << Integer.SIZE) | hops;
+            int position = size++;
+
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+
+                if (!isBefore(key, tile, keys[parent], tiles[parent])) {
+                    break;
+                }
+
+                keys[position] = keys[parent];
+                tiles[position] = tiles[parent];
+                position = parent;
+            }
+
+            keys[position] = key;
+            tiles[position] = tile;
+        }
+
+        private int poll() {
+            int top = tiles[0];
+            long lastKey = keys[--size];
+            int lastTile = tiles[size];
+            int position = 0;
+
+            while (true) {
+                int child = 2 * position + 1;
+
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && isBefore(keys[child + 1], tiles[child + 1], keys[child], tiles[child])) {
+                    child++;
+                }
+                if (!isBefore(keys[child], tiles[child], lastKey, lastTile)) {
+                    break;
+                }
+
+                keys[position] = keys[child];
+                tiles[position] = tiles[child];
+                position = child;
+            }
+
+            keys[position] = lastKey;
+            tiles[position] = lastTile;
+            return top;
+        }
+
+        private static boolean isBefore(long key, int tile, long otherKey, int otherTile) {
+            return key != otherKey ? key < otherKey : tile < otherTile;
+        }
+    }
+
+    private volatile Grid grid;
+    private final int bucketSize;
+    private final int bucketRows;
+    private final int bucketCols;
+
+    private final int[] locations;
+    private final DeliveryType[] types;
+    private final boolean[] busy;
+
+    private final Bucket[][] buckets;
+    private final long[][] freeTiles;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates a fleet with the delivery guys placed on the given grid. Ids are given to the
+     * delivery guys in row-major order of their tiles, cars first.
+     *
+     * @param grid       the map
+     * @param bucketSize the side of a bucket in tiles
+     * @throws IllegalArgumentException if the bucket size is not positive
+     */
+    public Fleet(Grid grid, int bucketSize) {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("Bucket size should be positive");
+        }
+
+        this.grid = grid;
+        this.bucketSize = bucketSize;
+        this.bucketRows = (grid.rows() + bucketSize - 1) / bucketSize;
+        this.bucketCols = (grid.cols() + bucketSize - 1) / bucketSize;
+
+        int[] cars = grid.indexesOf(Grid.encode(MapEntityType.DELIVERY_GUY_CAR));
+        int[] bikes = grid.indexesOf(Grid.encode(MapEntityType.DELIVERY_GUY_BIKE));
+
+        locations = new int[cars.length + bikes.length];
+        types = new DeliveryType[locations.length];
+        busy = new boolean[locations.length];
+
+        buckets = new Bucket[TYPES.length][bucketRows * bucketCols];
+        freeTiles = new long[TYPES.length][(grid.size() + Long.SIZE - 1) / Long.SIZE];
+
+        for (Bucket[] typeBuckets : buckets) {
+            for (int bucket = 0; bucket < typeBuckets.length; bucket++) {
+                typeBuckets[bucket] = new Bucket();
+            }
+        }
+
+        for (int id = 0; id < locations.length; id++) {
+            locations[id] = id < cars.length ? cars[id] : bikes[id - cars.length];
+            types[id] = id < cars.length ? DeliveryType.CAR : DeliveryType.BIKE;
+
+            bucketOf(types[id], locations[id]).add(id);
+            markFree(types[id].ordinal(), locations[id], true);
+        }
+    }
+
+    public int size() {
+        return locations.length;
+    }
+
+    public DeliveryType typeOf(int id) {
+        validateId(id);
+        return types[id];
+    }
+
+    public int locationOf(int id) {
+        validateId(id);
+
+        lock.readLock().lock();
+        try {
+            return locations[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isBusy(int id) {
+        validateId(id);
+
+        lock.readLock().lock();
+        try {
+            return busy[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a delivery guy of the given type standing on the given tile, preferring free ones.
+     *
+     * @param location the index of the tile
+     * @param type     the type of the delivery guy
+     * @return the id of the delivery guy, or {@link #NOT_FOUND} if there is none
+     */
+    public int idAt(int location, DeliveryType type) {
+        lock.readLock().lock();
+        try {
+            Bucket bucket = bucketOf(type, location);
+            int found = NOT_FOUND;
+
+            for (int i = 0; i < bucket.size; i++) {
+                int id = bucket.ids[i];
+
+                if (locations[id] == location && (found == NOT_FOUND || !busy[id])) {
+                    found = id;
+                }
+            }
+
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether there is a delivery guy of any type on the given tile.
+     *
+     * @param location the index of the tile
+     * @return the type of a delivery guy on the tile, or null if there is none
+     */
+    public DeliveryType typeAt(int location) {
+        for (DeliveryType type : TYPES) {
+            if (idAt(location, type) != NOT_FOUND) {
+                return type;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks whether there is a free delivery guy of the given type on the given tile.
+     * It does not take the lock, so a search calling it for every visited tile may observe
+     * updates made while it runs.
+     *
+     * @param type     the ordinal of the {@link DeliveryType}
+     * @param location the index of the tile
+     * @return {@code true} if there is a free delivery guy of the type on the tile, {@code false} otherwise
+     */
+    public boolean hasFree(int type, int location) {
+        return (freeTiles[type][location / Long.SIZE] & (1L << location)) != 0;
+    }
+
+    /**
+     * Moves a delivery guy to a new tile.
+     *
+     * @param id       the id of the delivery guy
+     * @param location the index of the new tile
+     * @return {@code true} if the delivery guy is free, so the move may change the results of orders
+     * @throws IllegalArgumentException if there is no such delivery guy or the tile is not passable
+     */
+    public boolean move(int id, int location) {
+        validateId(id);
+
+        lock.writeLock().lock();
+        try {
+            if (location < 0 || location >= grid.size() || !grid.isPassable(location)) {
+                throw new IllegalArgumentException("Delivery guy cannot be moved to an impassable tile");
+            }
+
+            int type = types[id].ordinal();
+            Bucket from = bucketOf(types[id], locations[id]);
+            Bucket to = bucketOf(types[id], location);
+
+            if (from != to) {
+                from.remove(id);
+                to.add(id);
+            }
+
+            int previous = locations[id];
+            locations[id] = location;
+
+            if (!busy[id]) {
+                markFree(type, previous, hasFreeIn(from, previous));
+                markFree(type, location, true);
+            }
+
+            return !busy[id];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the map after its layout was edited, so that moves are checked against the new tiles.
+     * The edit is rejected if it would leave a delivery guy on an impassable tile.
+     *
+     * @param grid the edited map
+     * @throws IllegalArgumentException if the grid is null, has a different size or walls in
+     *                                  a delivery guy's tile
+     */
+    public void updateGrid(Grid grid) {
+        if (grid == null || grid.rows() != this.grid.rows() || grid.cols() != this.grid.cols()) {
+            throw new IllegalArgumentException("Edited map should have the same size");
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int location : locations) {
+                if (!grid.isPassable(location)) {
+                    throw new IllegalArgumentException("A delivery guy is standing on an impassable tile of the edited map");
+                }
+            }
+
+            this.grid = grid;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks a delivery guy as busy or free. Busy delivery guys are not offered for new orders.
+     *
+     * @param id     the id of the delivery guy
+     * @param isBusy whether the delivery guy is busy
+     * @return {@code true} if the state of the delivery guy changed, {@code false} otherwise
+     * @throws IllegalArgumentException if there is no such delivery guy
+     */
+    public boolean setBusy(int id, boolean isBusy) {
+        validateId(id);
+
+        lock.writeLock().lock();
+        try {
+            if (busy[id] == isBusy) {
+                return false;
+            }
+
+            int location = locations[id];
+            busy[id] = isBusy;
+            markFree(types[id].ordinal(), location, !isBusy || hasFreeIn(bucketOf(types[id], location), location));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tiles of all free delivery guys of the given type.
+     *
+     * @param type the type of the delivery guys
+     * @return the indexes of the tiles of the free delivery guys
+     */
+    public int[] freeLocations(DeliveryType type) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            int[] result = new int[locations.length];
+
+            for (int id = 0; id < locations.length; id++) {
+                if (types[id] == type && !busy[id]) {
+                    result[count++] = locations[id];
+                }
+            }
+
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes the tiles of the free delivery guys of the given type to the visitor in order of their
+     * distance to the source of the distance field, until the visitor stops. Buckets are visited in
+     * rings of growing size around the source. Since the distance between two tiles is never shorter
+     * than the distance along the rows and columns, a delivery guy is passed on as soon as the next
+     * ring cannot hold a closer one, and no further rings are read once the visitor stops.
+     * Ties are resolved in favour of the route with fewer moves and then of the tile which
+     * comes first in row-major order. The fleet cannot be updated while the visitor runs.
+     *
+     * @param type    the type of the delivery guys
+     * @param field   the distance field of the restaurant
+     * @param visitor receives the tiles of the delivery guys and decides when to stop
+     */
+    public void forEachFree(DeliveryType type, DistanceField field, TileVisitor visitor) {
+        int sourceRow = grid.rowOf(field.source()) / bucketSize;
+        int sourceCol = grid.colOf(field.source()) / bucketSize;
+        int maxRing = Math.max(Math.max(sourceRow, bucketRows - 1 - sourceRow),
+            Math.max(sourceCol, bucketCols - 1 - sourceCol));
+
+        CandidateHeap candidates = new CandidateHeap();
+
+        lock.readLock().lock();
+        try {
+            for (int ring = 0; ring <= maxRing; ring++) {
+                int lowerBound = ring == 0 ? 0 : (ring - 1) * bucketSize + 1;
+
+                if (!visitCloserThan(lowerBound, candidates, field, visitor)) {
+                    return;
+                }
+
+                for (int row = sourceRow - ring; row <= sourceRow + ring; row++) {
+                    int step = row == sourceRow - ring || row == sourceRow + ring ? 1 : 2 * ring;
+
+                    for (int col = sourceCol - ring; col <= sourceCol + ring; col += step) {
+                        if (row >= 0 && row < bucketRows && col >= 0 && col < bucketCols) {
+                            addFree(buckets[type.ordinal()][row * bucketCols + col], field, candidates);
+                        }
+                    }
+                }
+            }
+
+            visitCloserThan(Integer.MAX_VALUE, candidates, field, visitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes the candidates closer than the given distance to the visitor, closest first.
+     *
+     * @param distance   the distance below which candidates are passed on
+     * @param candidates the tiles of the delivery guys found so far
+     * @param field      the distance field of the restaurant
+     * @param visitor    receives the tiles of the delivery guys
+     * @return {@code false} if the visitor stopped, {@code true} otherwise
+     */
+    private boolean visitCloserThan(int distance, CandidateHeap candidates,
+                                    DistanceField field, TileVisitor visitor) {
+        while (!candidates.isEmpty() && candidates.peekDistance() < distance) {
+            if (!visitor.visit(candidates.poll())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void addFree(Bucket bucket, DistanceField field, CandidateHeap candidates) {
+        for (int i = 0; i < bucket.size; i++) {
+            int id = bucket.ids[i];
+            int distance = field.distanceTo(locations[id]);
+
+            if (!busy[id] && distance != GridSearch.NOT_FOUND) {
+                candidates.push(distance, field.hopsTo(locations[id]), locations[id]);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a free delivery guy of the bucket stands on the given tile.
+     *
+     * @param bucket   the bucket of the tile
+     * @param location the index of the tile
+     * @return {@code true} if a free delivery guy of the bucket is on the tile, {@code false} otherwise
+     */
+    private boolean hasFreeIn(Bucket bucket, int location) {
+        for (int i = 0; i < bucket.size; i++) {
+            if (locations[bucket.ids[i]] == location && !busy[bucket.ids[i]]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void markFree(int type, int location, boolean free) {
+        if (free) {
+            freeTiles[type][location / Long.SIZE] |= 1L << location;
+        } else {
+            freeTiles[type][location / Long.SIZE] &= ~(1L << location);
+        }
+    }
+
+    private Bucket bucketOf(DeliveryType type, int location) {
+        int row = grid.rowOf(location) / bucketSize;
+        int col = grid.colOf(location) / bucketSize;
+
+        return buckets[type.ordinal()][row * bucketCols + col];
+    }
+
+    private void validateId(int id) {
+        if (id < 0 || id >= locations.length) {
+            throw new IllegalArgumentException("There is no delivery guy with id " + id);
+        }
+    }
+}
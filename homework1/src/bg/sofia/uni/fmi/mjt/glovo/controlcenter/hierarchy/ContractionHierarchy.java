@@ -0,0 +1,312 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Contraction hierarchy of a map, built once offline and answering distance queries with
+ * {@link HierarchySearch} by searching only a small part of the map.
+ * <p>
+ * The map is compressed into a graph of intersections and every tile remembers the two intersections
+ * at the ends of its corridor together with the routes to them. The intersections are numbered by the
+ * order in which they were contracted, see {@link HierarchyBuilder}, and every node keeps only its
+ * upward edges, the edges to the nodes contracted after it. The weight of an edge packs the cost of its
+ * route in the upper 32 bits and the number of moves in the lower ones, so weights add up and compare
+ * like (cost, moves) pairs and the hierarchy finds the same routes as {@link Grid}-based searches.
+ * <p>
+ * A hierarchy can be written to a file with {@link #write(Path)} and loaded with {@link #load(Path)}.
+ * The file consists of a header with the magic number, the format version, the rows, the columns,
+ * a fingerprint of the tiles, the number of nodes and edges and a padding integer, followed by the legs
+ * of the tiles and the weights of the edges as 8-byte integers and then the corridors and ends of the tiles,
+ * the edge offsets of the nodes and the targets of the edges as 4-byte integers. Loaded files are
+ * memory-mapped, like a {@link bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapFile}.
+ */
+public class ContractionHierarchy {
+
+    static final int NO_NODE = -1;
+    static final int NO_CORRIDOR = -1;
+    static final long UNREACHED = Long.MAX_VALUE;
+
+    private static final int HOPS_BITS = 32;
+    private static final long HOPS_MASK = (1L << HOPS_BITS) - 1;
+
+    private static final int MAGIC = 0x474C4348;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8 * Integer.BYTES;
+    private static final int FINGERPRINT_CHUNK = 1 << 16;
+
+    private final int rows;
+    private final int cols;
+    private final int fingerprint;
+    private final int nodeCount;
+
+    private final IntBuffer corridors;
+    private final IntBuffer firstEnds;
+    private final IntBuffer secondEnds;
+    private final LongBuffer firstLegs;
+    private final LongBuffer secondLegs;
+
+    private final IntBuffer edgeOffsets;
+    private final IntBuffer edgeTargets;
+    private final LongBuffer edgeWeights;
+
+    /**
+     * Creates a hierarchy from its parts, one entry per tile in row-major order and per node in rank order.
+     *
+     * @param rows        the number of rows of the map
+     * @param cols        the number of columns of the map
+     * @param fingerprint the fingerprint of the tiles of the map
+     * @param nodeCount   the number of nodes
+     * @param corridors   the corridor of every tile, {@value #NO_CORRIDOR} for walls and intersections
+     * @param firstEnds   the node at the first end of the corridor of every tile, {@value #NO_NODE} for walls
+     * @param secondEnds  the node at the second end of the corridor of every tile, {@value #NO_NODE} for walls
+     * @param firstLegs   the packed weight of the route from every tile to its first end
+     * @param secondLegs  the packed weight of the route from every tile to its second end
+     * @param edgeOffsets the first upward edge of every node, followed by the number of edges
+     * @param edgeTargets the node at the upper end of every edge
+     * @param edgeWeights the packed weight of every edge
+     */
+    ContractionHierarchy(int rows, int cols, int fingerprint, int nodeCount,
+                         IntBuffer corridors, IntBuffer firstEnds, IntBuffer secondEnds,
+                         LongBuffer firstLegs, LongBuffer secondLegs,
+                         IntBuffer edgeOffsets, IntBuffer edgeTargets, LongBuffer edgeWeights) {
+        this.rows = rows;
+        this.cols = cols;
+        this.fingerprint = fingerprint;
+        this.nodeCount = nodeCount;
+        this.corridors = corridors;
+        this.firstEnds = firstEnds;
+        this.secondEnds = secondEnds;
+        this.firstLegs = firstLegs;
+        this.secondLegs = secondLegs;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeWeights = edgeWeights;
+    }
+
+    /**
+     * Preprocesses a map. This takes much longer than a single search, so large maps should be
+     * preprocessed once and written to a file.
+     *
+     * @param grid the map
+     * @return the {@link ContractionHierarchy} of the map
+     * @throws IllegalArgumentException if the grid is null
+     */
+    public static ContractionHierarchy build(Grid grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid cannot be null");
+        }
+
+        return new HierarchyBuilder(grid).build();
+    }
+
+    static long pack(int cost, int hops) {
+        return ((long) cost << HOPS_BITS) | hops;
+    }
+
+    static int costOf(long weight) {
+        return (int) (weight >>> HOPS_BITS);
+    }
+
+    static int hopsOf(long weight) {
+        return (int) (weight & HOPS_MASK);
+    }
+
+    /**
+     * Calculates a checksum of the tiles and the traversal costs of a map, which tells whether
+     * a hierarchy was built for it.
+     *
+     * @param grid the map
+     * @return the fingerprint of the map
+     */
+    static int fingerprint(Grid grid) {
+        CRC32 checksum = new CRC32();
+        byte[] chunk = new byte[FINGERPRINT_CHUNK];
+        int filled = 0;
+
+        for (int index = 0; index < grid.size(); index++) {
+            chunk[filled++] = grid.tileAt(index);
+            chunk[filled++] = (byte) grid.costAt(index);
+
+            if (filled == chunk.length) {
+                checksum.update(chunk, 0, filled);
+                filled = 0;
+            }
+        }
+
+        checksum.update(chunk, 0, filled);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Checks whether this hierarchy was built for the given map.
+     *
+     * @param grid the map
+     * @return {@code true} if the map has the same size, tiles and costs as the preprocessed one
+     */
+    public boolean matches(Grid grid) {
+        return grid != null && grid.rows() == rows && grid.cols() == cols && fingerprint(grid) == fingerprint;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeTargets.limit();
+    }
+
+    int corridorOf(int tile) {
+        return corridors.get(tile);
+    }
+
+    int firstEnd(int tile) {
+        return firstEnds.get(tile);
+    }
+
+    int secondEnd(int tile) {
+        return secondEnds.get(tile);
+    }
+
+    long firstLeg(int tile) {
+        return firstLegs.get(tile);
+    }
+
+    long secondLeg(int tile) {
+        return secondLegs.get(tile);
+    }
+
+    int firstEdge(int node) {
+        return edgeOffsets.get(node);
+    }
+
+    int endEdge(int node) {
+        return edgeOffsets.get(node + 1);
+    }
+
+    int edgeTarget(int edge) {
+        return edgeTargets.get(edge);
+    }
+
+    long edgeWeight(int edge) {
+        return edgeWeights.get(edge);
+    }
+
+    /**
+     * Writes the hierarchy to a file which can later be loaded with {@link #load(Path)}.
+     * An existing file is overwritten.
+     *
+     * @param path the path of the file
+     * @throws IllegalArgumentException if the path is null or the file could not be written
+     */
+    public void write(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(rows);
+            output.writeInt(cols);
+            output.writeInt(fingerprint);
+            output.writeInt(nodeCount);
+            output.writeInt(edgeCount());
+            output.writeInt(0);
+
+            writeLongs(output, firstLegs);
+            writeLongs(output, secondLegs);
+            writeLongs(output, edgeWeights);
+            writeInts(output, corridors);
+            writeInts(output, firstEnds);
+            writeInts(output, secondEnds);
+            writeInts(output, edgeOffsets);
+            writeInts(output, edgeTargets);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not write the hierarchy to " + path, e);
+        }
+    }
+
+    private static void writeLongs(DataOutputStream output, LongBuffer values) throws IOException {
+        for (int i = 0; i < values.limit(); i++) {
+            output.writeLong(values.get(i));
+        }
+    }
+
+    private static void writeInts(DataOutputStream output, IntBuffer values) throws IOException {
+        for (int i = 0; i < values.limit(); i++) {
+            output.writeInt(values.get(i));
+        }
+    }
+
+    /**
+     * Maps a hierarchy file into memory.
+     *
+     * @param path the path of the file
+     * @return the loaded {@link ContractionHierarchy}
+     * @throws IllegalArgumentException if the path is null, the file could not be read or is not a valid hierarchy file
+     */
+    public static ContractionHierarchy load(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IllegalArgumentException("Invalid hierarchy file " + path);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            int fingerprint = buffer.getInt();
+            int nodeCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            long tiles = (long) rows * cols;
+
+            if (magic != MAGIC || version != VERSION || rows < 0 || cols < 0 || nodeCount < 0 || edgeCount < 0 ||
+                channel.size() != HEADER_SIZE + (2 * tiles + edgeCount) * Long.BYTES +
+                    (3 * tiles + nodeCount + 1 + edgeCount) * Integer.BYTES) {
+                throw new IllegalArgumentException("Invalid hierarchy file " + path);
+            }
+
+            int size = rows * cols;
+            int offset = HEADER_SIZE;
+
+            LongBuffer firstLegs = slice(buffer, offset, size, Long.BYTES).asLongBuffer();
+            LongBuffer secondLegs = slice(buffer, offset += size * Long.BYTES, size, Long.BYTES).asLongBuffer();
+            LongBuffer edgeWeights = slice(buffer, offset += size * Long.BYTES, edgeCount, Long.BYTES).asLongBuffer();
+            IntBuffer corridors = slice(buffer, offset += edgeCount * Long.BYTES, size, Integer.BYTES).asIntBuffer();
+            IntBuffer firstEnds = slice(buffer, offset += size * Integer.BYTES, size, Integer.BYTES).asIntBuffer();
+            IntBuffer secondEnds = slice(buffer, offset += size * Integer.BYTES, size, Integer.BYTES).asIntBuffer();
+            IntBuffer edgeOffsets = slice(buffer, offset += size * Integer.BYTES, nodeCount + 1, Integer.BYTES)
+                .asIntBuffer();
+            IntBuffer edgeTargets = slice(buffer, offset + (nodeCount + 1) * Integer.BYTES, edgeCount, Integer.BYTES)
+                .asIntBuffer();
+
+            return new ContractionHierarchy(rows, cols, fingerprint, nodeCount, corridors, firstEnds, secondEnds,
+                firstLegs, secondLegs, edgeOffsets, edgeTargets, edgeWeights);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not load the hierarchy from " + path, e);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int count, int bytes) {
+        return buffer.slice(offset, count * bytes);
+    }
+}
@@ -0,0 +1,484 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.IndexHeap;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Builds a {@link ContractionHierarchy} from a {@link Grid} in two steps.
+ * <p>
+ * First the grid is compressed into a road graph. Every passable tile which does not have exactly two
+ * passable neighbours is an intersection and becomes a node; the other passable tiles form corridors
+ * between two intersections, which become single edges. A closed loop of corridor tiles gets one of its
+ * tiles as a node.
+ * <p>
+ * Then the nodes are contracted one by one, the least important first. Contracting a node removes it from
+ * the graph and connects its neighbours with shortcuts where the route through it is the only cheapest one.
+ * This is checked with a witness search, a Dijkstra search around the neighbour limited to
+ * {@value #WITNESS_SETTLED_LIMIT} nodes, so a shortcut may be added without being needed but never left out.
+ * The importance of a node grows with the number of shortcuts its contraction adds minus the edges it removes,
+ * counted twice, and with the number of its already contracted neighbours, which spreads the contraction
+ * over the graph. Nodes are contracted lazily: the importance of a node is recomputed when it is taken from
+ * the queue and the node is put back if it changed.
+ */
+final class HierarchyBuilder {
+
+    private static final int WITNESS_SETTLED_LIMIT = 64;
+    private static final int EDGE_DIFFERENCE_WEIGHT = 2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Grid grid;
+    private final int[] neighbourTiles = new int[4];
+
+    private final int[] tileNodes;
+    private final int[] corridors;
+    private final int[] firstEnds;
+    private final int[] secondEnds;
+    private final long[] firstLegs;
+    private final long[] secondLegs;
+    private int nodeCount;
+    private int corridorCount;
+
+    private int[] edgeSources = new int[INITIAL_CAPACITY];
+    private int[] edgeTargets = new int[INITIAL_CAPACITY];
+    private long[] edgeWeights = new long[INITIAL_CAPACITY];
+    private int edgeCount;
+
+    private int[] corridorTiles = new int[INITIAL_CAPACITY];
+    private long[] corridorLegs = new long[INITIAL_CAPACITY];
+
+    private int[][] neighbours;
+    private long[][] weights;
+    private int[] degrees;
+
+    private long[] witnessLabels;
+    private int[] witnessMarks;
+    private int[] witnessClosed;
+    private final IndexHeap witnessHeap = new IndexHeap();
+    private int witnessMark;
+
+    HierarchyBuilder(Grid grid) {
+        this.grid = grid;
+        this.tileNodes = new int[grid.size()];
+        this.corridors = new int[grid.size()];
+        this.firstEnds = new int[grid.size()];
+        this.secondEnds = new int[grid.size()];
+        this.firstLegs = new long[grid.size()];
+        this.secondLegs = new long[grid.size()];
+    }
+
+    /**
+     * Compresses the grid and contracts the road graph.
+     *
+     * @return the built {@link ContractionHierarchy}
+     */
+    ContractionHierarchy build() {
+        compress();
+
+        int[] ranks = contract();
+
+        for (int tile = 0; tile < grid.size(); tile++) {
+            if (firstEnds[tile] != ContractionHierarchy.NO_NODE) {
+                firstEnds[tile] = ranks[firstEnds[tile]];
+                secondEnds[tile] = ranks[secondEnds[tile]];
+            }
+        }
+
+        int[] nodesByRank = new int[nodeCount];
+
+        for (int node = 0; node < nodeCount; node++) {
+            nodesByRank[ranks[node]] = node;
+        }
+
+        int[] upwardOffsets = new int[nodeCount + 1];
+
+        for (int rank = 0; rank < nodeCount; rank++) {
+            upwardOffsets[rank + 1] = upwardOffsets[rank] + degrees[nodesByRank[rank]];
+        }
+
+        int[] upwardTargets = new int[upwardOffsets[nodeCount]];
+        long[] upwardWeights = new long[upwardOffsets[nodeCount]];
+
+        for (int rank = 0; rank < nodeCount; rank++) {
+            int node = nodesByRank[rank];
+
+            for (int i = 0; i < degrees[node]; i++) {
+                upwardTargets[upwardOffsets[rank] + i] = ranks[neighbours[node][i]];
+                upwardWeights[upwardOffsets[rank] + i] = weights[node][i];
+            }
+        }
+
+        return new ContractionHierarchy(grid.rows(), grid.cols(), ContractionHierarchy.fingerprint(grid), nodeCount,
+            IntBuffer.wrap(corridors), IntBuffer.wrap(firstEnds), IntBuffer.wrap(secondEnds),
+            LongBuffer.wrap(firstLegs), LongBuffer.wrap(secondLegs),
+            IntBuffer.wrap(upwardOffsets), IntBuffer.wrap(upwardTargets), LongBuffer.wrap(upwardWeights));
+    }
+
+    /**
+     * Finds the intersections and walks the corridors between them, storing for every tile the two
+     * intersections at the ends of its corridor and the routes to them.
+     */
+    private void compress() {
+        Arrays.fill(tileNodes, ContractionHierarchy.NO_NODE);
+        Arrays.fill(corridors, ContractionHierarchy.NO_CORRIDOR);
+        Arrays.fill(firstEnds, ContractionHierarchy.NO_NODE);
+        Arrays.fill(secondEnds, ContractionHierarchy.NO_NODE);
+
+        for (int tile = 0; tile < grid.size(); tile++) {
+            if (grid.isPassable(tile) && passableNeighbours(tile) != 2) {
+                addNode(tile);
+            }
+        }
+
+        for (int tile = 0; tile < grid.size(); tile++) {
+            if (tileNodes[tile] != ContractionHierarchy.NO_NODE) {
+                walkCorridorsFrom(tile);
+            }
+        }
+
+        for (int tile = 0; tile < grid.size(); tile++) {
+            if (grid.isPassable(tile) && tileNodes[tile] == ContractionHierarchy.NO_NODE &&
+                corridors[tile] == ContractionHierarchy.NO_CORRIDOR) {
+                addNode(tile);
+                walkCorridorsFrom(tile);
+            }
+        }
+    }
+
+    private void addNode(int tile) {
+        tileNodes[tile] = nodeCount;
+        firstEnds[tile] = nodeCount;
+        secondEnds[tile] = nodeCount;
+        nodeCount++;
+    }
+
+    /**
+     * Connects an intersection to its neighbouring intersections and to the intersections at the other
+     * end of the corridors starting next to it, unless a corridor was already walked from its other end.
+     *
+     * @param tile the index of the intersection's tile
+     */
+    private void walkCorridorsFrom(int tile) {
+        int node = tileNodes[tile];
+        int count = passableNeighbours(tile);
+        int[] starts = Arrays.copyOf(neighbourTiles, count);
+
+        for (int start : starts) {
+            long step = ContractionHierarchy.pack(grid.moveCost(tile, start), 1);
+
+            if (tileNodes[start] != ContractionHierarchy.NO_NODE) {
+                if (node < tileNodes[start]) {
+                    addEdge(node, tileNodes[start], step);
+                }
+            } else if (corridors[start] == ContractionHierarchy.NO_CORRIDOR) {
+                walkCorridor(node, tile, start, step);
+            }
+        }
+    }
+
+    /**
+     * Follows a corridor from an intersection until the next intersection.
+     *
+     * @param node  the node of the starting intersection
+     * @param from  the index of the starting intersection's tile
+     * @param first the index of the first tile of the corridor
+     * @param step  the weight of the move from the intersection to the first tile
+     */
+    private void walkCorridor(int node, int from, int first, long step) {
+        int corridor = corridorCount++;
+        int previous = from;
+        int current = first;
+        long weight = step;
+        int length = 0;
+
+        while (tileNodes[current] == ContractionHierarchy.NO_NODE) {
+            if (length == corridorTiles.length) {
+                corridorTiles = Arrays.copyOf(corridorTiles, length * 2);
+                corridorLegs = Arrays.copyOf(corridorLegs, length * 2);
+            }
+
+            corridorTiles[length] = current;
+            corridorLegs[length++] = weight;
+            corridors[current] = corridor;
+
+            passableNeighbours(current);
+            int next = neighbourTiles[0] == previous ? neighbourTiles[1] : neighbourTiles[0];
+
+            weight += ContractionHierarchy.pack(grid.moveCost(current, next), 1);
+            previous = current;
+            current = next;
+        }
+
+        int end = tileNodes[current];
+
+        for (int i = 0; i < length; i++) {
+            int tile = corridorTiles[i];
+            firstEnds[tile] = node;
+            firstLegs[tile] = corridorLegs[i];
+            secondEnds[tile] = end;
+            secondLegs[tile] = weight - corridorLegs[i];
+        }
+
+        if (end != node) {
+            addEdge(node, end, weight);
+        }
+    }
+
+    private void addEdge(int source, int target, long weight) {
+        if (edgeCount == edgeSources.length) {
+            edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+            edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+            edgeWeights = Arrays.copyOf(edgeWeights, edgeCount * 2);
+        }
+
+        edgeSources[edgeCount] = source;
+        edgeTargets[edgeCount] = target;
+        edgeWeights[edgeCount++] = weight;
+    }
+
+    /**
+     * Collects the passable neighbours of a tile into {@link #neighbourTiles}.
+     *
+     * @param tile the index of the tile
+     * @return the number of passable neighbours
+     */
+    private int passableNeighbours(int tile) {
+        int row = grid.rowOf(tile);
+        int col = tile - row * grid.cols();
+        int count = 0;
+
+        if (row > 0 && grid.isPassable(tile - grid.cols())) {
+            neighbourTiles[count++] = tile - grid.cols();
+        }
+        if (row + 1 < grid.rows() && grid.isPassable(tile + grid.cols())) {
+            neighbourTiles[count++] = tile + grid.cols();
+        }
+        if (col > 0 && grid.isPassable(tile - 1)) {
+            neighbourTiles[count++] = tile - 1;
+        }
+        if (col + 1 < grid.cols() && grid.isPassable(tile + 1)) {
+            neighbourTiles[count++] = tile + 1;
+        }
+
+        return count;
+    }
+
+    /**
+     * Contracts the nodes of the road graph in order of their importance. When a node is contracted,
+     * its remaining neighbours are its upward edges and stay in its adjacency list.
+     *
+     * @return the rank of every node, 0 for the first contracted one
+     */
+    private int[] contract() {
+        neighbours = new int[nodeCount][];
+        weights = new long[nodeCount][];
+        degrees = new int[nodeCount];
+
+        for (int node = 0; node < nodeCount; node++) {
+            neighbours[node] = new int[4];
+            weights[node] = new long[4];
+        }
+
+        for (int edge = 0; edge < edgeCount; edge++) {
+            connect(edgeSources[edge], edgeTargets[edge], edgeWeights[edge]);
+        }
+
+        witnessLabels = new long[nodeCount];
+        witnessMarks = new int[nodeCount];
+        witnessClosed = new int[nodeCount];
+
+        int[] ranks = new int[nodeCount];
+        int[] contractedNeighbours = new int[nodeCount];
+        long[] priorities = new long[nodeCount];
+        boolean[] contracted = new boolean[nodeCount];
+        IndexHeap queue = new IndexHeap();
+
+        for (int node = 0; node < nodeCount; node++) {
+            priorities[node] = priorityOf(node, 0);
+            queue.push(priorities[node], node);
+        }
+
+        int rank = 0;
+
+        while (!queue.isEmpty()) {
+            long key = queue.peekKey();
+            int node = queue.poll();
+
+            if (contracted[node] || key != priorities[node]) {
+                continue;
+            }
+
+            long priority = priorityOf(node, contractedNeighbours[node]);
+
+            if (priority != key) {
+                priorities[node] = priority;
+                queue.push(priority, node);
+                continue;
+            }
+
+            shortcuts(node, true);
+            contracted[node] = true;
+            ranks[node] = rank++;
+
+            for (int i = 0; i < degrees[node]; i++) {
+                int neighbour = neighbours[node][i];
+                disconnect(neighbour, node);
+                contractedNeighbours[neighbour]++;
+                priorities[neighbour] = priorityOf(neighbour, contractedNeighbours[neighbour]);
+                queue.push(priorities[neighbour], neighbour);
+            }
+        }
+
+        return ranks;
+    }
+
+    /**
+     * Calculates the importance of a node, the lower the earlier it is contracted.
+     *
+     * @param node                 the node
+     * @param contractedNeighbours the number of neighbours of the node which are already contracted
+     * @return the priority of the node in the contraction queue
+     */
+    private long priorityOf(int node, int contractedNeighbours) {
+        return EDGE_DIFFERENCE_WEIGHT * (shortcuts(node, false) - degrees[node]) + contractedNeighbours;
+    }
+
+    /**
+     * Counts or adds the shortcuts needed to contract a node: one between every two of its neighbours
+     * for which no witness route avoiding the node is as cheap as the route through it.
+     *
+     * @param node the node to contract
+     * @param add  whether to add the shortcuts to the graph or only count them
+     * @return the number of needed shortcuts
+     */
+    private int shortcuts(int node, boolean add) {
+        int count = 0;
+        int degree = degrees[node];
+
+        for (int i = 0; i < degree - 1; i++) {
+            int source = neighbours[node][i];
+            long toSource = weights[node][i];
+            long limit = 0;
+
+            for (int j = i + 1; j < degree; j++) {
+                limit = Math.max(limit, toSource + weights[node][j]);
+            }
+
+            searchWitnesses(source, node, limit);
+
+            for (int j = i + 1; j < degree; j++) {
+                int target = neighbours[node][j];
+                long via = toSource + weights[node][j];
+
+                if (witnessMarks[target] != witnessMark || witnessLabels[target] > via) {
+                    count++;
+
+                    if (add) {
+                        connect(source, target, via);
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Runs a limited Dijkstra search from a node over the remaining graph without passing through
+     * the node being contracted. The labels of the reached nodes are upper bounds of their distance.
+     *
+     * @param source   the node to search from
+     * @param excluded the node being contracted
+     * @param limit    the weight above which routes are not needed
+     */
+    private void searchWitnesses(int source, int excluded, long limit) {
+        if (++witnessMark == 0) {
+            Arrays.fill(witnessMarks, 0);
+            Arrays.fill(witnessClosed, 0);
+            witnessMark = 1;
+        }
+
+        witnessHeap.clear();
+        witnessMarks[source] = witnessMark;
+        witnessLabels[source] = 0;
+        witnessHeap.push(0, source);
+
+        int settled = 0;
+
+        while (!witnessHeap.isEmpty() && witnessHeap.peekKey() <= limit && settled < WITNESS_SETTLED_LIMIT) {
+            int node = witnessHeap.poll();
+
+            if (witnessClosed[node] == witnessMark) {
+                continue;
+            }
+
+            witnessClosed[node] = witnessMark;
+            settled++;
+
+            for (int i = 0; i < degrees[node]; i++) {
+                int next = neighbours[node][i];
+                long label = witnessLabels[node] + weights[node][i];
+
+                if (next != excluded && (witnessMarks[next] != witnessMark || label < witnessLabels[next])) {
+                    witnessMarks[next] = witnessMark;
+                    witnessLabels[next] = label;
+                    witnessHeap.push(label, next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an edge in both directions, or lowers the weight of an existing one.
+     *
+     * @param first  one end of the edge
+     * @param second the other end of the edge
+     * @param weight the packed weight of the edge
+     */
+    private void connect(int first, int second, long weight) {
+        for (int i = 0; i < degrees[first]; i++) {
+            if (neighbours[first][i] == second) {
+                if (weight < weights[first][i]) {
+                    weights[first][i] = weight;
+                    weights[second][indexOf(second, first)] = weight;
+                }
+
+                return;
+            }
+        }
+
+        append(first, second, weight);
+        append(second, first, weight);
+    }
+
+    private void append(int node, int neighbour, long weight) {
+        if (degrees[node] == neighbours[node].length) {
+            neighbours[node] = Arrays.copyOf(neighbours[node], degrees[node] * 2);
+            weights[node] = Arrays.copyOf(weights[node], degrees[node] * 2);
+        }
+
+        neighbours[node][degrees[node]] = neighbour;
+        weights[node][degrees[node]++] = weight;
+    }
+
+    private void disconnect(int node, int neighbour) {
+        int i = indexOf(node, neighbour);
+        int last = --degrees[node];
+
+        neighbours[node][i] = neighbours[node][last];
+        weights[node][i] = weights[node][last];
+    }
+
+    private int indexOf(int node, int neighbour) {
+        for (int i = 0; i < degrees[node]; i++) {
+            if (neighbours[node][i] == neighbour) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,200 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.IndexHeap;
+
+import java.util.Arrays;
+
+/**
+ * Distance queries over a {@link ContractionHierarchy}. A query starts from the intersections at the ends
+ * of the corridors of both tiles and runs two Dijkstra searches, one from each side, which only follow
+ * upward edges. The cheapest route goes up from both tiles to its most important intersection, so the best
+ * sum of the labels of the two searches is the distance, and each search stops once it cannot improve it.
+ * Nodes which a search reached on a detour are recognised by their upward edges and not expanded.
+ * Like {@link GridSearch} it finds the cheapest route with the fewest moves.
+ * <p>
+ * All buffers are allocated once and reused between queries. An instance is not thread-safe.
+ */
+public class HierarchySearch {
+
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+
+    private final ContractionHierarchy hierarchy;
+
+    private final long[][] labels;
+    private final int[][] seenMarks;
+    private final int[][] closedMarks;
+    private final IndexHeap[] heaps = {new IndexHeap(), new IndexHeap()};
+
+    private long settledNodes;
+
+    private int mark;
+    private int lastTarget = GridSearch.NOT_FOUND;
+    private long lastRoute = ContractionHierarchy.UNREACHED;
+
+    /**
+     * Creates the query buffers for the given hierarchy.
+     *
+     * @param hierarchy the hierarchy of the map
+     * @throws IllegalArgumentException if the hierarchy is null
+     */
+    public HierarchySearch(ContractionHierarchy hierarchy) {
+        if (hierarchy == null) {
+            throw new IllegalArgumentException("Hierarchy cannot be null");
+        }
+
+        this.hierarchy = hierarchy;
+        this.labels = new long[2][hierarchy.nodeCount()];
+        this.seenMarks = new int[2][hierarchy.nodeCount()];
+        this.closedMarks = new int[2][hierarchy.nodeCount()];
+    }
+
+    /**
+     * Calculates the cost of the cheapest route between two tiles. On maps without weighted roads
+     * this is the number of moves.
+     *
+     * @param from the index of the starting tile
+     * @param to   the index of the target tile
+     * @return the cost of the cheapest route between the tiles, or {@link GridSearch#NOT_FOUND} if the target is unreachable
+     */
+    public int distance(int from, int to) {
+        lastTarget = to;
+        lastRoute = ContractionHierarchy.UNREACHED;
+
+        if (hierarchy.firstEnd(from) == ContractionHierarchy.NO_NODE ||
+            hierarchy.firstEnd(to) == ContractionHierarchy.NO_NODE) {
+            return GridSearch.NOT_FOUND;
+        }
+
+        if (from == to) {
+            lastRoute = 0;
+        } else if (hierarchy.corridorOf(from) != ContractionHierarchy.NO_CORRIDOR &&
+            hierarchy.corridorOf(from) == hierarchy.corridorOf(to)) {
+            lastRoute = Math.abs(hierarchy.firstLeg(from) - hierarchy.firstLeg(to));
+        }
+
+        if (++mark == 0) {
+            for (int side = FORWARD; side <= BACKWARD; side++) {
+                Arrays.fill(seenMarks[side], 0);
+                Arrays.fill(closedMarks[side], 0);
+            }
+
+            mark = 1;
+        }
+
+        heaps[FORWARD].clear();
+        heaps[BACKWARD].clear();
+
+        relax(FORWARD, hierarchy.firstEnd(from), hierarchy.firstLeg(from));
+        relax(FORWARD, hierarchy.secondEnd(from), hierarchy.secondLeg(from));
+        relax(BACKWARD, hierarchy.firstEnd(to), hierarchy.firstLeg(to));
+        relax(BACKWARD, hierarchy.secondEnd(to), hierarchy.secondLeg(to));
+
+        searchUpwards();
+
+        return lastRoute == ContractionHierarchy.UNREACHED ? GridSearch.NOT_FOUND :
+            ContractionHierarchy.costOf(lastRoute);
+    }
+
+    /**
+     * Returns the number of moves on the route found by the last search. It differs from
+     * the result of {@link #distance(int, int)} only on maps with weighted roads.
+     *
+     * @param to the index of the target tile of the last search
+     * @return the number of moves to the target, or {@link GridSearch#NOT_FOUND} if it was not reached
+     */
+    public int hopsTo(int to) {
+        if (to != lastTarget || lastRoute == ContractionHierarchy.UNREACHED) {
+            return GridSearch.NOT_FOUND;
+        }
+
+        return ContractionHierarchy.hopsOf(lastRoute);
+    }
+
+    /**
+     * Returns the number of nodes settled by all searches of this instance so far.
+     *
+     * @return the number of settled nodes
+     */
+    public long settledNodes() {
+        return settledNodes;
+    }
+
+    /**
+     * Alternates between the two searches, always settling the closer of the two pending nodes,
+     * until neither search can find a cheaper route than the best one found.
+     */
+    private void searchUpwards() {
+        while (true) {
+            boolean forward = canImprove(FORWARD);
+            boolean backward = canImprove(BACKWARD);
+
+            if (!forward && !backward) {
+                return;
+            }
+
+            int side = forward && (!backward || heaps[FORWARD].peekKey() <= heaps[BACKWARD].peekKey()) ?
+                FORWARD : BACKWARD;
+            int node = heaps[side].poll();
+
+            if (closedMarks[side][node] == mark) {
+                continue;
+            }
+
+            closedMarks[side][node] = mark;
+            settledNodes++;
+
+            int other = 1 - side;
+
+            if (seenMarks[other][node] == mark) {
+                lastRoute = Math.min(lastRoute, labels[side][node] + labels[other][node]);
+            }
+
+            if (isStalled(side, node)) {
+                continue;
+            }
+
+            for (int edge = hierarchy.firstEdge(node); edge < hierarchy.endEdge(node); edge++) {
+                relax(side, hierarchy.edgeTarget(edge), labels[side][node] + hierarchy.edgeWeight(edge));
+            }
+        }
+    }
+
+    /**
+     * Checks whether a settled node can be reached more cheaply through a more important node already
+     * reached by the same search. Such a node cannot be on the cheapest route, so its edges are not
+     * followed. The graph is undirected, so the edges from the more important nodes are the upward
+     * edges of the node itself.
+     *
+     * @param side the search which settled the node
+     * @param node the settled node
+     * @return {@code true} if the label of the node is not its distance, {@code false} otherwise
+     */
+    private boolean isStalled(int side, int node) {
+        for (int edge = hierarchy.firstEdge(node); edge < hierarchy.endEdge(node); edge++) {
+            int target = hierarchy.edgeTarget(edge);
+
+            if (seenMarks[side][target] == mark &&
+                labels[side][target] + hierarchy.edgeWeight(edge) < labels[side][node]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean canImprove(int side) {
+        return !heaps[side].isEmpty() && heaps[side].peekKey() < lastRoute;
+    }
+
+    private void relax(int side, int node, long label) {
+        if (closedMarks[side][node] == mark || (seenMarks[side][node] == mark && labels[side][node] <= label)) {
+            return;
+        }
+
+        seenMarks[side][node] = mark;
+        labels[side][node] = label;
+        heaps[side].push(label, node);
+    }
+}
@@ -0,0 +1,101 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Labels every passable tile with the connected component it belongs to, so whether two tiles
+ * are reachable from each other is answered in constant time without searching. The labels
+ * are either computed from a {@link Grid} or mapped from a {@link MapFile}.
+ */
+public class ConnectedComponents {
+
+    public static final int NO_COMPONENT = -1;
+
+    private final IntBuffer labels;
+    private final int count;
+
+    public ConnectedComponents(Grid grid) {
+        int[] labels = new int[grid.size()];
+        Arrays.fill(labels, NO_COMPONENT);
+
+        int[] queue = new int[grid.size()];
+        int components = 0;
+
+        for (int start = 0; start < labels.length; start++) {
+            if (labels[start] != NO_COMPONENT || !grid.isPassable(start)) {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            labels[start] = components;
+            queue[tail++] = start;
+
+            while (head < tail) {
+                int current = queue[head++];
+                int row = grid.rowOf(current);
+                int col = current - row * grid.cols();
+
+                if (row > 0) {
+                    tail = label(grid, labels, current - grid.cols(), components, queue, tail);
+                }
+                if (row + 1 < grid.rows()) {
+                    tail = label(grid, labels, current + grid.cols(), components, queue, tail);
+                }
+                if (col > 0) {
+                    tail = label(grid, labels, current - 1, components, queue, tail);
+                }
+                if (col + 1 < grid.cols()) {
+                    tail = label(grid, labels, current + 1, components, queue, tail);
+                }
+            }
+
+            components++;
+        }
+
+        this.labels = IntBuffer.wrap(labels);
+        this.count = components;
+    }
+
+    /**
+     * Creates the components from precomputed labels, one per tile in row-major order.
+     *
+     * @param labels the component of every tile, {@value #NO_COMPONENT} for walls
+     * @param count  the number of components
+     */
+    ConnectedComponents(IntBuffer labels, int count) {
+        this.labels = labels;
+        this.count = count;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int componentOf(int index) {
+        return labels.get(index);
+    }
+
+    /**
+     * Checks whether one tile can be reached from the other.
+     *
+     * @param first  the index of the first tile
+     * @param second the index of the second tile
+     * @return {@code true} if both tiles are passable and in the same component, {@code false} otherwise
+     */
+    public boolean areConnected(int first, int second) {
+        int component = labels.get(first);
+
+        return component != NO_COMPONENT && component == labels.get(second);
+    }
+
+    private static int label(Grid grid, int[] labels, int index, int component, int[] queue, int tail) {
+        if (labels[index] == NO_COMPONENT && grid.isPassable(index)) {
+            labels[index] = component;
+            queue[tail++] = index;
+        }
+
+        return tail;
+    }
+}
@@ -0,0 +1,358 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact representation of the map used by the searches in the control center.
+ * Every tile is stored as a single byte in a flat buffer indexed by {@code row * cols + col},
+ * so no objects are created per tile. The buffer is either on the heap or mapped from a {@link MapFile}.
+ * <p>
+ * Road tiles may be given a traversal cost with the digits {@code '1'} to {@code '9'} in the layout,
+ * where {@code '.'} is a road with cost {@value #DEFAULT_COST}. Moving between two neighbouring tiles
+ * costs as much as the more expensive of them, so the cost of a route is the same in both directions.
+ * The costs are only stored for maps which have roads with a cost other than the default.
+ * <p>
+ * A grid is never changed after it is created. The buffer is split into pages of {@value #PAGE_SIZE}
+ * consecutive tiles, and {@link #edit(List)} returns a new grid which copies only the pages with edited
+ * tiles and shares the rest with this one, so old and new versions of a large map can be used side by side.
+ */
+public class Grid {
+
+    public static final byte UNKNOWN_TILE = -1;
+    public static final int DEFAULT_COST = 1;
+    public static final int MAX_COST = 9;
+    public static final int PAGE_SIZE = 1 << 16;
+
+    private static final int PAGE_BITS = Integer.numberOfTrailingZeros(PAGE_SIZE);
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final MapEntityType[] TYPES = MapEntityType.values();
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final ByteBuffer[] tiles;
+    private final ByteBuffer[] costs;
+    private final int maxCost;
+
+    public Grid(char[][] mapLayout) {
+        rows = mapLayout.length;
+        cols = rows == 0 ? 0 : mapLayout[0].length;
+        size = rows * cols;
+        byte[] encoded = new byte[rows * cols];
+        byte[] tileCosts = new byte[rows * cols];
+        int highestCost = DEFAULT_COST;
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                char symbol = col < mapLayout[row].length ? mapLayout[row][col] : MapEntityType.WALL.getSymbol();
+                boolean weightedRoad = isWeightedRoad(symbol);
+                int cost = weightedRoad ? symbol - '0' : DEFAULT_COST;
+
+                encoded[index(row, col)] = weightedRoad ?
+                    encode(MapEntityType.ROAD) : encode(MapEntityType.fromSymbol(symbol));
+                tileCosts[index(row, col)] = (byte) cost;
+                highestCost = Math.max(highestCost, cost);
+            }
+        }
+
+        tiles = pagesOf(ByteBuffer.wrap(encoded), size);
+        costs = highestCost == DEFAULT_COST ? null : pagesOf(ByteBuffer.wrap(tileCosts), size);
+        maxCost = highestCost;
+    }
+
+    /**
+     * Creates a grid over already encoded tiles and costs, one byte per tile in row-major order.
+     *
+     * @param rows    the number of rows
+     * @param cols    the number of columns
+     * @param tiles   the encoded tiles, starting at position 0
+     * @param costs   the traversal costs of the tiles, starting at position 0, or null if all roads
+     *                have the default cost
+     * @param maxCost the highest traversal cost on the map
+     * @throws IllegalArgumentException if the buffers do not hold exactly {@code rows * cols} tiles
+     *                                  or the highest cost is out of range
+     */
+    Grid(int rows, int cols, ByteBuffer tiles, ByteBuffer costs, int maxCost) {
+        if (rows < 0 || cols < 0 || tiles.limit() != rows * cols || (costs != null && costs.limit() != rows * cols)) {
+            throw new IllegalArgumentException("Tiles do not match the size of the map");
+        }
+
+        if (maxCost < DEFAULT_COST || maxCost > MAX_COST || (costs == null && maxCost != DEFAULT_COST)) {
+            throw new IllegalArgumentException("Traversal costs should be between %d and %d"
+                .formatted(DEFAULT_COST, MAX_COST));
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.tiles = pagesOf(tiles, size);
+        this.costs = costs == null ? null : pagesOf(costs, size);
+        this.maxCost = maxCost;
+    }
+
+    private Grid(int rows, int cols, ByteBuffer[] tiles, ByteBuffer[] costs, int maxCost) {
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.tiles = tiles;
+        this.costs = costs;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Splits a buffer into pages of {@value #PAGE_SIZE} tiles which share its content.
+     *
+     * @param buffer the tiles, starting at position 0
+     * @param size   the number of tiles
+     * @return the pages, the last one holding the remaining tiles
+     */
+    private static ByteBuffer[] pagesOf(ByteBuffer buffer, int size) {
+        ByteBuffer[] pages = new ByteBuffer[(size + PAGE_SIZE - 1) >>> PAGE_BITS];
+
+        for (int page = 0; page < pages.length; page++) {
+            int offset = page << PAGE_BITS;
+            pages[page] = buffer.slice(offset, Math.min(PAGE_SIZE, size - offset));
+        }
+
+        return pages;
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer page) {
+        return ByteBuffer.allocate(page.limit()).put(0, page, 0, page.limit());
+    }
+
+    /**
+     * Checks whether a symbol of the layout is a road given with its traversal cost.
+     *
+     * @param symbol the symbol of the tile
+     * @return {@code true} if the symbol is a digit between {@value #DEFAULT_COST} and {@value #MAX_COST}
+     */
+    public static boolean isWeightedRoad(char symbol) {
+        return symbol >= '0' + DEFAULT_COST && symbol <= '0' + MAX_COST;
+    }
+
+    /**
+     * Encodes a map entity type as a tile byte.
+     *
+     * @param type the type to encode, may be null for unknown tiles
+     * @return the tile byte for the given type
+     */
+    public static byte encode(MapEntityType type) {
+        return type == null ? UNKNOWN_TILE : (byte) type.ordinal();
+    }
+
+    /**
+     * Decodes a tile byte back to its map entity type.
+     *
+     * @param tile the tile byte
+     * @return the matching {@link MapEntityType}, or null for unknown tiles
+     */
+    public static MapEntityType decode(byte tile) {
+        return tile == UNKNOWN_TILE ? null : TYPES[tile];
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    public int rowOf(int index) {
+        return index / cols;
+    }
+
+    public int colOf(int index) {
+        return index % cols;
+    }
+
+    public boolean contains(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    public byte tileAt(int index) {
+        return tiles[index >>> PAGE_BITS].get(index & PAGE_MASK);
+    }
+
+    /**
+     * Collects the indexes of all tiles of the given kind in row-major order.
+     *
+     * @param tile the tile byte to look for
+     * @return the indexes of the matching tiles
+     */
+    public int[] indexesOf(byte tile) {
+        int count = 0;
+
+        for (int index = 0; index < size(); index++) {
+            if (tileAt(index) == tile) {
+                count++;
+            }
+        }
+
+        int[] indexes = new int[count];
+
+        for (int index = 0, found = 0; index < size(); index++) {
+            if (tileAt(index) == tile) {
+                indexes[found++] = index;
+            }
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Checks whether some roads of the map have a traversal cost other than {@value #DEFAULT_COST}.
+     *
+     * @return {@code true} if the map has weighted roads, {@code false} if every move costs the same
+     */
+    public boolean isWeighted() {
+        return costs != null;
+    }
+
+    public int maxCost() {
+        return maxCost;
+    }
+
+    public int costAt(int index) {
+        return costs == null ? DEFAULT_COST : costs[index >>> PAGE_BITS].get(index & PAGE_MASK);
+    }
+
+    /**
+     * Calculates the cost of moving between two neighbouring tiles, which is the cost
+     * of the more expensive of them.
+     *
+     * @param from the index of the tile to move from
+     * @param to   the index of the tile to move to
+     * @return the cost of the move
+     */
+    public int moveCost(int from, int to) {
+        return costs == null ? DEFAULT_COST :
+            Math.max(costs[from >>> PAGE_BITS].get(from & PAGE_MASK), costs[to >>> PAGE_BITS].get(to & PAGE_MASK));
+    }
+
+    /**
+     * Checks whether a delivery guy can pass through the tile at the given index.
+     * Every tile except {@link MapEntityType#WALL} is passable.
+     *
+     * @param index the flat index of the tile
+     * @return {@code true} if the tile is passable, {@code false} otherwise
+     */
+    public boolean isPassable(int index) {
+        return tiles[index >>> PAGE_BITS].get(index & PAGE_MASK) != MapEntityType.WALL.ordinal();
+    }
+
+    /**
+     * Creates a new version of the map with the given tiles changed. Only the pages with edited tiles
+     * are copied, the rest are shared with this grid, which stays unchanged. Later edits of the same tile
+     * win. The highest traversal cost of the new grid is never lower than the one of this grid, even if
+     * the most expensive roads are edited away, which only loosens the bounds derived from it.
+     *
+     * @param edits the changes of the tiles
+     * @return the edited grid
+     * @throws IllegalArgumentException if the edits or any of their locations or types is null, if a location
+     *                                  is outside of the map or a cost is out of range or given for a tile
+     *                                  which is not a road
+     */
+    public Grid edit(List<MapEdit> edits) {
+        validateEdits(edits);
+
+        ByteBuffer[] editedTiles = tiles.clone();
+        ByteBuffer[] editedCosts = costs == null ? null : costs.clone();
+        boolean[] copiedTiles = new boolean[tiles.length];
+        boolean[] copiedCosts = new boolean[tiles.length];
+        int highestCost = maxCost;
+
+        for (MapEdit edit : edits) {
+            int index = index(edit.location().x(), edit.location().y());
+            int page = index >>> PAGE_BITS;
+
+            if (!copiedTiles[page]) {
+                editedTiles[page] = copyOf(editedTiles[page]);
+                copiedTiles[page] = true;
+            }
+
+            editedTiles[page].put(index & PAGE_MASK, encode(edit.type()));
+
+            if (editedCosts == null && edit.cost() != DEFAULT_COST) {
+                editedCosts = defaultCostPages();
+            }
+
+            if (editedCosts != null) {
+                if (!copiedCosts[page]) {
+                    editedCosts[page] = copyOf(editedCosts[page]);
+                    copiedCosts[page] = true;
+                }
+
+                editedCosts[page].put(index & PAGE_MASK, (byte) edit.cost());
+            }
+
+            highestCost = Math.max(highestCost, edit.cost());
+        }
+
+        return new Grid(rows, cols, editedTiles, editedCosts, highestCost);
+    }
+
+    /**
+     * Checks whether this grid and another version of it share the storage of the page with the given tile.
+     *
+     * @param other the other version of the grid
+     * @param index the flat index of a tile
+     * @return {@code true} if the tile is stored in the same page in both grids, {@code false} otherwise
+     */
+    boolean sharesPage(Grid other, int index) {
+        return tiles[index >>> PAGE_BITS] == other.tiles[index >>> PAGE_BITS];
+    }
+
+    private void validateEdits(List<MapEdit> edits) {
+        if (edits == null) {
+            throw new IllegalArgumentException("Edits cannot be null");
+        }
+
+        for (MapEdit edit : edits) {
+            if (edit == null || edit.location() == null || edit.type() == null) {
+                throw new IllegalArgumentException("Edits and their locations and types cannot be null");
+            }
+
+            if (!contains(edit.location().x(), edit.location().y())) {
+                throw new IllegalArgumentException("Edited locations should be inside of the map");
+            }
+
+            if (edit.cost() < DEFAULT_COST || edit.cost() > MAX_COST ||
+                (edit.type() != MapEntityType.ROAD && edit.cost() != DEFAULT_COST)) {
+                throw new IllegalArgumentException("Traversal costs should be between %d and %d and only set for roads"
+                    .formatted(DEFAULT_COST, MAX_COST));
+            }
+        }
+    }
+
+    /**
+     * Creates the costs of a grid without weighted roads. All pages share a single buffer
+     * until they are copied on their first edit.
+     *
+     * @return the pages of the costs, every tile with cost {@value #DEFAULT_COST}
+     */
+    private ByteBuffer[] defaultCostPages() {
+        byte[] defaults = new byte[Math.min(PAGE_SIZE, size)];
+        Arrays.fill(defaults, (byte) DEFAULT_COST);
+
+        ByteBuffer[] pages = new ByteBuffer[tiles.length];
+
+        for (int page = 0; page < pages.length; page++) {
+            pages[page] = ByteBuffer.wrap(defaults, 0, tiles[page].limit()).slice();
+        }
+
+        return pages;
+    }
+}
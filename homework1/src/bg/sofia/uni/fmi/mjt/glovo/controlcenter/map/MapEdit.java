@@ -0,0 +1,15 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+/**
+ * A change of a single tile of the map, for example a closed road or a new restaurant.
+ *
+ * @param location the location of the tile
+ * @param type     the new type of the tile
+ * @param cost     the traversal cost of the tile, other than {@value Grid#DEFAULT_COST} only for roads
+ */
+public record MapEdit(Location location, MapEntityType type, int cost) {
+
+    public MapEdit(Location location, MapEntityType type) {
+        this(location, type, Grid.DEFAULT_COST);
+    }
+}
@@ -17,4 +17,20 @@ public enum MapEntityType {
     public char getSymbol() {
         return this.symbol;
     }
+
+    /**
+     * Finds the map entity type represented by the given symbol.
+     *
+     * @param symbol the symbol used in the map layout
+     * @return the matching {@link MapEntityType}, or null if the symbol is unknown
+     */
+    public static MapEntityType fromSymbol(char symbol) {
+        for (MapEntityType type : values()) {
+            if (type.symbol == symbol) {
+                return type;
+            }
+        }
+
+        return null;
+    }
 }
@@ -0,0 +1,154 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A map stored in a compact binary file, so a control center can start without parsing a
+ * {@code char[][]} or creating an object per tile. The file consists of:
+ * <ul>
+ *     <li>a header with the magic number, the format version, the rows, the columns, the number
+ *     of connected components and the highest traversal cost, each a 4-byte integer</li>
+ *     <li>one byte per tile in row-major order, as encoded by {@link Grid#encode(MapEntityType)}</li>
+ *     <li>one byte per tile with its traversal cost, only if the map has weighted roads</li>
+ *     <li>padding up to a multiple of 4 bytes</li>
+ *     <li>the connected component of every tile as a 4-byte integer in row-major order</li>
+ * </ul>
+ * Loaded files are memory-mapped, so the tiles and the labels live outside of the heap and
+ * are paged in by the operating system on first access.
+ */
+public class MapFile {
+
+    private static final int MAGIC = 0x474C4D50;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    private final Grid grid;
+    private final ConnectedComponents components;
+
+    private MapFile(Grid grid, ConnectedComponents components) {
+        this.grid = grid;
+        this.components = components;
+    }
+
+    public Grid grid() {
+        return grid;
+    }
+
+    public ConnectedComponents components() {
+        return components;
+    }
+
+    /**
+     * Maps a map file into memory.
+     *
+     * @param path the path of the file
+     * @return the loaded {@link MapFile}
+     * @throws IllegalArgumentException if the path is null, the file could not be read or is not a valid map file
+     */
+    public static MapFile load(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IllegalArgumentException("Invalid map file " + path);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            int count = buffer.getInt();
+            int maxCost = buffer.getInt();
+
+            if (magic != MAGIC || version != VERSION || rows < 0 || cols < 0 || count < 0 ||
+                channel.size() != labelsOffset((long) rows * cols, maxCost) + (long) rows * cols * Integer.BYTES) {
+                throw new IllegalArgumentException("Invalid map file " + path);
+            }
+
+            int size = rows * cols;
+            ByteBuffer tiles = buffer.slice(HEADER_SIZE, size);
+            ByteBuffer costs = maxCost == Grid.DEFAULT_COST ? null : buffer.slice(HEADER_SIZE + size, size);
+            ByteBuffer labels = buffer.slice((int) labelsOffset(size, maxCost), size * Integer.BYTES);
+
+            return new MapFile(new Grid(rows, cols, tiles, costs, maxCost),
+                new ConnectedComponents(labels.asIntBuffer(), count));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not load the map from " + path, e);
+        }
+    }
+
+    /**
+     * Writes a map to a file which can later be loaded with {@link #load(Path)}.
+     * An existing file is overwritten.
+     *
+     * @param mapLayout the layout of the map
+     * @param path      the path of the file
+     * @throws IllegalArgumentException if any of the arguments is null or the file could not be written
+     */
+    public static void write(char[][] mapLayout, Path path) {
+        if (mapLayout == null || path == null) {
+            throw new IllegalArgumentException("Map layout and path cannot be null");
+        }
+
+        Grid grid = new Grid(mapLayout);
+        ConnectedComponents components = new ConnectedComponents(grid);
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(grid.rows());
+            output.writeInt(grid.cols());
+            output.writeInt(components.count());
+            output.writeInt(grid.maxCost());
+
+            for (int index = 0; index < grid.size(); index++) {
+                output.writeByte(grid.tileAt(index));
+            }
+
+            long end = HEADER_SIZE + grid.size();
+
+            if (grid.isWeighted()) {
+                for (int index = 0; index < grid.size(); index++) {
+                    output.writeByte(grid.costAt(index));
+                }
+
+                end += grid.size();
+            }
+
+            while (end++ < labelsOffset(grid.size(), grid.maxCost())) {
+                output.writeByte(0);
+            }
+
+            for (int index = 0; index < grid.size(); index++) {
+                output.writeInt(components.componentOf(index));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not write the map to " + path, e);
+        }
+    }
+
+    /**
+     * Calculates where the component labels start, so that they are aligned to 4 bytes.
+     *
+     * @param size    the number of tiles
+     * @param maxCost the highest traversal cost on the map
+     * @return the offset of the labels in the file
+     */
+    private static long labelsOffset(long size, int maxCost) {
+        long end = HEADER_SIZE + (maxCost == Grid.DEFAULT_COST ? size : 2 * size);
+
+        return (end + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+    }
+}
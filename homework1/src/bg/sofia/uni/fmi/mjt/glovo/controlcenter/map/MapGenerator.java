@@ -0,0 +1,221 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates random map layouts for load testing and benchmarks.
+ */
+public class MapGenerator {
+
+    private final Random random;
+
+    public MapGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a map where every tile is a road or a wall and a given number of restaurants,
+     * clients and delivery guys are placed on random roads.
+     *
+     * @param rows        the number of rows of the map
+     * @param cols        the number of columns of the map
+     * @param wallDensity the probability for a tile to be a wall, between 0 and 1
+     * @param restaurants the number of restaurants
+     * @param clients     the number of clients
+     * @param cars        the number of delivery guys with a car
+     * @param bikes       the number of delivery guys with a bike
+     * @return the generated layout
+     * @throws IllegalArgumentException if the map is too small for the requested entities
+     */
+    public char[][] generate(int rows, int cols, double wallDensity,
+                             int restaurants, int clients, int cars, int bikes) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Map dimensions should be positive");
+        }
+
+        if (wallDensity < 0 || wallDensity >= 1) {
+            throw new IllegalArgumentException("Wall density should be in [0, 1)");
+        }
+
+        if ((long) restaurants + clients + cars + bikes > (long) rows * cols / 2) {
+            throw new IllegalArgumentException("Map is too small for the requested entities");
+        }
+
+        char[][] layout = new char[rows][cols];
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                layout[row][col] = random.nextDouble() < wallDensity ?
+                    MapEntityType.WALL.getSymbol() : MapEntityType.ROAD.getSymbol();
+            }
+        }
+
+        placeAll(layout, true, restaurants, clients, cars, bikes);
+
+        return layout;
+    }
+
+    /**
+     * Generates a maze: the tiles with even row and column are roads connected by a random spanning tree
+     * of corridors, so most routes wind around walls. A share of the remaining walls between two roads is
+     * then removed to add loops. The entities are placed on random roads.
+     *
+     * @param rows        the number of rows of the map
+     * @param cols        the number of columns of the map
+     * @param openness    the probability for a wall between two roads to be removed, between 0 and 1
+     * @param restaurants the number of restaurants
+     * @param clients     the number of clients
+     * @param cars        the number of delivery guys with a car
+     * @param bikes       the number of delivery guys with a bike
+     * @return the generated layout
+     * @throws IllegalArgumentException if the map is too small for the requested entities
+     */
+    public char[][] generateMaze(int rows, int cols, double openness,
+                                 int restaurants, int clients, int cars, int bikes) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Map dimensions should be positive");
+        }
+
+        if (openness < 0 || openness > 1) {
+            throw new IllegalArgumentException("Openness should be in [0, 1]");
+        }
+
+        char[][] layout = new char[rows][cols];
+
+        for (char[] row : layout) {
+            Arrays.fill(row, MapEntityType.WALL.getSymbol());
+        }
+
+        carveCorridors(layout);
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = (row + 1) % 2; col < cols; col += 2) {
+                if (isWallBetweenRoads(layout, row, col) && random.nextDouble() < openness) {
+                    layout[row][col] = MapEntityType.ROAD.getSymbol();
+                }
+            }
+        }
+
+        long roads = Arrays.stream(layout)
+            .mapToLong(row -> new String(row).chars().filter(tile -> tile == MapEntityType.ROAD.getSymbol()).count())
+            .sum();
+
+        if ((long) restaurants + clients + cars + bikes > roads) {
+            throw new IllegalArgumentException("Map is too small for the requested entities");
+        }
+
+        placeAll(layout, false, restaurants, clients, cars, bikes);
+
+        return layout;
+    }
+
+    /**
+     * Gives random road tiles of a layout a traversal cost above the default, as the digits
+     * {@code '2'} to {@code '0' + maxCost}.
+     *
+     * @param layout  the layout to modify
+     * @param density the probability for a road tile to get a traversal cost, between 0 and 1
+     * @param maxCost the highest traversal cost, between 2 and {@value Grid#MAX_COST}
+     * @throws IllegalArgumentException if the layout is null or the density or the cost are out of range
+     */
+    public void addRoadCosts(char[][] layout, double density, int maxCost) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Layout cannot be null");
+        }
+
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("Density should be in [0, 1]");
+        }
+
+        if (maxCost <= Grid.DEFAULT_COST || maxCost > Grid.MAX_COST) {
+            throw new IllegalArgumentException("Max cost should be in (%d, %d]".formatted(Grid.DEFAULT_COST, Grid.MAX_COST));
+        }
+
+        for (char[] row : layout) {
+            for (int col = 0; col < row.length; col++) {
+                if (row[col] == MapEntityType.ROAD.getSymbol() && random.nextDouble() < density) {
+                    row[col] = (char) ('0' + Grid.DEFAULT_COST + 1 + random.nextInt(maxCost - Grid.DEFAULT_COST));
+                }
+            }
+        }
+    }
+
+    /**
+     * Carves the corridors of a maze with a randomized depth-first search over the tiles with even
+     * row and column, removing the wall between a tile and the neighbour it moves to.
+     *
+     * @param layout a layout of walls only
+     */
+    private void carveCorridors(char[][] layout) {
+        int rows = layout.length;
+        int cols = layout[0].length;
+        int[] stack = new int[((rows + 1) / 2) * ((cols + 1) / 2)];
+        int size = 0;
+        int[][] directions = {{-2, 0}, {2, 0}, {0, -2}, {0, 2}};
+
+        layout[0][0] = MapEntityType.ROAD.getSymbol();
+        stack[size++] = 0;
+
+        while (size > 0) {
+            int row = stack[size - 1] / cols;
+            int col = stack[size - 1] % cols;
+            int[] next = new int[directions.length];
+            int options = 0;
+
+            for (int i = 0; i < directions.length; i++) {
+                int nextRow = row + directions[i][0];
+                int nextCol = col + directions[i][1];
+
+                if (nextRow >= 0 && nextRow < rows && nextCol >= 0 && nextCol < cols &&
+                    layout[nextRow][nextCol] == MapEntityType.WALL.getSymbol()) {
+                    next[options++] = i;
+                }
+            }
+
+            if (options == 0) {
+                size--;
+                continue;
+            }
+
+            int[] direction = directions[next[random.nextInt(options)]];
+            layout[row + direction[0] / 2][col + direction[1] / 2] = MapEntityType.ROAD.getSymbol();
+            layout[row + direction[0]][col + direction[1]] = MapEntityType.ROAD.getSymbol();
+            stack[size++] = (row + direction[0]) * cols + col + direction[1];
+        }
+    }
+
+    private boolean isWallBetweenRoads(char[][] layout, int row, int col) {
+        char road = MapEntityType.ROAD.getSymbol();
+
+        if (row % 2 == 1) {
+            return row + 1 < layout.length && layout[row - 1][col] == road && layout[row + 1][col] == road &&
+                layout[row][col] != road;
+        }
+
+        return col + 1 < layout[row].length && layout[row][col - 1] == road && layout[row][col + 1] == road &&
+            layout[row][col] != road;
+    }
+
+    private void placeAll(char[][] layout, boolean onWalls, int restaurants, int clients, int cars, int bikes) {
+        place(layout, MapEntityType.RESTAURANT, restaurants, onWalls);
+        place(layout, MapEntityType.CLIENT, clients, onWalls);
+        place(layout, MapEntityType.DELIVERY_GUY_CAR, cars, onWalls);
+        place(layout, MapEntityType.DELIVERY_GUY_BIKE, bikes, onWalls);
+    }
+
+    private void place(char[][] layout, MapEntityType type, int count, boolean onWalls) {
+        int placed = 0;
+
+        while (placed < count) {
+            int row = random.nextInt(layout.length);
+            int col = random.nextInt(layout[row].length);
+
+            if (layout[row][col] == MapEntityType.ROAD.getSymbol() ||
+                (onWalls && layout[row][col] == MapEntityType.WALL.getSymbol())) {
+                layout[row][col] = type.getSymbol();
+                placed++;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link DispatchMetrics} recorded by a control center. Counters are {@link LongAdder}s, so the
+ * worker threads of a batch record them without contending with each other.
+ */
+public class DispatchCounters implements DispatchMetrics {
+
+    private final LongAdder tilesExpanded = new LongAdder();
+    private final LongAdder reusedSearchBuffers = new LongAdder();
+    private final LongAdder distanceFieldHits = new LongAdder();
+    private final LongAdder distanceFieldMisses = new LongAdder();
+    private final LongAdder resultCacheHits = new LongAdder();
+    private final LongAdder resultCacheMisses = new LongAdder();
+    private final Map<DispatchOperation, LatencyHistogram> latencies = new EnumMap<>(DispatchOperation.class);
+
+    public DispatchCounters() {
+        for (DispatchOperation operation : DispatchOperation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public void addTilesExpanded(long tiles) {
+        tilesExpanded.add(tiles);
+    }
+
+    public void recordReusedSearchBuffers() {
+        reusedSearchBuffers.increment();
+    }
+
+    public void recordDistanceFieldLookup(boolean hit) {
+        (hit ? distanceFieldHits : distanceFieldMisses).increment();
+    }
+
+    public void recordResultCacheLookup(boolean hit) {
+        (hit ? resultCacheHits : resultCacheMisses).increment();
+    }
+
+    public void recordLatency(DispatchOperation operation, long nanos) {
+        latencies.get(operation).record(nanos);
+    }
+
+    @Override
+    public long tilesExpanded() {
+        return tilesExpanded.sum();
+    }
+
+    @Override
+    public long reusedSearchBuffers() {
+        return reusedSearchBuffers.sum();
+    }
+
+    @Override
+    public long distanceFieldHits() {
+        return distanceFieldHits.sum();
+    }
+
+    @Override
+    public long distanceFieldMisses() {
+        return distanceFieldMisses.sum();
+    }
+
+    @Override
+    public long resultCacheHits() {
+        return resultCacheHits.sum();
+    }
+
+    @Override
+    public long resultCacheMisses() {
+        return resultCacheMisses.sum();
+    }
+
+    @Override
+    public LatencySnapshot latency(DispatchOperation operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation cannot be null");
+        }
+
+        return latencies.get(operation).snapshot();
+    }
+}
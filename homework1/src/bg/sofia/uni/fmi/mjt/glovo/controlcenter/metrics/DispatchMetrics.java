@@ -0,0 +1,60 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics;
+
+/**
+ * Read-only view of where the control center spends its time. All values are totals since the
+ * control center was created.
+ */
+public interface DispatchMetrics {
+
+    /**
+     * Returns the number of tiles expanded by the searches, or the number of portals for the regional search.
+     *
+     * @return the number of expanded tiles
+     */
+    long tilesExpanded();
+
+    /**
+     * Returns the number of operations that reused pooled search buffers, each of which
+     * would otherwise allocate buffers as large as the map.
+     *
+     * @return the number of operations on reused search buffers
+     */
+    long reusedSearchBuffers();
+
+    long distanceFieldHits();
+
+    long distanceFieldMisses();
+
+    /**
+     * Returns the share of the distance field lookups answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    default double distanceFieldHitRate() {
+        long lookups = distanceFieldHits() + distanceFieldMisses();
+        return lookups == 0 ? 0 : (double) distanceFieldHits() / lookups;
+    }
+
+    long resultCacheHits();
+
+    long resultCacheMisses();
+
+    /**
+     * Returns the share of the orders answered from the result cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    default double resultCacheHitRate() {
+        long lookups = resultCacheHits() + resultCacheMisses();
+        return lookups == 0 ? 0 : (double) resultCacheHits() / lookups;
+    }
+
+    /**
+     * Returns the latency percentiles of an operation.
+     *
+     * @param operation the operation
+     * @return the {@link LatencySnapshot} of the operation
+     * @throws IllegalArgumentException if the operation is null
+     */
+    LatencySnapshot latency(DispatchOperation operation);
+}
@@ -0,0 +1,12 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics;
+
+/**
+ * The operations of the control center whose latency is recorded.
+ */
+public enum DispatchOperation {
+    FIND_OPTIMAL_DELIVERY_GUY,
+    ASSIGN_DELIVERY_GUYS,
+    GET_DISTANCE,
+    PLAN_ROUTE,
+    FIND_ROUTE
+}
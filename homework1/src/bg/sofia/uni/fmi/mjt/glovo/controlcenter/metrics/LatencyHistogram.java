@@ -0,0 +1,107 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of non-negative latencies with logarithmic buckets. Every power of two is split
+ * into {@value #SUB_BUCKETS} buckets of equal width, so a bucket is at most an eighth as wide as the
+ * values in it, and recording is a single {@link LongAdder} increment which does not contend between threads.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final double P50 = 0.5;
+    private static final double P90 = 0.9;
+    private static final double P99 = 0.99;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a single latency. Negative values are recorded as zero.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[bucketOf(value)].increment();
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the percentiles of the latencies recorded so far. Latencies recorded concurrently
+     * may or may not be included.
+     *
+     * @return the {@link LatencySnapshot} of the recorded latencies
+     */
+    public LatencySnapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            snapshot[bucket] = counts[bucket].sum();
+            total += snapshot[bucket];
+        }
+
+        long highest = max.get();
+
+        return new LatencySnapshot(total, percentile(snapshot, total, P50, highest),
+            percentile(snapshot, total, P90, highest), percentile(snapshot, total, P99, highest), highest);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * Finds the bucket which holds the given share of the recorded latencies.
+     *
+     * @param snapshot the counts of the buckets
+     * @param total    the sum of the counts
+     * @param share    the share of the latencies, between 0 and 1
+     * @param highest  the highest recorded latency, which no percentile exceeds
+     * @return the upper bound of the bucket, or 0 if nothing was recorded
+     */
+    private static long percentile(long[] snapshot, long total, double share, long highest) {
+        long rank = (long) Math.ceil(total * share);
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += snapshot[bucket];
+
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBoundOf(bucket), highest);
+            }
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,14 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics;
+
+/**
+ * Percentiles of the latencies recorded for an operation, in nanoseconds. The percentiles are
+ * the upper bounds of histogram buckets, so they may overestimate the exact value by up to an eighth.
+ *
+ * @param count the number of recorded latencies
+ * @param p50   the median latency
+ * @param p90   the 90th percentile
+ * @param p99   the 99th percentile
+ * @param max   the highest recorded latency
+ */
+public record LatencySnapshot(long count, long p50, long p90, long p99, long max) {
+}
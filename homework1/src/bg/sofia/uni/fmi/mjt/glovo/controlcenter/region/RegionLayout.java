@@ -0,0 +1,67 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.region;
+
+/**
+ * Splits a map into square regions of {@code regionSize} x {@code regionSize} tiles, numbered row by row.
+ * The regions on the bottom and right edges are smaller when the size of the map is not a multiple
+ * of the region size. An empty map has no regions.
+ */
+public class RegionLayout {
+
+    private final int rows;
+    private final int cols;
+    private final int regionSize;
+    private final int regionRows;
+    private final int regionCols;
+
+    /**
+     * Creates the layout of a map with the given size.
+     *
+     * @param rows       the number of rows of the map
+     * @param cols       the number of columns of the map
+     * @param regionSize the side of a region in tiles
+     * @throws IllegalArgumentException if any of the sizes of the map is negative or the region size is not positive
+     */
+    public RegionLayout(int rows, int cols, int regionSize) {
+        if (rows < 0 || cols < 0) {
+            throw new IllegalArgumentException("Map sizes should not be negative");
+        }
+
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size should be positive");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.regionSize = regionSize;
+        this.regionRows = (rows + regionSize - 1) / regionSize;
+        this.regionCols = (cols + regionSize - 1) / regionSize;
+    }
+
+    public int regionSize() {
+        return regionSize;
+    }
+
+    public int count() {
+        return regionRows * regionCols;
+    }
+
+    public int regionOf(int row, int col) {
+        return (row / regionSize) * regionCols + col / regionSize;
+    }
+
+    public int firstRow(int region) {
+        return (region / regionCols) * regionSize;
+    }
+
+    public int firstCol(int region) {
+        return (region % regionCols) * regionSize;
+    }
+
+    public int lastRow(int region) {
+        return Math.min(firstRow(region) + regionSize, rows) - 1;
+    }
+
+    public int lastCol(int region) {
+        return Math.min(firstCol(region) + regionSize, cols) - 1;
+    }
+}
@@ -0,0 +1,225 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.region;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Overlay graph of a map split into square regions. Every passable tile on the border of a region
+ * with a passable neighbour in another region is a portal, so every route between two regions goes
+ * through at least one portal of each. The portals of a region are connected by the cheapest routes
+ * inside the region and the neighbouring portals of two regions by a single move. A route from any
+ * tile to any other is then a route inside the start region to one of its portals, a route over the
+ * overlay and a route inside the target region, which is how {@link RegionalSearch} answers queries
+ * without searching the tiles of the regions in between.
+ * <p>
+ * The regions are independent of each other, so the routes between their portals are computed in
+ * parallel, each worker thread with its own search buffers. The weight of an overlay edge packs the
+ * cost of the route in its upper 32 bits and the number of moves in the lower ones, so weights add up
+ * and compare like (cost, moves) pairs.
+ */
+public class RegionOverlay {
+
+    public static final int DEFAULT_REGION_SIZE = 32;
+
+    static final long UNREACHED = Long.MAX_VALUE;
+
+    private static final int HOPS_BITS = 32;
+    private static final long HOPS_MASK = (1L << HOPS_BITS) - 1;
+    private static final int INITIAL_PORTALS_CAPACITY = 1024;
+
+    private final Grid grid;
+    private final RegionLayout layout;
+
+    private final int[] portalOffsets;
+    private final int[] portals;
+    private final int[][] edgeTargets;
+    private final long[][] edgeWeights;
+
+    /**
+     * Splits the map into regions and computes the routes between the portals of every region.
+     *
+     * @param grid       the map
+     * @param regionSize the side of a region in tiles
+     * @throws IllegalArgumentException if the grid is null or the region size is not positive
+     */
+    public RegionOverlay(Grid grid, int regionSize) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid cannot be null");
+        }
+
+        this.grid = grid;
+        this.layout = new RegionLayout(grid.rows(), grid.cols(), regionSize);
+        this.portalOffsets = new int[layout.count() + 1];
+        this.portals = findPortals();
+        this.edgeTargets = new int[portals.length][];
+        this.edgeWeights = new long[portals.length][];
+
+        ThreadLocal<GridSearch> searches = ThreadLocal.withInitial(() -> new GridSearch(grid));
+        IntStream.range(0, layout.count()).parallel().forEach(region -> connect(region, searches.get()));
+    }
+
+    static long pack(int cost, int hops) {
+        return ((long) cost << HOPS_BITS) | hops;
+    }
+
+    static int costOf(long weight) {
+        return (int) (weight >>> HOPS_BITS);
+    }
+
+    static int hopsOf(long weight) {
+        return (int) (weight & HOPS_MASK);
+    }
+
+    public Grid grid() {
+        return grid;
+    }
+
+    public RegionLayout layout() {
+        return layout;
+    }
+
+    public int regionOf(int index) {
+        return layout.regionOf(grid.rowOf(index), grid.colOf(index));
+    }
+
+    public int portalCount() {
+        return portals.length;
+    }
+
+    int firstPortal(int region) {
+        return portalOffsets[region];
+    }
+
+    int endPortal(int region) {
+        return portalOffsets[region + 1];
+    }
+
+    int portalTile(int portal) {
+        return portals[portal];
+    }
+
+    int[] edgeTargets(int portal) {
+        return edgeTargets[portal];
+    }
+
+    long[] edgeWeights(int portal) {
+        return edgeWeights[portal];
+    }
+
+    /**
+     * Finds the portals of every region. Only the tiles on the borders of the regions are checked.
+     * The portals are grouped by region and sorted by tile index inside each group.
+     *
+     * @return the tile indexes of the portals, the portals of region {@code r} starting at {@code portalOffsets[r]}
+     */
+    private int[] findPortals() {
+        int size = layout.regionSize();
+        int[] found = new int[INITIAL_PORTALS_CAPACITY];
+        int count = 0;
+
+        for (int row = 0; row < grid.rows(); row++) {
+            boolean borderRow = row % size == 0 || row % size == size - 1;
+
+            for (int col = 0; col < grid.cols(); col = borderRow || col % size != 0 || size == 1 ? col + 1 : col + size - 1) {
+                int index = grid.index(row, col);
+
+                if (isPortal(index)) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+
+                    found[count++] = index;
+                    portalOffsets[regionOf(index) + 1]++;
+                }
+            }
+        }
+
+        for (int region = 0; region < layout.count(); region++) {
+            portalOffsets[region + 1] += portalOffsets[region];
+        }
+
+        int[] sorted = new int[count];
+        int[] next = Arrays.copyOf(portalOffsets, layout.count());
+
+        for (int i = 0; i < count; i++) {
+            sorted[next[regionOf(found[i])]++] = found[i];
+        }
+
+        return sorted;
+    }
+
+    private boolean isPortal(int index) {
+        if (!grid.isPassable(index)) {
+            return false;
+        }
+
+        int row = grid.rowOf(index);
+        int col = grid.colOf(index);
+
+        return crossesBorder(index, row - 1, col) || crossesBorder(index, row + 1, col) ||
+            crossesBorder(index, row, col - 1) || crossesBorder(index, row, col + 1);
+    }
+
+    private boolean crossesBorder(int index, int row, int col) {
+        if (!grid.contains(row, col)) {
+            return false;
+        }
+
+        int neighbour = grid.index(row, col);
+        return grid.isPassable(neighbour) && regionOf(neighbour) != regionOf(index);
+    }
+
+    /**
+     * Connects every portal of a region to the other portals of the region it can reach without
+     * leaving it and to its neighbouring portals in other regions.
+     *
+     * @param region the region to connect
+     * @param search the search buffers of the current thread
+     */
+    private void connect(int region, GridSearch search) {
+        int first = firstPortal(region);
+        int end = endPortal(region);
+
+        for (int portal = first; portal < end; portal++) {
+            int tile = portals[portal];
+            search.exploreWithin(tile, layout.firstRow(region), layout.firstCol(region),
+                layout.lastRow(region), layout.lastCol(region), index -> true);
+
+            int[] targets = new int[end - first - 1 + 4];
+            long[] weights = new long[targets.length];
+            int count = 0;
+
+            for (int other = first; other < end; other++) {
+                int distance = search.distanceTo(portals[other]);
+
+                if (other != portal && distance != GridSearch.NOT_FOUND) {
+                    targets[count] = other;
+                    weights[count++] = pack(distance, search.hopsTo(portals[other]));
+                }
+            }
+
+            int row = grid.rowOf(tile);
+            int col = grid.colOf(tile);
+            int[][] neighbours = {{row - 1, col}, {row + 1, col}, {row, col - 1}, {row, col + 1}};
+
+            for (int[] neighbour : neighbours) {
+                if (crossesBorder(tile, neighbour[0], neighbour[1])) {
+                    int next = grid.index(neighbour[0], neighbour[1]);
+                    targets[count] = portalOf(next);
+                    weights[count++] = pack(grid.moveCost(tile, next), 1);
+                }
+            }
+
+            edgeTargets[portal] = Arrays.copyOf(targets, count);
+            edgeWeights[portal] = Arrays.copyOf(weights, count);
+        }
+    }
+
+    private int portalOf(int tile) {
+        int region = regionOf(tile);
+        return Arrays.binarySearch(portals, firstPortal(region), endPortal(region), tile);
+    }
+}
@@ -0,0 +1,122 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.region;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Separate worker pools for the regions of a map. Every region is served by one of the pools, so a burst
+ * of work in one part of the map queues up behind its own workers instead of delaying the rest of the
+ * map, and the workers of a pool keep reusing the search buffers warmed up by the same regions.
+ * The worker threads are daemons, so an instance which is never closed does not keep the application alive.
+ */
+public class RegionWorkers implements AutoCloseable {
+
+    private final ExecutorService[] pools;
+
+    /**
+     * Starts the worker pools.
+     *
+     * @param pools          the number of pools
+     * @param threadsPerPool the number of worker threads in every pool
+     * @throws IllegalArgumentException if any of the numbers is not positive
+     */
+    public RegionWorkers(int pools, int threadsPerPool) {
+        if (pools <= 0 || threadsPerPool <= 0) {
+            throw new IllegalArgumentException("Number of pools and threads should be positive");
+        }
+
+        this.pools = new ExecutorService[pools];
+
+        for (int pool = 0; pool < pools; pool++) {
+            String name = "region-worker-" + pool + "-";
+            this.pools[pool] = Executors.newFixedThreadPool(threadsPerPool,
+                Thread.ofPlatform().name(name, 0).daemon().factory());
+        }
+    }
+
+    public int pools() {
+        return pools.length;
+    }
+
+    /**
+     * Runs the work for every task on the pool of its region and waits for all of the results.
+     *
+     * @param tasks    the tasks
+     * @param regionOf gives the region of a task
+     * @param work     the work to run for a task
+     * @param <T>      the type of the tasks
+     * @param <R>      the type of the results
+     * @return the results, in the order of the given tasks
+     * @throws IllegalArgumentException if any of the arguments is null
+     * @throws IllegalStateException    if the pools are closed or the calling thread is interrupted
+     */
+    public <T, R> List<R> map(List<T> tasks, ToIntFunction<T> regionOf, Function<T, R> work) {
+        if (tasks == null || regionOf == null || work == null) {
+            throw new IllegalArgumentException("Tasks, region function and work cannot be null");
+        }
+
+        List<Future<R>> futures = new ArrayList<>(tasks.size());
+
+        try {
+            for (T task : tasks) {
+                ExecutorService pool = pools[Math.floorMod(regionOf.applyAsInt(task), pools.length)];
+                futures.add(pool.submit(() -> work.apply(task)));
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Region workers are closed", e);
+        }
+
+        List<R> results = new ArrayList<>(tasks.size());
+
+        for (Future<R> future : futures) {
+            results.add(await(future));
+        }
+
+        return results;
+    }
+
+    /**
+     * Stops the worker pools after the work already submitted is done.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService pool : pools) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Waits for the result of a single task, rethrowing the exception it failed with.
+     *
+     * @param future the pending result
+     * @param <R>    the type of the result
+     * @return the result of the task
+     * @throws IllegalStateException if the calling thread is interrupted
+     */
+    private static <R> R await(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the region workers", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw new IllegalStateException("Region worker failed", e.getCause());
+        }
+    }
+}
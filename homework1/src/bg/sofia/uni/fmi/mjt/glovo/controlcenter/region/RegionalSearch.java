@@ -0,0 +1,207 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.region;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.IndexHeap;
+
+import java.util.Arrays;
+
+/**
+ * Distance queries over a {@link RegionOverlay}. Only the start and the target regions are searched
+ * tile by tile; the rest of the route is found by A* over the portals, guided by the Manhattan distance
+ * to the target, so the work of a query depends on the number of regions between the two tiles rather
+ * than on the area of the map. Like {@link GridSearch} it finds the cheapest route with the fewest moves.
+ * <p>
+ * The searches inside the two regions run on the given {@link GridSearch}, whose results are overwritten
+ * by every query. An instance is not thread-safe.
+ */
+public class RegionalSearch {
+
+    private final RegionOverlay overlay;
+    private final Grid grid;
+    private final GridSearch search;
+
+    private final long[] labels;
+    private final int[] seenMarks;
+    private final int[] closedMarks;
+    private final IndexHeap heap = new IndexHeap();
+    private long[] targetLegs = new long[0];
+
+    private long expandedPortals;
+
+    private int mark;
+    private int lastTarget = GridSearch.NOT_FOUND;
+    private long lastRoute = RegionOverlay.UNREACHED;
+
+    /**
+     * Creates the query buffers for the given overlay.
+     *
+     * @param overlay the overlay of the map
+     * @param search  the search used inside the start and the target regions, over the same map
+     * @throws IllegalArgumentException if any of the arguments is null
+     */
+    public RegionalSearch(RegionOverlay overlay, GridSearch search) {
+        if (overlay == null || search == null) {
+            throw new IllegalArgumentException("Overlay and search cannot be null");
+        }
+
+        this.overlay = overlay;
+        this.grid = overlay.grid();
+        this.search = search;
+        this.labels = new long[overlay.portalCount()];
+        this.seenMarks = new int[overlay.portalCount()];
+        this.closedMarks = new int[overlay.portalCount()];
+    }
+
+    /**
+     * Calculates the cost of the cheapest route between two tiles. On maps without weighted roads
+     * this is the number of moves.
+     *
+     * @param from the index of the starting tile
+     * @param to   the index of the target tile
+     * @return the cost of the cheapest route between the tiles, or {@link GridSearch#NOT_FOUND} if the target is unreachable
+     */
+    public int distance(int from, int to) {
+        lastTarget = to;
+        lastRoute = RegionOverlay.UNREACHED;
+
+        if (!grid.isPassable(from) || !grid.isPassable(to)) {
+            return GridSearch.NOT_FOUND;
+        }
+
+        int fromRegion = overlay.regionOf(from);
+        int toRegion = overlay.regionOf(to);
+
+        exploreRegion(to, toRegion);
+        collectTargetLegs(toRegion);
+
+        if (fromRegion == toRegion && search.distanceTo(from) != GridSearch.NOT_FOUND) {
+            lastRoute = RegionOverlay.pack(search.distanceTo(from), search.hopsTo(from));
+        }
+
+        exploreRegion(from, fromRegion);
+        searchOverlay(fromRegion, toRegion, to);
+
+        return lastRoute == RegionOverlay.UNREACHED ? GridSearch.NOT_FOUND : RegionOverlay.costOf(lastRoute);
+    }
+
+    /**
+     * Returns the number of moves on the route found by the last search. It differs from
+     * the result of {@link #distance(int, int)} only on maps with weighted roads.
+     *
+     * @param to the index of the target tile of the last search
+     * @return the number of moves to the target, or {@link GridSearch#NOT_FOUND} if it was not reached
+     */
+    public int hopsTo(int to) {
+        if (to != lastTarget || lastRoute == RegionOverlay.UNREACHED) {
+            return GridSearch.NOT_FOUND;
+        }
+
+        return RegionOverlay.hopsOf(lastRoute);
+    }
+
+    /**
+     * Returns the number of portals settled by all searches of this instance so far. The tiles expanded
+     * inside the start and target regions are counted by the {@link GridSearch} given on creation.
+     *
+     * @return the number of expanded portals
+     */
+    public long expandedPortals() {
+        return expandedPortals;
+    }
+
+    private void exploreRegion(int from, int region) {
+        RegionLayout layout = overlay.layout();
+        search.exploreWithin(from, layout.firstRow(region), layout.firstCol(region),
+            layout.lastRow(region), layout.lastCol(region), index -> true);
+    }
+
+    /**
+     * Stores the routes from the portals of the target region to the target, found by the last search
+     * inside the region. Costs are symmetric, so the route from the target to a portal is as long as
+     * the route back.
+     *
+     * @param toRegion the region of the target
+     */
+    private void collectTargetLegs(int toRegion) {
+        int first = overlay.firstPortal(toRegion);
+        int end = overlay.endPortal(toRegion);
+
+        if (targetLegs.length < end - first) {
+            targetLegs = new long[end - first];
+        }
+
+        for (int portal = first; portal < end; portal++) {
+            int tile = overlay.portalTile(portal);
+            int distance = search.distanceTo(tile);
+
+            targetLegs[portal - first] = distance == GridSearch.NOT_FOUND ?
+                RegionOverlay.UNREACHED : RegionOverlay.pack(distance, search.hopsTo(tile));
+        }
+    }
+
+    /**
+     * Runs A* over the portals, starting from the portals of the start region with the routes found by
+     * the last search inside it, until no route through a portal can be cheaper than the best one found.
+     *
+     * @param fromRegion the region of the start
+     * @param toRegion   the region of the target
+     * @param to         the index of the target tile
+     */
+    private void searchOverlay(int fromRegion, int toRegion, int to) {
+        if (++mark == 0) {
+            Arrays.fill(seenMarks, 0);
+            Arrays.fill(closedMarks, 0);
+            mark = 1;
+        }
+
+        heap.clear();
+
+        for (int portal = overlay.firstPortal(fromRegion); portal < overlay.endPortal(fromRegion); portal++) {
+            int tile = overlay.portalTile(portal);
+            int distance = search.distanceTo(tile);
+
+            if (distance != GridSearch.NOT_FOUND) {
+                relax(portal, RegionOverlay.pack(distance, search.hopsTo(tile)), to);
+            }
+        }
+
+        int firstTarget = overlay.firstPortal(toRegion);
+        int endTarget = overlay.endPortal(toRegion);
+
+        while (!heap.isEmpty() && heap.peekKey() < lastRoute) {
+            int portal = heap.poll();
+
+            if (closedMarks[portal] == mark) {
+                continue;
+            }
+
+            closedMarks[portal] = mark;
+            expandedPortals++;
+
+            if (portal >= firstTarget && portal < endTarget && targetLegs[portal - firstTarget] != RegionOverlay.UNREACHED) {
+                lastRoute = Math.min(lastRoute, labels[portal] + targetLegs[portal - firstTarget]);
+            }
+
+            int[] targets = overlay.edgeTargets(portal);
+            long[] weights = overlay.edgeWeights(portal);
+
+            for (int i = 0; i < targets.length; i++) {
+                relax(targets[i], labels[portal] + weights[i], to);
+            }
+        }
+    }
+
+    private void relax(int portal, long label, int to) {
+        if (closedMarks[portal] == mark || (seenMarks[portal] == mark && labels[portal] <= label)) {
+            return;
+        }
+
+        seenMarks[portal] = mark;
+        labels[portal] = label;
+
+        int tile = overlay.portalTile(portal);
+        int remaining = Math.abs(grid.rowOf(tile) - grid.rowOf(to)) + Math.abs(grid.colOf(tile) - grid.colOf(to));
+        heap.push(label + RegionOverlay.pack(remaining, remaining), portal);
+    }
+}
@@ -0,0 +1,270 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.route;
+
+/**
+ * Plans the order in which a single courier visits the restaurants and clients of several orders.
+ * Every order has a pickup, which must be visited before its drop-off, and the route starts at the
+ * courier and ends at the last drop-off.
+ * <p>
+ * The stops are numbered as in the cost matrix: {@value #START} is the courier, {@link #pickupOf(int)}
+ * and {@link #dropOffOf(int)} are the stops of an order. The route is built by cheapest insertion: in
+ * every round the order whose pickup and drop-off can be added with the smallest increase of the total cost
+ * is inserted at its best positions, keeping the pickup before the drop-off. The route is then improved with
+ * 2-opt moves, which reverse a part of the route when this makes it cheaper and no order has both of its stops
+ * in the reversed part. The costs should be symmetric, as the reversed part is travelled the other way.
+ * <p>
+ * Building the route takes O(n<sup>4</sup>) time for n orders, which is meant for the handful of orders
+ * a courier carries at once.
+ */
+public class RoutePlanner {
+
+    /**
+     * The stop of the courier, where every route starts.
+     */
+    public static final int START = 0;
+
+    private static final int NONE = -1;
+
+    /**
+     * Returns the stop of the pickup of an order.
+     *
+     * @param order the index of the order
+     * @return the index of the pickup in the cost matrix
+     */
+    public static int pickupOf(int order) {
+        return 1 + 2 * order;
+    }
+
+    /**
+     * Returns the stop of the drop-off of an order.
+     *
+     * @param order the index of the order
+     * @return the index of the drop-off in the cost matrix
+     */
+    public static int dropOffOf(int order) {
+        return 2 + 2 * order;
+    }
+
+    /**
+     * Returns the order which a stop belongs to.
+     *
+     * @param stop the index of a pickup or a drop-off in the cost matrix
+     * @return the index of the order
+     */
+    public static int orderOf(int stop) {
+        return (stop - 1) / 2;
+    }
+
+    /**
+     * Checks whether a stop is a pickup.
+     *
+     * @param stop the index of a pickup or a drop-off in the cost matrix
+     * @return {@code true} for pickups, {@code false} for drop-offs
+     */
+    public static boolean isPickup(int stop) {
+        return stop % 2 == 1;
+    }
+
+    /**
+     * Plans the route through the stops of all orders.
+     *
+     * @param costs the cost of travelling between every two stops, with 1 + 2n rows and columns for n orders
+     * @return the stops in the order of visiting, without the {@link #START}
+     * @throws IllegalArgumentException if the costs are null, not a square matrix or do not describe whole orders
+     */
+    public int[] plan(long[][] costs) {
+        validateCosts(costs);
+
+        int orders = costs.length / 2;
+        int[] route = new int[2 * orders];
+        int length = 0;
+        boolean[] routed = new boolean[orders];
+
+        for (int round = 0; round < orders; round++) {
+            long bestDelta = Long.MAX_VALUE;
+            int bestOrder = NONE;
+            long bestPositions = 0;
+
+            for (int order = 0; order < orders; order++) {
+                if (routed[order]) {
+                    continue;
+                }
+
+                long positions = bestInsertion(costs, route, length, order);
+                long delta = insertionDelta(costs, route, length, order, firstOf(positions), secondOf(positions));
+
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    bestOrder = order;
+                    bestPositions = positions;
+                }
+            }
+
+            length = insert(route, length, bestOrder, firstOf(bestPositions), secondOf(bestPositions));
+            routed[bestOrder] = true;
+        }
+
+        improve(costs, route);
+        return route;
+    }
+
+    /**
+     * Calculates the total cost of a route.
+     *
+     * @param costs the cost of travelling between every two stops
+     * @param route the stops in the order of visiting, without the {@link #START}
+     * @return the sum of the costs of the legs of the route
+     */
+    public static long costOf(long[][] costs, int[] route) {
+        long total = 0;
+        int previous = START;
+
+        for (int stop : route) {
+            total += costs[previous][stop];
+            previous = stop;
+        }
+
+        return total;
+    }
+
+    private static void validateCosts(long[][] costs) {
+        if (costs == null || costs.length % 2 == 0) {
+            throw new IllegalArgumentException("Costs should have a row for the start and two for every order");
+        }
+
+        for (long[] row : costs) {
+            if (row == null || row.length != costs.length) {
+                throw new IllegalArgumentException("Costs should be a square matrix");
+            }
+        }
+    }
+
+    /**
+     * Finds the cheapest positions for the stops of an order in a partial route. The pickup is inserted
+     * before the stop on the first position and the drop-off before the stop on the second position
+     * of the original route, after the pickup when both positions are the same.
+     *
+     * @param costs  the cost of travelling between every two stops
+     * @param route  the partial route
+     * @param length the number of stops in the partial route
+     * @param order  the order to insert
+     * @return the two positions packed into a long, see {@link #firstOf(long)} and {@link #secondOf(long)}
+     */
+    private long bestInsertion(long[][] costs, int[] route, int length, int order) {
+        long bestDelta = Long.MAX_VALUE;
+        long bestPositions = 0;
+
+        for (int first = 0; first <= length; first++) {
+            for (int second = first; second <= length; second++) {
+                long delta = insertionDelta(costs, route, length, order, first, second);
+
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    bestPositions = ((long) first << Integer.SIZE) | second;
+                }
+            }
+        }
+
+        return bestPositions;
+    }
+
+    /**
+     * Calculates the increase of the cost of a partial route when the stops of an order are inserted into it.
+     *
+     * @param costs  the cost of travelling between every two stops
+     * @param route  the partial route
+     * @param length the number of stops in the partial route
+     * @param order  the order to insert
+     * @param first  the position of the pickup
+     * @param second the position of the drop-off, not before the pickup
+     * @return the increase of the total cost
+     */
+    private long insertionDelta(long[][] costs, int[] route, int length, int order, int first, int second) {
+        int pickup = pickupOf(order);
+        int dropOff = dropOffOf(order);
+        int beforePickup = first == 0 ? START : route[first - 1];
+
+        if (first == second) {
+            int after = first < length ? route[first] : NONE;
+            return costs[beforePickup][pickup] + costs[pickup][dropOff] + cost(costs, dropOff, after) -
+                cost(costs, beforePickup, after);
+        }
+
+        int afterPickup = route[first];
+        int beforeDropOff = route[second - 1];
+        int afterDropOff = second < length ? route[second] : NONE;
+
+        return costs[beforePickup][pickup] + costs[pickup][afterPickup] - costs[beforePickup][afterPickup] +
+            costs[beforeDropOff][dropOff] + cost(costs, dropOff, afterDropOff) -
+            cost(costs, beforeDropOff, afterDropOff);
+    }
+
+    private int insert(int[] route, int length, int order, int first, int second) {
+        System.arraycopy(route, second, route, second + 2, length - second);
+        System.arraycopy(route, first, route, first + 1, second - first);
+        route[first] = pickupOf(order);
+        route[second + 1] = dropOffOf(order);
+
+        return length + 2;
+    }
+
+    /**
+     * Applies improving 2-opt moves until none is left. A part of the route can only be reversed if it does
+     * not contain both stops of an order, so for a given start the part grows until it reaches the drop-off
+     * of an order picked up inside of it.
+     *
+     * @param costs the cost of travelling between every two stops
+     * @param route the complete route, improved in place
+     */
+    private void improve(long[][] costs, int[] route) {
+        int[] positions = new int[route.length + 1];
+        boolean improved = true;
+
+        while (improved) {
+            improved = false;
+
+            for (int position = 0; position < route.length; position++) {
+                positions[route[position]] = position;
+            }
+
+            for (int first = 0; first < route.length && !improved; first++) {
+                int before = first == 0 ? START : route[first - 1];
+
+                for (int last = first + 1; last < route.length; last++) {
+                    if (!isPickup(route[last]) && positions[pickupOf(orderOf(route[last]))] >= first) {
+                        break;
+                    }
+
+                    int after = last + 1 < route.length ? route[last + 1] : NONE;
+                    long delta = costs[before][route[last]] + cost(costs, route[first], after) -
+                        costs[before][route[first]] - cost(costs, route[last], after);
+
+                    if (delta < 0) {
+                        reverse(route, first, last);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void reverse(int[] route, int first, int last) {
+        while (first < last) {
+            int stop = route[first];
+            route[first++] = route[last];
+            route[last--] = stop;
+        }
+    }
+
+    private static long cost(long[][] costs, int from, int to) {
+        return to == NONE ? 0 : costs[from][to];
+    }
+
+    private static int firstOf(long positions) {
+        return (int) (positions >>> Integer.SIZE);
+    }
+
+    private static int secondOf(long positions) {
+        return (int) positions;
+    }
+}
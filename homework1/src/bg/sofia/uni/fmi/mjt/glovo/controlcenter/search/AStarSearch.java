@@ -0,0 +1,138 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+
+import java.util.Arrays;
+
+/**
+ * A* search over a {@link Grid} guided by the Manhattan distance to the target, which never
+ * overestimates the remaining distance. It expands only the tiles which may lie on a shortest path,
+ * instead of the whole circle around the start that BFS explores. Since every move costs at least
+ * one and counts as one move, the Manhattan distance is a lower bound for both the cost and the
+ * number of moves, so like {@link GridSearch} it finds the cheapest route with the fewest moves on
+ * maps with weighted roads. All buffers are allocated once and reused between searches.
+ * An instance is not thread-safe.
+ */
+public class AStarSearch {
+
+    private static final int HOPS_BITS = 32;
+
+    private final Grid grid;
+
+    private final int[] distances;
+    private final int[] hops;
+    private final int[] seenMarks;
+    private final int[] closedMarks;
+    private final IndexHeap heap = new IndexHeap();
+
+    private long expandedTiles;
+
+    private int mark;
+    private int lastTarget = GridSearch.NOT_FOUND;
+
+    public AStarSearch(Grid grid) {
+        this.grid = grid;
+        this.distances = new int[grid.size()];
+        this.hops = new int[grid.size()];
+        this.seenMarks = new int[grid.size()];
+        this.closedMarks = new int[grid.size()];
+    }
+
+    /**
+     * Calculates the cost of the cheapest route between two tiles. On maps without weighted roads
+     * this is the number of moves.
+     *
+     * @param from the index of the starting tile
+     * @param to   the index of the target tile
+     * @return the cost of the cheapest route between the tiles, or {@link GridSearch#NOT_FOUND} if the target is unreachable
+     */
+    public int distance(int from, int to) {
+        if (++mark == 0) {
+            Arrays.fill(seenMarks, 0);
+            Arrays.fill(closedMarks, 0);
+            mark = 1;
+        }
+
+        int targetRow = grid.rowOf(to);
+        int targetCol = grid.colOf(to);
+
+        heap.clear();
+        lastTarget = to;
+        relax(from, 0, 0, targetRow, targetCol);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+
+            if (closedMarks[current] == mark) {
+                continue;
+            }
+
+            if (current == to) {
+                return distances[current];
+            }
+
+            closedMarks[current] = mark;
+            expandedTiles++;
+
+            int row = grid.rowOf(current);
+            int col = current - row * grid.cols();
+
+            if (row > 0) {
+                relax(current, current - grid.cols(), targetRow, targetCol);
+            }
+            if (row + 1 < grid.rows()) {
+                relax(current, current + grid.cols(), targetRow, targetCol);
+            }
+            if (col > 0) {
+                relax(current, current - 1, targetRow, targetCol);
+            }
+            if (col + 1 < grid.cols()) {
+                relax(current, current + 1, targetRow, targetCol);
+            }
+        }
+
+        return GridSearch.NOT_FOUND;
+    }
+
+    /**
+     * Returns the number of moves on the route found by the last search. It differs from
+     * the result of {@link #distance(int, int)} only on maps with weighted roads.
+     *
+     * @param to the index of the target tile of the last search
+     * @return the number of moves to the target, or {@link GridSearch#NOT_FOUND} if it was not reached
+     */
+    public int hopsTo(int to) {
+        if (to != lastTarget || seenMarks[to] != mark) {
+            return GridSearch.NOT_FOUND;
+        }
+
+        return hops[to];
+    }
+
+    /**
+     * Returns the number of tiles closed by all searches of this instance so far.
+     *
+     * @return the number of expanded tiles
+     */
+    public long expandedTiles() {
+        return expandedTiles;
+    }
+
+    private void relax(int current, int index, int targetRow, int targetCol) {
+        relax(index, distances[current] + grid.moveCost(current, index), hops[current] + 1, targetRow, targetCol);
+    }
+
+    private void relax(int index, int distance, int moves, int targetRow, int targetCol) {
+        if (!grid.isPassable(index) || closedMarks[index] == mark || (seenMarks[index] == mark &&
+            (distances[index] < distance || (distances[index] == distance && hops[index] <= moves)))) {
+            return;
+        }
+
+        seenMarks[index] = mark;
+        distances[index] = distance;
+        hops[index] = moves;
+
+        int remaining = Math.abs(grid.rowOf(index) - targetRow) + Math.abs(grid.colOf(index) - targetCol);
+        heap.push(((long) (distance + remaining) << HOPS_BITS) | (moves + remaining), index);
+    }
+}
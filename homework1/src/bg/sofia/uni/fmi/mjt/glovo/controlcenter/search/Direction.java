@@ -0,0 +1,47 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+/**
+ * A move between two neighbouring tiles of the map.
+ */
+public enum Direction {
+    UP(-1, 0),
+    DOWN(1, 0),
+    LEFT(0, -1),
+    RIGHT(0, 1);
+
+    private static final Direction[] DIRECTIONS = values();
+
+    private final int rowDelta;
+    private final int colDelta;
+
+    Direction(int rowDelta, int colDelta) {
+        this.rowDelta = rowDelta;
+        this.colDelta = colDelta;
+    }
+
+    public int getRowDelta() {
+        return rowDelta;
+    }
+
+    public int getColDelta() {
+        return colDelta;
+    }
+
+    /**
+     * Returns the direction which undoes this move.
+     *
+     * @return the opposite {@link Direction}
+     */
+    public Direction opposite() {
+        return switch (this) {
+            case UP -> DOWN;
+            case DOWN -> UP;
+            case LEFT -> RIGHT;
+            case RIGHT -> LEFT;
+        };
+    }
+
+    static Direction ofOrdinal(int ordinal) {
+        return DIRECTIONS[ordinal];
+    }
+}
@@ -0,0 +1,133 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+
+import java.util.Arrays;
+
+/**
+ * Distances from a single source tile to every tile of the map, as produced by one full search.
+ * Tiles that cannot be reached from the source hold {@link GridSearch#NOT_FOUND}. On maps with
+ * weighted roads the number of moves on every route is kept as well.
+ * <p>
+ * The field keeps no moves: the route from a tile to the source is found by repeatedly moving to
+ * a neighbour which is one move closer, so routes cost no memory until they are requested.
+ */
+public class DistanceField {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int INITIAL_RUNS_CAPACITY = 8;
+
+    private final int source;
+    private final int[] distances;
+    private final int[] hops;
+
+    DistanceField(int source, int[] distances, int[] hops) {
+        this.source = source;
+        this.distances = distances;
+        this.hops = hops;
+    }
+
+    /**
+     * Returns the number of bytes taken by the distances, and the moves on weighted maps, of a field
+     * built on the given map.
+     *
+     * @param grid the map
+     * @return the size of a field of the map in bytes
+     */
+    public static long bytesOn(Grid grid) {
+        return (long) grid.size() * Integer.BYTES * (grid.isWeighted() ? 2 : 1);
+    }
+
+    public int source() {
+        return source;
+    }
+
+    public int distanceTo(int index) {
+        return distances[index];
+    }
+
+    public int hopsTo(int index) {
+        return hops == null ? distances[index] : hops[index];
+    }
+
+    /**
+     * Finds the cheapest route from a tile to the source of the field, with the fewest moves among
+     * the cheapest ones. The map is undirected, so the reversed route leads from the source to the tile.
+     *
+     * @param grid  the map the field was built on
+     * @param index the index of the starting tile
+     * @return the {@link Route} from the tile to the source, or null if the tile cannot be reached
+     */
+    public Route routeFrom(Grid grid, int index) {
+        if (distances[index] == GridSearch.NOT_FOUND) {
+            return null;
+        }
+
+        int[] runs = new int[INITIAL_RUNS_CAPACITY];
+        int runCount = 0;
+        Direction last = null;
+        int length = 0;
+
+        for (int tile = index; tile != source; ) {
+            Direction move = closerNeighbour(grid, tile);
+
+            if (move != last) {
+                if (last != null) {
+                    if (runCount == runs.length) {
+                        runs = Arrays.copyOf(runs, runCount * 2);
+                    }
+
+                    runs[runCount++] = Route.pack(last, length);
+                }
+
+                last = move;
+                length = 0;
+            }
+
+            length++;
+            tile += move.getRowDelta() * grid.cols() + move.getColDelta();
+        }
+
+        if (last != null) {
+            if (runCount == runs.length) {
+                runs = Arrays.copyOf(runs, runCount + 1);
+            }
+
+            runs[runCount++] = Route.pack(last, length);
+        }
+
+        return new Route(new Location(grid.rowOf(index), grid.colOf(index)), Arrays.copyOf(runs, runCount));
+    }
+
+    /**
+     * Finds the neighbour of a tile which is the previous tile on the route from the source to it.
+     *
+     * @param grid the map the field was built on
+     * @param tile the index of a reachable tile other than the source
+     * @return the {@link Direction} of the move to the neighbour
+     */
+    private Direction closerNeighbour(Grid grid, int tile) {
+        int row = grid.rowOf(tile);
+        int col = grid.colOf(tile);
+
+        for (Direction direction : DIRECTIONS) {
+            int neighbourRow = row + direction.getRowDelta();
+            int neighbourCol = col + direction.getColDelta();
+
+            if (!grid.contains(neighbourRow, neighbourCol)) {
+                continue;
+            }
+
+            int neighbour = grid.index(neighbourRow, neighbourCol);
+
+            if (distances[neighbour] != GridSearch.NOT_FOUND &&
+                distances[neighbour] + grid.moveCost(neighbour, tile) == distances[tile] &&
+                hopsTo(neighbour) == hopsTo(tile) - 1) {
+                return direction;
+            }
+        }
+
+        throw new IllegalStateException("Distance field does not belong to the given map");
+    }
+}
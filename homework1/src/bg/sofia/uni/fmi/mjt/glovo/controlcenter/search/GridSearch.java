@@ -0,0 +1,415 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+
+import java.util.Arrays;
+
+/**
+ * Shortest-path search over a {@link Grid}. On maps where every move costs the same this is a
+ * breadth-first search. On maps with weighted roads it is Dijkstra's algorithm with a bucket queue:
+ * since a move costs at most {@link Grid#maxCost()}, every pending tile is at most that far from the
+ * tile being settled, so {@code maxCost + 1} circular buckets of tile indexes replace the binary heap.
+ * Among the routes with the lowest cost the one with the fewest moves is chosen.
+ * <p>
+ * The move into every reached tile is kept in a byte array, so the route to a tile can be rebuilt with
+ * {@link #routeTo(int)} after the search.
+ * <p>
+ * All buffers are allocated once and reused between searches: visited tiles are recognised by a
+ * per-search mark instead of clearing the arrays. An instance is not thread-safe.
+ */
+public class GridSearch {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_BUCKET_CAPACITY = 64;
+
+    private final Grid grid;
+    private final boolean weighted;
+
+    private final int[] distances;
+    private final int[] hops;
+    private final byte[] moves;
+    private final int[] visitedMarks;
+    private final int[] settledMarks;
+    private final int[] queue;
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+
+    private int firstRow;
+    private int lastRow;
+    private int firstCol;
+    private int lastCol;
+
+    private long expandedTiles;
+
+    private int source;
+    private int mark;
+    private int head;
+    private int tail;
+    private int pending;
+    private int currentDistance;
+
+    public GridSearch(Grid grid) {
+        this.grid = grid;
+        this.weighted = grid.isWeighted();
+        this.distances = new int[grid.size()];
+        this.moves = new byte[grid.size()];
+        this.visitedMarks = new int[grid.size()];
+
+        if (weighted) {
+            this.hops = new int[grid.size()];
+            this.settledMarks = new int[grid.size()];
+            this.queue = null;
+            this.buckets = new int[grid.maxCost() + 1][INITIAL_BUCKET_CAPACITY];
+            this.bucketSizes = new int[grid.maxCost() + 1];
+        } else {
+            this.hops = null;
+            this.settledMarks = null;
+            this.queue = new int[grid.size()];
+            this.buckets = null;
+            this.bucketSizes = null;
+        }
+    }
+
+    /**
+     * Calculates the cost of the cheapest route between two tiles. On maps without weighted roads
+     * this is the number of moves.
+     *
+     * @param from the index of the starting tile
+     * @param to   the index of the target tile
+     * @return the cost of the cheapest route between the tiles, or {@link #NOT_FOUND} if the target is unreachable
+     */
+    public int distance(int from, int to) {
+        restrict(0, 0, grid.rows() - 1, grid.cols() - 1);
+        start(from);
+
+        int current;
+
+        while ((current = next()) != NOT_FOUND) {
+            if (current == to) {
+                return distances[current];
+            }
+        }
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * Passes the tiles reachable from the starting tile to the visitor in order of their distance,
+     * starting with the starting tile itself, until the visitor stops the search. The distances
+     * to the visited tiles are available through {@link #distanceTo(int)} and {@link #hopsTo(int)}.
+     *
+     * @param from    the index of the starting tile
+     * @param visitor receives the tiles and decides when to stop
+     */
+    public void explore(int from, TileVisitor visitor) {
+        exploreWithin(from, 0, 0, grid.rows() - 1, grid.cols() - 1, visitor);
+    }
+
+    /**
+     * Like {@link #explore(int, TileVisitor)}, but the routes never leave the given rectangle,
+     * so the distances are those inside a single region of the map.
+     *
+     * @param from     the index of the starting tile, which should be inside the rectangle
+     * @param firstRow the top row of the rectangle
+     * @param firstCol the left column of the rectangle
+     * @param lastRow  the bottom row of the rectangle, inclusive
+     * @param lastCol  the right column of the rectangle, inclusive
+     * @param visitor  receives the tiles and decides when to stop
+     */
+    public void exploreWithin(int from, int firstRow, int firstCol, int lastRow, int lastCol, TileVisitor visitor) {
+        restrict(firstRow, firstCol, lastRow, lastCol);
+        start(from);
+
+        int current;
+
+        while ((current = next()) != NOT_FOUND) {
+            if (!visitor.visit(current)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs a full search from the given tile and stores the distance to every tile in a new field.
+     *
+     * @param from the index of the source tile
+     * @return the {@link DistanceField} of the source tile
+     */
+    public DistanceField distanceField(int from) {
+        restrict(0, 0, grid.rows() - 1, grid.cols() - 1);
+        start(from);
+
+        while (next() != NOT_FOUND) {
+            // settles every reachable tile
+        }
+
+        int[] field = new int[grid.size()];
+
+        for (int index = 0; index < field.length; index++) {
+            field[index] = visitedMarks[index] == mark ? distances[index] : NOT_FOUND;
+        }
+
+        if (!weighted) {
+            return new DistanceField(from, field, null);
+        }
+
+        int[] fieldHops = new int[grid.size()];
+
+        for (int index = 0; index < fieldHops.length; index++) {
+            fieldHops[index] = visitedMarks[index] == mark ? hops[index] : NOT_FOUND;
+        }
+
+        return new DistanceField(from, field, fieldHops);
+    }
+
+    /**
+     * Returns the distance to a tile reached by the last search.
+     *
+     * @param index the index of the tile, or {@link #NOT_FOUND}
+     * @return the distance from the start of the last search, or {@link #NOT_FOUND} if the tile was not reached
+     */
+    public int distanceTo(int index) {
+        if (index == NOT_FOUND || visitedMarks[index] != mark) {
+            return NOT_FOUND;
+        }
+
+        return distances[index];
+    }
+
+    /**
+     * Returns the number of moves on the route to a tile found by the last search. It differs
+     * from {@link #distanceTo(int)} only on maps with weighted roads.
+     *
+     * @param index the index of the tile, or {@link #NOT_FOUND}
+     * @return the number of moves from the start of the last search, or {@link #NOT_FOUND} if the tile was not reached
+     */
+    public int hopsTo(int index) {
+        if (!weighted || index == NOT_FOUND || visitedMarks[index] != mark) {
+            return distanceTo(index);
+        }
+
+        return hops[index];
+    }
+
+    /**
+     * Rebuilds the route to a tile found by the last search by following the recorded moves back to
+     * its start. Routes to the tiles settled by the search are the cheapest ones.
+     *
+     * @param index the index of the tile, or {@link #NOT_FOUND}
+     * @return the {@link Route} from the start of the last search to the tile, or null if the tile was not reached
+     */
+    public Route routeTo(int index) {
+        if (index == NOT_FOUND || visitedMarks[index] != mark) {
+            return null;
+        }
+
+        int runCount = 0;
+        int last = NOT_FOUND;
+
+        for (int tile = index; tile != source; tile = previousOf(tile)) {
+            if (moves[tile] != last) {
+                last = moves[tile];
+                runCount++;
+            }
+        }
+
+        int[] runs = new int[runCount];
+        int run = runCount;
+        int length = 0;
+        last = NOT_FOUND;
+
+        for (int tile = index; tile != source; tile = previousOf(tile)) {
+            if (moves[tile] != last) {
+                if (last != NOT_FOUND) {
+                    runs[run] = Route.pack(Direction.ofOrdinal(last), length);
+                }
+
+                last = moves[tile];
+                length = 0;
+                run--;
+            }
+
+            length++;
+        }
+
+        if (runCount > 0) {
+            runs[0] = Route.pack(Direction.ofOrdinal(last), length);
+        }
+
+        return new Route(new Location(grid.rowOf(source), grid.colOf(source)), runs);
+    }
+
+    private int previousOf(int tile) {
+        Direction move = Direction.ofOrdinal(moves[tile]);
+        return tile - move.getRowDelta() * grid.cols() - move.getColDelta();
+    }
+
+    /**
+     * Returns the number of tiles settled by all searches of this instance so far.
+     *
+     * @return the number of expanded tiles
+     */
+    public long expandedTiles() {
+        return expandedTiles;
+    }
+
+    private void restrict(int firstRow, int firstCol, int lastRow, int lastCol) {
+        this.firstRow = firstRow;
+        this.firstCol = firstCol;
+        this.lastRow = lastRow;
+        this.lastCol = lastCol;
+    }
+
+    private void start(int from) {
+        source = from;
+
+        if (++mark == 0) {
+            Arrays.fill(visitedMarks, 0);
+
+            if (weighted) {
+                Arrays.fill(settledMarks, 0);
+            }
+
+            mark = 1;
+        }
+
+        if (weighted) {
+            Arrays.fill(bucketSizes, 0);
+            pending = 0;
+            currentDistance = 0;
+            visit(from, 0, 0, Direction.UP);
+        } else {
+            head = 0;
+            tail = 0;
+            tryVisit(from, 0, Direction.UP);
+        }
+    }
+
+    /**
+     * Settles the next tile in order of distance and adds its neighbours to the frontier.
+     *
+     * @return the index of the settled tile, or {@link #NOT_FOUND} if every reachable tile is settled
+     */
+    private int next() {
+        return weighted ? nextWeighted() : nextUnweighted();
+    }
+
+    private int nextUnweighted() {
+        if (head == tail) {
+            return NOT_FOUND;
+        }
+
+        int current = queue[head++];
+        expandedTiles++;
+        int row = grid.rowOf(current);
+        int col = current - row * grid.cols();
+        int next = distances[current] + 1;
+
+        if (row > firstRow) {
+            tryVisit(current - grid.cols(), next, Direction.UP);
+        }
+        if (row < lastRow) {
+            tryVisit(current + grid.cols(), next, Direction.DOWN);
+        }
+        if (col > firstCol) {
+            tryVisit(current - 1, next, Direction.LEFT);
+        }
+        if (col < lastCol) {
+            tryVisit(current + 1, next, Direction.RIGHT);
+        }
+
+        return current;
+    }
+
+    private int nextWeighted() {
+        while (pending > 0) {
+            int bucket = currentDistance % buckets.length;
+
+            if (bucketSizes[bucket] == 0) {
+                currentDistance++;
+                continue;
+            }
+
+            int current = buckets[bucket][--bucketSizes[bucket]];
+            pending--;
+
+            if (settledMarks[current] == mark || distances[current] != currentDistance) {
+                continue;
+            }
+
+            settledMarks[current] = mark;
+            expandedTiles++;
+
+            int row = grid.rowOf(current);
+            int col = current - row * grid.cols();
+
+            if (row > firstRow) {
+                relax(current, current - grid.cols(), Direction.UP);
+            }
+            if (row < lastRow) {
+                relax(current, current + grid.cols(), Direction.DOWN);
+            }
+            if (col > firstCol) {
+                relax(current, current - 1, Direction.LEFT);
+            }
+            if (col < lastCol) {
+                relax(current, current + 1, Direction.RIGHT);
+            }
+
+            return current;
+        }
+
+        return NOT_FOUND;
+    }
+
+    private void tryVisit(int index, int distance, Direction move) {
+        if (visitedMarks[index] != mark && grid.isPassable(index)) {
+            visitedMarks[index] = mark;
+            distances[index] = distance;
+            moves[index] = (byte) move.ordinal();
+            queue[tail++] = index;
+        }
+    }
+
+    private void relax(int current, int index, Direction move) {
+        if (settledMarks[index] == mark || !grid.isPassable(index)) {
+            return;
+        }
+
+        int distance = distances[current] + grid.moveCost(current, index);
+        int hopCount = hops[current] + 1;
+
+        if (visitedMarks[index] != mark) {
+            visit(index, distance, hopCount, move);
+        } else if (distance < distances[index]) {
+            distances[index] = distance;
+            hops[index] = hopCount;
+            moves[index] = (byte) move.ordinal();
+            push(index, distance);
+        } else if (distance == distances[index] && hopCount < hops[index]) {
+            hops[index] = hopCount;
+            moves[index] = (byte) move.ordinal();
+        }
+    }
+
+    private void visit(int index, int distance, int hopCount, Direction move) {
+        visitedMarks[index] = mark;
+        distances[index] = distance;
+        hops[index] = hopCount;
+        moves[index] = (byte) move.ordinal();
+        push(index, distance);
+    }
+
+    private void push(int index, int distance) {
+        int bucket = distance % buckets.length;
+
+        if (bucketSizes[bucket] == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], bucketSizes[bucket] * 2);
+        }
+
+        buckets[bucket][bucketSizes[bucket]++] = index;
+        pending++;
+    }
+}
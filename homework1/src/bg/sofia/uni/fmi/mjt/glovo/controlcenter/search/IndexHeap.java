@@ -0,0 +1,109 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int indexes ordered by a {@code long} key. Keys and indexes are kept in two
+ * parallel primitive arrays, so pushing and polling never allocate once the heap has grown to its
+ * working size. An index may be pushed several times; searches skip the stale entries when they
+ * are polled. An instance is not thread-safe.
+ */
+public class IndexHeap {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] indexes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the smallest key in the heap.
+     *
+     * @return the key of the entry which will be polled next
+     * @throws IllegalStateException if the heap is empty
+     */
+    public long peekKey() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+
+        return keys[0];
+    }
+
+    /**
+     * Adds an index with the given key.
+     *
+     * @param key   the key of the entry
+     * @param index the index to add
+     */
+    public void push(long key, int index) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            indexes = Arrays.copyOf(indexes, size * 2);
+        }
+
+        int position = size++;
+
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+
+            if (keys[parent] <= key) {
+                break;
+            }
+
+            keys[position] = keys[parent];
+            indexes[position] = indexes[parent];
+            position = parent;
+        }
+
+        keys[position] = key;
+        indexes[position] = index;
+    }
+
+    /**
+     * Removes the entry with the smallest key.
+     *
+     * @return the index of the removed entry
+     * @throws IllegalStateException if the heap is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+
+        int top = indexes[0];
+        long last = keys[--size];
+        int lastIndex = indexes[size];
+        int position = 0;
+
+        while (true) {
+            int child = 2 * position + 1;
+
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= last) {
+                break;
+            }
+
+            keys[position] = keys[child];
+            indexes[position] = indexes[child];
+            position = child;
+        }
+
+        keys[position] = last;
+        indexes[position] = lastIndex;
+        return top;
+    }
+}
@@ -0,0 +1,178 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A route between two tiles, encoded as runs of moves in the same direction, so a route takes
+ * an integer per turn instead of an object per tile. A run packs its length in the upper 30 bits and
+ * the ordinal of its {@link Direction} in the lower 2 bits.
+ */
+public final class Route {
+
+    private static final int DIRECTION_BITS = 2;
+    private static final int DIRECTION_MASK = (1 << DIRECTION_BITS) - 1;
+
+    private final Location start;
+    private final Location end;
+    private final int[] runs;
+    private final int moves;
+
+    /**
+     * Creates a route from its runs.
+     *
+     * @param start the location where the route starts
+     * @param runs  the packed runs of the route, no two neighbouring runs have the same direction
+     */
+    Route(Location start, int[] runs) {
+        int row = start.x();
+        int col = start.y();
+        int total = 0;
+
+        for (int run : runs) {
+            Direction direction = directionOf(run);
+            row += direction.getRowDelta() * lengthOf(run);
+            col += direction.getColDelta() * lengthOf(run);
+            total += lengthOf(run);
+        }
+
+        this.start = start;
+        this.end = new Location(row, col);
+        this.runs = runs;
+        this.moves = total;
+    }
+
+    static int pack(Direction direction, int length) {
+        return (length << DIRECTION_BITS) | direction.ordinal();
+    }
+
+    private static Direction directionOf(int run) {
+        return Direction.ofOrdinal(run & DIRECTION_MASK);
+    }
+
+    private static int lengthOf(int run) {
+        return run >>> DIRECTION_BITS;
+    }
+
+    public Location start() {
+        return start;
+    }
+
+    public Location end() {
+        return end;
+    }
+
+    /**
+     * Returns the length of the route.
+     *
+     * @return the number of moves (in kilometers)
+     */
+    public int moves() {
+        return moves;
+    }
+
+    /**
+     * Returns the number of straight parts of the route, which is one more than the number of turns.
+     *
+     * @return the number of runs
+     */
+    public int runCount() {
+        return runs.length;
+    }
+
+    public Direction direction(int run) {
+        return directionOf(runs[run]);
+    }
+
+    public int runLength(int run) {
+        return lengthOf(runs[run]);
+    }
+
+    /**
+     * Returns the same route travelled from its end to its start.
+     *
+     * @return the reversed {@link Route}
+     */
+    public Route reversed() {
+        int[] reversed = new int[runs.length];
+
+        for (int run = 0; run < runs.length; run++) {
+            int original = runs[runs.length - 1 - run];
+            reversed[run] = pack(directionOf(original).opposite(), lengthOf(original));
+        }
+
+        return new Route(end, reversed);
+    }
+
+    /**
+     * Continues this route with another one which starts where this one ends.
+     *
+     * @param next the continuation of the route
+     * @return the {@link Route} through both routes
+     * @throws IllegalArgumentException if the next route is null or does not start at the end of this one
+     */
+    public Route then(Route next) {
+        if (next == null || !next.start.equals(end)) {
+            throw new IllegalArgumentException("Next route should start at the end of this one");
+        }
+
+        if (runs.length == 0 || next.runs.length == 0 || direction(runs.length - 1) != next.direction(0)) {
+            int[] joined = Arrays.copyOf(runs, runs.length + next.runs.length);
+            System.arraycopy(next.runs, 0, joined, runs.length, next.runs.length);
+            return new Route(start, joined);
+        }
+
+        int[] joined = Arrays.copyOf(runs, runs.length + next.runs.length - 1);
+        joined[runs.length - 1] = pack(next.direction(0), runLength(runs.length - 1) + next.runLength(0));
+        System.arraycopy(next.runs, 1, joined, runs.length, next.runs.length - 1);
+        return new Route(start, joined);
+    }
+
+    /**
+     * Lists every tile of the route. This allocates a location per tile, so prefer the runs for long routes.
+     *
+     * @return the locations of the route from its start to its end, both included
+     */
+    public List<Location> locations() {
+        List<Location> locations = new ArrayList<>(moves + 1);
+        int row = start.x();
+        int col = start.y();
+        locations.add(start);
+
+        for (int run = 0; run < runs.length; run++) {
+            Direction direction = direction(run);
+
+            for (int move = 0; move < runLength(run); move++) {
+                row += direction.getRowDelta();
+                col += direction.getColDelta();
+                locations.add(new Location(row, col));
+            }
+        }
+
+        return locations;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Route route && start.equals(route.start) && Arrays.equals(runs, route.runs);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start.hashCode() + Arrays.hashCode(runs);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(start.toString());
+
+        for (int run = 0; run < runs.length; run++) {
+            builder.append(run == 0 ? ": " : ", ").append(direction(run)).append(' ').append(runLength(run));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+/**
+ * The algorithm used for the distance between two given tiles.
+ */
+public enum SearchAlgorithm {
+    BFS,
+    A_STAR,
+    /**
+     * A* over the portals of square map regions, see
+     * {@link bg.sofia.uni.fmi.mjt.glovo.controlcenter.region.RegionOverlay}.
+     */
+    REGIONAL,
+    /**
+     * Bidirectional search over a contraction hierarchy of the map, see
+     * {@link bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy.ContractionHierarchy}.
+     */
+    CONTRACTION_HIERARCHY
+}
@@ -0,0 +1,14 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+@FunctionalInterface
+public interface TileVisitor {
+
+    /**
+     * Receives the next tile of a search, in order of its distance from the start.
+     *
+     * @param index the flat index of the tile
+     * @return {@code true} to continue with the following tiles, {@code false} to stop the search
+     */
+    boolean visit(int index);
+
+}
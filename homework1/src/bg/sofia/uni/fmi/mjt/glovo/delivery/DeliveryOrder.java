@@ -0,0 +1,20 @@
+package bg.sofia.uni.fmi.mjt.glovo.delivery;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
+
+/**
+ * A single order in a batch.
+ *
+ * @param client         the delivery destination
+ * @param restaurant     the restaurant from which the food item is sourced
+ * @param foodItem       the name of the food item to be delivered
+ * @param maxPrice       the maximum price allowed for the delivery, -1 for no cost constraint
+ * @param maxTime        the maximum time allowed for the delivery, -1 for no time constraint
+ * @param shippingMethod the method for shipping the delivery
+ */
+public record DeliveryOrder(MapEntity client,
+                            MapEntity restaurant,
+                            String foodItem,
+                            double maxPrice,
+                            int maxTime,
+                            ShippingMethod shippingMethod) { }
@@ -0,0 +1,16 @@
+package bg.sofia.uni.fmi.mjt.glovo.delivery;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+
+/**
+ * A pending order which should be assigned a delivery guy.
+ *
+ * @param restaurantLocation the location of the restaurant to start the delivery from
+ * @param clientLocation     the location of the client receiving the delivery
+ * @param maxPrice           the maximum price allowed for the delivery, -1 for no cost constraint
+ * @param maxTime            the maximum time allowed for the delivery, -1 for no time constraint
+ */
+public record DeliveryRequest(Location restaurantLocation,
+                              Location clientLocation,
+                              double maxPrice,
+                              int maxTime) { }
@@ -0,0 +1,20 @@
+package bg.sofia.uni.fmi.mjt.glovo.delivery;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+
+import java.util.List;
+
+/**
+ * The route of a single courier through the restaurants and clients of several orders.
+ *
+ * @param deliveryGuyLocation the location where the route starts
+ * @param stops               the stops in the order of visiting
+ * @param price               the price of the whole route
+ * @param estimatedTime       the time of the whole route
+ * @param deliveryType        the type of the courier
+ */
+public record RoutePlan(Location deliveryGuyLocation,
+                        List<RouteStop> stops,
+                        double price,
+                        int estimatedTime,
+                        DeliveryType deliveryType) { }
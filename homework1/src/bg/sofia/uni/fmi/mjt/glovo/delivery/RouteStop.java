@@ -0,0 +1,16 @@
+package bg.sofia.uni.fmi.mjt.glovo.delivery;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+
+/**
+ * A stop on the route of a courier carrying several orders.
+ *
+ * @param location      the location of the stop
+ * @param type          whether the order is picked up from its restaurant or dropped off at its client
+ * @param order         the index of the order in the planned batch
+ * @param estimatedTime the time from the start of the route until the courier reaches the stop
+ */
+public record RouteStop(Location location,
+                        RouteStopType type,
+                        int order,
+                        int estimatedTime) { }
@@ -0,0 +1,6 @@
+package bg.sofia.uni.fmi.mjt.glovo.delivery;
+
+public enum RouteStopType {
+    PICKUP,
+    DROP_OFF
+}
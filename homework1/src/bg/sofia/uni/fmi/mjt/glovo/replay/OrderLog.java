@@ -0,0 +1,127 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes order logs. An order log is a CSV file with an optional header line and a line per order:
+ * {@code timestamp,restaurant_row,restaurant_col,client_row,client_col,method}, where the timestamp is
+ * in milliseconds and the method is {@code CHEAPEST} or {@code FASTEST}. The orders should be sorted by
+ * their timestamps.
+ */
+public class OrderLog {
+
+    public static final String HEADER = "timestamp,restaurant_row,restaurant_col,client_row,client_col,method";
+
+    private static final String SEPARATOR = ",";
+    private static final int COLUMNS = 6;
+
+    private static final int TIMESTAMP = 0;
+    private static final int RESTAURANT_ROW = 1;
+    private static final int RESTAURANT_COL = 2;
+    private static final int CLIENT_ROW = 3;
+    private static final int CLIENT_COL = 4;
+    private static final int METHOD = 5;
+
+    private OrderLog() {
+    }
+
+    /**
+     * Opens an order log for reading. The lines are read and parsed as the stream is consumed,
+     * so logs larger than the memory can be replayed. The stream should be closed after use.
+     *
+     * @param path the path of the log
+     * @return a lazy {@link Stream} of the orders in the log
+     * @throws IllegalArgumentException if the path is null or the log could not be opened; lines which
+     *                                  are not valid orders fail the stream when they are reached
+     */
+    public static Stream<ReplayOrder> read(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+
+        try {
+            return Files.lines(path)
+                .filter(line -> !line.isBlank() && !line.equals(HEADER))
+                .map(OrderLog::parse);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read the order log " + path, e);
+        }
+    }
+
+    /**
+     * Writes orders to a log which can later be read with {@link #read(Path)}. An existing file is overwritten.
+     *
+     * @param orders the orders to write
+     * @param path   the path of the log
+     * @throws IllegalArgumentException if any of the arguments is null or the log could not be written
+     */
+    public static void write(Stream<ReplayOrder> orders, Path path) {
+        if (orders == null || path == null) {
+            throw new IllegalArgumentException("Orders and path cannot be null");
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write(HEADER);
+            writer.newLine();
+
+            for (Iterator<ReplayOrder> iterator = orders.iterator(); iterator.hasNext(); ) {
+                writer.write(format(iterator.next()));
+                writer.newLine();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalArgumentException("Could not write the order log " + path, e);
+        }
+    }
+
+    /**
+     * Parses a single line of an order log.
+     *
+     * @param line the line
+     * @return the {@link ReplayOrder} of the line
+     * @throws IllegalArgumentException if the line is null or not a valid order
+     */
+    public static ReplayOrder parse(String line) {
+        if (line == null) {
+            throw new IllegalArgumentException("Line cannot be null");
+        }
+
+        String[] columns = line.split(SEPARATOR, -1);
+
+        if (columns.length != COLUMNS) {
+            throw new IllegalArgumentException("Order should have " + COLUMNS + " columns: " + line);
+        }
+
+        try {
+            return new ReplayOrder(Long.parseLong(columns[TIMESTAMP].strip()),
+                new Location(Integer.parseInt(columns[RESTAURANT_ROW].strip()),
+                    Integer.parseInt(columns[RESTAURANT_COL].strip())),
+                new Location(Integer.parseInt(columns[CLIENT_ROW].strip()),
+                    Integer.parseInt(columns[CLIENT_COL].strip())),
+                ShippingMethod.valueOf(columns[METHOD].strip()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid order: " + line, e);
+        }
+    }
+
+    /**
+     * Formats an order as a line of an order log.
+     *
+     * @param order the order
+     * @return the line of the order, without a line separator
+     */
+    public static String format(ReplayOrder order) {
+        return String.join(SEPARATOR, Long.toString(order.timestamp()),
+            Integer.toString(order.restaurant().x()), Integer.toString(order.restaurant().y()),
+            Integer.toString(order.client().x()), Integer.toString(order.client().y()),
+            order.shippingMethod().name());
+    }
+}
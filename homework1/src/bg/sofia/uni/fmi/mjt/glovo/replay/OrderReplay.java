@@ -0,0 +1,159 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenter;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenterApi;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapFile;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.LatencySnapshot;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Command-line load test which replays an order log against Glovo and prints the throughput, the latency
+ * percentiles and the utilization of the delivery guys, see {@link ReplayHarness}.
+ * <p>
+ * Usage: {@code OrderReplay [--map file | --size n] [--log file | --orders n --rate r] [--write-log file]
+ * [--speedup x] [--clients n] [--seed s]}
+ * <ul>
+ *     <li>{@code --map} loads a {@link MapFile}, otherwise a map of {@code --size} x {@code --size} tiles
+ *     (300 by default) is generated</li>
+ *     <li>{@code --log} replays a recorded {@link OrderLog}, otherwise {@code --orders} synthetic orders
+ *     (10000 by default) arrive at {@code --rate} orders per second (50 by default)</li>
+ *     <li>{@code --write-log} saves the synthetic orders before replaying them</li>
+ *     <li>{@code --speedup} is how many times faster than recorded the orders are placed, 1 by default
+ *     and {@code Infinity} for no waiting</li>
+ *     <li>{@code --clients} is the number of concurrent virtual-thread clients, 64 by default</li>
+ *     <li>{@code --seed} seeds the generated map and orders, 1 by default</li>
+ * </ul>
+ */
+public class OrderReplay {
+
+    private static final Set<String> OPTIONS =
+        Set.of("--map", "--size", "--log", "--orders", "--rate", "--write-log", "--speedup", "--clients", "--seed");
+
+    private static final int DEFAULT_SIZE = 300;
+    private static final int DEFAULT_ORDERS = 10_000;
+    private static final double DEFAULT_RATE = 50;
+    private static final int DEFAULT_CLIENTS = 64;
+    private static final double WALL_DENSITY = 0.2;
+    private static final double NANOS_IN_MILLI = 1_000_000d;
+    private static final double NANOS_IN_SECOND = 1_000_000_000d;
+
+    public static void main(String[] args) {
+        Map<String, String> options;
+
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: OrderReplay [--map file | --size n] [--log file | --orders n --rate r] " +
+                "[--write-log file] [--speedup x] [--clients n] [--seed s]");
+            System.exit(1);
+            return;
+        }
+
+        long seed = Long.parseLong(options.getOrDefault("--seed", "1"));
+        ControlCenterApi controlCenter;
+        Grid grid;
+
+        if (options.containsKey("--map")) {
+            MapFile mapFile = MapFile.load(Path.of(options.get("--map")));
+            controlCenter = new ControlCenter(mapFile);
+            grid = mapFile.grid();
+        } else {
+            char[][] layout = generateMap(options, seed);
+            controlCenter = new ControlCenter(layout);
+            grid = new Grid(layout);
+        }
+
+        ReplayHarness harness = new ReplayHarness(controlCenter,
+            Integer.parseInt(options.getOrDefault("--clients", Integer.toString(DEFAULT_CLIENTS))),
+            Double.parseDouble(options.getOrDefault("--speedup", "1")));
+
+        try (Stream<ReplayOrder> log = openLog(options, grid, seed)) {
+            print(harness.replay(log));
+        }
+    }
+
+    /**
+     * Reads the options from the command-line arguments.
+     *
+     * @param args the command-line arguments
+     * @return the value of every given option
+     * @throws IllegalArgumentException if an option is unknown or has no value
+     */
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+
+        for (int i = 0; i < args.length; i += 2) {
+            if (!OPTIONS.contains(args[i])) {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Option " + args[i] + " should have a value");
+            }
+
+            options.put(args[i], args[i + 1]);
+        }
+
+        return options;
+    }
+
+    private static char[][] generateMap(Map<String, String> options, long seed) {
+        int size = Integer.parseInt(options.getOrDefault("--size", Integer.toString(DEFAULT_SIZE)));
+        int entities = Math.max(1, size * size / 500);
+
+        return new MapGenerator(seed).generate(size, size, WALL_DENSITY, entities, 4 * entities, entities, entities);
+    }
+
+    /**
+     * Opens the recorded log, or generates synthetic orders between the restaurants and clients of the map.
+     * The tiles are read from the grid instead of the layout of the control center, so a large map is not
+     * turned into entities before the replay.
+     *
+     * @param options the command-line options
+     * @param grid    the tiles of the replayed map
+     * @param seed    the seed of the synthetic orders
+     * @return the orders sorted by their timestamps
+     */
+    private static Stream<ReplayOrder> openLog(Map<String, String> options, Grid grid, long seed) {
+        if (options.containsKey("--log")) {
+            return OrderLog.read(Path.of(options.get("--log")));
+        }
+
+        SyntheticOrders synthetic = new SyntheticOrders(grid);
+        long count = Long.parseLong(options.getOrDefault("--orders", Integer.toString(DEFAULT_ORDERS)));
+        double rate = Double.parseDouble(options.getOrDefault("--rate", Double.toString(DEFAULT_RATE)));
+
+        if (options.containsKey("--write-log")) {
+            Path path = Path.of(options.get("--write-log"));
+            OrderLog.write(synthetic.generate(count, rate, seed), path);
+            return OrderLog.read(path);
+        }
+
+        return synthetic.generate(count, rate, seed);
+    }
+
+    private static void print(ReplayReport report) {
+        System.out.printf("orders: %d (delivered %d, no delivery guy %d, rejected %d)%n",
+            report.orders(), report.delivered(), report.unassigned(), report.rejected());
+        System.out.printf("duration: %.1f s, throughput: %.0f orders/s%n",
+            report.durationNanos() / NANOS_IN_SECOND, report.throughput());
+        printLatency("service latency", report.serviceLatency());
+        printLatency("response latency", report.responseLatency());
+        System.out.printf("delivery guys: %d, used: %d, utilization: %.2f%n",
+            report.couriers(), report.couriersUsed(), report.utilization());
+    }
+
+    private static void printLatency(String name, LatencySnapshot latency) {
+        System.out.printf("%s (ms): p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n", name,
+            latency.p50() / NANOS_IN_MILLI, latency.p90() / NANOS_IN_MILLI,
+            latency.p99() / NANOS_IN_MILLI, latency.max() / NANOS_IN_MILLI);
+    }
+}
@@ -0,0 +1,212 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.Glovo;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenterApi;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.LatencyHistogram;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.Delivery;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+import bg.sofia.uni.fmi.mjt.glovo.exception.InvalidOrderException;
+import bg.sofia.uni.fmi.mjt.glovo.exception.NoAvailableDeliveryGuyException;
+import bg.sofia.uni.fmi.mjt.glovo.exception.UnreachableDestinationException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Replays an order log against {@link Glovo}. A fixed number of clients, each on its own virtual thread,
+ * take the orders of the log in turn, wait until an order is due and place it. An order is due when the time
+ * since the start of the replay reaches the time since the first order of the log divided by the speed-up,
+ * so a speed-up of 10 replays an hour of orders in six minutes and an infinite one as fast as possible.
+ * When all clients are busy, the due orders wait, and this waiting is part of their response latency.
+ * <p>
+ * Glovo does not reserve the delivery guys it finds, so the utilization is the demand on the fleet:
+ * the estimated time of the deliveries compared to the time the delivery guys had while the log was recorded.
+ */
+public class ReplayHarness {
+
+    private static final String FOOD_ITEM = "Replayed order";
+    private static final double MILLIS_IN_MINUTE = 60_000;
+    private static final long NANOS_IN_MILLI = 1_000_000;
+
+    /**
+     * The orders of the log shared by the clients.
+     */
+    private static final class Feed {
+        private final Iterator<ReplayOrder> orders;
+        private ReplayOrder pending;
+
+        private Feed(Iterator<ReplayOrder> orders) {
+            this.orders = orders;
+            this.pending = orders.hasNext() ? orders.next() : null;
+        }
+
+        private synchronized ReplayOrder next() {
+            ReplayOrder order = pending;
+            pending = order != null && orders.hasNext() ? orders.next() : null;
+            return order;
+        }
+    }
+
+    private final ControlCenterApi controlCenter;
+    private final Glovo glovo;
+    private final int clients;
+    private final double speedup;
+    private final int couriers;
+
+    private final LatencyHistogram serviceLatency = new LatencyHistogram();
+    private final LatencyHistogram responseLatency = new LatencyHistogram();
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder unassigned = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder deliveryMinutes = new LongAdder();
+    private final LongAccumulator lastTimestamp = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private final Set<Location> couriersUsed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a harness which replays orders against a control center.
+     *
+     * @param controlCenter the control center to dispatch the orders to
+     * @param clients       the number of concurrent clients
+     * @param speedup       how many times faster than recorded the orders are placed,
+     *                      {@link Double#POSITIVE_INFINITY} to place them without waiting
+     * @throws IllegalArgumentException if the control center is null or any of the numbers is not positive
+     */
+    public ReplayHarness(ControlCenterApi controlCenter, int clients, double speedup) {
+        if (controlCenter == null) {
+            throw new IllegalArgumentException("Control center cannot be null");
+        }
+
+        if (clients <= 0 || !(speedup > 0)) {
+            throw new IllegalArgumentException("Number of clients and speed-up should be positive");
+        }
+
+        this.controlCenter = controlCenter;
+        this.glovo = new Glovo(controlCenter);
+        this.clients = clients;
+        this.speedup = speedup;
+        this.couriers = controlCenter.getDeliveryGuyCount();
+    }
+
+    /**
+     * Replays the orders and waits until all of them are answered. A harness should replay a single log.
+     *
+     * @param log the orders sorted by their timestamps
+     * @return the {@link ReplayReport} of the replay
+     * @throws IllegalArgumentException if the log is null or contains an invalid line
+     * @throws IllegalStateException    if the calling thread is interrupted
+     */
+    public ReplayReport replay(Stream<ReplayOrder> log) {
+        if (log == null) {
+            throw new IllegalArgumentException("Log cannot be null");
+        }
+
+        Feed feed = new Feed(log.iterator());
+        long firstTimestamp = feed.pending != null ? feed.pending.timestamp() : 0;
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> futures = new ArrayList<>(clients);
+
+            for (int client = 0; client < clients; client++) {
+                futures.add(executor.submit(() -> {
+                    runClient(feed, firstTimestamp, start);
+                    return null;
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        }
+
+        long span = lastTimestamp.get() == Long.MIN_VALUE ? 0 : lastTimestamp.get() - firstTimestamp;
+        double utilization = span <= 0 || couriers == 0 ? 0 :
+            deliveryMinutes.sum() / (couriers * (span / MILLIS_IN_MINUTE));
+
+        return new ReplayReport(orders.sum(), delivered.sum(), unassigned.sum(), rejected.sum(),
+            System.nanoTime() - start, serviceLatency.snapshot(), responseLatency.snapshot(),
+            couriers, couriersUsed.size(), utilization);
+    }
+
+    /**
+     * Places orders from the feed until it is empty.
+     *
+     * @param feed           the orders of the log
+     * @param firstTimestamp the timestamp of the first order of the log
+     * @param start          the value of {@link System#nanoTime()} when the replay started
+     * @throws InterruptedException if the client is interrupted while waiting for an order
+     */
+    private void runClient(Feed feed, long firstTimestamp, long start) throws InterruptedException {
+        for (ReplayOrder order = feed.next(); order != null; order = feed.next()) {
+            long due = start + (long) ((order.timestamp() - firstTimestamp) * NANOS_IN_MILLI / speedup);
+            long wait = due - System.nanoTime();
+
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+
+            long placed = System.nanoTime();
+            place(order);
+            long answered = System.nanoTime();
+
+            serviceLatency.record(answered - placed);
+            responseLatency.record(answered - Math.min(due, placed));
+            orders.increment();
+            lastTimestamp.accumulate(order.timestamp());
+        }
+    }
+
+    /**
+     * Places a single order and counts its outcome.
+     *
+     * @param order the order to place
+     */
+    private void place(ReplayOrder order) {
+        MapEntity client = new MapEntity(order.client(), MapEntityType.CLIENT);
+        MapEntity restaurant = new MapEntity(order.restaurant(), MapEntityType.RESTAURANT);
+
+        try {
+            Delivery delivery = order.shippingMethod() == ShippingMethod.CHEAPEST ?
+                glovo.getCheapestDelivery(client, restaurant, FOOD_ITEM) :
+                glovo.getFastestDelivery(client, restaurant, FOOD_ITEM);
+
+            delivered.increment();
+            deliveryMinutes.add(delivery.estimatedTime());
+            couriersUsed.add(delivery.deliveryGuy());
+        } catch (NoAvailableDeliveryGuyException e) {
+            unassigned.increment();
+        } catch (InvalidOrderException | UnreachableDestinationException | IllegalArgumentException e) {
+            rejected.increment();
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying the orders", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new IllegalStateException("Replay client failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+
+/**
+ * A recorded order of an order log.
+ *
+ * @param timestamp      the time when the order was placed, in milliseconds
+ * @param restaurant     the location of the restaurant
+ * @param client         the location of the client
+ * @param shippingMethod the method for shipping the delivery
+ */
+public record ReplayOrder(long timestamp,
+                          Location restaurant,
+                          Location client,
+                          ShippingMethod shippingMethod) { }
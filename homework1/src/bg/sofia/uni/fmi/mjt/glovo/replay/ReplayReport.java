@@ -0,0 +1,43 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.LatencySnapshot;
+
+/**
+ * The results of replaying an order log.
+ *
+ * @param orders          the number of replayed orders
+ * @param delivered       the number of orders which got a delivery guy
+ * @param unassigned      the number of orders for which no delivery guy was available
+ * @param rejected        the number of invalid or unreachable orders
+ * @param durationNanos   the wall-clock duration of the replay
+ * @param serviceLatency  the time spent in Glovo per order
+ * @param responseLatency the time from the moment an order was due until it was answered, including
+ *                        the time it waited for a free client
+ * @param couriers        the number of delivery guys on the map
+ * @param couriersUsed    the number of tiles from which delivery guys got orders, the number of delivery guys
+ *                        which got at least one order unless some of them share a tile
+ * @param utilization     the estimated time of all deliveries divided by the time of the log multiplied
+ *                        by the number of delivery guys; above 1 the fleet cannot keep up with the orders
+ */
+public record ReplayReport(long orders,
+                           long delivered,
+                           long unassigned,
+                           long rejected,
+                           long durationNanos,
+                           LatencySnapshot serviceLatency,
+                           LatencySnapshot responseLatency,
+                           int couriers,
+                           int couriersUsed,
+                           double utilization) {
+
+    private static final double NANOS_IN_SECOND = 1_000_000_000d;
+
+    /**
+     * Returns the number of orders answered per second of the replay.
+     *
+     * @return the throughput of the replay, 0 if nothing was replayed
+     */
+    public double throughput() {
+        return durationNanos == 0 ? 0 : orders * NANOS_IN_SECOND / durationNanos;
+    }
+}
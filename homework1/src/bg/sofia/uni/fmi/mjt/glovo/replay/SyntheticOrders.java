@@ -0,0 +1,83 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates order logs for a map. The orders arrive as a Poisson process with the given rate, each from
+ * a random restaurant to a random client of the map with a random shipping method, so a replay can be
+ * run without a recorded log.
+ */
+public class SyntheticOrders {
+
+    private static final double MILLIS_IN_SECOND = 1000;
+
+    private final List<Location> restaurants = new ArrayList<>();
+    private final List<Location> clients = new ArrayList<>();
+
+    /**
+     * Collects the restaurants and clients of a map. The tiles are read from the grid, so no entity
+     * is created for the other tiles.
+     *
+     * @param grid the tiles of the map
+     * @throws IllegalArgumentException if the grid is null or has no restaurants or no clients
+     */
+    public SyntheticOrders(Grid grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("Grid cannot be null");
+        }
+
+        for (int index = 0; index < grid.size(); index++) {
+            MapEntityType type = Grid.decode(grid.tileAt(index));
+
+            if (type == MapEntityType.RESTAURANT) {
+                restaurants.add(new Location(grid.rowOf(index), grid.colOf(index)));
+            } else if (type == MapEntityType.CLIENT) {
+                clients.add(new Location(grid.rowOf(index), grid.colOf(index)));
+            }
+        }
+
+        if (restaurants.isEmpty() || clients.isEmpty()) {
+            throw new IllegalArgumentException("Map should have restaurants and clients");
+        }
+    }
+
+    /**
+     * Generates a log of orders starting at timestamp 0.
+     *
+     * @param count          the number of orders
+     * @param ordersInSecond the average number of orders placed in a second
+     * @param seed           the seed of the random generator, the same seed gives the same orders
+     * @return a lazy {@link Stream} of the orders sorted by their timestamps
+     * @throws IllegalArgumentException if the count is negative or the rate is not positive
+     */
+    public Stream<ReplayOrder> generate(long count, double ordersInSecond, long seed) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Number of orders should not be negative");
+        }
+
+        if (!(ordersInSecond > 0)) {
+            throw new IllegalArgumentException("Rate of orders should be positive");
+        }
+
+        Random random = new Random(seed);
+        double meanGap = MILLIS_IN_SECOND / ordersInSecond;
+        double[] time = {0};
+
+        return Stream.generate(() -> {
+            time[0] -= meanGap * Math.log(1 - random.nextDouble());
+
+            return new ReplayOrder((long) time[0],
+                restaurants.get(random.nextInt(restaurants.size())),
+                clients.get(random.nextInt(clients.size())),
+                random.nextBoolean() ? ShippingMethod.CHEAPEST : ShippingMethod.FASTEST);
+        }).limit(count);
+    }
+}
@@ -1,21 +1,32 @@
 package bg.sofia.uni.fmi.mjt.glovo;
 
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenter;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.region.RegionWorkers;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.SearchAlgorithm;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.Delivery;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryOrder;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
 import bg.sofia.uni.fmi.mjt.glovo.exception.InvalidOrderException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class GlovoTest {
 
+    private char[][] layout;
     private GlovoApi glovo;
 
     @BeforeEach
     void setup() {
-        char[][] layout = {
+        layout = new char[][] {
             {'#', '#', '#', '.', '#'},
             {'#', 'B', '.', 'R', '.'},
             {'.', '.', '#', '.', '#'},
@@ -38,6 +49,16 @@ public class GlovoTest {
             "Method should throw invalidOrderExc when given Client location out of map");
     }
 
+    @Test
+    void testOrderOnEmptyMap() {
+        GlovoApi empty = new Glovo(new char[][] {{}});
+        MapEntity client = new MapEntity(new Location(0, 0), MapEntityType.CLIENT);
+        MapEntity restaurant = new MapEntity(new Location(0, 0), MapEntityType.RESTAURANT);
+
+        assertThrows(InvalidOrderException.class, () -> empty.getCheapestDelivery(client, restaurant, "Lukanka"),
+            "Method should throw invalidOrderExc when the map has no tiles");
+    }
+
     @Test
     void testLocationOfRestaurantOutOfMap() {
         Location clientLoc = new Location(3, 1);
@@ -73,4 +94,55 @@ public class GlovoTest {
         assertThrows(InvalidOrderException.class, () -> glovo.getCheapestDelivery(client, restaurant, "Lukanka"),
             "Method should throw invalidOrderExc when the Restaurant is not on the specified location");
     }
+
+    @Test
+    void testGetDeliveriesKeepsOrderOfRequests() {
+        MapEntity client = new MapEntity(new Location(3, 1), MapEntityType.CLIENT);
+        MapEntity restaurant = new MapEntity(new Location(1, 3), MapEntityType.RESTAURANT);
+
+        List<Delivery> deliveries = glovo.getDeliveries(List.of(
+            new DeliveryOrder(client, restaurant, "Lukanka", -1, -1, ShippingMethod.CHEAPEST),
+            new DeliveryOrder(client, restaurant, "Lukanka", 15, -1, ShippingMethod.CHEAPEST),
+            new DeliveryOrder(client, restaurant, "Lukanka", -1, -1, ShippingMethod.FASTEST)));
+
+        assertEquals(3, deliveries.size(), "There should be a result for every order");
+        assertEquals(glovo.getCheapestDelivery(client, restaurant, "Lukanka"), deliveries.get(0),
+            "Batch result should match the single order result");
+        assertNull(deliveries.get(1), "Order which no delivery guy can complete should have null result");
+        assertEquals(glovo.getFastestDelivery(client, restaurant, "Lukanka"), deliveries.get(2),
+            "Batch result should match the single order result");
+    }
+
+    @Test
+    void testGetDeliveriesOnRegionWorkers() {
+        MapEntity client = new MapEntity(new Location(3, 1), MapEntityType.CLIENT);
+        MapEntity restaurant = new MapEntity(new Location(1, 3), MapEntityType.RESTAURANT);
+        List<DeliveryOrder> orders = List.of(
+            new DeliveryOrder(client, restaurant, "Lukanka", -1, -1, ShippingMethod.CHEAPEST),
+            new DeliveryOrder(client, restaurant, "Lukanka", 15, -1, ShippingMethod.CHEAPEST),
+            new DeliveryOrder(client, restaurant, "Lukanka", -1, -1, ShippingMethod.FASTEST));
+
+        try (RegionWorkers workers = new RegionWorkers(2, 1)) {
+            GlovoApi regional = new Glovo(new ControlCenter(layout, 0, SearchAlgorithm.REGIONAL), workers);
+
+            assertEquals(glovo.getDeliveries(orders), regional.getDeliveries(orders),
+                "Orders evaluated on region workers should get the same deliveries");
+        }
+    }
+
+    @Test
+    void testGetDeliveriesWithInvalidOrder() {
+        MapEntity client = new MapEntity(new Location(3, 1), MapEntityType.CLIENT);
+        MapEntity restaurant = new MapEntity(new Location(1, 1), MapEntityType.RESTAURANT);
+
+        assertThrows(InvalidOrderException.class, () -> glovo.getDeliveries(List.of(
+                new DeliveryOrder(client, restaurant, "Lukanka", -1, -1, ShippingMethod.CHEAPEST))),
+            "Method should throw invalidOrderExc when any of the orders is invalid");
+    }
+
+    @Test
+    void testGetDeliveriesWithNullOrders() {
+        assertThrows(IllegalArgumentException.class, () -> glovo.getDeliveries(null),
+            "Method should throw Illegal argument when given null orders");
+    }
 }
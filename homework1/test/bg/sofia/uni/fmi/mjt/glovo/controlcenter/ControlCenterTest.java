@@ -1,15 +1,39 @@
 package bg.sofia.uni.fmi.mjt.glovo.controlcenter;
 
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
 import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEdit;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntity;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.DispatchMetrics;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics.DispatchOperation;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.DistanceField;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.Route;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.SearchAlgorithm;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryInfo;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryRequest;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.RoutePlan;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.RouteStop;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.RouteStopType;
 import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
 import bg.sofia.uni.fmi.mjt.glovo.exception.UnreachableDestinationException;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ControlCenterTest {
 
@@ -245,4 +269,838 @@ public class ControlCenterTest {
         assertEquals(DeliveryType.CAR, info.deliveryType(),"The only delivery guy available should be with car");
         assertEquals(new Location(0, 0), info.deliveryGuyLocation(), "Delivery guy location calculated wrong");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindOptimalDeliveryGuyRepeatedQueriesGiveSameResult() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        DeliveryInfo first = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+        controlCenter.findOptimalDeliveryGuy(client, restaurant, noLimitation, noLimitation, ShippingMethod.FASTEST);
+        DeliveryInfo second = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+
+        assertEquals(first, second, "Reusing the search buffers should not change the result");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyWithoutDistanceFields() {
+        ControlCenterApi withFields = new ControlCenter(validLayout);
+        ControlCenterApi withoutFields = new ControlCenter(validLayout, 0);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        assertEquals(withFields.findOptimalDeliveryGuy(restaurant, client, noLimitation, 20, ShippingMethod.CHEAPEST),
+            withoutFields.findOptimalDeliveryGuy(restaurant, client, noLimitation, 20, ShippingMethod.CHEAPEST),
+            "Distance fields should not change the result");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyWithUnreachableClientWithoutDistanceFields() {
+        ControlCenterApi controlCenter = new ControlCenter(unreachableClientLayout, 0);
+        Location client = new Location(4, 0);
+        Location restaurant = new Location(1, 3);
+
+        assertThrows(
+            UnreachableDestinationException.class, () -> controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.FASTEST), "Client should not be reachable");
+    }
+
+    @Test
+    void testControlCenterWithNegativeDistanceFieldsCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ControlCenter(validLayout, -1),
+            "Negative distance fields capacity should not be allowed");
+    }
+
+    @Test
+    void testAssignDeliveryGuysGivesDistinctDeliveryGuys() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        DeliveryRequest request = new DeliveryRequest(new Location(1, 3), new Location(3, 1), noLimitation, noLimitation);
+
+        List<DeliveryInfo> infos = controlCenter.assignDeliveryGuys(List.of(request, request, request), ShippingMethod.CHEAPEST);
+
+        assertEquals(3, infos.size(), "There should be a result for every request");
+        assertNotEquals(infos.get(0).deliveryGuyLocation(), infos.get(1).deliveryGuyLocation(),
+            "The same delivery guy should not be assigned twice");
+        assertEquals(48, infos.get(0).price() + infos.get(1).price(), "Total price should be 18 + 30");
+        assertNull(infos.get(2), "There are only two delivery guys for three orders");
+    }
+
+    @Test
+    void testAssignDeliveryGuysRespectsConstraints() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        DeliveryRequest request = new DeliveryRequest(new Location(1, 3), new Location(3, 1), 20, noLimitation);
+
+        List<DeliveryInfo> infos = controlCenter.assignDeliveryGuys(List.of(request, request), ShippingMethod.FASTEST);
+
+        assertEquals(DeliveryType.BIKE, infos.get(0).deliveryType(), "Only the bike is cheap enough");
+        assertNull(infos.get(1), "Car delivery is too expensive for the second order");
+    }
+
+    @Test
+    void testAssignDeliveryGuysWithUnreachableClient() {
+        ControlCenterApi controlCenter = new ControlCenter(unreachableClientLayout, 0);
+        DeliveryRequest request = new DeliveryRequest(new Location(1, 3), new Location(4, 0), noLimitation, noLimitation);
+
+        assertNull(controlCenter.assignDeliveryGuys(List.of(request), ShippingMethod.CHEAPEST).getFirst(),
+            "Order with unreachable client should not be assigned");
+    }
+
+    @Test
+    void testPlanRoutePicksUpBeforeDroppingOff() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        DeliveryRequest request = new DeliveryRequest(new Location(1, 3), new Location(3, 1), noLimitation, noLimitation);
+
+        RoutePlan plan = controlCenter.planRoute(0, List.of(request, request));
+
+        assertEquals(DeliveryType.CAR, plan.deliveryType(), "Delivery guy with id 0 should be the car");
+        assertEquals(4, plan.stops().size(), "Route should have a pickup and a drop-off for every order");
+        assertEquals(RouteStopType.PICKUP, plan.stops().get(0).type(), "Route should start with a pickup");
+        assertEquals(RouteStopType.PICKUP, plan.stops().get(1).type(), "Both orders should be picked up together");
+        assertEquals(30, plan.price(), "Both orders should be delivered for the price of one route of 6 km");
+        assertEquals(18, plan.estimatedTime(), "Both orders should be delivered in the time of one route of 6 km");
+        assertEquals(6, plan.stops().get(1).estimatedTime(), "Restaurant should be reached after 2 km");
+    }
+
+    @Test
+    void testPlanRouteIsFasterThanDeliveringOneByOne() {
+        char[][] layout = new MapGenerator(19).generate(60, 60, 0.1, 8, 8, 1, 0);
+        ControlCenterApi controlCenter = new ControlCenter(layout);
+        Random random = new Random(23);
+        List<DeliveryRequest> requests = new ArrayList<>();
+        Location courier = randomEntity(layout, MapEntityType.DELIVERY_GUY_CAR, random);
+
+        while (requests.size() < 6) {
+            Location restaurant = randomEntity(layout, MapEntityType.RESTAURANT, random);
+            Location client = randomEntity(layout, MapEntityType.CLIENT, random);
+
+            if (distanceOrNotFound(controlCenter, courier, restaurant) != GridSearch.NOT_FOUND &&
+                distanceOrNotFound(controlCenter, courier, client) != GridSearch.NOT_FOUND) {
+                requests.add(new DeliveryRequest(restaurant, client, noLimitation, noLimitation));
+            }
+        }
+
+        RoutePlan plan = controlCenter.planRoute(0, requests);
+        int oneByOne = 0;
+        Location previous = courier;
+
+        for (DeliveryRequest request : requests) {
+            oneByOne += controlCenter.getDistance(previous, request.restaurantLocation()) +
+                controlCenter.getDistance(request.restaurantLocation(), request.clientLocation());
+            previous = request.clientLocation();
+        }
+
+        int routeLength = 0;
+        previous = courier;
+        boolean[] pickedUp = new boolean[requests.size()];
+
+        for (RouteStop stop : plan.stops()) {
+            routeLength += controlCenter.getDistance(previous, stop.location());
+            previous = stop.location();
+            assertEquals(routeLength * DeliveryType.CAR.getTimePerKM(), stop.estimatedTime(),
+                "Estimated time of a stop should be the time of the route up to it");
+
+            if (stop.type() == RouteStopType.PICKUP) {
+                pickedUp[stop.order()] = true;
+            } else {
+                assertTrue(pickedUp[stop.order()], "Order should be picked up before it is dropped off");
+            }
+        }
+
+        assertEquals(routeLength * DeliveryType.CAR.getTimePerKM(), plan.estimatedTime(),
+            "Time of the route should be the sum of its legs");
+        assertTrue(routeLength < oneByOne, "Batched route should be shorter than delivering the orders one by one");
+    }
+
+    @Test
+    void testPlanRouteWithInvalidRequests() {
+        ControlCenterApi controlCenter = new ControlCenter(unreachableClientLayout);
+        DeliveryRequest unreachable =
+            new DeliveryRequest(new Location(1, 3), new Location(4, 0), noLimitation, noLimitation);
+        DeliveryRequest outside = new DeliveryRequest(new Location(1, 3), new Location(5, 0), noLimitation, noLimitation);
+
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.planRoute(0, null),
+            "Requests cannot be null");
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.planRoute(2, List.of()),
+            "Delivery guy should exist");
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.planRoute(0, List.of(outside)),
+            "Locations should be inside of the map");
+        assertThrows(UnreachableDestinationException.class, () -> controlCenter.planRoute(0, List.of(unreachable)),
+            "Client should not be reachable");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyWithLocationsOutsideOfMap() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        Location restaurant = new Location(1, 3);
+        Location wrapped = new Location(1, 5);
+        DeliveryRequest outside = new DeliveryRequest(restaurant, wrapped, noLimitation, noLimitation);
+
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.findOptimalDeliveryGuy(restaurant, wrapped,
+            noLimitation, noLimitation, ShippingMethod.CHEAPEST), "Column past the last one should not wrap around");
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.findOptimalDeliveryGuy(new Location(-1, 3),
+            restaurant, noLimitation, noLimitation, ShippingMethod.FASTEST), "Negative row should be rejected");
+        assertThrows(IllegalArgumentException.class,
+            () -> controlCenter.assignDeliveryGuys(List.of(outside), ShippingMethod.CHEAPEST),
+            "Locations of batched requests should be inside of the map");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuySkipsBusyDeliveryGuys() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        controlCenter.setDeliveryGuyBusy(controlCenter.getDeliveryGuyId(new Location(1, 1), DeliveryType.BIKE), true);
+        DeliveryInfo info = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+
+        assertEquals(DeliveryType.CAR, info.deliveryType(), "The only free delivery guy is with car");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyAfterMovingDeliveryGuy() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout, 0);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        controlCenter.moveDeliveryGuy(controlCenter.getDeliveryGuyId(new Location(1, 1), DeliveryType.BIKE), new Location(1, 2));
+        DeliveryInfo info = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+
+        assertEquals(new Location(1, 2), info.deliveryGuyLocation(), "Delivery guy location should be updated");
+        assertEquals(15, info.price(), "Price of bike delivery should be 15");
+        assertEquals(MapEntityType.ROAD, controlCenter.getMapEntity(new Location(1, 1)).type(),
+            "Old location should become road");
+        assertEquals(MapEntityType.DELIVERY_GUY_BIKE, controlCenter.getMapEntity(new Location(1, 2)).type(),
+            "New location should show the delivery guy");
+    }
+
+    @Test
+    void testResultCacheDropsOrdersAffectedByMove() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout, 0, SearchAlgorithm.BFS, 16);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+        DeliveryInfo cached = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation,
+            ShippingMethod.CHEAPEST);
+
+        assertEquals(1, controlCenter.getMetrics().resultCacheHits(), "Repeated order should be answered from the cache");
+        assertEquals(new Location(1, 1), cached.deliveryGuyLocation(), "Cached delivery should be the computed one");
+
+        controlCenter.moveDeliveryGuy(controlCenter.getDeliveryGuyId(new Location(1, 1), DeliveryType.BIKE), new Location(1, 2));
+        DeliveryInfo info = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation,
+            ShippingMethod.CHEAPEST);
+
+        assertEquals(new Location(1, 2), info.deliveryGuyLocation(), "Order should be recomputed after a close move");
+        assertEquals(2, controlCenter.getMetrics().resultCacheMisses(), "Order affected by the move should miss the cache");
+        assertEquals(1.0 / 3, controlCenter.getMetrics().resultCacheHitRate(), 1e-9, "One of three orders should hit");
+    }
+
+    @Test
+    void testResultCacheMatchesUncachedResultsWhileFleetChanges() {
+        MapGenerator generator = new MapGenerator(37);
+        char[][] layout = generator.generate(40, 40, 0.2, 8, 8, 15, 15);
+        generator.addRoadCosts(layout, 0.3, 5);
+
+        ControlCenterApi cached = new ControlCenter(layout, 0, SearchAlgorithm.BFS, 64);
+        ControlCenterApi uncached = new ControlCenter(layout, 0, SearchAlgorithm.BFS, 0);
+        List<Location> restaurants = new ArrayList<>();
+        List<Location> clients = new ArrayList<>();
+        List<Location> roads = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+
+        for (int row = 0; row < layout.length; row++) {
+            for (int col = 0; col < layout[row].length; col++) {
+                Location location = new Location(row, col);
+                MapEntityType type = MapEntityType.fromSymbol(layout[row][col]);
+
+                if (type == MapEntityType.RESTAURANT) {
+                    restaurants.add(location);
+                } else if (type == MapEntityType.CLIENT) {
+                    clients.add(location);
+                } else if (type != MapEntityType.WALL) {
+                    roads.add(location);
+                }
+
+                if (type == MapEntityType.DELIVERY_GUY_CAR || type == MapEntityType.DELIVERY_GUY_BIKE) {
+                    ids.add(uncached.getDeliveryGuyId(location,
+                        type == MapEntityType.DELIVERY_GUY_CAR ? DeliveryType.CAR : DeliveryType.BIKE));
+                }
+            }
+        }
+
+        Random random = new Random(41);
+
+        for (int step = 0; step < 2000; step++) {
+            int id = ids.get(random.nextInt(ids.size()));
+
+            if (step % 5 == 0) {
+                Location location = roads.get(random.nextInt(roads.size()));
+                cached.moveDeliveryGuy(id, location);
+                uncached.moveDeliveryGuy(id, location);
+            } else if (step % 7 == 0) {
+                boolean busy = random.nextBoolean();
+                cached.setDeliveryGuyBusy(id, busy);
+                uncached.setDeliveryGuyBusy(id, busy);
+            }
+
+            Location restaurant = restaurants.get(random.nextInt(restaurants.size()));
+            Location client = clients.get(random.nextInt(clients.size()));
+            ShippingMethod method = random.nextBoolean() ? ShippingMethod.CHEAPEST : ShippingMethod.FASTEST;
+
+            try {
+                assertEquals(uncached.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, method),
+                    cached.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, method),
+                    "Cached delivery should match the one computed from the current fleet");
+            } catch (UnreachableDestinationException e) {
+                assertThrows(UnreachableDestinationException.class,
+                    () -> cached.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, method),
+                    "Unreachable client should not be reachable with the cache either");
+            }
+        }
+
+        assertTrue(cached.getMetrics().resultCacheHits() > 0, "Some of the repeated orders should hit the cache");
+    }
+
+    @Test
+    void testMoveDeliveryGuyToWall() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        int id = controlCenter.getDeliveryGuyId(new Location(3, 3), DeliveryType.CAR);
+
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.moveDeliveryGuy(id, new Location(0, 0)),
+            "Delivery guy should not be moved to a wall");
+    }
+
+    @Test
+    void testEditMapClosesRoads() {
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            ControlCenterApi controlCenter = new ControlCenter(validLayout, 4, algorithm);
+            Location restaurant = new Location(1, 3);
+            Location client = new Location(3, 1);
+
+            controlCenter.editMap(List.of(new MapEdit(new Location(1, 2), MapEntityType.WALL),
+                new MapEdit(new Location(3, 2), MapEntityType.WALL)));
+
+            assertEquals(1, controlCenter.getMapVersion(), "Edit should publish a new version");
+            assertEquals(MapEntityType.WALL, controlCenter.getMapEntity(new Location(1, 2)).type(),
+                "Closed road should be a wall");
+            assertThrows(UnreachableDestinationException.class, () -> controlCenter.getDistance(restaurant, client),
+                "Client should not be reachable after closing the roads with " + algorithm);
+
+            controlCenter.editMap(List.of(new MapEdit(new Location(3, 2), MapEntityType.ROAD)));
+
+            assertEquals(2, controlCenter.getMapVersion(), "Every edit should publish a new version");
+            assertEquals(4, controlCenter.getDistance(restaurant, client),
+                "Reopened road should be used with " + algorithm);
+        }
+    }
+
+    @Test
+    void testEditMapDropsCachedDeliveries() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        Location restaurant = new Location(1, 3);
+        Location client = new Location(3, 1);
+
+        assertEquals(18, controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation,
+            ShippingMethod.CHEAPEST).price(), "Bike delivery should cost 18 before the edit");
+
+        controlCenter.editMap(List.of(new MapEdit(new Location(1, 2), MapEntityType.WALL)));
+
+        assertEquals(30, controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation,
+            ShippingMethod.CHEAPEST).price(), "Delivery should be recomputed on the edited map");
+    }
+
+    @Test
+    void testEditMapAddsRestaurant() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        Location location = new Location(4, 1);
+
+        controlCenter.editMap(List.of(new MapEdit(location, MapEntityType.RESTAURANT)));
+
+        assertEquals(MapEntityType.RESTAURANT, controlCenter.getMapEntity(location).type(),
+            "New restaurant should be on the map");
+        assertEquals(MapEntityType.RESTAURANT, controlCenter.getLayout()[4][1].type(),
+            "New restaurant should be in the layout");
+        assertEquals(DeliveryType.BIKE, controlCenter.findOptimalDeliveryGuy(location, new Location(3, 1),
+            noLimitation, noLimitation, ShippingMethod.CHEAPEST).deliveryType(),
+            "Orders should be served from the new restaurant");
+    }
+
+    @Test
+    void testEditMapWithInvalidEdits() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> controlCenter.editMap(List.of(new MapEdit(new Location(1, 1), MapEntityType.WALL))),
+            "Delivery guy should not be walled in");
+        assertThrows(IllegalArgumentException.class,
+            () -> controlCenter.editMap(List.of(new MapEdit(new Location(1, 2), MapEntityType.DELIVERY_GUY_CAR))),
+            "Delivery guys should not be placed with edits");
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.editMap(null),
+            "Edits cannot be null");
+        assertEquals(0, controlCenter.getMapVersion(), "Rejected edits should not publish a version");
+        assertEquals(MapEntityType.DELIVERY_GUY_BIKE, controlCenter.getMapEntity(new Location(1, 1)).type(),
+            "Rejected edits should not change the map");
+    }
+
+    @Test
+    void testReadsDuringEditsSeeWholeVersions() throws Exception {
+        char[][] layout = new MapGenerator(17).generate(60, 60, 0.2, 5, 5, 10, 10);
+        Random random = new Random(17);
+        List<MapEdit> closures = new ArrayList<>();
+        List<MapEdit> reopenings = new ArrayList<>();
+        char[][] closedLayout = new char[layout.length][];
+
+        for (int row = 0; row < layout.length; row++) {
+            closedLayout[row] = layout[row].clone();
+
+            for (int col = 0; col < layout[row].length; col++) {
+                if (layout[row][col] == MapEntityType.ROAD.getSymbol() && random.nextInt(5) == 0) {
+                    closedLayout[row][col] = MapEntityType.WALL.getSymbol();
+                    closures.add(new MapEdit(new Location(row, col), MapEntityType.WALL));
+                    reopenings.add(new MapEdit(new Location(row, col), MapEntityType.ROAD));
+                }
+            }
+        }
+
+        Location restaurant = randomEntity(layout, MapEntityType.RESTAURANT, random);
+        Location client = randomEntity(layout, MapEntityType.CLIENT, random);
+        List<Integer> expected = List.of(distanceOrNotFound(new ControlCenter(layout), restaurant, client),
+            distanceOrNotFound(new ControlCenter(closedLayout), restaurant, client));
+        assertNotEquals(expected.get(0), expected.get(1), "Closed roads should change the distance");
+
+        ControlCenterApi controlCenter = new ControlCenter(layout, 4, SearchAlgorithm.REGIONAL);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<?>> reads = new ArrayList<>();
+
+            for (int reader = 0; reader < 4; reader++) {
+                reads.add(readers.submit(() -> {
+                    for (int read = 0; read < 300; read++) {
+                        assertTrue(expected.contains(distanceOrNotFound(controlCenter, restaurant, client)),
+                            "Every read should see either the original or the edited map");
+                    }
+                }));
+            }
+
+            for (int edit = 0; edit < 20; edit++) {
+                controlCenter.editMap(edit % 2 == 0 ? closures : reopenings);
+            }
+
+            for (Future<?> read : reads) {
+                read.get();
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+
+        assertEquals(20, controlCenter.getMapVersion(), "Every batch of edits should publish a version");
+        assertEquals(expected.get(0), distanceOrNotFound(controlCenter, restaurant, client),
+            "Reopened roads should give the original distance");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyWithAStar() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout, 0, SearchAlgorithm.A_STAR);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        DeliveryInfo info = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+
+        assertEquals(DeliveryType.BIKE, info.deliveryType(), "Cheapest delivery for same distance delivery guys should be with bike");
+        assertEquals(18, info.price(), "Price of bike delivery should be 18");
+    }
+
+    @Test
+    void testGetDistance() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout, 0, SearchAlgorithm.A_STAR);
+
+        assertEquals(4, controlCenter.getDistance(new Location(1, 3), new Location(3, 1)),
+            "Distance from restaurant to client should be 4");
+    }
+
+    @Test
+    void testGetDistanceWithRegionalSearch() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout, 0, SearchAlgorithm.REGIONAL);
+
+        assertEquals(4, controlCenter.getDistance(new Location(1, 3), new Location(3, 1)),
+            "Distance from restaurant to client should be 4");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyWithContractionHierarchy() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout, 0, SearchAlgorithm.CONTRACTION_HIERARCHY);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        DeliveryInfo info = controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+
+        assertEquals(DeliveryType.BIKE, info.deliveryType(), "Cheapest delivery for same distance delivery guys should be with bike");
+        assertEquals(18, info.price(), "Price of bike delivery should be 18");
+        assertEquals(4, controlCenter.getDistance(restaurant, client), "Distance from restaurant to client should be 4");
+    }
+
+    @Test
+    void testFindRoute() {
+        Location restaurant = new Location(1, 3);
+        Location client = new Location(3, 1);
+
+        for (int capacity : new int[] {0, 1}) {
+            ControlCenterApi controlCenter = new ControlCenter(validLayout, capacity);
+
+            controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+            Route toClient = controlCenter.findRoute(restaurant, client);
+            Route toRestaurant = controlCenter.findRoute(client, restaurant);
+
+            assertEquals(4, toClient.moves(), "Route from restaurant to client should have 4 moves");
+            assertEquals(client, toClient.end(), "Route should end at the client");
+            assertEquals(restaurant, toRestaurant.end(), "Route in the other direction should end at the restaurant");
+            assertEquals(4, toRestaurant.moves(), "Route in the other direction should be as long");
+            assertTrue(toClient.locations().stream().allMatch(location ->
+                controlCenter.getMapEntity(location).type() != MapEntityType.WALL), "Route should not cross walls");
+        }
+    }
+
+    @Test
+    void testFindRouteWithUnreachableClient() {
+        ControlCenterApi controlCenter = new ControlCenter(unreachableClientLayout);
+
+        assertThrows(UnreachableDestinationException.class,
+            () -> controlCenter.findRoute(new Location(1, 3), new Location(4, 0)), "Client should not be reachable");
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.findRoute(null, new Location(4, 0)),
+            "Location cannot be null");
+    }
+
+    @Test
+    void testGetDeliveryRoute() {
+        Location deliveryGuy = new Location(1, 1);
+        Location restaurant = new Location(1, 3);
+        Location client = new Location(3, 1);
+
+        for (int capacity : new int[] {0, 1}) {
+            ControlCenterApi controlCenter = new ControlCenter(validLayout, capacity);
+            Route route = controlCenter.getDeliveryRoute(deliveryGuy, restaurant, client);
+
+            assertEquals(6, route.moves(), "Delivery route should have the moves of both legs");
+            assertEquals(deliveryGuy, route.start(), "Delivery route should start at the delivery guy");
+            assertEquals(client, route.end(), "Delivery route should end at the client");
+            assertTrue(route.locations().contains(restaurant), "Delivery route should pass through the restaurant");
+            assertEquals(1, controlCenter.getMetrics().latency(DispatchOperation.FIND_ROUTE).count(),
+                "Latency of the route should be recorded");
+        }
+    }
+
+    @Test
+    void testGetRegion() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+
+        assertEquals(controlCenter.getRegion(new Location(0, 0)), controlCenter.getRegion(new Location(4, 4)),
+            "Small map should fit in a single region");
+        assertThrows(IllegalArgumentException.class, () -> controlCenter.getRegion(new Location(5, 0)),
+            "Location outside of the map should have no region");
+    }
+
+    @Test
+    void testGetDeliveryGuyCount() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+
+        assertEquals(2, controlCenter.getDeliveryGuyCount(), "Map has a car and a bike");
+        assertEquals(0, new ControlCenter(new char[][] {{'.', 'R'}}).getDeliveryGuyCount(),
+            "Map without delivery guys should have none");
+    }
+
+    @Test
+    void testEmptyMapIsAccepted() {
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            ControlCenterApi controlCenter = new ControlCenter(new char[0][0], 64, algorithm);
+
+            assertEquals(0, controlCenter.getLayout().length, "Empty map should have no rows");
+            assertThrows(IllegalArgumentException.class, () -> controlCenter.getRegion(new Location(0, 0)),
+                "Empty map should have no regions");
+        }
+
+        assertEquals(1, new ControlCenter(new char[][] {{}}).getLayout().length,
+            "Map with an empty row should be accepted");
+    }
+
+    @Test
+    void testGetDistanceWithUnreachableClient() {
+        ControlCenterApi controlCenter = new ControlCenter(unreachableClientLayout, 0, SearchAlgorithm.A_STAR);
+
+        assertThrows(UnreachableDestinationException.class,
+            () -> controlCenter.getDistance(new Location(1, 3), new Location(4, 0)), "Client should not be reachable");
+    }
+
+    @Test
+    void testDistanceFieldsCapacityFitsInBudget() {
+        Grid roads = new Grid(new char[][] {"....".toCharArray(), "....".toCharArray()});
+        Grid weighted = new Grid(new char[][] {"..3.".toCharArray(), "....".toCharArray()});
+
+        assertEquals(64, ControlCenter.distanceFieldsCapacity(64, roads, 1 << 20),
+            "Requested capacity should be kept when the fields fit in the budget");
+        assertEquals(4, ControlCenter.distanceFieldsCapacity(64, roads, 4 * 8 * Integer.BYTES),
+            "Capacity should be limited by the size of a field");
+        assertEquals(2, ControlCenter.distanceFieldsCapacity(64, weighted, 4 * 8 * Integer.BYTES),
+            "Fields of weighted maps should count their moves as well");
+        assertEquals(0, ControlCenter.distanceFieldsCapacity(64, roads, 8 * Integer.BYTES - 1),
+            "No fields should be kept when a single one does not fit");
+    }
+
+    @Test
+    void testGetMetricsCountsSearchesAndCacheLookups() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+
+        controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+        controlCenter.findOptimalDeliveryGuy(restaurant, client, noLimitation, noLimitation, ShippingMethod.FASTEST);
+        controlCenter.getDistance(restaurant, client);
+
+        DispatchMetrics metrics = controlCenter.getMetrics();
+
+        assertEquals(1, metrics.distanceFieldMisses(), "First order of a restaurant should build its distance field");
+        assertEquals(1, metrics.distanceFieldHits(), "Second order of a restaurant should reuse its distance field");
+        assertEquals(0.5, metrics.distanceFieldHitRate(), "Half of the lookups should be hits");
+        assertEquals(1, metrics.reusedSearchBuffers(), "Distance search should reuse the buffers of the first search");
+        assertTrue(metrics.tilesExpanded() > 0, "Searches should expand tiles");
+        assertEquals(2, metrics.latency(DispatchOperation.FIND_OPTIMAL_DELIVERY_GUY).count(),
+            "Latency of every order should be recorded");
+        assertEquals(1, metrics.latency(DispatchOperation.GET_DISTANCE).count(),
+            "Latency of the distance should be recorded");
+    }
+
+    @Test
+    void testSearchBuffersAreSharedBetweenVirtualThreads() throws Exception {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout, 0, SearchAlgorithm.BFS);
+        Location client = new Location(3, 1);
+        Location restaurant = new Location(1, 3);
+        int searches = 100;
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int search = 0; search < searches; search++) {
+                clients.submit(() -> controlCenter.getDistance(restaurant, client)).get();
+            }
+        }
+
+        assertEquals(searches - 1, controlCenter.getMetrics().reusedSearchBuffers(),
+            "Every search after the first one should reuse pooled buffers instead of allocating new ones");
+    }
+
+    @Test
+    void testGetMapEntity() {
+        ControlCenterApi controlCenter = new ControlCenter(validLayout);
+
+        assertEquals(new MapEntity(new Location(1, 3), MapEntityType.RESTAURANT),
+            controlCenter.getMapEntity(new Location(1, 3)), "Entity on the location should be the restaurant");
+        assertNull(controlCenter.getMapEntity(new Location(5, 0)), "Entity outside of the map should be null");
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyOnWeightedRoads() {
+        char[][] weightedLayout = {
+            {'#', '#', '#', '#', '#'},
+            {'B', '2', '2', 'R', '.'},
+            {'.', '#', '#', '#', '.'},
+            {'.', '.', 'C', '.', '.'}
+        };
+
+        for (int capacity : new int[] {0, 1}) {
+            ControlCenterApi controlCenter = new ControlCenter(weightedLayout, capacity);
+
+            DeliveryInfo info = controlCenter.findOptimalDeliveryGuy(new Location(1, 3), new Location(3, 2),
+                noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+
+            assertEquals(24, info.price(), "Price should depend on the length of the route");
+            assertEquals(55, info.estimatedTime(), "Time should depend on the traversal cost of the route");
+        }
+    }
+
+    @Test
+    void testGetDistanceOnWeightedRoadsIsLengthOfFastestRoute() {
+        char[][] weightedLayout = {
+            {'#', '#', '#', '#', '#'},
+            {'.', '9', '9', '.', '.'},
+            {'.', '#', '#', '#', '.'},
+            {'.', '.', '.', '.', '.'}
+        };
+
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            ControlCenterApi controlCenter = new ControlCenter(weightedLayout, 0, algorithm);
+
+            assertEquals(9, controlCenter.getDistance(new Location(1, 0), new Location(1, 3)),
+                "Fastest route should go around the slow roads");
+            assertEquals(MapEntityType.ROAD, controlCenter.getMapEntity(new Location(1, 1)).type(),
+                "Weighted tiles should be roads");
+        }
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyConsidersFartherDeliveryGuysWithinConstraints() {
+        char[][] weightedLayout = {
+            {'#', '#', '#', '#', '#'},
+            {'A', '9', '9', 'R', 'C'},
+            {'#', '#', '#', '.', '#'},
+            {'A', '.', '.', '.', '#'}
+        };
+        Location restaurant = new Location(1, 3);
+        Location client = new Location(1, 4);
+
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            for (int capacity : new int[] {0, 1}) {
+                ControlCenterApi controlCenter = new ControlCenter(weightedLayout, capacity, algorithm);
+
+                DeliveryInfo underPrice = controlCenter.findOptimalDeliveryGuy(restaurant, client,
+                    25, noLimitation, ShippingMethod.FASTEST);
+                DeliveryInfo cheapest = controlCenter.findOptimalDeliveryGuy(restaurant, client,
+                    noLimitation, noLimitation, ShippingMethod.CHEAPEST);
+                DeliveryInfo withinTime = controlCenter.findOptimalDeliveryGuy(restaurant, client,
+                    noLimitation, 20, ShippingMethod.CHEAPEST);
+
+                assertEquals(new DeliveryInfo(new Location(1, 0), 20, 84, DeliveryType.CAR), underPrice,
+                    "Farther delivery guy within the price limit should be chosen");
+                assertEquals(new DeliveryInfo(new Location(1, 0), 20, 84, DeliveryType.CAR), cheapest,
+                    "Farther delivery guy with a shorter route should be cheaper");
+                assertEquals(new DeliveryInfo(new Location(3, 0), 30, 18, DeliveryType.CAR), withinTime,
+                    "Only the closer delivery guy fits in the time limit");
+            }
+        }
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyMatchesFullScanOnWeightedRoads() {
+        MapGenerator generator = new MapGenerator(29);
+        char[][] layout = generator.generate(30, 30, 0.25, 6, 6, 12, 12);
+        generator.addRoadCosts(layout, 0.4, 9);
+
+        Grid grid = new Grid(layout);
+        GridSearch search = new GridSearch(grid);
+        ControlCenterApi withFields = new ControlCenter(layout);
+        ControlCenterApi withSearch = new ControlCenter(layout, 0);
+        ControlCenterApi withRegions = new ControlCenter(layout, 0, SearchAlgorithm.REGIONAL);
+        Random random = new Random(31);
+
+        for (int row = 0; row < grid.rows(); row++) {
+            for (int col = 0; col < grid.cols(); col++) {
+                if (layout[row][col] != MapEntityType.RESTAURANT.getSymbol()) {
+                    continue;
+                }
+
+                Location restaurant = new Location(row, col);
+                Location client = randomClient(layout, random);
+                DistanceField field = search.distanceField(grid.index(row, col));
+
+                if (field.distanceTo(grid.index(client.x(), client.y())) == GridSearch.NOT_FOUND) {
+                    continue;
+                }
+
+                for (ShippingMethod method : ShippingMethod.values()) {
+                    double maxPrice = random.nextBoolean() ? noLimitation : random.nextInt(300);
+                    int maxTime = random.nextBoolean() ? noLimitation : random.nextInt(300);
+                    Integer expected = bestByFullScan(layout, grid, field, client, maxPrice, maxTime, method);
+
+                    for (ControlCenterApi controlCenter : List.of(withFields, withSearch, withRegions)) {
+                        DeliveryInfo info = controlCenter.findOptimalDeliveryGuy(restaurant, client, maxPrice, maxTime, method);
+
+                        assertEquals(expected, info == null ? null :
+                                method == ShippingMethod.CHEAPEST ? (int) info.price() : info.estimatedTime(),
+                            "Delivery should be as good as the best one found by a full scan");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFindOptimalDeliveryGuyOnWeightedRoadsIsSameWithAndWithoutDistanceFields() {
+        MapGenerator generator = new MapGenerator(41);
+        Random random = new Random(43);
+
+        for (int map = 0; map < 5; map++) {
+            char[][] layout = generator.generate(30, 30, 0.2, 6, 12, 15, 15);
+            generator.addRoadCosts(layout, 0.5, 3);
+
+            ControlCenterApi withFields = new ControlCenter(layout);
+            List<ControlCenterApi> withSearch = List.of(new ControlCenter(layout, 0),
+                new ControlCenter(layout, 0, SearchAlgorithm.A_STAR), new ControlCenter(layout, 0, SearchAlgorithm.REGIONAL));
+
+            for (int order = 0; order < 40; order++) {
+                Location restaurant = randomEntity(layout, MapEntityType.RESTAURANT, random);
+                Location client = randomClient(layout, random);
+
+                if (distanceOrNotFound(withFields, restaurant, client) == GridSearch.NOT_FOUND) {
+                    continue;
+                }
+
+                for (ShippingMethod method : ShippingMethod.values()) {
+                    double maxPrice = random.nextBoolean() ? noLimitation : random.nextInt(300);
+                    int maxTime = random.nextBoolean() ? noLimitation : random.nextInt(300);
+                    DeliveryInfo expected = withFields.findOptimalDeliveryGuy(restaurant, client, maxPrice, maxTime, method);
+
+                    for (ControlCenterApi controlCenter : withSearch) {
+                        assertEquals(expected,
+                            controlCenter.findOptimalDeliveryGuy(restaurant, client, maxPrice, maxTime, method),
+                            "Search should break ties between equally good delivery guys like the distance field");
+                    }
+                }
+            }
+        }
+    }
+
+    private Location randomEntity(char[][] layout, MapEntityType type, Random random) {
+        while (true) {
+            int row = random.nextInt(layout.length);
+            int col = random.nextInt(layout[row].length);
+
+            if (layout[row][col] == type.getSymbol()) {
+                return new Location(row, col);
+            }
+        }
+    }
+
+    private int distanceOrNotFound(ControlCenterApi controlCenter, Location from, Location to) {
+        try {
+            return controlCenter.getDistance(from, to);
+        } catch (UnreachableDestinationException e) {
+            return GridSearch.NOT_FOUND;
+        }
+    }
+
+    private Location randomClient(char[][] layout, Random random) {
+        while (true) {
+            int row = random.nextInt(layout.length);
+            int col = random.nextInt(layout[row].length);
+
+            if (layout[row][col] == MapEntityType.CLIENT.getSymbol()) {
+                return new Location(row, col);
+            }
+        }
+    }
+
+    private Integer bestByFullScan(char[][] layout, Grid grid, DistanceField field, Location client,
+                                   double maxPrice, int maxTime, ShippingMethod method) {
+        int clientIndex = grid.index(client.x(), client.y());
+        Integer best = null;
+
+        for (int index = 0; index < grid.size(); index++) {
+            MapEntityType type = MapEntityType.fromSymbol(layout[grid.rowOf(index)][grid.colOf(index)]);
+            DeliveryType deliveryType = type == MapEntityType.DELIVERY_GUY_CAR ? DeliveryType.CAR :
+                type == MapEntityType.DELIVERY_GUY_BIKE ? DeliveryType.BIKE : null;
+
+            if (deliveryType == null || field.distanceTo(index) == GridSearch.NOT_FOUND) {
+                continue;
+            }
+
+            int price = (field.hopsTo(index) + field.hopsTo(clientIndex)) * deliveryType.getPricePerKM();
+            int time = (field.distanceTo(index) + field.distanceTo(clientIndex)) * deliveryType.getTimePerKM();
+
+            if ((maxPrice != noLimitation && price > maxPrice) || (maxTime != noLimitation && time > maxTime)) {
+                continue;
+            }
+
+            int objective = method == ShippingMethod.CHEAPEST ? price : time;
+            best = best == null ? objective : Math.min(best, objective);
+        }
+
+        return best;
+    }
+}
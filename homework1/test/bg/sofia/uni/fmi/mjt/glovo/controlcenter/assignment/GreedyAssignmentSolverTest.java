@@ -0,0 +1,33 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class GreedyAssignmentSolverTest {
+
+    private final AssignmentSolver solver = new GreedyAssignmentSolver();
+
+    @Test
+    void testSolveTakesCheapestPairsFirst() {
+        double[][] costs = {
+            {1, 2},
+            {2, 100}
+        };
+
+        assertArrayEquals(new int[] {0, 1}, solver.solve(costs),
+            "The cheapest pair should be assigned first");
+    }
+
+    @Test
+    void testSolveSkipsTakenDeliveryGuys() {
+        double[][] costs = {
+            {3, 4, 10},
+            {1, 5, 2},
+            {2, 6, AssignmentSolver.INFEASIBLE}
+        };
+
+        assertArrayEquals(new int[] {1, 0, AssignmentSolver.UNASSIGNED}, solver.solve(costs),
+            "Every delivery guy should be assigned at most once");
+    }
+}
@@ -0,0 +1,55 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.assignment;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class HungarianAssignmentSolverTest {
+
+    private final AssignmentSolver solver = new HungarianAssignmentSolver();
+
+    @Test
+    void testSolveFindsMinimalTotalCost() {
+        double[][] costs = {
+            {1, 2},
+            {2, 100}
+        };
+
+        assertArrayEquals(new int[] {1, 0}, solver.solve(costs),
+            "Assignment with total cost 4 should be preferred over the greedy one with total cost 101");
+    }
+
+    @Test
+    void testSolveWithMoreOrdersThanDeliveryGuys() {
+        double[][] costs = {
+            {5},
+            {3},
+            {4}
+        };
+
+        assertArrayEquals(new int[] {AssignmentSolver.UNASSIGNED, 0, AssignmentSolver.UNASSIGNED}, solver.solve(costs),
+            "Only the cheapest order should get the single delivery guy");
+    }
+
+    @Test
+    void testSolvePrefersAssigningMoreOrders() {
+        double[][] costs = {
+            {1, AssignmentSolver.INFEASIBLE},
+            {50, 100}
+        };
+
+        assertArrayEquals(new int[] {0, 1}, solver.solve(costs),
+            "Both orders should be assigned even though it is more expensive");
+    }
+
+    @Test
+    void testSolveWithInfeasibleOrder() {
+        double[][] costs = {
+            {AssignmentSolver.INFEASIBLE, AssignmentSolver.INFEASIBLE},
+            {2, 1}
+        };
+
+        assertArrayEquals(new int[] {AssignmentSolver.UNASSIGNED, 1}, solver.solve(costs),
+            "Order without feasible delivery guys should stay unassigned");
+    }
+}
@@ -0,0 +1,101 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.cache;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultCacheTest {
+
+    private final Grid grid = new Grid(roads(64, 64));
+    private final int[] radii = {3, 3};
+
+    @Test
+    void testInvalidateDropsOnlyOrdersWithinRadius() {
+        ResultCache cache = new ResultCache(grid, 16);
+        ResultCache.Key near = keyAt(2, 2);
+        ResultCache.Key far = keyAt(50, 50);
+
+        cache.put(near, null, radii, cache.stamp());
+        cache.put(far, null, radii, cache.stamp());
+        cache.invalidate(grid.index(3, 4), DeliveryType.CAR);
+
+        assertNull(cache.get(near), "Order within the radius of the change should be dropped");
+        assertNotNull(cache.get(far), "Order of a distant restaurant should be kept");
+    }
+
+    @Test
+    void testPutRejectsOnlyResultsAffectedByChangesSinceStamp() {
+        ResultCache cache = new ResultCache(grid, 16);
+        long stamp = cache.stamp();
+
+        cache.invalidate(grid.index(50, 51), DeliveryType.BIKE);
+
+        assertTrue(cache.put(keyAt(2, 2), null, radii, stamp), "Result far from the change should be cached");
+        assertFalse(cache.put(keyAt(50, 50), null, radii, stamp), "Result near the change should be rejected");
+
+        stamp = cache.stamp();
+        cache.clear();
+
+        assertFalse(cache.put(keyAt(2, 2), null, radii, stamp), "Result computed before a clear should be rejected");
+    }
+
+    @Test
+    void testPutRejectsResultsOlderThanTheChangeLog() {
+        ResultCache cache = new ResultCache(grid, 16);
+        long stamp = cache.stamp();
+
+        for (int change = 0; change < 100; change++) {
+            cache.invalidate(grid.index(60, 60), DeliveryType.CAR);
+        }
+
+        assertFalse(cache.put(keyAt(2, 2), null, radii, stamp),
+            "Result older than the logged changes should be rejected");
+    }
+
+    @Test
+    void testEvictedOrdersAreNotInvalidated() {
+        ResultCache cache = new ResultCache(grid, 1);
+        ResultCache.Key evicted = keyAt(2, 2);
+        ResultCache.Key kept = keyAt(2, 3);
+
+        cache.put(evicted, null, radii, cache.stamp());
+        cache.put(kept, null, radii, cache.stamp());
+        cache.invalidate(grid.index(30, 30), DeliveryType.CAR);
+
+        assertNull(cache.get(evicted), "Least recently used order should be evicted");
+        assertNotNull(cache.get(kept), "Order out of reach of the change should be kept");
+
+        cache.invalidate(grid.index(2, 2), DeliveryType.CAR);
+
+        assertNull(cache.get(kept), "Order within reach of the change should be dropped");
+    }
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(grid, 0),
+            "Capacity should be positive");
+    }
+
+    private ResultCache.Key keyAt(int row, int col) {
+        return new ResultCache.Key(grid.index(row, col), grid.index(row, col + 1), -1, -1, ShippingMethod.FASTEST);
+    }
+
+    private static char[][] roads(int rows, int cols) {
+        char[][] layout = new char[rows][cols];
+
+        for (char[] row : layout) {
+            Arrays.fill(row, '.');
+        }
+
+        return layout;
+    }
+}
@@ -0,0 +1,190 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.fleet;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEdit;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.DistanceField;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.DeliveryType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FleetTest {
+
+    private final Grid grid = new Grid(new MapGenerator(7).generate(100, 100, 0.25, 5, 5, 40, 40));
+
+    @Test
+    void testForEachFreeStartsWithClosestOfFullScan() {
+        Fleet fleet = new Fleet(grid, 8);
+        GridSearch search = new GridSearch(grid);
+
+        for (int id = 0; id < fleet.size(); id += 3) {
+            fleet.setBusy(id, true);
+        }
+
+        for (int source = 0; source < grid.size(); source += 97) {
+            if (!grid.isPassable(source)) {
+                continue;
+            }
+
+            DistanceField field = search.distanceField(source);
+
+            for (DeliveryType type : DeliveryType.values()) {
+                assertEquals(closestByFullScan(fleet, type, field), firstFree(fleet, type, field),
+                    "Bucket search should find the same delivery guy as a full scan");
+            }
+        }
+    }
+
+    @Test
+    void testForEachFreeVisitsInOrderOfDistance() {
+        Fleet fleet = new Fleet(grid, 8);
+        GridSearch search = new GridSearch(grid);
+        int source = grid.index(50, 50);
+
+        while (!grid.isPassable(source)) {
+            source++;
+        }
+
+        DistanceField field = search.distanceField(source);
+        List<Integer> visited = new ArrayList<>();
+
+        fleet.forEachFree(DeliveryType.BIKE, field, visited::add);
+
+        List<Integer> expected = new ArrayList<>();
+
+        for (int location : fleet.freeLocations(DeliveryType.BIKE)) {
+            if (field.distanceTo(location) != GridSearch.NOT_FOUND) {
+                expected.add(location);
+            }
+        }
+
+        expected.sort(Comparator.<Integer>comparingInt(field::distanceTo)
+            .thenComparingInt(field::hopsTo).thenComparingInt(location -> location));
+
+        assertEquals(expected, visited, "Delivery guys should be visited in order of their distance");
+    }
+
+    @Test
+    void testMoveUpdatesFreeCounts() {
+        Fleet fleet = new Fleet(grid, 8);
+        int from = fleet.locationOf(0);
+        int to = grid.index(0, 0);
+
+        while (!grid.isPassable(to)) {
+            to++;
+        }
+
+        fleet.move(0, to);
+
+        assertEquals(to, fleet.locationOf(0), "Location should be updated");
+        assertEquals(0, fleet.idAt(to, fleet.typeOf(0)), "Delivery guy should be found on the new location");
+        assertEquals(fleet.typeOf(0) == DeliveryType.CAR, fleet.hasFree(DeliveryType.CAR.ordinal(), to),
+            "New location should have a free delivery guy");
+        assertEquals(Fleet.NOT_FOUND, fleet.idAt(from, fleet.typeOf(0)),
+            "Old location should not have the delivery guy anymore");
+    }
+
+    @Test
+    void testHasFreeMatchesFullScanAfterManyChanges() {
+        Fleet fleet = new Fleet(grid, 8);
+        Random random = new Random(13);
+
+        for (int change = 0; change < 20_000; change++) {
+            int id = random.nextInt(fleet.size());
+
+            if (random.nextInt(4) == 0) {
+                fleet.setBusy(id, !fleet.isBusy(id));
+                continue;
+            }
+
+            int to = random.nextInt(grid.size());
+
+            if (grid.isPassable(to)) {
+                fleet.move(id, to);
+            }
+        }
+
+        for (DeliveryType type : DeliveryType.values()) {
+            boolean[] free = new boolean[grid.size()];
+
+            for (int id = 0; id < fleet.size(); id++) {
+                free[fleet.locationOf(id)] |= fleet.typeOf(id) == type && !fleet.isBusy(id);
+            }
+
+            for (int location = 0; location < grid.size(); location++) {
+                assertEquals(free[location], fleet.hasFree(type.ordinal(), location),
+                    "Free delivery guys should be found on exactly the tiles they stand on");
+            }
+        }
+    }
+
+    @Test
+    void testUpdateGridChecksMovesAgainstEditedMap() {
+        Fleet fleet = new Fleet(grid, 8);
+        int wall = grid.index(0, 0);
+
+        while (grid.isPassable(wall)) {
+            wall++;
+        }
+
+        Location opened = new Location(grid.rowOf(wall), grid.colOf(wall));
+        int standing = fleet.locationOf(0);
+        Location walledIn = new Location(grid.rowOf(standing), grid.colOf(standing));
+
+        fleet.updateGrid(grid.edit(List.of(new MapEdit(opened, MapEntityType.ROAD))));
+        fleet.move(1, wall);
+
+        assertEquals(wall, fleet.locationOf(1), "Delivery guy should be moved to the opened road");
+        assertThrows(IllegalArgumentException.class,
+            () -> fleet.updateGrid(grid.edit(List.of(new MapEdit(walledIn, MapEntityType.WALL)))),
+            "Map with a wall on a delivery guy should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> fleet.updateGrid(new Grid(new char[][] {{'.'}})),
+            "Map of another size should be rejected");
+    }
+
+    @Test
+    void testInvalidBucketSize() {
+        assertThrows(IllegalArgumentException.class, () -> new Fleet(grid, 0),
+            "Bucket size should be positive");
+    }
+
+    private int firstFree(Fleet fleet, DeliveryType type, DistanceField field) {
+        int[] first = {Fleet.NOT_FOUND};
+
+        fleet.forEachFree(type, field, location -> {
+            first[0] = location;
+            return false;
+        });
+
+        return first[0];
+    }
+
+    private int closestByFullScan(Fleet fleet, DeliveryType type, DistanceField field) {
+        int closest = Fleet.NOT_FOUND;
+
+        for (int id = 0; id < fleet.size(); id++) {
+            int location = fleet.locationOf(id);
+
+            if (fleet.typeOf(id) != type || fleet.isBusy(id) || field.distanceTo(location) == GridSearch.NOT_FOUND) {
+                continue;
+            }
+
+            if (closest == Fleet.NOT_FOUND || field.distanceTo(location) < field.distanceTo(closest) ||
+                (field.distanceTo(location) == field.distanceTo(closest) && location < closest)) {
+                closest = location;
+            }
+        }
+
+        return closest;
+    }
+}
@@ -0,0 +1,191 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.hierarchy;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenter;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenterApi;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEdit;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapEntityType;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapFile;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import bg.sofia.uni.fmi.mjt.glovo.exception.UnreachableDestinationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContractionHierarchyTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDistanceMatchesGridSearchOnOpenMap() {
+        Grid grid = new Grid(new MapGenerator(61).generate(45, 60, 0.3, 0, 0, 0, 0));
+
+        assertSameDistances(grid, ContractionHierarchy.build(grid), 63);
+    }
+
+    @Test
+    void testDistanceMatchesGridSearchOnMaze() {
+        Grid grid = new Grid(new MapGenerator(67).generateMaze(51, 71, 0.1, 0, 0, 0, 0));
+
+        assertSameDistances(grid, ContractionHierarchy.build(grid), 71);
+    }
+
+    @Test
+    void testDistanceMatchesGridSearchOnWeightedRoads() {
+        MapGenerator generator = new MapGenerator(73);
+        char[][] layout = generator.generate(50, 70, 0.3, 0, 0, 0, 0);
+        generator.addRoadCosts(layout, 0.4, 9);
+        Grid grid = new Grid(layout);
+
+        assertSameDistances(grid, ContractionHierarchy.build(grid), 79);
+    }
+
+    @Test
+    void testDistanceOnCorridorsAndCycles() {
+        Grid grid = new Grid(new char[][] {
+            {'.', '.', '.', '#', '.', '.'},
+            {'.', '#', '.', '#', '#', '.'},
+            {'.', '.', '.', '#', '.', '.'},
+            {'#', '#', '#', '#', '.', '#'},
+        });
+        HierarchySearch search = new HierarchySearch(ContractionHierarchy.build(grid));
+
+        assertEquals(4, search.distance(grid.index(0, 0), grid.index(2, 2)), "Route around the cycle should be found");
+        assertEquals(0, search.distance(grid.index(1, 2), grid.index(1, 2)), "Route to the same tile should be empty");
+        assertEquals(5, search.distance(grid.index(0, 4), grid.index(3, 4)), "Route along a corridor should be found");
+        assertEquals(GridSearch.NOT_FOUND, search.distance(grid.index(0, 0), grid.index(0, 5)),
+            "Separated tile should not be reachable");
+        assertEquals(GridSearch.NOT_FOUND, search.distance(grid.index(0, 0), grid.index(1, 1)),
+            "Wall should not be reachable");
+        assertEquals(GridSearch.NOT_FOUND, search.hopsTo(grid.index(1, 1)), "Unreachable tile should have no moves");
+    }
+
+    @Test
+    void testLoadedHierarchyFindsSameDistances() {
+        MapGenerator generator = new MapGenerator(83);
+        char[][] layout = generator.generate(40, 30, 0.3, 0, 0, 0, 0);
+        generator.addRoadCosts(layout, 0.3, 5);
+        Grid grid = new Grid(layout);
+        ContractionHierarchy built = ContractionHierarchy.build(grid);
+        Path path = directory.resolve("city.ch");
+
+        built.write(path);
+        ContractionHierarchy loaded = ContractionHierarchy.load(path);
+
+        assertEquals(built.nodeCount(), loaded.nodeCount(), "Loaded hierarchy should have the same nodes");
+        assertEquals(built.edgeCount(), loaded.edgeCount(), "Loaded hierarchy should have the same edges");
+        assertTrue(loaded.matches(grid), "Loaded hierarchy should match its map");
+        assertSameDistances(grid, loaded, 89);
+    }
+
+    @Test
+    void testMatchesOnlyPreprocessedMap() {
+        Grid grid = new Grid(new MapGenerator(97).generate(20, 20, 0.3, 0, 0, 0, 0));
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(grid);
+        int road = grid.indexesOf(Grid.encode(MapEntityType.ROAD))[0];
+        Location location = new Location(grid.rowOf(road), grid.colOf(road));
+
+        assertTrue(hierarchy.matches(grid), "Hierarchy should match its map");
+        assertFalse(hierarchy.matches(grid.edit(List.of(new MapEdit(location, MapEntityType.WALL)))),
+            "Hierarchy should not match a map with a closed road");
+        assertFalse(hierarchy.matches(grid.edit(List.of(new MapEdit(location, MapEntityType.ROAD, 3)))),
+            "Hierarchy should not match a map with a different cost");
+        assertFalse(hierarchy.matches(null), "Hierarchy should not match a missing map");
+    }
+
+    @Test
+    void testControlCenterWithPreprocessedHierarchy() {
+        char[][] layout = new MapGenerator(101).generate(30, 40, 0.3, 5, 5, 5, 5);
+        Path mapPath = directory.resolve("city.map");
+        Path hierarchyPath = directory.resolve("city.ch");
+        MapFile.write(layout, mapPath);
+        ContractionHierarchy.build(new Grid(layout)).write(hierarchyPath);
+
+        ControlCenterApi expected = new ControlCenter(layout);
+        ControlCenterApi preprocessed =
+            new ControlCenter(MapFile.load(mapPath), ContractionHierarchy.load(hierarchyPath), 0);
+        Grid grid = new Grid(layout);
+        int[] roads = grid.indexesOf(Grid.encode(MapEntityType.ROAD));
+        Random random = new Random(103);
+
+        for (int i = 0; i < 100; i++) {
+            int from = roads[random.nextInt(roads.length)];
+            int to = roads[random.nextInt(roads.length)];
+            Location fromLocation = new Location(grid.rowOf(from), grid.colOf(from));
+            Location toLocation = new Location(grid.rowOf(to), grid.colOf(to));
+
+            assertEquals(distanceOrNotFound(expected, fromLocation, toLocation),
+                distanceOrNotFound(preprocessed, fromLocation, toLocation),
+                "Control center with a preprocessed hierarchy should find the same distance");
+        }
+    }
+
+    @Test
+    void testControlCenterWithHierarchyOfDifferentMap() {
+        char[][] layout = new MapGenerator(107).generate(20, 20, 0.3, 1, 1, 1, 1);
+        Path mapPath = directory.resolve("city.map");
+        MapFile.write(layout, mapPath);
+        ContractionHierarchy other = ContractionHierarchy.build(new Grid(new MapGenerator(109).generate(20, 20, 0.3,
+            1, 1, 1, 1)));
+
+        assertThrows(IllegalArgumentException.class, () -> new ControlCenter(MapFile.load(mapPath), other, 0),
+            "Hierarchy of a different map should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> new ControlCenter(MapFile.load(mapPath), null, 0),
+            "Hierarchy cannot be null");
+    }
+
+    @Test
+    void testLoadInvalidFile() throws IOException {
+        Path path = directory.resolve("invalid.ch");
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20,
+            21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32});
+
+        assertThrows(IllegalArgumentException.class, () -> ContractionHierarchy.load(path),
+            "Loading a file which is not a hierarchy should throw Illegal argument");
+        assertThrows(IllegalArgumentException.class, () -> ContractionHierarchy.load(directory.resolve("missing.ch")),
+            "Loading a missing file should throw Illegal argument");
+        assertThrows(IllegalArgumentException.class, () -> ContractionHierarchy.build(null),
+            "Grid cannot be null");
+    }
+
+    private void assertSameDistances(Grid grid, ContractionHierarchy hierarchy, long seed) {
+        GridSearch expected = new GridSearch(grid);
+        HierarchySearch search = new HierarchySearch(hierarchy);
+        Random random = new Random(seed);
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(grid.size());
+            int to = random.nextInt(grid.size());
+
+            if (!grid.isPassable(from) || !grid.isPassable(to)) {
+                continue;
+            }
+
+            assertEquals(expected.distance(from, to), search.distance(from, to),
+                "Hierarchy search should find the same cost as a full search");
+            assertEquals(expected.hopsTo(to), search.hopsTo(to),
+                "Hierarchy search should find the same number of moves as a full search");
+        }
+    }
+
+    private int distanceOrNotFound(ControlCenterApi controlCenter, Location from, Location to) {
+        try {
+            return controlCenter.getDistance(from, to);
+        } catch (UnreachableDestinationException e) {
+            return GridSearch.NOT_FOUND;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GridTest {
+
+    private final char[][] mapLayout = new MapGenerator(3).generate(300, 300, 0.3, 10, 10, 15, 15);
+
+    @Test
+    void testEditCopiesOnlyEditedPages() {
+        Grid grid = new Grid(mapLayout);
+        Grid edited = grid.edit(List.of(new MapEdit(new Location(0, 0), MapEntityType.RESTAURANT)));
+        int lastTile = grid.size() - 1;
+
+        assertTrue(grid.size() > Grid.PAGE_SIZE, "Map should span more than one page");
+        assertFalse(edited.sharesPage(grid, 0), "Edited page should be copied");
+        assertTrue(edited.sharesPage(grid, lastTile), "Pages without edits should be shared");
+        assertEquals(Grid.encode(MapEntityType.RESTAURANT), edited.tileAt(0), "Edited tile should be changed");
+        assertEquals(Grid.encode(MapEntityType.fromSymbol(mapLayout[0][0])), grid.tileAt(0),
+            "Original grid should not be changed");
+
+        for (int index = 1; index < grid.size(); index++) {
+            assertEquals(grid.tileAt(index), edited.tileAt(index), "Tiles without edits should be the same");
+        }
+    }
+
+    @Test
+    void testEditAddsCostsToMapWithoutWeightedRoads() {
+        Grid grid = new Grid(new char[][] {
+            {'.', '.', '.'},
+            {'.', '#', '.'}
+        });
+        Grid edited = grid.edit(List.of(new MapEdit(new Location(0, 1), MapEntityType.ROAD, 5)));
+
+        assertFalse(grid.isWeighted(), "Original grid should stay without costs");
+        assertTrue(edited.isWeighted(), "Edited grid should have costs");
+        assertEquals(5, edited.maxCost(), "Highest cost should include the edited road");
+        assertEquals(5, edited.moveCost(grid.index(0, 0), grid.index(0, 1)), "Move onto the edited road should cost more");
+        assertEquals(Grid.DEFAULT_COST, edited.moveCost(grid.index(0, 2), grid.index(1, 2)),
+            "Other moves should keep the default cost");
+    }
+
+    @Test
+    void testEditClosesRoad() {
+        Grid grid = new Grid(mapLayout);
+        int road = grid.indexesOf(Grid.encode(MapEntityType.ROAD))[0];
+        Location location = new Location(grid.rowOf(road), grid.colOf(road));
+
+        Grid edited = grid.edit(List.of(new MapEdit(location, MapEntityType.WALL)));
+
+        assertTrue(grid.isPassable(road), "Original road should stay open");
+        assertFalse(edited.isPassable(road), "Closed road should not be passable");
+    }
+
+    @Test
+    void testEditWithInvalidEdits() {
+        Grid grid = new Grid(mapLayout);
+
+        assertThrows(IllegalArgumentException.class, () -> grid.edit(null),
+            "Edits cannot be null");
+        assertThrows(IllegalArgumentException.class,
+            () -> grid.edit(List.of(new MapEdit(new Location(300, 0), MapEntityType.ROAD))),
+            "Edited locations should be inside of the map");
+        assertThrows(IllegalArgumentException.class,
+            () -> grid.edit(List.of(new MapEdit(new Location(0, 0), MapEntityType.WALL, 3))),
+            "Costs should only be set for roads");
+        assertThrows(IllegalArgumentException.class,
+            () -> grid.edit(List.of(new MapEdit(new Location(0, 0), MapEntityType.ROAD, Grid.MAX_COST + 1))),
+            "Costs should be in range");
+    }
+}
@@ -0,0 +1,123 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenter;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenterApi;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+import bg.sofia.uni.fmi.mjt.glovo.exception.UnreachableDestinationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MapFileTest {
+
+    private final char[][] mapLayout = new MapGenerator(5).generate(41, 37, 0.3, 10, 10, 15, 15);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLoadedMapMatchesWrittenLayout() {
+        Path path = directory.resolve("city.map");
+        MapFile.write(mapLayout, path);
+
+        MapFile mapFile = MapFile.load(path);
+        Grid grid = new Grid(mapLayout);
+        ConnectedComponents components = new ConnectedComponents(grid);
+
+        assertEquals(grid.rows(), mapFile.grid().rows(), "Loaded map should have the same rows");
+        assertEquals(grid.cols(), mapFile.grid().cols(), "Loaded map should have the same columns");
+        assertEquals(components.count(), mapFile.components().count(), "Loaded map should have the same components");
+
+        for (int index = 0; index < grid.size(); index++) {
+            assertEquals(grid.tileAt(index), mapFile.grid().tileAt(index), "Loaded tiles should match the layout");
+            assertEquals(components.componentOf(index), mapFile.components().componentOf(index),
+                "Loaded component labels should match the computed ones");
+        }
+    }
+
+    @Test
+    void testControlCenterFromMapFileGivesSameDeliveries() {
+        Path path = directory.resolve("city.map");
+        MapFile.write(mapLayout, path);
+
+        ControlCenterApi fromLayout = new ControlCenter(mapLayout);
+        ControlCenterApi fromFile = new ControlCenter(MapFile.load(path));
+
+        assertArrayEquals(fromLayout.getLayout(), fromFile.getLayout(), "Layouts should be the same");
+
+        List<Location> restaurants = locationsOf(MapEntityType.RESTAURANT);
+        List<Location> clients = locationsOf(MapEntityType.CLIENT);
+
+        for (Location restaurant : restaurants) {
+            for (Location client : clients) {
+                for (ShippingMethod method : ShippingMethod.values()) {
+                    try {
+                        assertEquals(fromLayout.findOptimalDeliveryGuy(restaurant, client, -1, -1, method),
+                            fromFile.findOptimalDeliveryGuy(restaurant, client, -1, -1, method),
+                            "Control center from a map file should find the same delivery");
+                    } catch (UnreachableDestinationException e) {
+                        assertThrows(UnreachableDestinationException.class,
+                            () -> fromFile.findOptimalDeliveryGuy(restaurant, client, -1, -1, method),
+                            "Control center from a map file should not reach the client either");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLoadedMapKeepsRoadCosts() {
+        Path path = directory.resolve("weighted.map");
+        char[][] weightedLayout = new MapGenerator(7).generate(13, 11, 0.2, 1, 1, 1, 1);
+        new MapGenerator(7).addRoadCosts(weightedLayout, 0.5, 9);
+        MapFile.write(weightedLayout, path);
+
+        Grid grid = new Grid(weightedLayout);
+        Grid loaded = MapFile.load(path).grid();
+
+        assertEquals(grid.maxCost(), loaded.maxCost(), "Loaded map should have the same highest cost");
+
+        for (int index = 0; index < grid.size(); index++) {
+            assertEquals(grid.tileAt(index), loaded.tileAt(index), "Loaded tiles should match the layout");
+            assertEquals(grid.costAt(index), loaded.costAt(index), "Loaded costs should match the layout");
+        }
+    }
+
+    @Test
+    void testLoadInvalidFile() throws IOException {
+        Path path = directory.resolve("invalid.map");
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+
+        assertThrows(IllegalArgumentException.class, () -> MapFile.load(path),
+            "Loading a file which is not a map should throw Illegal argument");
+    }
+
+    @Test
+    void testLoadMissingFile() {
+        assertThrows(IllegalArgumentException.class, () -> MapFile.load(directory.resolve("missing.map")),
+            "Loading a missing file should throw Illegal argument");
+    }
+
+    private List<Location> locationsOf(MapEntityType type) {
+        List<Location> locations = new ArrayList<>();
+
+        for (int row = 0; row < mapLayout.length; row++) {
+            for (int col = 0; col < mapLayout[row].length; col++) {
+                if (mapLayout[row][col] == type.getSymbol()) {
+                    locations.add(new Location(row, col));
+                }
+            }
+        }
+
+        return locations;
+    }
+}
@@ -0,0 +1,38 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MapGeneratorTest {
+
+    @Test
+    void testMazeConnectsEveryRoad() {
+        char[][] layout = new MapGenerator(3).generateMaze(41, 30, 0.1, 5, 5, 5, 5);
+        Grid grid = new Grid(layout);
+        ConnectedComponents components = new ConnectedComponents(grid);
+
+        assertEquals(1, components.count(), "Every road of a maze should be reachable from every other");
+        assertEquals(5, count(layout, MapEntityType.RESTAURANT), "Maze should have the requested restaurants");
+        assertEquals(5, count(layout, MapEntityType.DELIVERY_GUY_BIKE), "Maze should have the requested bikes");
+    }
+
+    @Test
+    void testMazeTooSmallForEntities() {
+        assertThrows(IllegalArgumentException.class, () -> new MapGenerator(3).generateMaze(3, 3, 0, 2, 2, 2, 2),
+            "Maze without enough roads for the entities should throw Illegal argument");
+    }
+
+    private int count(char[][] layout, MapEntityType type) {
+        int count = 0;
+
+        for (char[] row : layout) {
+            for (char tile : row) {
+                count += tile == type.getSymbol() ? 1 : 0;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,48 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.count(), "Every latency should be counted");
+        assertEquals(10_000_000, snapshot.max(), "Highest latency should be kept exactly");
+        assertWithinPrecision(5_000_000, snapshot.p50(), "Median");
+        assertWithinPrecision(9_000_000, snapshot.p90(), "90th percentile");
+        assertWithinPrecision(9_900_000, snapshot.p99(), "99th percentile");
+    }
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        for (long value : new long[] {0, 1, 7, 8, 15, 16, 17, 1000, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value, "Bucket should not end before its values");
+            assertTrue(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < value,
+                "Previous bucket should end before the value");
+        }
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        assertEquals(new LatencySnapshot(0, 0, 0, 0, 0), new LatencyHistogram().snapshot(),
+            "Histogram without latencies should have zero percentiles");
+    }
+
+    private void assertWithinPrecision(long expected, long actual, String percentile) {
+        assertTrue(actual >= expected && actual <= expected + expected / 8,
+            percentile + " should be at most an eighth above " + expected + " but was " + actual);
+    }
+}
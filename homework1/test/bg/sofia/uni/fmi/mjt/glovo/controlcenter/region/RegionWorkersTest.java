@@ -0,0 +1,59 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.region;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegionWorkersTest {
+
+    @Test
+    void testMapKeepsOrderOfTasks() {
+        try (RegionWorkers workers = new RegionWorkers(3, 2)) {
+            List<Integer> tasks = IntStream.range(0, 100).boxed().toList();
+
+            assertEquals(tasks.stream().map(task -> task * task).toList(),
+                workers.map(tasks, task -> task / 7, task -> task * task),
+                "Results should be in the order of the tasks");
+        }
+    }
+
+    @Test
+    void testMapRunsRegionOnItsPool() {
+        try (RegionWorkers workers = new RegionWorkers(2, 1)) {
+            List<String> threads = workers.map(List.of(0, 1, 2, 3), task -> task, task -> Thread.currentThread().getName());
+
+            assertTrue(threads.get(0).startsWith("region-worker-0-"), "Even regions should run on the first pool");
+            assertTrue(threads.get(1).startsWith("region-worker-1-"), "Odd regions should run on the second pool");
+            assertEquals(threads.get(0), threads.get(2), "Regions of the same pool should share its worker");
+        }
+    }
+
+    @Test
+    void testMapRethrowsFailureOfTask() {
+        try (RegionWorkers workers = new RegionWorkers(2, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> workers.map(List.of(1, 2), task -> task, task -> {
+                throw new IllegalArgumentException("Failed task");
+            }), "Failure of a task should be rethrown to the caller");
+        }
+    }
+
+    @Test
+    void testMapAfterClose() {
+        RegionWorkers workers = new RegionWorkers(1, 1);
+        workers.close();
+
+        assertThrows(IllegalStateException.class, () -> workers.map(List.of(1), task -> task, task -> task),
+            "Closed workers should not accept tasks");
+    }
+
+    @Test
+    void testRegionWorkersWithInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new RegionWorkers(0, 1),
+            "Number of pools should be positive");
+    }
+}
@@ -0,0 +1,79 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.region;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.search.GridSearch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RegionalSearchTest {
+
+    @Test
+    void testDistanceMatchesGridSearchWithoutWeightedRoads() {
+        Grid grid = new Grid(new MapGenerator(41).generate(45, 60, 0.3, 0, 0, 0, 0));
+
+        for (int regionSize : new int[] {1, 7, 16, 100}) {
+            assertSameDistances(grid, regionSize, 43);
+        }
+    }
+
+    @Test
+    void testDistanceMatchesGridSearchOnWeightedRoads() {
+        MapGenerator generator = new MapGenerator(47);
+        char[][] layout = generator.generate(50, 70, 0.3, 0, 0, 0, 0);
+        generator.addRoadCosts(layout, 0.4, 9);
+        Grid grid = new Grid(layout);
+
+        for (int regionSize : new int[] {1, 5, 12, 32}) {
+            assertSameDistances(grid, regionSize, 53);
+        }
+    }
+
+    @Test
+    void testDistanceToWall() {
+        char[][] layout = {
+            {'.', '.', '#'},
+            {'.', '#', '.'},
+        };
+        Grid grid = new Grid(layout);
+        RegionalSearch search = new RegionalSearch(new RegionOverlay(grid, 2), new GridSearch(grid));
+
+        assertEquals(GridSearch.NOT_FOUND, search.distance(grid.index(0, 0), grid.index(1, 1)),
+            "Wall should not be reachable");
+        assertEquals(GridSearch.NOT_FOUND, search.distance(grid.index(0, 0), grid.index(1, 2)),
+            "Tile closed off by walls should not be reachable");
+        assertEquals(GridSearch.NOT_FOUND, search.hopsTo(grid.index(1, 2)), "Unreachable tile should have no moves");
+    }
+
+    @Test
+    void testRegionOverlayWithInvalidRegionSize() {
+        Grid grid = new Grid(new char[][] {{'.'}});
+
+        assertThrows(IllegalArgumentException.class, () -> new RegionOverlay(grid, 0),
+            "Region size should be positive");
+    }
+
+    private void assertSameDistances(Grid grid, int regionSize, long seed) {
+        GridSearch expected = new GridSearch(grid);
+        RegionalSearch regional = new RegionalSearch(new RegionOverlay(grid, regionSize), new GridSearch(grid));
+        Random random = new Random(seed);
+
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(grid.size());
+            int to = random.nextInt(grid.size());
+
+            if (!grid.isPassable(from) || !grid.isPassable(to)) {
+                continue;
+            }
+
+            assertEquals(expected.distance(from, to), regional.distance(from, to),
+                "Regional search should find the same cost as a full search with regions of " + regionSize);
+            assertEquals(expected.hopsTo(to), regional.hopsTo(to),
+                "Regional search should find the same number of moves as a full search with regions of " + regionSize);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoutePlannerTest {
+
+    private final RoutePlanner planner = new RoutePlanner();
+
+    @Test
+    void testPlanPicksUpEverythingOnTheWay() {
+        // the courier at 0, restaurants at 1 and 2, clients at 10 and 5
+        long[][] costs = costsOnLine(0, 1, 10, 2, 5);
+
+        assertArrayEquals(new int[] {RoutePlanner.pickupOf(0), RoutePlanner.pickupOf(1),
+                RoutePlanner.dropOffOf(1), RoutePlanner.dropOffOf(0)}, planner.plan(costs),
+            "Both orders should be picked up before driving to the clients, nearest client first");
+    }
+
+    @Test
+    void testPlanKeepsPickupsBeforeDropOffs() {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200; i++) {
+            int orders = 1 + random.nextInt(8);
+            int[] route = planner.plan(randomCosts(random, orders));
+
+            assertEquals(2 * orders, route.length, "Route should visit every stop once");
+            assertPrecedence(route, orders);
+        }
+    }
+
+    @Test
+    void testPlanIsCloseToOptimalOnSmallBatches() {
+        Random random = new Random(11);
+        long planned = 0;
+        long optimal = 0;
+
+        for (int i = 0; i < 200; i++) {
+            int orders = 1 + random.nextInt(4);
+            long[][] costs = randomCosts(random, orders);
+            long cost = RoutePlanner.costOf(costs, planner.plan(costs));
+            long best = optimalCost(costs, orders);
+
+            assertTrue(cost <= best * 3 / 2, "Planned route should not be much worse than the optimal one");
+            planned += cost;
+            optimal += best;
+        }
+
+        assertTrue(planned <= optimal * 21 / 20, "Planned routes should be within 5% of the optimal ones in total");
+    }
+
+    @Test
+    void testPlanWithoutOrders() {
+        assertEquals(0, planner.plan(new long[][] {{0}}).length, "Route without orders should have no stops");
+    }
+
+    @Test
+    void testPlanWithInvalidCosts() {
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(null),
+            "Costs cannot be null");
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(new long[][] {{0, 1}, {1, 0}}),
+            "Costs should describe whole orders");
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(new long[][] {{0, 1, 2}, {1, 0}, {2, 1, 0}}),
+            "Costs should be a square matrix");
+    }
+
+    private long[][] costsOnLine(int... positions) {
+        long[][] costs = new long[positions.length][positions.length];
+
+        for (int from = 0; from < positions.length; from++) {
+            for (int to = 0; to < positions.length; to++) {
+                costs[from][to] = Math.abs(positions[from] - positions[to]);
+            }
+        }
+
+        return costs;
+    }
+
+    private long[][] randomCosts(Random random, int orders) {
+        int stops = 1 + 2 * orders;
+        int[] rows = new int[stops];
+        int[] cols = new int[stops];
+
+        for (int stop = 0; stop < stops; stop++) {
+            rows[stop] = random.nextInt(100);
+            cols[stop] = random.nextInt(100);
+        }
+
+        long[][] costs = new long[stops][stops];
+
+        for (int from = 0; from < stops; from++) {
+            for (int to = 0; to < stops; to++) {
+                costs[from][to] = Math.abs(rows[from] - rows[to]) + Math.abs(cols[from] - cols[to]);
+            }
+        }
+
+        return costs;
+    }
+
+    private void assertPrecedence(int[] route, int orders) {
+        int[] positions = new int[1 + 2 * orders];
+
+        for (int position = 0; position < route.length; position++) {
+            positions[route[position]] = position + 1;
+        }
+
+        for (int order = 0; order < orders; order++) {
+            assertTrue(positions[RoutePlanner.pickupOf(order)] > 0, "Every pickup should be visited");
+            assertTrue(positions[RoutePlanner.pickupOf(order)] < positions[RoutePlanner.dropOffOf(order)],
+                "Every order should be picked up before it is dropped off");
+        }
+    }
+
+    private long optimalCost(long[][] costs, int orders) {
+        return optimalCost(costs, new int[2 * orders], 0, new boolean[1 + 2 * orders]);
+    }
+
+    private long optimalCost(long[][] costs, int[] route, int length, boolean[] visited) {
+        if (length == route.length) {
+            return RoutePlanner.costOf(costs, route);
+        }
+
+        long best = Long.MAX_VALUE;
+
+        for (int stop = 1; stop < visited.length; stop++) {
+            if (visited[stop] || (!RoutePlanner.isPickup(stop) && !visited[stop - 1])) {
+                continue;
+            }
+
+            visited[stop] = true;
+            route[length] = stop;
+            best = Math.min(best, optimalCost(costs, route, length + 1, visited));
+            visited[stop] = false;
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,49 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.ConnectedComponents;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AStarSearchTest {
+
+    private final Grid grid = new Grid(new MapGenerator(3).generate(60, 80, 0.35, 0, 0, 0, 0));
+
+    @Test
+    void testDistanceMatchesBreadthFirstSearch() {
+        GridSearch bfs = new GridSearch(grid);
+        AStarSearch aStar = new AStarSearch(grid);
+        Random random = new Random(11);
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(grid.size());
+            int to = random.nextInt(grid.size());
+
+            if (grid.isPassable(from)) {
+                assertEquals(bfs.distance(from, to), aStar.distance(from, to),
+                    "A* should find the same distance as BFS");
+            }
+        }
+    }
+
+    @Test
+    void testConnectedComponentsMatchReachability() {
+        GridSearch bfs = new GridSearch(grid);
+        ConnectedComponents components = new ConnectedComponents(grid);
+        Random random = new Random(13);
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(grid.size());
+            int to = random.nextInt(grid.size());
+
+            if (grid.isPassable(from) && from != to) {
+                assertEquals(bfs.distance(from, to) != GridSearch.NOT_FOUND, components.areConnected(from, to),
+                    "Tiles should be in the same component exactly when they are reachable");
+            }
+        }
+    }
+}
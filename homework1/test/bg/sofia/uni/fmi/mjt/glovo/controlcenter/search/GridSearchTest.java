@@ -0,0 +1,110 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GridSearchTest {
+
+    private final Grid grid = weightedGrid();
+
+    private static Grid weightedGrid() {
+        MapGenerator generator = new MapGenerator(17);
+        char[][] layout = generator.generate(50, 70, 0.3, 0, 0, 0, 0);
+        generator.addRoadCosts(layout, 0.4, 9);
+
+        return new Grid(layout);
+    }
+
+    @Test
+    void testWeightedDistanceFieldMatchesReferenceDijkstra() {
+        GridSearch search = new GridSearch(grid);
+        Random random = new Random(19);
+
+        assertTrue(grid.isWeighted(), "Generated map should have weighted roads");
+
+        for (int i = 0; i < 20; i++) {
+            int source = random.nextInt(grid.size());
+
+            if (!grid.isPassable(source)) {
+                continue;
+            }
+
+            DistanceField field = search.distanceField(source);
+            int[][] expected = referenceDijkstra(source);
+
+            for (int index = 0; index < grid.size(); index++) {
+                assertEquals(expected[0][index], field.distanceTo(index), "Cost should match reference Dijkstra");
+                assertEquals(expected[1][index], field.hopsTo(index),
+                    "Moves should be the fewest among the cheapest routes");
+            }
+        }
+    }
+
+    @Test
+    void testWeightedAStarMatchesDijkstra() {
+        GridSearch search = new GridSearch(grid);
+        AStarSearch aStar = new AStarSearch(grid);
+        Random random = new Random(23);
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(grid.size());
+            int to = random.nextInt(grid.size());
+
+            if (grid.isPassable(from)) {
+                assertEquals(search.distance(from, to), aStar.distance(from, to),
+                    "A* should find the same cost as Dijkstra");
+                assertEquals(search.hopsTo(to), aStar.hopsTo(to), "A* should find the same number of moves as Dijkstra");
+            }
+        }
+    }
+
+    private int[][] referenceDijkstra(int source) {
+        int[] costs = new int[grid.size()];
+        int[] hops = new int[grid.size()];
+        Arrays.fill(costs, GridSearch.NOT_FOUND);
+        Arrays.fill(hops, GridSearch.NOT_FOUND);
+
+        PriorityQueue<int[]> queue = new PriorityQueue<>(
+            Comparator.<int[]>comparingInt(entry -> entry[0]).thenComparingInt(entry -> entry[1]));
+        boolean[] settled = new boolean[grid.size()];
+        queue.add(new int[] {0, 0, source});
+
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int current = entry[2];
+
+            if (settled[current]) {
+                continue;
+            }
+
+            settled[current] = true;
+            costs[current] = entry[0];
+            hops[current] = entry[1];
+
+            int row = grid.rowOf(current);
+            int col = grid.colOf(current);
+            int[][] neighbours = {{row - 1, col}, {row + 1, col}, {row, col - 1}, {row, col + 1}};
+
+            for (int[] neighbour : neighbours) {
+                if (grid.contains(neighbour[0], neighbour[1])) {
+                    int next = grid.index(neighbour[0], neighbour[1]);
+
+                    if (grid.isPassable(next) && !settled[next]) {
+                        queue.add(new int[] {entry[0] + grid.moveCost(current, next), entry[1] + 1, next});
+                    }
+                }
+            }
+        }
+
+        return new int[][] {costs, hops};
+    }
+}
@@ -0,0 +1,143 @@
+package bg.sofia.uni.fmi.mjt.glovo.controlcenter.search;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RouteTest {
+
+    private static Grid weightedGrid() {
+        MapGenerator generator = new MapGenerator(29);
+        char[][] layout = generator.generate(40, 60, 0.3, 0, 0, 0, 0);
+        generator.addRoadCosts(layout, 0.4, 9);
+
+        return new Grid(layout);
+    }
+
+    @Test
+    void testRouteToFollowsCheapestRoute() {
+        Grid grid = weightedGrid();
+        GridSearch search = new GridSearch(grid);
+        Random random = new Random(31);
+
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(grid.size());
+            int to = random.nextInt(grid.size());
+
+            if (!grid.isPassable(from) || !grid.isPassable(to)) {
+                continue;
+            }
+
+            int distance = search.distance(from, to);
+            Route route = search.routeTo(to);
+
+            if (distance == GridSearch.NOT_FOUND) {
+                assertNull(route, "Route to an unreachable tile should be null");
+                continue;
+            }
+
+            assertRoute(grid, route, from, to, distance, search.hopsTo(to));
+        }
+    }
+
+    @Test
+    void testRouteFromDistanceFieldFollowsCheapestRoute() {
+        Grid grid = weightedGrid();
+        GridSearch search = new GridSearch(grid);
+        Random random = new Random(37);
+
+        for (int i = 0; i < 10; i++) {
+            int source = random.nextInt(grid.size());
+
+            if (!grid.isPassable(source)) {
+                continue;
+            }
+
+            DistanceField field = search.distanceField(source);
+
+            for (int index = 0; index < grid.size(); index++) {
+                Route route = field.routeFrom(grid, index);
+
+                if (field.distanceTo(index) == GridSearch.NOT_FOUND) {
+                    assertNull(route, "Route from an unreachable tile should be null");
+                } else {
+                    assertRoute(grid, route, index, source, field.distanceTo(index), field.hopsTo(index));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRunsMergeStraightMoves() {
+        Grid grid = new Grid(new char[][] {
+            {'.', '.', '.', '.'},
+            {'#', '#', '#', '.'},
+            {'.', '.', '.', '.'},
+        });
+        GridSearch search = new GridSearch(grid);
+
+        search.distance(grid.index(0, 0), grid.index(2, 0));
+        Route route = search.routeTo(grid.index(2, 0));
+
+        assertEquals(3, route.runCount(), "Route should have a run between every two turns");
+        assertEquals(Direction.RIGHT, route.direction(0), "Route should start to the right");
+        assertEquals(3, route.runLength(0), "First run should reach the corner");
+        assertEquals(Direction.DOWN, route.direction(1), "Route should turn down at the corner");
+        assertEquals(Direction.LEFT, route.direction(2), "Route should end to the left");
+        assertEquals(8, route.moves(), "Route should have all of its moves");
+        assertEquals(9, route.locations().size(), "Route should list all of its tiles");
+    }
+
+    @Test
+    void testReversedAndJoinedRoutes() {
+        Location start = new Location(0, 0);
+        Route first = new Route(start, new int[] {Route.pack(Direction.RIGHT, 2), Route.pack(Direction.DOWN, 1)});
+        Route second = new Route(new Location(1, 2),
+            new int[] {Route.pack(Direction.DOWN, 2), Route.pack(Direction.LEFT, 1)});
+
+        Route reversed = first.reversed();
+        Route joined = first.then(second);
+
+        assertEquals(new Location(1, 2), reversed.start(), "Reversed route should start at the end");
+        assertEquals(start, reversed.end(), "Reversed route should end at the start");
+        assertEquals(first, reversed.reversed(), "Reversing twice should give the same route");
+        assertEquals(3, joined.runCount(), "Runs in the same direction should be merged");
+        assertEquals(3, joined.runLength(1), "Merged run should have the moves of both runs");
+        assertEquals(new Location(3, 1), joined.end(), "Joined route should end at the end of the second one");
+        assertEquals("Location[x=0, y=0]: RIGHT 2, DOWN 3, LEFT 1", joined.toString(),
+            "Route should be printed as directions");
+        assertEquals(List.of(start), new Route(start, new int[0]).locations(), "Empty route should stay on its start");
+        assertThrows(IllegalArgumentException.class, () -> second.then(first),
+            "Route should continue only from its end");
+    }
+
+    private void assertRoute(Grid grid, Route route, int from, int to, int distance, int hops) {
+        List<Location> locations = route.locations();
+        int cost = 0;
+        int previous = from;
+
+        assertEquals(new Location(grid.rowOf(from), grid.colOf(from)), route.start(), "Route should start at its start");
+        assertEquals(new Location(grid.rowOf(to), grid.colOf(to)), route.end(), "Route should end at its target");
+        assertEquals(hops, route.moves(), "Route should have the fewest moves among the cheapest routes");
+
+        for (Location location : locations.subList(1, locations.size())) {
+            assertTrue(grid.contains(location.x(), location.y()), "Route should stay on the map");
+
+            int index = grid.index(location.x(), location.y());
+            assertTrue(grid.isPassable(index), "Route should not cross walls");
+            cost += grid.moveCost(previous, index);
+            previous = index;
+        }
+
+        assertEquals(distance, cost, "Cost of the route should be the distance");
+    }
+}
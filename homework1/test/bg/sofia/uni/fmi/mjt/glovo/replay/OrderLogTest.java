@@ -0,0 +1,72 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testParseOrder() {
+        ReplayOrder order = OrderLog.parse("1500, 1,3 ,3,1,FASTEST");
+
+        assertEquals(new ReplayOrder(1500, new Location(1, 3), new Location(3, 1), ShippingMethod.FASTEST), order,
+            "Columns should be parsed in the documented order");
+        assertEquals(order, OrderLog.parse(OrderLog.format(order)), "Formatted order should be parsed back");
+    }
+
+    @Test
+    void testParseInvalidOrder() {
+        assertThrows(IllegalArgumentException.class, () -> OrderLog.parse("1500,1,3,3,1"),
+            "Order with missing columns should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> OrderLog.parse("now,1,3,3,1,FASTEST"),
+            "Order with invalid timestamp should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> OrderLog.parse("1500,1,3,3,1,SLOWEST"),
+            "Order with invalid method should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> OrderLog.parse(null),
+            "Line cannot be null");
+    }
+
+    @Test
+    void testReadWrittenLog() {
+        Path path = directory.resolve("orders.csv");
+        List<ReplayOrder> orders = List.of(
+            new ReplayOrder(0, new Location(1, 3), new Location(3, 1), ShippingMethod.CHEAPEST),
+            new ReplayOrder(250, new Location(2, 2), new Location(0, 4), ShippingMethod.FASTEST));
+
+        OrderLog.write(orders.stream(), path);
+
+        try (Stream<ReplayOrder> log = OrderLog.read(path)) {
+            assertEquals(orders, log.toList(), "Read log should have the written orders");
+        }
+    }
+
+    @Test
+    void testReadSkipsHeaderAndBlankLines() throws IOException {
+        Path path = directory.resolve("orders.csv");
+        Files.write(path, List.of(OrderLog.HEADER, "", "10,1,3,3,1,CHEAPEST", "  "));
+
+        try (Stream<ReplayOrder> log = OrderLog.read(path)) {
+            assertEquals(1, log.count(), "Only the order lines should be read");
+        }
+    }
+
+    @Test
+    void testReadMissingLog() {
+        assertThrows(IllegalArgumentException.class, () -> OrderLog.read(directory.resolve("missing.csv")),
+            "Reading a missing log should throw Illegal argument");
+    }
+}
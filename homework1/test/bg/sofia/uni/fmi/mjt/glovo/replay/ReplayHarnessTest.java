@@ -0,0 +1,106 @@
+package bg.sofia.uni.fmi.mjt.glovo.replay;
+
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenter;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.ControlCenterApi;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Grid;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.Location;
+import bg.sofia.uni.fmi.mjt.glovo.controlcenter.map.MapGenerator;
+import bg.sofia.uni.fmi.mjt.glovo.delivery.ShippingMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplayHarnessTest {
+
+    private final char[][] layout = {
+        {'#', '#', '#', '.', '#'},
+        {'#', 'B', '.', 'R', '.'},
+        {'.', '.', '#', '.', '#'},
+        {'#', 'C', '.', 'A', '.'},
+        {'#', '.', '#', '#', '#'}
+    };
+
+    @Test
+    void testReplayCountsOutcomes() {
+        ReplayHarness harness = new ReplayHarness(new ControlCenter(layout), 4, Double.POSITIVE_INFINITY);
+        Location restaurant = new Location(1, 3);
+        Location client = new Location(3, 1);
+
+        ReplayReport report = harness.replay(Stream.of(
+            new ReplayOrder(0, restaurant, client, ShippingMethod.CHEAPEST),
+            new ReplayOrder(60_000, restaurant, client, ShippingMethod.FASTEST),
+            new ReplayOrder(120_000, client, restaurant, ShippingMethod.FASTEST)));
+
+        assertEquals(3, report.orders(), "Every order should be replayed");
+        assertEquals(2, report.delivered(), "Valid orders should be delivered");
+        assertEquals(1, report.rejected(), "Order with swapped restaurant and client should be rejected");
+        assertEquals(3, report.serviceLatency().count(), "Latency of every order should be recorded");
+        assertEquals(2, report.couriers(), "Map has two delivery guys");
+        assertEquals(2, report.couriersUsed(), "Cheapest order should go to the bike and fastest to the car");
+        assertEquals((30 + 18) / (2 * 2.0), report.utilization(), 1e-9,
+            "Deliveries of 30 and 18 minutes should use a fleet of two for two minutes this much");
+    }
+
+    @Test
+    void testReplayWaitsForDueOrders() {
+        ReplayHarness harness = new ReplayHarness(new ControlCenter(layout), 2, 10);
+        ReplayOrder order = new ReplayOrder(0, new Location(1, 3), new Location(3, 1), ShippingMethod.CHEAPEST);
+
+        ReplayReport report = harness.replay(Stream.of(order,
+            new ReplayOrder(2_000, order.restaurant(), order.client(), ShippingMethod.CHEAPEST)));
+
+        assertTrue(report.durationNanos() >= TimeUnit.MILLISECONDS.toNanos(200),
+            "Order placed 2 seconds later should be replayed 200 milliseconds later with speed-up 10");
+    }
+
+    @Test
+    void testReplaySyntheticOrders() {
+        char[][] generated = new MapGenerator(5).generate(40, 40, 0.2, 10, 20, 5, 5);
+        ControlCenterApi controlCenter = new ControlCenter(generated);
+        SyntheticOrders synthetic = new SyntheticOrders(new Grid(generated));
+        List<ReplayOrder> orders = synthetic.generate(200, 1000, 7).toList();
+
+        ReplayReport report = new ReplayHarness(controlCenter, 8, Double.POSITIVE_INFINITY).replay(orders.stream());
+
+        assertEquals(orders, synthetic.generate(200, 1000, 7).toList(), "Same seed should give the same orders");
+        assertEquals(200, report.orders(), "Every synthetic order should be replayed");
+        assertEquals(200, report.delivered() + report.unassigned() + report.rejected(),
+            "Every order should have an outcome");
+        assertTrue(report.throughput() > 0, "Throughput should be positive");
+    }
+
+    @Test
+    void testReplayEmptyLog() {
+        ReplayReport report = new ReplayHarness(new ControlCenter(layout), 2, 1).replay(Stream.empty());
+
+        assertEquals(0, report.orders(), "Empty log should replay no orders");
+        assertEquals(0, report.utilization(), "Empty log should not use the fleet");
+    }
+
+    @Test
+    void testReplayRethrowsInvalidLog() {
+        ReplayHarness harness = new ReplayHarness(new ControlCenter(layout), 2, Double.POSITIVE_INFINITY);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> harness.replay(Stream.of("0,1,3,3,1,CHEAPEST", "invalid").map(OrderLog::parse)),
+            "Invalid line of the log should fail the replay");
+    }
+
+    @Test
+    void testHarnessWithInvalidArguments() {
+        ControlCenterApi controlCenter = new ControlCenter(layout);
+
+        assertThrows(IllegalArgumentException.class, () -> new ReplayHarness(null, 1, 1),
+            "Control center cannot be null");
+        assertThrows(IllegalArgumentException.class, () -> new ReplayHarness(controlCenter, 0, 1),
+            "Number of clients should be positive");
+        assertThrows(IllegalArgumentException.class, () -> new ReplayHarness(controlCenter, 1, 0),
+            "Speed-up should be positive");
+    }
+}
@@ -0,0 +1,91 @@
+package bg.sofia.uni.fmi.mjt.goodreads;
+
+import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.BookRecommender;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.genres.GenresOverlapSimilarityCalculator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the heap taken by a set of generated books with the heap of a {@link BookCatalog} of the same
+ * books, and reports the latency of recommending by genres over the catalog. The heap is measured after
+ * a garbage collection, so the numbers are approximate.
+ * Usage: {@code CatalogBenchmark [books]}
+ */
+public class CatalogBenchmark {
+
+    private static final int DEFAULT_BOOKS = 200_000;
+    private static final int AUTHORS = 20_000;
+    private static final int GENRES = 300;
+    private static final int MAX_GENRES_PER_BOOK = 8;
+    private static final int DESCRIPTION_WORDS = 80;
+    private static final int QUERIES = 50;
+    private static final int TOP_BOOKS = 10;
+    private static final double BYTES_IN_MEGABYTE = 1024 * 1024;
+    private static final double NANOS_IN_MILLISECOND = 1_000_000d;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BOOKS;
+
+        long before = usedHeap();
+        Set<Book> books = generateBooks(count, new Random(1));
+        long withBooks = usedHeap();
+        BookCatalog catalog = BookCatalog.of(books);
+        long withCatalog = usedHeap();
+
+        System.out.printf("%d books: set of records %.1f MB, catalog %.1f MB%n", count,
+            (withBooks - before) / BYTES_IN_MEGABYTE, (withCatalog - withBooks) / BYTES_IN_MEGABYTE);
+
+        List<Book> origins = new ArrayList<>(books).subList(0, Math.min(QUERIES, count));
+        books = null;
+        BookRecommender recommender = new BookRecommender(catalog, new GenresOverlapSimilarityCalculator());
+
+        long start = System.nanoTime();
+
+        for (Book origin : origins) {
+            recommender.recommendBooks(origin, TOP_BOOKS);
+        }
+
+        System.out.printf("recommendation by genres over the catalog: %.3f ms per query%n",
+            (System.nanoTime() - start) / NANOS_IN_MILLISECOND / origins.size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int collection = 0; collection < 3; collection++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Set<Book> generateBooks(int count, Random random) {
+        Set<Book> books = new HashSet<>();
+
+        for (int id = 0; id < count; id++) {
+            StringBuilder description = new StringBuilder();
+
+            for (int word = 0; word < DESCRIPTION_WORDS; word++) {
+                description.append("word").append(random.nextInt(50_000)).append(' ');
+            }
+
+            List<String> genres = new ArrayList<>();
+
+            for (int genre = 1 + random.nextInt(MAX_GENRES_PER_BOOK); genre > 0; genre--) {
+                genres.add(new String("Genre " + random.nextInt(GENRES)));
+            }
+
+            books.add(new Book(String.valueOf(id), "Title " + id, new String("Author " + random.nextInt(AUTHORS)),
+                description.toString(), List.copyOf(genres), random.nextInt(501) / 100.0, random.nextInt(100_000),
+                "https://www.goodreads.com/book/show/" + id));
+        }
+
+        return books;
+    }
+}
@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.goodreads;
+
+import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Reports the rows per second of loading a generated Goodreads dump by streaming it through a reader
+ * and by parsing the memory-mapped file in parallel chunks. Every description spans several lines and
+ * contains quotes and commas.
+ * Usage: {@code LoadBenchmark [rows]}
+ */
+public class LoadBenchmark {
+
+    private static final int DEFAULT_ROWS = 200_000;
+    private static final int WORDS_PER_LINE = 12;
+    private static final int LINES_PER_DESCRIPTION = 4;
+    private static final int WORDS = 20_000;
+    private static final double NANOS_IN_SECOND = 1_000_000_000d;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        Path file = Files.createTempFile("books", ".csv");
+
+        try {
+            writeDump(file, rows, new Random(1));
+            System.out.printf("%d rows, %d MB%n", rows, Files.size(file) / (1024 * 1024));
+
+            measure("streaming", rows, () -> {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    return BookLoader.load(reader);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            measure("parallel chunks", rows, () -> BookLoader.load(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void measure(String name, int rows, Supplier<Set<Book>> loader) {
+        long start = System.nanoTime();
+        int loaded = loader.get().size();
+        double seconds = (System.nanoTime() - start) / NANOS_IN_SECOND;
+
+        System.out.printf("%s: %d books in %.2f s, %.0f rows/s%n", name, loaded, seconds, rows / seconds);
+    }
+
+    private static void writeDump(Path file, int rows, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(",Book,Author,Description,Genres,Avg_Rating,Num_Ratings,URL\n");
+
+            for (int id = 0; id < rows; id++) {
+                writer.write(id + ",Title " + id + ",Author " + random.nextInt(rows / 10 + 1) + ",\"");
+
+                for (int line = 0; line < LINES_PER_DESCRIPTION; line++) {
+                    for (int word = 0; word < WORDS_PER_LINE; word++) {
+                        writer.write("word" + random.nextInt(WORDS) + (word % 5 == 4 ? ", " : " "));
+                    }
+
+                    writer.write(line == 0 ? "\"\"quoted\"\"\n" : "\n");
+                }
+
+                writer.write("\",\"['Fiction', 'Genre " + random.nextInt(20) + "']\"," + random.nextInt(500) / 100.0 +
+                    ",\"" + random.nextInt(1_000_000) + "\",https://www.goodreads.com/book/show/" + id + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package bg.sofia.uni.fmi.mjt.goodreads;
+
+import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.BookRecommender;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions.SimHashIndex;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions.TFIDFSimilarityCalculator;
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.TextTokenizer;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the recall and the latency of recommendations through a {@link SimHashIndex} with the exact ones
+ * on a generated catalog. Every description mixes words of one of several topics with common words,
+ * so books of the same topic are the most similar. The recall is the share of the exact top books which
+ * the index also recommends.
+ * Usage: {@code RecommendationBenchmark [books] [queries] [bands] [bitsPerBand]}
+ */
+public class RecommendationBenchmark {
+
+    private static final int DEFAULT_BOOKS = 20_000;
+    private static final int DEFAULT_QUERIES = 200;
+    private static final int TOPICS = 200;
+    private static final int WORDS_PER_TOPIC = 300;
+    private static final int COMMON_WORDS = 5000;
+    private static final int MIN_DESCRIPTION_WORDS = 20;
+    private static final int MAX_DESCRIPTION_WORDS = 80;
+    private static final double TOPIC_SHARE = 0.6;
+    private static final int TOP_BOOKS = 10;
+    private static final double NANOS_IN_MILLISECOND = 1_000_000d;
+
+    public static void main(String[] args) {
+        int booksCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BOOKS;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_QUERIES;
+        int bands = args.length > 2 ? Integer.parseInt(args[2]) : SimHashIndex.DEFAULT_BANDS;
+        int bitsPerBand = args.length > 3 ? Integer.parseInt(args[3]) : SimHashIndex.DEFAULT_BITS_PER_BAND;
+
+        Set<Book> books = generateBooks(booksCount, new Random(1));
+        TextTokenizer tokenizer = new TextTokenizer(Reader.nullReader());
+
+        BookCatalog catalog = BookCatalog.of(books);
+
+        long start = System.nanoTime();
+        TFIDFSimilarityCalculator calculator = new TFIDFSimilarityCalculator(catalog, tokenizer);
+        long vectorsBuilt = System.nanoTime();
+        SimHashIndex index = SimHashIndex.of(catalog, calculator, bands, bitsPerBand, 0);
+        long indexBuilt = System.nanoTime();
+
+        System.out.printf("%d books: vectors in %.0f ms, index in %.0f ms%n", booksCount,
+            (vectorsBuilt - start) / NANOS_IN_MILLISECOND, (indexBuilt - vectorsBuilt) / NANOS_IN_MILLISECOND);
+
+        BookRecommender exact = new BookRecommender(catalog, calculator);
+        BookRecommender approximate = new BookRecommender(catalog, calculator, index);
+        List<Book> origins = new ArrayList<>(books).subList(0, Math.min(queries, booksCount));
+
+        long exactNanos = 0;
+        long approximateNanos = 0;
+        long candidates = 0;
+        int found = 0;
+
+        for (Book origin : origins) {
+            start = System.nanoTime();
+            Set<Book> expected = exact.recommendBooks(origin, TOP_BOOKS).keySet();
+            long middle = System.nanoTime();
+            Set<Book> actual = approximate.recommendBooks(origin, TOP_BOOKS).keySet();
+            long end = System.nanoTime();
+
+            exactNanos += middle - start;
+            approximateNanos += end - middle;
+            candidates += index.candidatePositions(origin, catalog).length;
+            found += (int) actual.stream().filter(expected::contains).count();
+        }
+
+        System.out.printf("bands %d x %d bits: recall@%d %.3f, %.0f candidates per query%n", bands, bitsPerBand,
+            TOP_BOOKS, (double) found / (origins.size() * TOP_BOOKS), (double) candidates / origins.size());
+        System.out.printf("exact %.3f ms per query, index %.3f ms per query%n",
+            exactNanos / NANOS_IN_MILLISECOND / origins.size(), approximateNanos / NANOS_IN_MILLISECOND / origins.size());
+    }
+
+    private static Set<Book> generateBooks(int count, Random random) {
+        Set<Book> books = new HashSet<>();
+
+        for (int id = 0; id < count; id++) {
+            int topic = random.nextInt(TOPICS);
+            int length = MIN_DESCRIPTION_WORDS + random.nextInt(MAX_DESCRIPTION_WORDS - MIN_DESCRIPTION_WORDS);
+            StringBuilder description = new StringBuilder();
+
+            for (int word = 0; word < length; word++) {
+                if (random.nextDouble() < TOPIC_SHARE) {
+                    description.append("topic").append(topic).append('w').append(zipf(WORDS_PER_TOPIC, random));
+                } else {
+                    description.append("common").append(zipf(COMMON_WORDS, random));
+                }
+
+                description.append(' ');
+            }
+
+            books.add(new Book(String.valueOf(id), "title" + id, "author" + random.nextInt(count / 10 + 1),
+                description.toString(), List.of("genre" + topic % 20), 4.0, 1, "https://www.goodreads.com"));
+        }
+
+        return books;
+    }
+
+    /**
+     * Picks a word with a probability falling with its rank, as in natural text.
+     *
+     * @param words  the number of words
+     * @param random the source of randomness
+     * @return the rank of the word, from 0
+     */
+    private static int zipf(int words, Random random) {
+        return (int) Math.floor(Math.pow(words + 1, random.nextDouble())) - 1;
+    }
+}
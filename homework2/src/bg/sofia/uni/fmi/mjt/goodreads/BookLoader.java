@@ -1,28 +1,180 @@
 package bg.sofia.uni.fmi.mjt.goodreads;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
 
+import java.io.CharArrayReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Loads books from a Goodreads CSV dump with a header row. Rows are parsed one at a time and turned into
+ * books right away, so only the books are kept in memory and never all of the rows. Quoted descriptions
+ * may span several lines. {@link #loadCatalog(Reader)} keeps the books in a {@link BookCatalog} instead of
+ * a set of records.
+ * <p>
+ * A file can also be loaded in parallel: it is memory-mapped, split into chunks which end on record
+ * boundaries and every chunk is parsed on its own. The boundaries are found with a single pass over the
+ * bytes which follows the quotes and escapes of the parser, so a line break inside a quoted description
+ * never splits a record.
+ */
 public class BookLoader {
 
+    static final int DEFAULT_CHUNK_BYTES = 8 * 1024 * 1024;
+
+    private static final int WINDOW_BYTES = 64 * 1024 * 1024;
+
     public static Set<Book> load(Reader reader) {
+        Set<Book> books = new HashSet<>();
+        forEachBook(reader, true, books::add);
+
+        return books;
+    }
+
+    /**
+     * Loads the books straight into a catalog, so the records of the books are never kept.
+     *
+     * @param reader the CSV dump
+     * @return the catalog of the distinct books of the dump
+     */
+    public static BookCatalog loadCatalog(Reader reader) {
+        BookCatalog.Builder builder = new BookCatalog.Builder();
+        forEachBook(reader, true, builder::add);
+
+        return builder.build();
+    }
+
+    /**
+     * Loads the books of a UTF-8 file, parsing its chunks on all available cores.
+     *
+     * @param file the CSV file
+     * @return the books of the file
+     */
+    public static Set<Book> load(Path file) {
+        return load(file, DEFAULT_CHUNK_BYTES);
+    }
+
+    static Set<Book> load(Path file, int chunkBytes) {
+        if (file == null) {
+            throw new IllegalArgumentException("File should not be null!");
+        }
+
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive!");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Long> boundaries = recordBoundaries(channel, chunkBytes);
+
+            return IntStream.range(0, boundaries.size() - 1)
+                .parallel()
+                .mapToObj(chunk -> parseChunk(channel, boundaries.get(chunk), boundaries.get(chunk + 1), chunk == 0))
+                .flatMap(List::stream)
+                .collect(Collectors.toSet());
+        } catch (IOException | UncheckedIOException ex) {
+            throw new IllegalArgumentException("Could not load dataset", ex);
+        }
+    }
 
+    private static void forEachBook(Reader reader, boolean skipHeader, Consumer<Book> action) {
         try (CSVReader csvReader = new CSVReader(reader)) {
-            return csvReader.readAll().stream()
-                    .skip(1)
-                    .map(Book::of)
-                    .collect(Collectors.toSet());
+            if (skipHeader) {
+                csvReader.skip(1);
+            }
 
+            String[] row;
+
+            while ((row = csvReader.readNext()) != null) {
+                action.accept(Book.of(row));
+            }
         } catch (IOException | CsvException ex) {
             throw new IllegalArgumentException("Could not load dataset", ex);
         }
+    }
+
+    private static List<Book> parseChunk(FileChannel channel, long start, long end, boolean skipHeader) {
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+            List<Book> books = new ArrayList<>();
+
+            forEachBook(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()),
+                skipHeader, books::add);
+
+            return books;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Splits the file into chunks of at least the given size which end right after a line break outside of
+     * quotes. Every byte is visited to follow the quotes: like the parser, a backslash escapes a following
+     * quote or backslash anywhere, even at the start of an unquoted field, and a doubled quote inside quotes
+     * toggles the state twice.
+     *
+     * @param channel    the file
+     * @param chunkBytes the minimal size of a chunk, except for the last one
+     * @return the offsets where the chunks start, followed by the size of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static List<Long> recordBoundaries(FileChannel channel, int chunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        long nextTarget = chunkBytes;
+        boolean inQuotes = false;
+        boolean escaping = false;
+
+        for (long windowStart = 0; windowStart < size; windowStart += WINDOW_BYTES) {
+            long windowSize = Math.min(WINDOW_BYTES, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+            for (int index = 0; index < windowSize; index++) {
+                byte current = window.get(index);
+
+                if (escaping) {
+                    escaping = false;
+
+                    if (current == '"' || current == '\\') {
+                        continue;
+                    }
+                }
+
+                if (current == '\\') {
+                    escaping = true;
+                } else if (current == '"') {
+                    inQuotes = !inQuotes;
+                } else if (current == '\n' && !inQuotes) {
+                    long next = windowStart + index + 1;
+
+                    if (next >= nextTarget && next < size) {
+                        boundaries.add(next);
+                        nextTarget = next + chunkBytes;
+                    }
+                }
+            }
+        }
+
+        boundaries.add(size);
 
+        return boundaries;
     }
-    
 }
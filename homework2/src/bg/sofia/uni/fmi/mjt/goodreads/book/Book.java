@@ -23,6 +23,9 @@ public record Book(
     private static final int URL_INDEX = 7;
 
     public static Book of(String[] tokens) {
+        if (tokens == null || tokens.length <= URL_INDEX) {
+            throw new IllegalArgumentException("A book should have " + (URL_INDEX + 1) + " columns!");
+        }
 
         return new Book(
             tokens[ID_INDEX],
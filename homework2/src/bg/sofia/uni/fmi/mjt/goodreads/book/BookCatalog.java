@@ -0,0 +1,401 @@
+package bg.sofia.uni.fmi.mjt.goodreads.book;
+
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.Vocabulary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps books column by column instead of as {@link Book} records. Every book is identified by its position,
+ * in the order the books were added. Authors and genres are stored once in dictionaries and referenced by
+ * their ids, every genre keeps the set of positions of its books and all descriptions are UTF-8 bytes in one
+ * shared array. Books are turned back into records only when asked for, so scans
+ * over the catalog read a few dense arrays and do not hash whole books.
+ * <p>
+ * A book is found by its id and then compared field by field, so equal books are added only once and
+ * a restored book is equal to the added one.
+ */
+public final class BookCatalog {
+
+    public static final int NO_BOOK = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private int size;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] urls = new String[INITIAL_CAPACITY];
+    private int[] authors = new int[INITIAL_CAPACITY];
+    private double[] ratings = new double[INITIAL_CAPACITY];
+    private int[] ratingCounts = new int[INITIAL_CAPACITY];
+
+    private int[] genreStarts = new int[INITIAL_CAPACITY + 1];
+    private int[] genres = new int[INITIAL_CAPACITY];
+    private int[] descriptionStarts = new int[INITIAL_CAPACITY + 1];
+    private byte[] descriptions = new byte[INITIAL_CAPACITY];
+
+    private final Vocabulary authorNames = new Vocabulary();
+    private final Vocabulary genreNames = new Vocabulary();
+    private final Map<String, Integer> firstPositionById = new HashMap<>();
+    private final Map<String, Integer> lastPositionById = new HashMap<>();
+    private int[] nextPositionWithSameId = new int[INITIAL_CAPACITY];
+
+    private int[] authorStarts;
+    private int[] booksByAuthor;
+    private BitSet[] booksByGenre;
+
+    private BookCatalog() {
+    }
+
+    public static BookCatalog of(Collection<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books should not be null!");
+        }
+
+        Builder builder = new Builder();
+        books.forEach(builder::add);
+
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Restores the record of a book.
+     *
+     * @param position the position of the book
+     * @return the book at the position
+     */
+    public Book book(int position) {
+        List<String> bookGenres = new ArrayList<>(genreCountOf(position));
+
+        for (int index = genreStarts[position]; index < genreStarts[position + 1]; index++) {
+            bookGenres.add(genreNames.term(genres[index]));
+        }
+
+        return new Book(ids[position], titles[position], authorName(authors[position]), description(position),
+            List.copyOf(bookGenres), ratings[position], ratingCounts[position],
+            urls[position]);
+    }
+
+    public List<Book> books() {
+        List<Book> books = new ArrayList<>(size());
+
+        for (int position = 0; position < size(); position++) {
+            books.add(book(position));
+        }
+
+        return books;
+    }
+
+    /**
+     * Finds the position of a book equal to the given one, looking it up by its id.
+     *
+     * @param book the book
+     * @return the position of the book, or {@link #NO_BOOK} if it is not in the catalog
+     */
+    public int positionOf(Book book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book should not be null!");
+        }
+
+        Integer first = firstPositionById.get(book.ID());
+
+        for (int position = first != null ? first : NO_BOOK; position != NO_BOOK;
+             position = nextPositionWithSameId[position]) {
+            if (matches(position, book)) {
+                return position;
+            }
+        }
+
+        return NO_BOOK;
+    }
+
+    public String id(int position) {
+        return ids[position];
+    }
+
+    public String title(int position) {
+        return titles[position];
+    }
+
+    public String description(int position) {
+        return new String(descriptions, descriptionStarts[position],
+            descriptionStarts[position + 1] - descriptionStarts[position], StandardCharsets.UTF_8);
+    }
+
+    public double rating(int position) {
+        return ratings[position];
+    }
+
+    public int ratingCount(int position) {
+        return ratingCounts[position];
+    }
+
+    public String url(int position) {
+        return urls[position];
+    }
+
+    public int author(int position) {
+        return authors[position];
+    }
+
+    public int authorCount() {
+        return authorNames.size();
+    }
+
+    public String authorName(int author) {
+        return authorNames.term(author);
+    }
+
+    public int authorIdOf(String name) {
+        return authorNames.idOf(name);
+    }
+
+    /**
+     * Returns the books of an author.
+     *
+     * @param author the id of the author
+     * @return the positions of the books of the author, in increasing order
+     */
+    public int[] booksOfAuthor(int author) {
+        return Arrays.copyOfRange(booksByAuthor, authorStarts[author], authorStarts[author + 1]);
+    }
+
+    public int genreCount() {
+        return genreNames.size();
+    }
+
+    public String genreName(int genre) {
+        return genreNames.term(genre);
+    }
+
+    public int genreIdOf(String name) {
+        return genreNames.idOf(name);
+    }
+
+    /**
+     * Returns the number of genres of a book, counting repeated genres as many times as they are listed.
+     *
+     * @param position the position of the book
+     * @return the number of genres of the book
+     */
+    public int genreCountOf(int position) {
+        return genreStarts[position + 1] - genreStarts[position];
+    }
+
+    public boolean hasGenre(int position, int genre) {
+        return booksByGenre[genre].get(position);
+    }
+
+    /**
+     * Returns the books of a genre.
+     *
+     * @param genre the id of the genre
+     * @return a copy of the set of positions of the books of the genre
+     */
+    public BitSet booksOfGenre(int genre) {
+        return (BitSet) booksByGenre[genre].clone();
+    }
+
+    private boolean matches(int position, Book book) {
+        if (!titles[position].equals(book.title()) || !urls[position].equals(book.URL()) ||
+            ratingCounts[position] != book.ratingCount() ||
+            Double.compare(ratings[position], book.rating()) != 0 ||
+            !authorNames.term(authors[position]).equals(book.author()) ||
+            genreCountOf(position) != book.genres().size()) {
+            return false;
+        }
+
+        for (int index = 0; index < book.genres().size(); index++) {
+            if (genres[genreStarts[position] + index] != genreNames.idOf(book.genres().get(index))) {
+                return false;
+            }
+        }
+
+        return descriptionEquals(position, book.description());
+    }
+
+    /**
+     * Compares a stored description with a string without decoding it while both are ASCII. A UTF-8
+     * description has at least as many bytes as characters, and a differing ASCII byte means a differing
+     * character, so only descriptions with other characters are decoded.
+     *
+     * @param position    the position of the book
+     * @param description the compared description
+     * @return whether the description of the book is equal to the given one
+     */
+    private boolean descriptionEquals(int position, String description) {
+        int start = descriptionStarts[position];
+        int length = descriptionStarts[position + 1] - start;
+
+        if (length < description.length()) {
+            return false;
+        }
+
+        for (int index = 0; index < description.length(); index++) {
+            byte current = descriptions[start + index];
+
+            if (current < 0) {
+                return description(position).equals(description);
+            }
+
+            if (current != description.charAt(index)) {
+                return false;
+            }
+        }
+
+        return length == description.length();
+    }
+
+    private void append(Book book) {
+        byte[] description = book.description().getBytes(StandardCharsets.UTF_8);
+        int genresEnd = genreStarts[size] + book.genres().size();
+
+        if (description.length > MAX_ARRAY_SIZE - descriptionStarts[size]) {
+            throw new IllegalArgumentException("Descriptions do not fit in the catalog!");
+        }
+
+        if (size + 1 == ids.length) {
+            grow(ids.length * 2);
+        }
+
+        if (genresEnd > genres.length) {
+            genres = Arrays.copyOf(genres, Math.max(genres.length * 2, genresEnd));
+        }
+
+        int descriptionsEnd = descriptionStarts[size] + description.length;
+
+        if (descriptionsEnd > descriptions.length) {
+            descriptions = Arrays.copyOf(descriptions,
+                (int) Math.min(MAX_ARRAY_SIZE, Math.max(descriptions.length * 2L, descriptionsEnd)));
+        }
+
+        ids[size] = book.ID();
+        titles[size] = book.title();
+        urls[size] = book.URL();
+        authors[size] = authorNames.add(book.author());
+        ratings[size] = book.rating();
+        ratingCounts[size] = book.ratingCount();
+
+        for (int index = 0; index < book.genres().size(); index++) {
+            genres[genreStarts[size] + index] = genreNames.add(book.genres().get(index));
+        }
+
+        genreStarts[size + 1] = genresEnd;
+
+        System.arraycopy(description, 0, descriptions, descriptionStarts[size], description.length);
+        descriptionStarts[size + 1] = descriptionsEnd;
+
+        nextPositionWithSameId[size] = NO_BOOK;
+        Integer last = lastPositionById.put(book.ID(), size);
+
+        if (last != null) {
+            nextPositionWithSameId[last] = size;
+        } else {
+            firstPositionById.put(book.ID(), size);
+        }
+
+        size++;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        urls = Arrays.copyOf(urls, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        ratingCounts = Arrays.copyOf(ratingCounts, capacity);
+        nextPositionWithSameId = Arrays.copyOf(nextPositionWithSameId, capacity);
+        genreStarts = Arrays.copyOf(genreStarts, capacity + 1);
+        descriptionStarts = Arrays.copyOf(descriptionStarts, capacity + 1);
+    }
+
+    /**
+     * Trims the columns to the number of books and builds the lists of books of every author and genre.
+     */
+    private void seal() {
+        grow(size);
+        genres = Arrays.copyOf(genres, genreStarts[size]);
+        descriptions = Arrays.copyOf(descriptions, descriptionStarts[size]);
+        lastPositionById.clear();
+
+        authorStarts = new int[authorNames.size() + 1];
+        booksByAuthor = new int[size];
+
+        for (int position = 0; position < size; position++) {
+            authorStarts[authors[position] + 1]++;
+        }
+
+        for (int author = 1; author < authorStarts.length; author++) {
+            authorStarts[author] += authorStarts[author - 1];
+        }
+
+        int[] next = authorStarts.clone();
+
+        for (int position = 0; position < size; position++) {
+            booksByAuthor[next[authors[position]]++] = position;
+        }
+
+        booksByGenre = new BitSet[genreNames.size()];
+
+        for (int genre = 0; genre < booksByGenre.length; genre++) {
+            booksByGenre[genre] = new BitSet(size);
+        }
+
+        for (int position = 0; position < size; position++) {
+            for (int index = genreStarts[position]; index < genreStarts[position + 1]; index++) {
+                booksByGenre[genres[index]].set(position);
+            }
+        }
+    }
+
+    /**
+     * Adds books one at a time to a new catalog, so a catalog can be filled while the books are loaded.
+     * Books equal to already added ones are skipped.
+     */
+    public static final class Builder {
+
+        private BookCatalog catalog = new BookCatalog();
+
+        /**
+         * Adds a book unless an equal one was already added.
+         *
+         * @param book the book
+         * @return {@code true} if the book was added, {@code false} if it is already in the catalog
+         */
+        public boolean add(Book book) {
+            if (catalog == null) {
+                throw new IllegalStateException("The catalog is already built!");
+            }
+
+            if (catalog.positionOf(book) != NO_BOOK) {
+                return false;
+            }
+
+            catalog.append(book);
+            return true;
+        }
+
+        public BookCatalog build() {
+            if (catalog == null) {
+                throw new IllegalStateException("The catalog is already built!");
+            }
+
+            BookCatalog built = catalog;
+            catalog = null;
+            built.seal();
+
+            return built;
+        }
+    }
+}
@@ -1,35 +1,66 @@
 package bg.sofia.uni.fmi.mjt.goodreads.finder;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
 import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.TextTokenizer;
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.Vocabulary;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Searches the books of a {@link BookCatalog} through indexes built once in the constructor. Every word of
+ * the titles and descriptions gets an id in the vocabulary of the tokenizer and maps to the sorted positions
+ * of the books which contain it, while authors and genres are looked up in the dictionaries of the catalog. Searching for all
+ * keywords intersects their lists and searching for any of them merges the lists, so a search does not
+ * depend on the number of books and on the length of their descriptions. The results keep the order of
+ * the catalog, which is the order of the set the finder is created with.
+ */
 public class BookFinder implements BookFinderAPI {
 
+    private static final int[] NO_BOOKS = new int[0];
+
     private final Set<Book> books;
+    private final BookCatalog catalog;
     private final TextTokenizer tokenizer;
 
+    private final Vocabulary words;
+    private final int[][] booksByWord;
+
     public BookFinder(Set<Book> books, TextTokenizer tokenizer) {
+        this(books, BookCatalog.of(books), tokenizer);
+    }
+
+    public BookFinder(BookCatalog catalog, TextTokenizer tokenizer) {
+        this(null, catalog, tokenizer);
+    }
+
+    private BookFinder(Set<Book> books, BookCatalog catalog, TextTokenizer tokenizer) {
         this.books = books;
+        this.catalog = catalog;
         this.tokenizer = tokenizer;
+        this.words = tokenizer.vocabulary();
+        this.booksByWord = indexWords();
     }
 
     public Set<Book> allBooks() {
-        return books;
+        return books != null ? books : Collections.unmodifiableSet(new LinkedHashSet<>(catalog.books()));
     }
 
     @Override
     public Set<String> allGenres() {
-        return books.stream()
-            .map(Book::genres)
-            .flatMap(List::stream)
-            .collect(Collectors.toSet());
-
+        return IntStream.range(0, catalog.genreCount())
+            .mapToObj(catalog::genreName)
+            .collect(Collectors.toUnmodifiableSet());
     }
 
     @Override
@@ -38,9 +69,9 @@ public class BookFinder implements BookFinderAPI {
             throw new IllegalArgumentException("Author name cannot be null or empty!");
         }
 
-        return books.stream()
-            .filter((book) -> book.author().equals(authorName))
-            .collect(Collectors.toList());
+        int author = catalog.authorIdOf(authorName);
+
+        return author != Vocabulary.NO_TERM ? booksAt(catalog.booksOfAuthor(author)) : new ArrayList<>();
     }
 
     @Override
@@ -49,37 +80,199 @@ public class BookFinder implements BookFinderAPI {
             throw new IllegalArgumentException("Genres cannot be null!");
         }
 
-        return switch (option) {
-            case MATCH_ALL -> books.stream()
-                .filter(book -> new HashSet<>(book.genres()).containsAll(genres))
-                .collect(Collectors.toList());
-            case MATCH_ANY -> books.stream()
-                .filter(book -> !Collections.disjoint(book.genres(), genres))
-                .collect(Collectors.toList());
+        BitSet matching = switch (option) {
+            case MATCH_ALL -> {
+                BitSet all = new BitSet(catalog.size());
+                all.set(0, catalog.size());
+
+                for (String genre : genres) {
+                    all.and(booksOfGenre(genre));
+                }
+
+                yield all;
+            }
+            case MATCH_ANY -> {
+                BitSet any = new BitSet(catalog.size());
+
+                for (String genre : genres) {
+                    any.or(booksOfGenre(genre));
+                }
+
+                yield any;
+            }
         };
+
+        return booksAt(matching.stream().toArray());
     }
 
     @Override
     public List<Book> searchByKeywords(Set<String> keywords, MatchOption option) {
-        return switch (option) {
+        if (keywords == null) {
+            throw new IllegalArgumentException("Keywords cannot be null!");
+        }
 
-            case MATCH_ALL -> books.stream()
-                .filter(book -> {
-                    Set<String> wordsInBook = new HashSet<>();
-
-                    wordsInBook.addAll(tokenizer.tokenize(book.title()));
-                    wordsInBook.addAll(tokenizer.tokenize(book.description()));
-
-                    return wordsInBook.containsAll(keywords);
-                })
-                .collect(Collectors.toList());
-            case MATCH_ANY -> books.stream()
-                .filter(book -> {
-                    return !Collections.disjoint(new HashSet<>(tokenizer.tokenize(book.title())), keywords) ||
-                        !Collections.disjoint(new HashSet<>(tokenizer.tokenize(book.description())), keywords);
-                })
-                .collect(Collectors.toList());
+        int[][] postings = keywords.stream()
+            .map(this::booksOfWord)
+            .toArray(int[][]::new);
+
+        return switch (option) {
+            case MATCH_ALL -> booksAt(postings.length == 0 ? allPositions() : intersect(postings));
+            case MATCH_ANY -> booksAt(union(postings));
         };
     }
-    
+
+    /**
+     * Builds the lists of books for every word of the titles and descriptions. The books are indexed
+     * in order of their positions, so every list is sorted and a book is added to a list only once
+     * when it is not its last element already. Words of the shared vocabulary which are missing from
+     * the books get empty lists.
+     *
+     * @return the sorted positions of the books containing every word, by the id of the word
+     */
+    private int[][] indexWords() {
+        List<Postings> postings = new ArrayList<>();
+
+        for (int position = 0; position < catalog.size(); position++) {
+            int bookPosition = position;
+            IntConsumer addBook = word -> {
+                while (word >= postings.size()) {
+                    postings.add(new Postings());
+                }
+
+                postings.get(word).add(bookPosition);
+            };
+
+            tokenizer.forEachTerm(catalog.title(position), words, addBook);
+            tokenizer.forEachTerm(catalog.description(position), words, addBook);
+        }
+
+        return postings.stream()
+            .map(Postings::toArray)
+            .toArray(int[][]::new);
+    }
+
+    private int[] booksOfWord(String word) {
+        int id = words.idOf(word);
+
+        return id != Vocabulary.NO_TERM && id < booksByWord.length ? booksByWord[id] : NO_BOOKS;
+    }
+
+    private BitSet booksOfGenre(String genre) {
+        int id = catalog.genreIdOf(genre);
+
+        return id != Vocabulary.NO_TERM ? catalog.booksOfGenre(id) : new BitSet();
+    }
+
+    /**
+     * Intersects sorted lists of positions, starting with the shortest one, so the work is bounded by
+     * the shortest list times the number of lists.
+     *
+     * @param postings the sorted lists, at least one
+     * @return the sorted positions contained in every list
+     */
+    private static int[] intersect(int[][] postings) {
+        int[][] sorted = postings.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(books -> books.length));
+
+        int[] result = sorted[0].clone();
+        int size = result.length;
+
+        for (int list = 1; list < sorted.length && size > 0; list++) {
+            int[] other = sorted[list];
+            int kept = 0;
+            int next = 0;
+
+            for (int index = 0; index < size && next < other.length; index++) {
+                next = advance(other, next, result[index]);
+
+                if (next < other.length && other[next] == result[index]) {
+                    result[kept++] = result[index];
+                }
+            }
+
+            size = kept;
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Finds the first element of a sorted list which is not smaller than the target, by doubling the
+     * step from the current element and then searching binarily, so skipping long parts of the list is cheap.
+     *
+     * @param books  the sorted list
+     * @param from   the index to search from
+     * @param target the searched position
+     * @return the index of the first element not smaller than the target, or the length of the list
+     */
+    private static int advance(int[] books, int from, int target) {
+        if (books[from] >= target) {
+            return from;
+        }
+
+        int bound = 1;
+
+        while (from + bound < books.length && books[from + bound] < target) {
+            bound *= 2;
+        }
+
+        int index = Arrays.binarySearch(books, from + bound / 2, Math.min(from + bound + 1, books.length), target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private int[] union(int[][] postings) {
+        BitSet any = new BitSet(catalog.size());
+
+        for (int[] books : postings) {
+            for (int position : books) {
+                any.set(position);
+            }
+        }
+
+        return any.stream().toArray();
+    }
+
+    private int[] allPositions() {
+        int[] positions = new int[catalog.size()];
+        Arrays.setAll(positions, position -> position);
+
+        return positions;
+    }
+
+    private List<Book> booksAt(int[] positions) {
+        List<Book> result = new ArrayList<>(positions.length);
+
+        for (int position : positions) {
+            result.add(catalog.book(position));
+        }
+
+        return result;
+    }
+
+    /**
+     * The sorted positions of the books containing a word, while the index is being built.
+     */
+    private static final class Postings {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private int[] books = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(int position) {
+            if (size > 0 && books[size - 1] == position) {
+                return;
+            }
+
+            if (size == books.length) {
+                books = Arrays.copyOf(books, size * 2);
+            }
+
+            books[size++] = position;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(books, size);
+        }
+    }
+
 }
@@ -1,49 +1,104 @@
 package bg.sofia.uni.fmi.mjt.goodreads.recommender;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.CandidateIndex;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.SimilarityCalculator;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
 
+/**
+ * Recommends the books of a {@link BookCatalog} most similar to a given one. The similarity with the origin
+ * is prepared once through {@link SimilarityCalculator#similarityTo} and the books are scored by their
+ * positions in parallel: the catalog is split into chunks on the common fork-join pool and every chunk
+ * keeps only its best {@code maxN} books in a {@link ScoreHeap}, which are merged when the chunks join.
+ * The memory of a recommendation depends on {@code maxN} and not on the number of books, so the calculator
+ * should be safe to call from several threads.
+ * <p>
+ * With a {@link CandidateIndex} only the candidates it finds for the origin are scored, which makes
+ * the recommendations approximate: similar books which the index misses are not recommended, and neither
+ * are candidates which are not in the catalog.
+ */
 public class BookRecommender implements BookRecommenderAPI {
 
-    private Set<Book> initialBooks;
-    private SimilarityCalculator calculator;
+    private static final int MIN_CHUNK_SIZE = 512;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final SimilarityCalculator calculator;
+    private final CandidateIndex candidateIndex;
+
+    private final BookCatalog catalog;
+    private final int chunkSize;
 
     public BookRecommender(Set<Book> initialBooks, SimilarityCalculator calculator) {
-        this.initialBooks = initialBooks;
+        this(initialBooks, calculator, null);
+    }
+
+    public BookRecommender(Set<Book> initialBooks, SimilarityCalculator calculator, CandidateIndex candidateIndex) {
+        this(BookCatalog.of(initialBooks), calculator, candidateIndex);
+    }
+
+    public BookRecommender(BookCatalog catalog, SimilarityCalculator calculator) {
+        this(catalog, calculator, null);
+    }
+
+    public BookRecommender(BookCatalog catalog, SimilarityCalculator calculator, CandidateIndex candidateIndex) {
         this.calculator = calculator;
+        this.candidateIndex = candidateIndex;
+        this.catalog = catalog;
+        this.chunkSize = Math.max(MIN_CHUNK_SIZE,
+            catalog.size() / (Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD));
     }
 
     @Override
     public SortedMap<Book, Double> recommendBooks(Book origin, int maxN) {
         validateInput(origin, maxN);
 
-        Map<Book, Double> booksWithScores = initialBooks.stream()
-            .filter(book -> !book.equals(origin))
-            .collect(Collectors.toMap(
-                book -> book,
-                book -> calculator.calculateSimilarity(origin, book)
-            ))
-            .entrySet().stream()
-            .sorted(Map.Entry.<Book, Double>comparingByValue(Comparator.reverseOrder()))
-            .limit(maxN)
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-        SortedMap<Book, Double> sortedMap = new TreeMap<>((b1, b2) -> {
-            int scoreComparison = booksWithScores.get(b2).compareTo(booksWithScores.get(b1));
-            if (scoreComparison != 0) {
-                return scoreComparison;
+        IntToDoubleFunction similarity = calculator.similarityTo(origin, catalog);
+        int originPosition = catalog.positionOf(origin);
+
+        if (candidateIndex != null) {
+            ScoreHeap best = new ScoreHeap(catalog::id, maxN);
+
+            for (int position : candidateIndex.candidatePositions(origin, catalog)) {
+                if (position != originPosition) {
+                    best.offer(position, similarity.applyAsDouble(position));
+                }
             }
-            return b1.ID().compareTo(b2.ID());
-        });
 
-        sortedMap.putAll(booksWithScores);
+            return toSortedMap(best);
+        }
+
+        return toSortedMap(new ScoringTask(similarity, originPosition, maxN, 0, catalog.size()).invoke());
+    }
+
+    private SortedMap<Book, Double> toSortedMap(ScoreHeap best) {
+        int[] positions = new int[best.size()];
+        double[] scores = new double[best.size()];
+        best.drain(positions, scores);
+
+        Book[] recommended = new Book[positions.length];
+        Map<Book, Integer> ranks = new IdentityHashMap<>(positions.length);
+
+        for (int rank = 0; rank < positions.length; rank++) {
+            recommended[rank] = catalog.book(positions[positions.length - 1 - rank]);
+            ranks.put(recommended[rank], rank);
+        }
+
+        SortedMap<Book, Double> sortedMap = new TreeMap<>(new RankComparator(ranks));
+
+        for (int rank = 0; rank < positions.length; rank++) {
+            sortedMap.put(recommended[rank], scores[positions.length - 1 - rank]);
+        }
+
         return sortedMap;
     }
 
@@ -56,4 +111,84 @@ public class BookRecommender implements BookRecommenderAPI {
             throw new IllegalArgumentException("Max number of entries returned(maxN) should be positive number!");
         }
     }
+
+    /**
+     * Scores a range of the positions in the catalog, splitting it in halves until it fits in a chunk.
+     * The origin itself is skipped when it is in the catalog.
+     */
+    private final class ScoringTask extends RecursiveTask<ScoreHeap> {
+
+        private final IntToDoubleFunction similarity;
+        private final int originPosition;
+        private final int maxN;
+        private final int from;
+        private final int to;
+
+        private ScoringTask(IntToDoubleFunction similarity, int originPosition, int maxN, int from, int to) {
+            this.similarity = similarity;
+            this.originPosition = originPosition;
+            this.maxN = maxN;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ScoreHeap compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                ScoringTask left = new ScoringTask(similarity, originPosition, maxN, from, middle);
+                left.fork();
+
+                ScoreHeap best = new ScoringTask(similarity, originPosition, maxN, middle, to).compute();
+                best.addAll(left.join());
+                return best;
+            }
+
+            ScoreHeap best = new ScoreHeap(catalog::id, maxN);
+
+            for (int position = from; position < to; position++) {
+                if (position != originPosition) {
+                    best.offer(position, similarity.applyAsDouble(position));
+                }
+            }
+
+            return best;
+        }
+    }
+
+    /**
+     * Orders the recommended books by their rank, found by identity, so comparisons do not hash the books.
+     * Equal copies of the recommended books are found by equality and other books follow all recommended
+     * ones in order of their ids, so looking them up in the map does not fail.
+     */
+    private static final class RankComparator implements Comparator<Book> {
+
+        private static final int UNRANKED = Integer.MAX_VALUE;
+
+        private final Map<Book, Integer> ranks;
+        private final Map<Book, Integer> ranksByEquality;
+
+        private RankComparator(Map<Book, Integer> ranks) {
+            this.ranks = ranks;
+            this.ranksByEquality = new HashMap<>(ranks);
+        }
+
+        @Override
+        public int compare(Book first, Book second) {
+            int firstRank = rankOf(first);
+            int secondRank = rankOf(second);
+
+            if (firstRank == UNRANKED && secondRank == UNRANKED) {
+                return first.ID().compareTo(second.ID());
+            }
+
+            return Integer.compare(firstRank, secondRank);
+        }
+
+        private int rankOf(Book book) {
+            Integer rank = ranks.get(book);
+
+            return rank != null ? rank : ranksByEquality.getOrDefault(book, UNRANKED);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package bg.sofia.uni.fmi.mjt.goodreads.recommender;
+
+import java.util.function.IntFunction;
+
+/**
+ * Keeps the best scored books seen so far, up to a fixed number, in a binary min-heap of positions
+ * of the books, so the worst kept book is replaced in O(log k) time. A book is better than
+ * another when it has a higher score, or the same score and a smaller id, which is the order of the
+ * recommendations, so the kept books do not depend on the order in which they are offered.
+ */
+final class ScoreHeap {
+
+    private final IntFunction<String> idOf;
+    private final int[] positions;
+    private final double[] scores;
+    private int size;
+
+    ScoreHeap(IntFunction<String> idOf, int capacity) {
+        this.idOf = idOf;
+        this.positions = new int[capacity];
+        this.scores = new double[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void offer(int position, double score) {
+        if (size < positions.length) {
+            positions[size] = position;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (isWorse(positions[0], scores[0], position, score)) {
+            positions[0] = position;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    void addAll(ScoreHeap other) {
+        for (int index = 0; index < other.size; index++) {
+            offer(other.positions[index], other.scores[index]);
+        }
+    }
+
+    /**
+     * Empties the heap, listing the kept books from the worst to the best.
+     *
+     * @param positions receives the positions of the books
+     * @param scores    receives the scores of the books
+     */
+    void drain(int[] positions, double[] scores) {
+        for (int index = 0; size > 0; index++) {
+            positions[index] = this.positions[0];
+            scores[index] = this.scores[0];
+
+            size--;
+            this.positions[0] = this.positions[size];
+            this.scores[0] = this.scores[size];
+            siftDown(0);
+        }
+    }
+
+    private boolean isWorse(int position, double score, int otherPosition, double otherScore) {
+        int comparison = Double.compare(score, otherScore);
+
+        return comparison < 0 || (comparison == 0 && idOf.apply(position).compareTo(idOf.apply(otherPosition)) > 0);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+
+            if (!isWorse(positions[index], scores[index], positions[parent], scores[parent])) {
+                return;
+            }
+
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+
+            if (child + 1 < size && isWorse(positions[child + 1], scores[child + 1], positions[child], scores[child])) {
+                child++;
+            }
+
+            if (!isWorse(positions[child], scores[child], positions[index], scores[index])) {
+                return;
+            }
+
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int position = positions[first];
+        positions[first] = positions[second];
+        positions[second] = position;
+
+        double score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+    }
+}
@@ -0,0 +1,33 @@
+package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator;
+
+import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
+
+import java.util.List;
+
+public interface CandidateIndex {
+    /**
+     * Finds the books which are likely to be the most similar to the given one, without comparing
+     * the book with every other. The candidates are meant to be ranked by a {@link SimilarityCalculator}.
+     *
+     * @param book the book to find similar books for
+     * @throws IllegalArgumentException if the book is null
+     * @return a List of candidate books, which may contain the book itself
+     */
+    List<Book> candidates(Book book);
+
+    /**
+     * Finds the candidates for a book among the books of a catalog.
+     *
+     * @param book    the book to find similar books for
+     * @param catalog the catalog of the candidates
+     * @throws IllegalArgumentException if the book is null
+     * @return the positions in the catalog of the candidates, leaving out candidates missing from it
+     */
+    default int[] candidatePositions(Book book, BookCatalog catalog) {
+        return candidates(book).stream()
+            .mapToInt(catalog::positionOf)
+            .filter(position -> position != BookCatalog.NO_BOOK)
+            .toArray();
+    }
+}
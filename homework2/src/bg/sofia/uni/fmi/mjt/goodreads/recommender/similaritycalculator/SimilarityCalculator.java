@@ -1,6 +1,9 @@
 package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
+
+import java.util.function.IntToDoubleFunction;
 
 public interface SimilarityCalculator {
     /**
@@ -11,4 +14,16 @@ public interface SimilarityCalculator {
      * @return a double - score of similarity
      */
     double calculateSimilarity(Book first, Book second);
+
+    /**
+     * Prepares the similarity of a book with the books of a catalog, so whatever depends only on the origin
+     * is computed once for a whole scan. The returned function may be called from several threads.
+     *
+     * @param origin  the book the similarity is calculated with
+     * @param catalog the catalog of the compared books
+     * @return a function from the position of a book in the catalog to its similarity with the origin
+     */
+    default IntToDoubleFunction similarityTo(Book origin, BookCatalog catalog) {
+        return position -> calculateSimilarity(origin, catalog.book(position));
+    }
 }
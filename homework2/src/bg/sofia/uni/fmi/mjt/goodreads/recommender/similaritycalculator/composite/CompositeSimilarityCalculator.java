@@ -1,9 +1,12 @@
 package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.composite;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.SimilarityCalculator;
 
 import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
 
 public class CompositeSimilarityCalculator implements SimilarityCalculator {
 
@@ -20,5 +23,19 @@ public class CompositeSimilarityCalculator implements SimilarityCalculator {
                                                         * similarityCalculatorMap.get(calculator))
             .sum();
     }
+
+    @Override
+    public IntToDoubleFunction similarityTo(Book origin, BookCatalog catalog) {
+        IntToDoubleFunction[] similarities = similarityCalculatorMap.keySet().stream()
+            .map(calculator -> calculator.similarityTo(origin, catalog))
+            .toArray(IntToDoubleFunction[]::new);
+        double[] weights = similarityCalculatorMap.keySet().stream()
+            .mapToDouble(similarityCalculatorMap::get)
+            .toArray();
+
+        return position -> IntStream.range(0, similarities.length)
+            .mapToDouble(index -> similarities[index].applyAsDouble(position) * weights[index])
+            .sum();
+    }
     
 }
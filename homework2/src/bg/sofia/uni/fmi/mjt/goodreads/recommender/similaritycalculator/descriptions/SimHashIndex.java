@@ -0,0 +1,213 @@
+package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions;
+
+import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.CandidateIndex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds books with similar descriptions through locality-sensitive hashing of their TF-IDF vectors.
+ * Every bit of the signature of a vector is the side of a random hyperplane the vector lies on, so two
+ * vectors at an angle {@code a} agree on a bit with probability {@code 1 - a / pi}. The signature is split
+ * into bands and the books are grouped into buckets by the bits of every band; the candidates of a book are
+ * the books sharing a bucket with it in any band. A query also probes, in every band, the bucket which differs
+ * in the bit the book is least sure about, as similar books most often disagree on it.
+ * <p>
+ * More bands find more of the similar books and more bits per band return fewer unrelated ones.
+ * The random hyperplanes are never stored: the sign of a word for a bit is taken from a hash of its id.
+ */
+public class SimHashIndex implements CandidateIndex {
+
+    public static final int DEFAULT_BANDS = 32;
+    public static final int DEFAULT_BITS_PER_BAND = 8;
+
+    private static final int MAX_BITS_PER_BAND = 20;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final TFIDFSimilarityCalculator calculator;
+    private final int bands;
+    private final int bitsPerBand;
+    private final long seed;
+
+    private final BookCatalog catalog;
+    private final int[][] bucketStarts;
+    private final int[][] bucketBooks;
+
+    public SimHashIndex(Set<Book> books, TFIDFSimilarityCalculator calculator) {
+        this(books, calculator, DEFAULT_BANDS, DEFAULT_BITS_PER_BAND, 0);
+    }
+
+    public SimHashIndex(Set<Book> books, TFIDFSimilarityCalculator calculator, int bands, int bitsPerBand, long seed) {
+        this(books != null ? BookCatalog.of(books) : null, calculator, bands, bitsPerBand, seed);
+    }
+
+    private SimHashIndex(BookCatalog catalog, TFIDFSimilarityCalculator calculator, int bands, int bitsPerBand,
+                         long seed) {
+        if (catalog == null || calculator == null) {
+            throw new IllegalArgumentException("Books and calculator should not be null!");
+        }
+
+        if (bands <= 0 || bitsPerBand <= 0 || bitsPerBand > MAX_BITS_PER_BAND) {
+            throw new IllegalArgumentException("Bands should be positive and bits per band between 1 and " +
+                MAX_BITS_PER_BAND + "!");
+        }
+
+        this.calculator = calculator;
+        this.bands = bands;
+        this.bitsPerBand = bitsPerBand;
+        this.seed = seed;
+        this.catalog = catalog;
+        this.bucketStarts = new int[bands][(1 << bitsPerBand) + 1];
+        this.bucketBooks = new int[bands][catalog.size()];
+
+        int[][] keys = new int[catalog.size()][];
+
+        for (int position = 0; position < keys.length; position++) {
+            keys[position] = bandKeys(project(calculator.vectorOf(catalog, position)));
+        }
+
+        for (int band = 0; band < bands; band++) {
+            int[] starts = bucketStarts[band];
+
+            for (int[] bookKeys : keys) {
+                starts[bookKeys[band] + 1]++;
+            }
+
+            for (int bucket = 1; bucket < starts.length; bucket++) {
+                starts[bucket] += starts[bucket - 1];
+            }
+
+            int[] next = starts.clone();
+
+            for (int position = 0; position < keys.length; position++) {
+                bucketBooks[band][next[keys[position][band]]++] = position;
+            }
+        }
+    }
+
+    /**
+     * Creates an index of the books of a catalog, which finds the candidates for a recommender of the same
+     * catalog by their positions.
+     *
+     * @param catalog    the indexed books
+     * @param calculator the calculator of the TF-IDF vectors of the books
+     * @return the index with the default number of bands and bits per band
+     */
+    public static SimHashIndex of(BookCatalog catalog, TFIDFSimilarityCalculator calculator) {
+        return of(catalog, calculator, DEFAULT_BANDS, DEFAULT_BITS_PER_BAND, 0);
+    }
+
+    public static SimHashIndex of(BookCatalog catalog, TFIDFSimilarityCalculator calculator, int bands,
+                                  int bitsPerBand, long seed) {
+        return new SimHashIndex(catalog, calculator, bands, bitsPerBand, seed);
+    }
+
+    @Override
+    public List<Book> candidates(Book book) {
+        BitSet found = find(book);
+        List<Book> candidates = new ArrayList<>(found.cardinality());
+        found.stream().forEach(position -> candidates.add(catalog.book(position)));
+
+        return candidates;
+    }
+
+    @Override
+    public int[] candidatePositions(Book book, BookCatalog catalog) {
+        if (catalog != this.catalog) {
+            return CandidateIndex.super.candidatePositions(book, catalog);
+        }
+
+        return find(book).stream().toArray();
+    }
+
+    private BitSet find(Book book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book should not be null!");
+        }
+
+        double[] projections = project(calculator.vectorOf(book));
+        int[] keys = bandKeys(projections);
+        BitSet found = new BitSet(catalog.size());
+
+        for (int band = 0; band < bands; band++) {
+            addBucket(found, band, keys[band]);
+            addBucket(found, band, keys[band] ^ (1 << leastCertainBit(projections, band)));
+        }
+
+        return found;
+    }
+
+    private void addBucket(BitSet found, int band, int key) {
+        for (int index = bucketStarts[band][key]; index < bucketStarts[band][key + 1]; index++) {
+            found.set(bucketBooks[band][index]);
+        }
+    }
+
+    /**
+     * Projects a vector on the random hyperplanes, one for every bit of the signature. The component
+     * of a hyperplane for a word is +1 or -1, depending on a bit of the hash of the word's id.
+     *
+     * @param vector the TF-IDF vector
+     * @return the signed distances of the vector from every hyperplane
+     */
+    private double[] project(TermVector vector) {
+        double[] projections = new double[bands * bitsPerBand];
+
+        for (int index = 0; index < vector.size(); index++) {
+            int term = vector.term(index);
+            float weight = vector.weight(index);
+            long signs = 0;
+
+            for (int bit = 0; bit < projections.length; bit++) {
+                if (bit % Long.SIZE == 0) {
+                    signs = mix(seed + GOLDEN_GAMMA * (term * (long) projections.length + bit + 1));
+                }
+
+                projections[bit] += (signs & (1L << (bit % Long.SIZE))) != 0 ? weight : -weight;
+            }
+        }
+
+        return projections;
+    }
+
+    private int[] bandKeys(double[] projections) {
+        int[] keys = new int[bands];
+
+        for (int bit = 0; bit < projections.length; bit++) {
+            if (projections[bit] > 0) {
+                keys[bit / bitsPerBand] |= 1 << (bit % bitsPerBand);
+            }
+        }
+
+        return keys;
+    }
+
+    private int leastCertainBit(double[] projections, int band) {
+        int least = 0;
+
+        for (int bit = 1; bit < bitsPerBand; bit++) {
+            if (Math.abs(projections[band * bitsPerBand + bit]) <
+                Math.abs(projections[band * bitsPerBand + least])) {
+                least = bit;
+            }
+        }
+
+        return least;
+    }
+
+    /**
+     * The finalizer of SplitMix64, which turns consecutive numbers into independent random bits.
+     *
+     * @param value the number to mix
+     * @return the mixed bits
+     */
+    private static long mix(long value) {
+        long mixed = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return mixed ^ (mixed >>> 31);
+    }
+}
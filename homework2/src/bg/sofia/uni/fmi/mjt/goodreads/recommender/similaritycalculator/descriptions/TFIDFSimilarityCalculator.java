@@ -1,25 +1,86 @@
 package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.SimilarityCalculator;
 import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.TextTokenizer;
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.Vocabulary;
 
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
 import java.util.stream.Collectors;
 
+/**
+ * Compares the descriptions of books by the cosine of their TF-IDF vectors. The corpus is tokenized once
+ * in the constructor: every word gets an id in the vocabulary of the tokenizer, the number of books containing
+ * it is counted and the sparse vector of every book is cached by its position in the {@link BookCatalog}, so a similarity
+ * is a merge of two sorted vectors. Scans over another catalog find its books in the corpus once.
+ * Books outside of the corpus are tokenized on every call and their words
+ * missing from the corpus get an infinite IDF, like in the definition. The vocabulary is shared with the
+ * other components of the tokenizer, so words which only they added are missing from the corpus too.
+ */
 public class TFIDFSimilarityCalculator implements SimilarityCalculator {
 
-    private final Set<Book> books;
+    private final BookCatalog catalog;
     private final TextTokenizer tokenizer;
 
+    private final Vocabulary vocabulary;
+    private final int[] documentFrequencies;
+    private final double[] inverseDocumentFrequencies;
+    private final int corpusWords;
+    private final TermVector[] vectors;
+    private final Map<BookCatalog, int[]> positionsByCatalog = Collections.synchronizedMap(new WeakHashMap<>());
+
     public TFIDFSimilarityCalculator(Set<Book> books, TextTokenizer tokenizer) {
-        this.books = books;
+        this(BookCatalog.of(books), tokenizer);
+    }
+
+    public TFIDFSimilarityCalculator(BookCatalog catalog, TextTokenizer tokenizer) {
+        this.catalog = catalog;
         this.tokenizer = tokenizer;
+        this.vocabulary = tokenizer.vocabulary();
+
+        TermList[] bookTerms = new TermList[catalog.size()];
+
+        for (int position = 0; position < bookTerms.length; position++) {
+            bookTerms[position] = new TermList();
+            tokenizer.forEachTerm(catalog.description(position), vocabulary, bookTerms[position]);
+            bookTerms[position].sort();
+        }
+
+        this.documentFrequencies = new int[vocabulary.size()];
+
+        for (TermList terms : bookTerms) {
+            for (int index = 0; index < terms.size; index++) {
+                if (index == 0 || terms.terms[index] != terms.terms[index - 1]) {
+                    documentFrequencies[terms.terms[index]]++;
+                }
+            }
+        }
+
+        this.inverseDocumentFrequencies = new double[vocabulary.size()];
+        int words = 0;
+
+        for (int term = 0; term < inverseDocumentFrequencies.length; term++) {
+            inverseDocumentFrequencies[term] = Math.log10((double) catalog.size() / documentFrequencies[term]);
+            words += documentFrequencies[term] > 0 ? 1 : 0;
+        }
+
+        this.corpusWords = words;
+
+        this.vectors = new TermVector[bookTerms.length];
+
+        for (int position = 0; position < bookTerms.length; position++) {
+            vectors[position] = vectorOf(bookTerms[position]);
+            bookTerms[position] = null;
+        }
     }
 
     @Override
@@ -28,10 +89,65 @@ public class TFIDFSimilarityCalculator implements SimilarityCalculator {
             throw new IllegalArgumentException("Arguments should not be null!");
         }
 
-        Map<String, Double> tfIdfScoresFirst = computeTFIDF(first);
-        Map<String, Double> tfIdfScoresSecond = computeTFIDF(second);
+        return vectorOf(first).cosine(vectorOf(second));
+    }
+
+    /**
+     * Returns the TF-IDF vector of a book, cached for the books of the corpus.
+     *
+     * @param book the book
+     * @return the sparse {@link TermVector} of the description of the book
+     */
+    public TermVector vectorOf(Book book) {
+        int position = catalog.positionOf(book);
+
+        if (position != BookCatalog.NO_BOOK) {
+            return vectors[position];
+        }
+
+        TermList terms = new TermList();
+        tokenizer.forEachKnownTerm(book.description(), vocabulary, terms);
+        terms.sort();
+
+        return vectorOf(terms);
+    }
+
+    @Override
+    public IntToDoubleFunction similarityTo(Book origin, BookCatalog catalog) {
+        if (origin == null || catalog == null) {
+            throw new IllegalArgumentException("Arguments should not be null!");
+        }
+
+        TermVector originVector = vectorOf(origin);
 
-        return cosineSimilarity(tfIdfScoresFirst, tfIdfScoresSecond);
+        return position -> originVector.cosine(vectorOf(catalog, position));
+    }
+
+    /**
+     * Returns the TF-IDF vector of a book of a catalog, cached for the books of the corpus.
+     *
+     * @param catalog  the catalog of the book
+     * @param position the position of the book in the catalog
+     * @return the sparse {@link TermVector} of the description of the book
+     */
+    public TermVector vectorOf(BookCatalog catalog, int position) {
+        if (catalog == this.catalog) {
+            return vectors[position];
+        }
+
+        int ownPosition = positionsByCatalog.computeIfAbsent(catalog, this::ownPositions)[position];
+
+        return ownPosition != BookCatalog.NO_BOOK ? vectors[ownPosition] : vectorOf(catalog.book(position));
+    }
+
+    /**
+     * Returns the number of distinct words in the descriptions of the corpus, which are the ids of
+     * the terms of the vectors.
+     *
+     * @return the number of words of the corpus
+     */
+    public int vocabularySize() {
+        return corpusWords;
     }
 
     public Map<String, Double> computeTFIDF(Book book) {
@@ -63,48 +179,108 @@ public class TFIDFSimilarityCalculator implements SimilarityCalculator {
     }
 
     public Map<String, Double> computeIDF(Book book) {
-        int totalBooks = books.size();
+        return tokenizer.tokenize(book.description()).stream()
+            .distinct()
+            .collect(Collectors.toMap(
+                word -> word,
+                this::inverseDocumentFrequency));
+    }
 
-        Set<String> wordsInOrigin = new HashSet<>(tokenizer.tokenize(book.description()));
+    /**
+     * Finds the books of another catalog in the corpus once, so scans over that catalog read the cached
+     * vectors by position.
+     *
+     * @param other the other catalog
+     * @return the position in the corpus of every book of the other catalog, or {@link BookCatalog#NO_BOOK}
+     */
+    private int[] ownPositions(BookCatalog other) {
+        int[] positions = new int[other.size()];
 
-        List<Set<String>> wordsInEachBook = books.stream()
-            .map(bk -> new HashSet<>(tokenizer.tokenize(bk.description())))
-            .collect(Collectors.toList());
+        for (int position = 0; position < positions.length; position++) {
+            positions[position] = catalog.positionOf(other.book(position));
+        }
 
-        Map<String, Integer> freqsPerWord = wordsInOrigin.stream()
-                                            .collect(Collectors.toMap(
-                                                word -> word,
-                                                word -> Math.toIntExact(wordsInEachBook.stream()
-                                                    .filter(bookWords -> bookWords.contains(word))
-                                                    .count())));
+        return positions;
+    }
 
-        return wordsInOrigin.stream()
-            .collect(Collectors.toMap(
-                word -> word,
-                word -> Math.log10((double) totalBooks / freqsPerWord.get(word))));
+    private double inverseDocumentFrequency(String word) {
+        int term = vocabulary.idOf(word);
+
+        return inCorpus(term) ? inverseDocumentFrequencies[term] : unknownInverseDocumentFrequency();
     }
 
-    private double cosineSimilarity(Map<String, Double> first, Map<String, Double> second) {
-        double magnitudeFirst = magnitude(first.values());
-        double magnitudeSecond = magnitude(second.values());
+    /**
+     * Checks whether a word of the shared vocabulary occurs in the descriptions of the corpus.
+     *
+     * @param term the id of the word, or {@link Vocabulary#NO_TERM}
+     * @return {@code true} if some description of the corpus contains the word, {@code false} otherwise
+     */
+    private boolean inCorpus(int term) {
+        return term != Vocabulary.NO_TERM && term < documentFrequencies.length && documentFrequencies[term] > 0;
+    }
 
-        return dotProduct(first, second) / (magnitudeFirst * magnitudeSecond);
+    private double unknownInverseDocumentFrequency() {
+        return Math.log10((double) catalog.size() / 0);
     }
 
-    private double dotProduct(Map<String, Double> first, Map<String, Double> second) {
-        Set<String> commonKeys = new HashSet<>(first.keySet());
-        commonKeys.retainAll(second.keySet());
+    /**
+     * Builds the sparse vector of a description from the sorted ids of its words. Every run of the same id
+     * is a word with the length of the run as its number of occurrences.
+     *
+     * @param terms the sorted ids of the words of the description, {@link Vocabulary#NO_TERM} for unknown words,
+     *              which are treated like the words missing from the corpus
+     * @return the {@link TermVector} of the description
+     */
+    private TermVector vectorOf(TermList terms) {
+        int[] ids = new int[terms.size];
+        float[] weights = new float[terms.size];
+        int size = 0;
+        double squaredNorm = 0;
+
+        for (int start = 0, end; start < terms.size; start = end) {
+            int term = terms.terms[start];
+            end = start + 1;
+
+            while (end < terms.size && terms.terms[end] == term) {
+                end++;
+            }
 
-        return commonKeys.stream()
-                .mapToDouble(word -> first.get(word) * second.get(word))
-                .sum();
+            boolean known = inCorpus(term);
+            double termFrequency = (double) (end - start) / terms.size;
+            double weight = termFrequency * (known ? inverseDocumentFrequencies[term] :
+                unknownInverseDocumentFrequency());
+
+            squaredNorm += weight * weight;
+
+            if (known) {
+                ids[size] = term;
+                weights[size++] = (float) weight;
+            }
+        }
+
+        return new TermVector(Arrays.copyOf(ids, size), Arrays.copyOf(weights, size), Math.sqrt(squaredNorm));
     }
 
-    private double magnitude(Collection<Double> input) {
-        double squaredMagnitude = input.stream()
-                .map(v -> v * v)
-                .reduce(0.0, Double::sum);
+    /**
+     * The ids of the words of a description, in order of appearance until sorted.
+     */
+    private static final class TermList implements IntConsumer {
+        private static final int INITIAL_CAPACITY = 32;
+
+        private int[] terms = new int[INITIAL_CAPACITY];
+        private int size;
+
+        @Override
+        public void accept(int term) {
+            if (size == terms.length) {
+                terms = Arrays.copyOf(terms, size * 2);
+            }
 
-        return Math.sqrt(squaredMagnitude);
+            terms[size++] = term;
+        }
+
+        private void sort() {
+            Arrays.sort(terms, 0, size);
+        }
     }
 }
@@ -0,0 +1,72 @@
+package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions;
+
+/**
+ * A sparse TF-IDF vector of a description: the ids of its words in increasing order with their weights,
+ * and the euclidean norm of all weights. Words missing from the vocabulary have no id, so they only
+ * contribute to the norm.
+ */
+public final class TermVector {
+
+    private final int[] terms;
+    private final float[] weights;
+    private final double norm;
+
+    TermVector(int[] terms, float[] weights, double norm) {
+        this.terms = terms;
+        this.weights = weights;
+        this.norm = norm;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    public int term(int index) {
+        return terms[index];
+    }
+
+    public float weight(int index) {
+        return weights[index];
+    }
+
+    public double norm() {
+        return norm;
+    }
+
+    /**
+     * Calculates the dot product by merging the sorted ids of both vectors.
+     *
+     * @param other the other vector
+     * @return the sum of the products of the weights of the common words
+     */
+    public double dot(TermVector other) {
+        double product = 0;
+        int index = 0;
+        int otherIndex = 0;
+
+        while (index < terms.length && otherIndex < other.terms.length) {
+            int term = terms[index];
+            int otherTerm = other.terms[otherIndex];
+
+            if (term == otherTerm) {
+                product += (double) weights[index++] * other.weights[otherIndex++];
+            } else if (term < otherTerm) {
+                index++;
+            } else {
+                otherIndex++;
+            }
+        }
+
+        return product;
+    }
+
+    /**
+     * Calculates the cosine of the angle between the two vectors.
+     *
+     * @param other the other vector
+     * @return the dot product divided by the product of the norms
+     */
+    public double cosine(TermVector other) {
+        return dot(other) / (norm * other.norm);
+    }
+}
@@ -1,7 +1,11 @@
 package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.genres;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.SimilarityCalculator;
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.Vocabulary;
+
+import java.util.function.IntToDoubleFunction;
 
 public class GenresOverlapSimilarityCalculator implements SimilarityCalculator {
 
@@ -15,5 +19,32 @@ public class GenresOverlapSimilarityCalculator implements SimilarityCalculator {
             .filter((String genre) -> second.genres().contains(genre)).count()) /
                 Math.min(first.genres().size(), second.genres().size());
     }
+
+    /**
+     * Resolves the genres of the origin to ids of the catalog once and looks them up in the genre sets
+     * of the catalog, so the genres of the compared books are never read as strings.
+     */
+    @Override
+    public IntToDoubleFunction similarityTo(Book origin, BookCatalog catalog) {
+        if (origin == null || catalog == null) {
+            throw new IllegalArgumentException("Arguments should not be null!");
+        }
+
+        int[] originGenres = origin.genres().stream()
+            .mapToInt(catalog::genreIdOf)
+            .toArray();
+
+        return position -> {
+            int shared = 0;
+
+            for (int genre : originGenres) {
+                if (genre != Vocabulary.NO_TERM && catalog.hasGenre(position, genre)) {
+                    shared++;
+                }
+            }
+
+            return (double) shared / Math.min(originGenres.length, catalog.genreCountOf(position));
+        };
+    }
     
 }
@@ -3,14 +3,39 @@ package bg.sofia.uni.fmi.mjt.goodreads.tokenizer;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
+/**
+ * Splits text into lowercase words without punctuation and stopwords. The text is scanned once:
+ * ASCII punctuation is dropped, runs of whitespace end the words and every word is lowercased and
+ * trimmed in a reused buffer. The words are the same as the ones of removing {@code \p{Punct}},
+ * splitting on {@code \s+}, lowercasing and trimming, including the empty word which that split
+ * gives for a text starting with whitespace or having no characters left.
+ * <p>
+ * Words of ASCII letters are lowercased in place; other words go through {@link String#toLowerCase()},
+ * which depends on the default locale. Stopwords are looked up from the buffer, so with
+ * {@link #forEachTerm(String, Vocabulary, IntConsumer)} known words are never turned into strings.
+ * <p>
+ * The tokenizer owns the {@link #vocabulary()} of the words it gives, so the components built with the same
+ * tokenizer intern every word once and agree on its id. Words are added to it only while a component is
+ * built, never by queries, and the vocabulary is safe to share: a component can be built while others
+ * built with the same tokenizer serve queries.
+ */
 public class TextTokenizer {
-    
+
+    private static final Set<String> TURKIC_LANGUAGES = Set.of("tr", "az");
+    private static final char FIRST_NON_ASCII = 0x80;
+
     private final Set<String> stopwords;
+    private final Vocabulary stopwordTerms = new Vocabulary();
+    private final Vocabulary vocabulary = new Vocabulary();
 
     public TextTokenizer(Reader stopwordsReader) {
         try (var br = new BufferedReader(stopwordsReader)) {
@@ -18,17 +43,176 @@ public class TextTokenizer {
         } catch (IOException ex) {
             throw new IllegalArgumentException("Could not load dataset", ex);
         }
+
+        stopwords.forEach(stopwordTerms::add);
     }
 
     public List<String> tokenize(String input) {
-        return Arrays.stream(input.replaceAll("\\p{Punct}", "").split("\\s+"))
-            .map(String::toLowerCase)
-            .map(String::trim)
-            .filter(word -> !stopwords.contains(word))
-            .toList();
+        List<String> tokens = new ArrayList<>();
+        forEachToken(input, tokens::add);
+
+        return Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * Passes the words of the text to the action in order, without collecting them.
+     *
+     * @param input  the text
+     * @param action receives every word
+     */
+    public void forEachToken(String input, Consumer<String> action) {
+        scan(input, (chars, length) -> action.accept(new String(chars, 0, length)));
+    }
+
+    /**
+     * Passes the ids of the words of the text to the action in order, adding new words to the vocabulary.
+     *
+     * @param input      the text
+     * @param vocabulary the vocabulary of the ids
+     * @param action     receives the id of every word
+     */
+    public void forEachTerm(String input, Vocabulary vocabulary, IntConsumer action) {
+        scan(input, (chars, length) -> action.accept(vocabulary.add(chars, 0, length)));
+    }
+
+    /**
+     * Passes the ids of the words of the text to the action in order, without changing the vocabulary.
+     *
+     * @param input      the text
+     * @param vocabulary the vocabulary of the ids
+     * @param action     receives the id of every word, or {@link Vocabulary#NO_TERM} for unknown words
+     */
+    public void forEachKnownTerm(String input, Vocabulary vocabulary, IntConsumer action) {
+        scan(input, (chars, length) -> action.accept(vocabulary.idOf(chars, 0, length)));
     }
 
     public Set<String> stopwords() {
         return stopwords;
     }
+
+    /**
+     * Returns the vocabulary shared by the components which use this tokenizer.
+     *
+     * @return the shared vocabulary of the words
+     */
+    public Vocabulary vocabulary() {
+        return vocabulary;
+    }
+
+    private void scan(String input, TokenSink sink) {
+        boolean asciiLowerCase = !TURKIC_LANGUAGES.contains(Locale.getDefault().getLanguage());
+        char[] buffer = new char[Math.max(1, input.length())];
+        int length = 0;
+        boolean ascii = true;
+        boolean started = false;
+        boolean leadingWhitespace = false;
+
+        for (int index = 0; index < input.length(); index++) {
+            char current = input.charAt(index);
+
+            if (isPunctuation(current)) {
+                continue;
+            }
+
+            if (isWhitespace(current)) {
+                leadingWhitespace |= !started;
+                started = true;
+
+                if (length > 0) {
+                    buffer = emit(buffer, length, ascii && asciiLowerCase, sink);
+                    length = 0;
+                    ascii = true;
+                }
+
+                continue;
+            }
+
+            if (leadingWhitespace) {
+                emit(buffer, 0, true, sink);
+                leadingWhitespace = false;
+            }
+
+            started = true;
+            ascii &= current < FIRST_NON_ASCII;
+            buffer[length++] = current;
+        }
+
+        if (length > 0 || !started) {
+            emit(buffer, length, ascii && asciiLowerCase, sink);
+        }
+    }
+
+    /**
+     * Lowercases and trims a word in the buffer and passes it to the sink unless it is a stopword.
+     *
+     * @param buffer       holds the word
+     * @param length       the length of the word
+     * @param asciiLetters whether the word can be lowercased character by character
+     * @param sink         receives the word
+     * @return the buffer, which is replaced when lowercasing makes the word longer than it
+     */
+    private char[] emit(char[] buffer, int length, boolean asciiLetters, TokenSink sink) {
+        int start = 0;
+        int end = length;
+
+        if (asciiLetters) {
+            for (int index = 0; index < length; index++) {
+                if (buffer[index] >= 'A' && buffer[index] <= 'Z') {
+                    buffer[index] += 'a' - 'A';
+                }
+            }
+        } else {
+            String word = new String(buffer, 0, length).toLowerCase();
+
+            if (word.length() > buffer.length) {
+                buffer = new char[word.length()];
+            }
+
+            word.getChars(0, word.length(), buffer, 0);
+            end = word.length();
+        }
+
+        while (start < end && buffer[start] <= ' ') {
+            start++;
+        }
+
+        while (end > start && buffer[end - 1] <= ' ') {
+            end--;
+        }
+
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+        }
+
+        if (stopwordTerms.idOf(buffer, 0, end - start) == Vocabulary.NO_TERM) {
+            sink.accept(buffer, end - start);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Checks for the characters of {@code \p{Punct}}, which are the ASCII punctuation and symbols.
+     *
+     * @param character the character
+     * @return {@code true} for punctuation, {@code false} otherwise
+     */
+    private static boolean isPunctuation(char character) {
+        return (character >= '!' && character <= '/') || (character >= ':' && character <= '@') ||
+            (character >= '[' && character <= '`') || (character >= '{' && character <= '~');
+    }
+
+    /**
+     * Checks for the characters of {@code \s}, which are the ASCII whitespace.
+     *
+     * @param character the character
+     * @return {@code true} for whitespace, {@code false} otherwise
+     */
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || (character >= '\t' && character <= '\r');
+    }
+
+    private interface TokenSink {
+        void accept(char[] chars, int length);
+    }
 }
@@ -0,0 +1,195 @@
+package bg.sofia.uni.fmi.mjt.goodreads.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Gives every distinct word a dense id, in order of first appearance. Words are looked up directly from
+ * the characters of a token, so the tokens of known words never become strings. The table uses open
+ * addressing with linear probing and keeps the hash of every word, so a probe compares characters only
+ * when the hashes match.
+ * <p>
+ * A vocabulary can be shared between threads. New words are added under a lock, and every added word
+ * publishes the arrays of the table together with the number of words in one immutable {@link Table},
+ * so lookups take no lock and see either the table before a word was added or the one after it. A lookup
+ * ignores the slots of words added after the table it read, as if they were still empty.
+ */
+public final class Vocabulary {
+
+    public static final int NO_TERM = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The arrays of the table and the number of words in them. The arrays are only appended to, so a table
+     * stays valid for its first {@code size} words after later words are added.
+     *
+     * @param terms  the words, by id
+     * @param hashes the hashes of the words, by id
+     * @param slots  the id plus one of the word in every slot, 0 for an empty slot
+     * @param size   the number of words
+     */
+    private record Table(String[] terms, int[] hashes, int[] slots, int size) {
+    }
+
+    private volatile Table table = new Table(new String[INITIAL_CAPACITY / 2], new int[INITIAL_CAPACITY / 2],
+        new int[INITIAL_CAPACITY], 0);
+
+    public int size() {
+        return table.size();
+    }
+
+    public String term(int id) {
+        Table current = table;
+
+        if (id < 0 || id >= current.size()) {
+            throw new IllegalArgumentException("There is no term with id " + id + "!");
+        }
+
+        return current.terms()[id];
+    }
+
+    public int add(String term) {
+        return add(term.toCharArray(), 0, term.length());
+    }
+
+    /**
+     * Returns the id of a word, adding it to the vocabulary if it is new. Known words are found without
+     * taking the lock.
+     *
+     * @param chars  the characters of the word
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return the id of the word
+     */
+    public int add(char[] chars, int offset, int length) {
+        int hash = hash(chars, offset, length);
+        int id = idOf(table, chars, offset, length, hash);
+
+        return id != NO_TERM ? id : addNew(chars, offset, length, hash);
+    }
+
+    public int idOf(String term) {
+        return idOf(term.toCharArray(), 0, term.length());
+    }
+
+    /**
+     * Returns the id of a word without adding it.
+     *
+     * @param chars  the characters of the word
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return the id of the word, or {@link #NO_TERM} if it is not in the vocabulary
+     */
+    public int idOf(char[] chars, int offset, int length) {
+        return idOf(table, chars, offset, length, hash(chars, offset, length));
+    }
+
+    private synchronized int addNew(char[] chars, int offset, int length, int hash) {
+        Table current = table;
+        int slot = find(current, chars, offset, length, hash);
+
+        if (current.slots()[slot] != 0) {
+            return current.slots()[slot] - 1;
+        }
+
+        int size = current.size();
+        String[] terms = current.terms();
+        int[] hashes = current.hashes();
+        int[] slots = current.slots();
+
+        if (size == terms.length) {
+            terms = Arrays.copyOf(terms, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+
+        terms[size] = new String(chars, offset, length);
+        hashes[size] = hash;
+        slots[slot] = size + 1;
+
+        if ((size + 1) * 2 > slots.length) {
+            slots = rehash(hashes, size + 1, slots.length * 2);
+        }
+
+        table = new Table(terms, hashes, slots, size + 1);
+
+        return size;
+    }
+
+    private static int idOf(Table table, char[] chars, int offset, int length, int hash) {
+        int id = table.slots()[find(table, chars, offset, length, hash)] - 1;
+
+        return id < table.size() ? id : NO_TERM;
+    }
+
+    /**
+     * Finds the slot of a word, or the empty slot where it would be added. Slots of words added after
+     * the table was published are treated as empty.
+     */
+    private static int find(Table table, char[] chars, int offset, int length, int hash) {
+        int[] slots = table.slots();
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+
+        while (slots[slot] != 0 && slots[slot] <= table.size() &&
+            !matches(table, slots[slot] - 1, chars, offset, length, hash)) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private static boolean matches(Table table, int id, char[] chars, int offset, int length, int hash) {
+        String term = table.terms()[id];
+
+        if (table.hashes()[id] != hash || term.length() != length) {
+            return false;
+        }
+
+        for (int index = 0; index < length; index++) {
+            if (term.charAt(index) != chars[offset + index]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int[] rehash(int[] hashes, int size, int capacity) {
+        int[] slots = new int[capacity];
+        int mask = slots.length - 1;
+
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            slots[slot] = id + 1;
+        }
+
+        return slots;
+    }
+
+    /**
+     * Hashes the characters like {@link String#hashCode()}.
+     *
+     * @param chars  the characters of the word
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return the hash of the word
+     */
+    private static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+
+        for (int index = offset; index < offset + length; index++) {
+            hash = 31 * hash + chars[index];
+        }
+
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
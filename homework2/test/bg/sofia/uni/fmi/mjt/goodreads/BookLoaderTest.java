@@ -0,0 +1,140 @@
+package bg.sofia.uni.fmi.mjt.goodreads;
+
+import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookLoaderTest {
+
+    private static final String HEADER = ",Book,Author,Description,Genres,Avg_Rating,Num_Ratings,URL\n";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testLoadMultiLineDescription() {
+        String csv = HEADER +
+            "0,To Kill a Mockingbird,Harper Lee,\"The unforgettable novel,\nof a \"\"childhood\"\".\"," +
+            "\"['Classics', 'Fiction']\",4.27,\"5,691,311\",https://www.goodreads.com/book/show/2657\n";
+
+        Set<Book> books = BookLoader.load(new StringReader(csv));
+
+        assertEquals(Set.of(new Book("0", "To Kill a Mockingbird", "Harper Lee",
+                "The unforgettable novel,\nof a \"childhood\".", List.of("Classics", "Fiction"), 4.27, 5_691_311,
+                "https://www.goodreads.com/book/show/2657")), books,
+            "Quoted descriptions should keep their line breaks, commas and quotes!");
+    }
+
+    @Test
+    void testLoadMalformedRows() {
+        assertThrows(IllegalArgumentException.class,
+            () -> BookLoader.load(new StringReader(HEADER + "0,Title,Author\n")),
+            "Rows with missing columns should be rejected!");
+        assertThrows(IllegalArgumentException.class,
+            () -> BookLoader.load(new StringReader(HEADER + "0,Title,Author,\"Unterminated\n")),
+            "Unterminated quoted descriptions should be rejected!");
+    }
+
+    @Test
+    void testLoadFileInChunksMatchesStreaming() throws IOException {
+        Random random = new Random(3);
+        StringBuilder csv = new StringBuilder(HEADER);
+
+        for (int id = 0; id < 500; id++) {
+            csv.append(id).append(",Title ").append(id).append(",\"Author, ").append(random.nextInt(50)).append("\",")
+                .append(description(random)).append(",\"['Fiction', 'Genre ").append(random.nextInt(10))
+                .append("']\",").append(random.nextInt(500) / 100.0).append(",\"").append(random.nextInt(100_000))
+                .append("\",https://www.goodreads.com/book/show/").append(id).append('\n');
+        }
+
+        Path file = directory.resolve("books.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        Set<Book> expected = BookLoader.load(new StringReader(csv.toString()));
+
+        assertEquals(500, expected.size(), "Every row should become a book!");
+
+        for (int chunkBytes : List.of(1, 7, 100, 1000, Integer.MAX_VALUE)) {
+            assertEquals(expected, BookLoader.load(file, chunkBytes),
+                "Chunks of " + chunkBytes + " bytes should give the same books as streaming!");
+        }
+    }
+
+    @Test
+    void testLoadFileWithEscapedQuotesInChunksMatchesStreaming() throws IOException {
+        Random random = new Random(17);
+        String[] parts = {"a", "ü", " ", ",", "\n", "\r\n", "\"", "\"\"", "\\\"", "\\\\", "\\"};
+        Path file = directory.resolve("escaped.csv");
+        int compared = 0;
+
+        for (int dump = 0; dump < 2000; dump++) {
+            StringBuilder csv = new StringBuilder(HEADER);
+
+            for (int id = 0; id < 4; id++) {
+                csv.append(id).append(",T,A,").append(field(random, parts))
+                    .append(",\"['Fiction']\",4.5,\"10\",https://www.goodreads.com/book/show/").append(id)
+                    .append('\n');
+            }
+
+            Set<Book> expected;
+
+            try {
+                expected = BookLoader.load(new StringReader(csv.toString()));
+            } catch (RuntimeException malformed) {
+                continue;
+            }
+
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            compared++;
+
+            for (int chunkBytes : List.of(1, 13, 40, 200)) {
+                assertEquals(expected, BookLoader.load(file, chunkBytes),
+                    "Chunks of " + chunkBytes + " bytes should give the same books as streaming for " + csv + "!");
+            }
+        }
+
+        assertTrue(compared > 100, "Enough of the generated dumps should be valid!");
+    }
+
+    @Test
+    void testLoadMissingFile() {
+        assertThrows(IllegalArgumentException.class, () -> BookLoader.load(directory.resolve("missing.csv")),
+            "Missing files should be rejected!");
+    }
+
+    private static String field(Random random, String[] parts) {
+        boolean quoted = random.nextBoolean();
+        StringBuilder field = new StringBuilder(quoted ? "\"" : "");
+
+        for (int part = random.nextInt(4); part >= 0; part--) {
+            field.append(parts[random.nextInt(parts.length)]);
+        }
+
+        return field.append(quoted ? "\"" : "").toString();
+    }
+
+    private static String description(Random random) {
+        String[] parts = {"word", " ", ",", "\n", "\r\n", "\"", "back\\slash", "ünïcödé", "'"};
+        StringBuilder description = new StringBuilder();
+        int length = random.nextInt(30);
+
+        for (int part = 0; part < length; part++) {
+            description.append(parts[random.nextInt(parts.length)]);
+        }
+
+        return "\"" + description.toString().replace("\"", "\"\"") + "\"";
+    }
+}
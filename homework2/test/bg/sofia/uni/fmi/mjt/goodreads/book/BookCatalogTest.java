@@ -0,0 +1,119 @@
+package bg.sofia.uni.fmi.mjt.goodreads.book;
+
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.Vocabulary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookCatalogTest {
+
+    private final Book first = new Book("1", "Title", "Author", "A description with ünïcödé",
+        List.of("Fiction", "Classics"), 4.27, 100, "https://www.goodreads.com/book/show/1");
+    private final Book second = new Book("2", "Other", "Author", "Another description",
+        List.of("Classics"), 3.5, 7, "https://www.goodreads.com/book/show/2");
+
+    @Test
+    void testColumnsOfBooks() {
+        BookCatalog catalog = BookCatalog.of(List.of(first, second));
+
+        assertEquals(2, catalog.size(), "Catalog should hold every book!");
+        assertEquals(1, catalog.authorCount(), "Authors should be stored once!");
+        assertEquals(2, catalog.genreCount(), "Genres should be stored once!");
+        assertArrayEquals(new int[] {0, 1}, catalog.booksOfAuthor(catalog.authorIdOf("Author")),
+            "Books of an author should be listed by position!");
+
+        BitSet classics = new BitSet();
+        classics.set(0, 2);
+
+        assertEquals(classics, catalog.booksOfGenre(catalog.genreIdOf("Classics")),
+            "Books of a genre should be in its set!");
+        assertFalse(catalog.hasGenre(1, catalog.genreIdOf("Fiction")), "Second book should not be fiction!");
+        assertEquals(Vocabulary.NO_TERM, catalog.genreIdOf("Horror"), "Unknown genres should have no id!");
+        assertEquals(4.27, catalog.rating(0), "Ratings should be kept exactly!");
+        assertEquals(first.description(), catalog.description(0), "Descriptions should be decoded from UTF-8!");
+    }
+
+    @Test
+    void testRestoresAndFindsBooks() {
+        BookCatalog catalog = BookCatalog.of(List.of(first, second));
+
+        assertEquals(first, catalog.book(0), "Restored book should be equal to the added one!");
+        assertEquals(second, catalog.book(1), "Restored book should be equal to the added one!");
+        assertEquals(1, catalog.positionOf(second), "Books should be found by their position!");
+
+        Book changed = new Book("2", "Other", "Author", "Another description!",
+            List.of("Classics"), 3.5, 7, "https://www.goodreads.com/book/show/2");
+
+        assertEquals(BookCatalog.NO_BOOK, catalog.positionOf(changed),
+            "Books with the same id and another description should not be found!");
+    }
+
+    @Test
+    void testBuilderSkipsEqualBooks() {
+        BookCatalog.Builder builder = new BookCatalog.Builder();
+        Book sameId = new Book("1", "Title", "Author", "A description with ünïcödé",
+            List.of("Classics", "Fiction"), 4.27, 100, "https://www.goodreads.com/book/show/1");
+
+        assertTrue(builder.add(first), "New books should be added!");
+        assertFalse(builder.add(new Book(first.ID(), first.title(), first.author(), first.description(),
+            first.genres(), first.rating(), first.ratingCount(), first.URL())), "Equal books should be skipped!");
+        assertTrue(builder.add(sameId), "Books with the same id but other genres should be added!");
+
+        BookCatalog catalog = builder.build();
+
+        assertEquals(2, catalog.size(), "Catalog should hold the distinct books!");
+        assertEquals(1, catalog.positionOf(sameId), "Books sharing an id should be told apart!");
+        assertThrows(IllegalStateException.class, () -> builder.add(second),
+            "Books should not be added to a built catalog!");
+    }
+
+    @Test
+    void testKeepsRatingsBeyondFloatPrecision() {
+        Book precise = new Book("3", "Title", "Author", "Description", List.of("Fiction"), 4.123456789, 1, "url");
+        Book close = new Book("3", "Title", "Author", "Description", List.of("Fiction"), 4.123456788, 1, "url");
+
+        BookCatalog catalog = BookCatalog.of(List.of(precise, close));
+
+        assertEquals(2, catalog.size(), "Books differing only beyond float precision should be kept apart!");
+        assertEquals(precise, catalog.book(catalog.positionOf(precise)), "Ratings should be restored exactly!");
+        assertEquals(1, catalog.positionOf(close), "Every book should be found by its exact rating!");
+    }
+
+    @Test
+    void testCatalogMatchesSet() {
+        Random random = new Random(5);
+        Set<Book> books = new LinkedHashSet<>();
+
+        for (int id = 0; id < 2000; id++) {
+            List<String> genres = new ArrayList<>();
+
+            for (int genre = random.nextInt(4); genre >= 0; genre--) {
+                genres.add("genre" + random.nextInt(30));
+            }
+
+            books.add(new Book(String.valueOf(random.nextInt(1500)), "title" + id, "author" + random.nextInt(100),
+                "description " + random.nextInt(1000) + (random.nextBoolean() ? " é" : ""), genres,
+                random.nextDouble() * 5, random.nextInt(1000), "https://www.goodreads.com/book/show/" + id));
+        }
+
+        BookCatalog catalog = BookCatalog.of(books);
+
+        assertIterableEquals(books, catalog.books(), "Catalog should keep the books in the order of the set!");
+
+        for (Book book : books) {
+            assertEquals(book, catalog.book(catalog.positionOf(book)), "Every book should be found!");
+        }
+    }
+}
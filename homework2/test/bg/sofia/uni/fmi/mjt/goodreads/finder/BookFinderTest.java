@@ -5,7 +5,10 @@ import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.TextTokenizer;
 import org.junit.jupiter.api.Test;
 
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -63,6 +66,18 @@ public class BookFinderTest {
             "Books don't match");
     }
 
+    @Test
+    void testSearchByAuthorReturnsBooksOfTheSet() {
+        Book precise = new Book("4", "title4", "author4", "description", List.of("genre1"), 4.123456789, 1, "url");
+        Book close = new Book("4", "title4", "author4", "description", List.of("genre1"), 4.123456788, 1, "url");
+        Set<Book> books = Set.of(precise, close);
+
+        List<Book> found = new BookFinder(books, new TextTokenizer(Reader.nullReader())).searchByAuthor("author4");
+
+        assertEquals(2, found.size(), "Books differing only in a precise rating should both be found!");
+        assertTrue(books.containsAll(found), "Found books should be equal to the books of the set!");
+    }
+
     @Test
     void testSearchByAuthorNullAuthorName() {
         assertThrows(IllegalArgumentException.class, () -> finder.searchByAuthor(null),
@@ -115,4 +130,75 @@ public class BookFinderTest {
                 List.of(first, second, third).containsAll(finder.searchByKeywords(keywords, MatchOption.MATCH_ANY)),
             "Result list should include all books");
     }
+
+    @Test
+    void testSearchByKeywordsWithoutMatches() {
+        assertTrue(finder.searchByKeywords(Set.of("superhero", "murder"), MatchOption.MATCH_ALL).isEmpty(),
+            "No book contains both keywords");
+        assertTrue(finder.searchByKeywords(Set.of("missing"), MatchOption.MATCH_ANY).isEmpty(),
+            "No book contains an unknown keyword");
+        assertEquals(3, finder.searchByKeywords(Set.of(), MatchOption.MATCH_ALL).size(),
+            "Every book contains all of no keywords");
+        assertThrows(IllegalArgumentException.class, () -> finder.searchByKeywords(null, MatchOption.MATCH_ALL),
+            "Method should throw Illegal argument when given null keywords");
+    }
+
+    @Test
+    void testSearchByUnknownAuthorAndGenre() {
+        assertTrue(finder.searchByAuthor("author4").isEmpty(), "Unknown author should have no books");
+        assertTrue(finder.searchByGenres(Set.of("genre1", "genre8"), MatchOption.MATCH_ALL).isEmpty(),
+            "No book has an unknown genre");
+        assertIterableEquals(List.of(second), finder.searchByGenres(Set.of("genre8", "genre4"), MatchOption.MATCH_ANY),
+            "Only the second book has any of the genres");
+    }
+
+    @Test
+    void testSearchesMatchFullScan() {
+        Random random = new Random(7);
+        Set<Book> books = new HashSet<>();
+
+        for (int id = 0; id < 300; id++) {
+            books.add(new Book(String.valueOf(id), "title " + word(random), "author" + random.nextInt(20),
+                word(random) + " " + word(random) + ", " + word(random) + ".", List.of("genre" + random.nextInt(8),
+                "genre" + random.nextInt(8)), 4.0, 1, "https://www.book.com"));
+        }
+
+        TextTokenizer tokenizer = new TextTokenizer(Reader.nullReader());
+        BookFinderAPI generated = new BookFinder(books, tokenizer);
+
+        for (int i = 0; i < 100; i++) {
+            int genre = random.nextInt(8);
+            Set<String> keywords = Set.of(word(random), "title");
+            Set<String> genres = Set.of("genre" + genre, "genre" + (genre + 1 + random.nextInt(7)) % 8);
+
+            for (MatchOption option : MatchOption.values()) {
+                List<Book> byKeywords = new ArrayList<>();
+                List<Book> byGenres = new ArrayList<>();
+
+                for (Book book : books) {
+                    Set<String> words = new HashSet<>(tokenizer.tokenize(book.title()));
+                    words.addAll(tokenizer.tokenize(book.description()));
+
+                    if (option == MatchOption.MATCH_ALL ? words.containsAll(keywords) :
+                        keywords.stream().anyMatch(words::contains)) {
+                        byKeywords.add(book);
+                    }
+
+                    if (option == MatchOption.MATCH_ALL ? book.genres().containsAll(genres) :
+                        genres.stream().anyMatch(book.genres()::contains)) {
+                        byGenres.add(book);
+                    }
+                }
+
+                assertIterableEquals(byKeywords, generated.searchByKeywords(keywords, option),
+                    "Keyword search should find the same books in the same order as a full scan");
+                assertIterableEquals(byGenres, generated.searchByGenres(genres, option),
+                    "Genre search should find the same books in the same order as a full scan");
+            }
+        }
+    }
+
+    private String word(Random random) {
+        return "word" + random.nextInt(40);
+    }
 }
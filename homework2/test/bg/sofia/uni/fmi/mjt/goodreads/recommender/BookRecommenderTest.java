@@ -4,11 +4,17 @@ import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.genres.GenresOverlapSimilarityCalculator;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.SortedMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class BookRecommenderTest {
@@ -69,4 +75,35 @@ public class BookRecommenderTest {
         assertEquals(1, result.get(third),
         "First and third book have same genres so the score should be 1");
     }
+
+    @Test
+    void testRecommendBooksMatchesSortingAllScores() {
+        Random random = new Random(13);
+        Set<Book> books = new HashSet<>();
+
+        for (int id = 0; id < 5000; id++) {
+            books.add(new Book(String.valueOf(id), "title", "author", "description",
+                List.of("genre" + random.nextInt(10), "genre" + (10 + random.nextInt(10))),
+                4.0, 1, "https://www.book.com"));
+        }
+
+        GenresOverlapSimilarityCalculator calculator = new GenresOverlapSimilarityCalculator();
+        BookRecommender generated = new BookRecommender(books, calculator);
+        Book origin = books.iterator().next();
+
+        List<Book> expected = new ArrayList<>(books);
+        expected.remove(origin);
+        expected.sort(Comparator.<Book>comparingDouble(book -> -calculator.calculateSimilarity(origin, book))
+            .thenComparing(Book::ID));
+
+        SortedMap<Book, Double> result = generated.recommendBooks(origin, 50);
+
+        assertIterableEquals(expected.subList(0, 50), result.keySet(),
+            "Top books should be the best scored ones, ties broken by id");
+        assertFalse(result.containsKey(origin), "Origin book should not be recommended");
+        assertEquals(calculator.calculateSimilarity(origin, expected.get(0)), result.get(expected.get(0)),
+            "Score of the best book should be its similarity");
+        assertEquals(4999, generated.recommendBooks(origin, 10000).size(),
+            "All other books should be recommended when maxN exceeds their number");
+    }
 }
@@ -1,15 +1,22 @@
 package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.composite;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.book.BookCatalog;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.SimilarityCalculator;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions.TFIDFSimilarityCalculator;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.genres.GenresOverlapSimilarityCalculator;
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.TextTokenizer;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.io.Reader;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntToDoubleFunction;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
@@ -59,4 +66,30 @@ public class CompositeSimilarityCalculatorTest {
             "Calculate similarity doesn't calculate properly!");
     }
 
+    @Test
+    void testSimilarityToCatalogMatchesCalculateSimilarity() {
+        Random random = new Random(11);
+        Set<Book> books = new LinkedHashSet<>();
+
+        for (int id = 0; id < 300; id++) {
+            books.add(new Book(String.valueOf(id), "title", "author",
+                "word" + random.nextInt(20) + " word" + random.nextInt(20) + " word" + random.nextInt(40),
+                List.of("genre" + random.nextInt(5), "genre" + (5 + random.nextInt(5))), 4.0, 1,
+                "https://www.book.com"));
+        }
+
+        BookCatalog catalog = BookCatalog.of(books);
+        SimilarityCalculator composite = new CompositeSimilarityCalculator(Map.of(
+            new GenresOverlapSimilarityCalculator(), 0.3,
+            new TFIDFSimilarityCalculator(catalog, new TextTokenizer(Reader.nullReader())), 0.7));
+
+        for (Book origin : List.of(catalog.book(0), first)) {
+            IntToDoubleFunction similarity = composite.similarityTo(origin, catalog);
+
+            for (int position = 0; position < catalog.size(); position++) {
+                assertEquals(composite.calculateSimilarity(origin, catalog.book(position)),
+                    similarity.applyAsDouble(position), "Similarity over the catalog should match the books!");
+            }
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.description;
+
+import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.BookRecommender;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions.SimHashIndex;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions.TFIDFSimilarityCalculator;
+import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.TextTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimHashIndexTest {
+
+    private final Set<Book> books = new HashSet<>();
+    private final Book origin;
+    private final Book nearDuplicate;
+    private final TFIDFSimilarityCalculator calculator;
+
+    public SimHashIndexTest() {
+        Random random = new Random(3);
+
+        for (int id = 0; id < 2000; id++) {
+            books.add(book(String.valueOf(id), description(random, 30)));
+        }
+
+        String description = description(random, 40);
+        origin = book("origin", description);
+        nearDuplicate = book("duplicate", description + " word" + random.nextInt(500));
+        books.add(origin);
+        books.add(nearDuplicate);
+
+        calculator = new TFIDFSimilarityCalculator(books, new TextTokenizer(Reader.nullReader()));
+    }
+
+    @Test
+    void testCandidatesContainNearDuplicates() {
+        SimHashIndex index = new SimHashIndex(books, calculator);
+        List<Book> candidates = index.candidates(origin);
+
+        assertTrue(candidates.contains(origin), "Book should be a candidate for itself");
+        assertTrue(candidates.contains(nearDuplicate), "Book with almost the same description should be a candidate");
+        assertTrue(candidates.size() < books.size() / 2, "Index should not return most of the books");
+    }
+
+    @Test
+    void testRecommendBooksWithIndex() {
+        BookRecommender recommender = new BookRecommender(books, calculator, new SimHashIndex(books, calculator));
+
+        assertEquals(nearDuplicate, recommender.recommendBooks(origin, 1).firstKey(),
+            "Near duplicate should be the most similar book");
+        assertEquals(nearDuplicate, new BookRecommender(books, calculator).recommendBooks(origin, 1).firstKey(),
+            "Exact recommendation should find the same book");
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new SimHashIndex(books, calculator, 0, 8, 0),
+            "Index should have at least one band");
+        assertThrows(IllegalArgumentException.class, () -> new SimHashIndex(books, calculator, 8, 32, 0),
+            "Bands with too many bits should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> new SimHashIndex(null, calculator),
+            "Books should not be null");
+        assertThrows(IllegalArgumentException.class, () -> new SimHashIndex(books, calculator).candidates(null),
+            "Book should not be null");
+    }
+
+    private Book book(String id, String description) {
+        return new Book(id, "title", "author", description, List.of("genre"), 4.0, 1, "https://www.book.com");
+    }
+
+    private String description(Random random, int words) {
+        StringBuilder description = new StringBuilder();
+
+        for (int word = 0; word < words; word++) {
+            description.append("word").append(random.nextInt(500)).append(' ');
+        }
+
+        return description.toString();
+    }
+}
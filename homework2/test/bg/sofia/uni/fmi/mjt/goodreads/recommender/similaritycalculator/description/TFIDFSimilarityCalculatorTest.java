@@ -1,14 +1,20 @@
 package bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.description;
 
 import bg.sofia.uni.fmi.mjt.goodreads.book.Book;
+import bg.sofia.uni.fmi.mjt.goodreads.finder.BookFinder;
+import bg.sofia.uni.fmi.mjt.goodreads.finder.MatchOption;
 import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions.TFIDFSimilarityCalculator;
+import bg.sofia.uni.fmi.mjt.goodreads.recommender.similaritycalculator.descriptions.TermVector;
 import bg.sofia.uni.fmi.mjt.goodreads.tokenizer.TextTokenizer;
 import org.junit.jupiter.api.Test;
 
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -94,4 +100,76 @@ public class TFIDFSimilarityCalculatorTest {
         assertThrows(IllegalArgumentException.class, () -> calc.calculateSimilarity(null, null),
             "Method should throw Illegal argument exception when given null!");
     }
+
+    @Test
+    void testCachedVectorsMatchDefinition() {
+        Random random = new Random(11);
+        Set<Book> books = new HashSet<>();
+
+        for (int id = 0; id < 200; id++) {
+            StringBuilder description = new StringBuilder();
+
+            for (int word = 0; word < 5 + random.nextInt(20); word++) {
+                description.append("word").append(random.nextInt(60)).append(random.nextBoolean() ? ", " : " ");
+            }
+
+            books.add(new Book(String.valueOf(id), "title", "author", description.toString(), List.of("genre"),
+                4.0, 1, "https://www.book.com"));
+        }
+
+        TFIDFSimilarityCalculator generated = new TFIDFSimilarityCalculator(books, new TextTokenizer(Reader.nullReader()));
+        List<Book> list = new ArrayList<>(books);
+
+        for (int i = 0; i < 200; i++) {
+            Book firstBook = list.get(random.nextInt(list.size()));
+            Book secondBook = list.get(random.nextInt(list.size()));
+
+            assertEquals(cosine(generated.computeTFIDF(firstBook), generated.computeTFIDF(secondBook)),
+                generated.calculateSimilarity(firstBook, secondBook), 1e-6,
+                "Similarity of cached vectors should match the cosine of the TF-IDF maps");
+        }
+    }
+
+    @Test
+    void testVectorOfBookOutsideOfCorpus() {
+        Book outside = new Book("4", "title4", "author4", "superhero club academy academy",
+            List.of("genre1"), 3.0, 1, "https://www.book4.com");
+        TermVector vector = calc.vectorOf(outside);
+
+        assertEquals(3, vector.size(), "Vector should have a term for every distinct word");
+        assertEquals(cosine(calc.computeTFIDF(outside), calc.computeTFIDF(first)), calc.calculateSimilarity(outside, first),
+            1e-6, "Similarity of a book outside of the corpus should match the definition");
+        assertEquals(8, calc.vocabularySize(), "Vocabulary should contain the words of the corpus");
+    }
+
+    @Test
+    void testSharesVocabularyWithFinder() {
+        Set<Book> books = Set.of(first, second, third);
+        TextTokenizer tokenizer = new TextTokenizer(Reader.nullReader());
+        BookFinder finder = new BookFinder(books, tokenizer);
+        TFIDFSimilarityCalculator shared = new TFIDFSimilarityCalculator(books, tokenizer);
+        Book outside = new Book("4", "title4", "author4", "title1 superhero club",
+            List.of("genre1"), 3.0, 1, "https://www.book4.com");
+
+        assertEquals(11, tokenizer.vocabulary().size(), "Words of titles and descriptions should be interned once");
+        assertEquals(8, shared.vocabularySize(), "Words of the titles should not be counted in the corpus");
+        assertEquals(calc.calculateSimilarity(outside, first), shared.calculateSimilarity(outside, first), 1e-9,
+            "Words added by the finder should stay unknown to the corpus");
+        assertEquals(List.of(first), finder.searchByKeywords(Set.of("title1", "academy"), MatchOption.MATCH_ALL),
+            "Finder should search with the shared ids");
+    }
+
+    private double cosine(Map<String, Double> firstVector, Map<String, Double> secondVector) {
+        double dot = 0;
+
+        for (Map.Entry<String, Double> entry : firstVector.entrySet()) {
+            dot += entry.getValue() * secondVector.getOrDefault(entry.getKey(), 0d);
+        }
+
+        return dot / (norm(firstVector) * norm(secondVector));
+    }
+
+    private double norm(Map<String, Double> vector) {
+        return Math.sqrt(vector.values().stream().mapToDouble(value -> value * value).sum());
+    }
 }
@@ -4,8 +4,12 @@ import org.junit.jupiter.api.Test;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 
 public class TextTokenizerTest {
@@ -63,4 +67,67 @@ public class TextTokenizerTest {
         assertIterableEquals(tokenizedWords, tokenizer.tokenize(input),
             "Tokenizer misses words!");
     }
+
+    @Test
+    void testTokenizeMatchesRegexSplit() {
+        String alphabet = "abcXYZ \t\n\r.,!?'\"-_\u00e9\u00c9\u0130\u00df\u00a0\u0001";
+        Random random = new Random(7);
+
+        List<String> inputs = new ArrayList<>(List.of("", "...", "   ", " word", "!? word", "word  ", "IT is"));
+
+        for (int text = 0; text < 2000; text++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(20);
+
+            for (int index = 0; index < length; index++) {
+                input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            inputs.add(input.toString());
+        }
+
+        for (String input : inputs) {
+            List<String> expected = Arrays.stream(input.replaceAll("\\p{Punct}", "").split("\\s+"))
+                .map(String::toLowerCase)
+                .map(String::trim)
+                .filter(word -> !tokenizer.stopwords().contains(word))
+                .toList();
+
+            assertIterableEquals(expected, tokenizer.tokenize(input),
+                "Tokenizer should split like the regular expressions for \"" + input + "\"!");
+        }
+    }
+
+    @Test
+    void testForEachTermInternsWords() {
+        Vocabulary vocabulary = new Vocabulary();
+        List<Integer> ids = new ArrayList<>();
+
+        tokenizer.forEachTerm("Dog cat, DOG bird. It cat", vocabulary, ids::add);
+
+        assertIterableEquals(List.of(0, 1, 0, 2, 1), ids, "Equal words should get equal ids!");
+        assertEquals(3, vocabulary.size(), "Vocabulary should hold every distinct word once!");
+        assertEquals("bird", vocabulary.term(2), "Terms should be kept in order of first appearance!");
+
+        List<Integer> knownIds = new ArrayList<>();
+        tokenizer.forEachKnownTerm("cat fish", vocabulary, knownIds::add);
+
+        assertIterableEquals(List.of(1, Vocabulary.NO_TERM), knownIds, "Unknown words should have no id!");
+        assertEquals(3, vocabulary.size(), "Looking up words should not change the vocabulary!");
+    }
+
+    @Test
+    void testVocabularyGrows() {
+        Vocabulary vocabulary = new Vocabulary();
+
+        for (int word = 0; word < 10_000; word++) {
+            assertEquals(word, vocabulary.add("word" + word), "New words should get the next id!");
+        }
+
+        for (int word = 0; word < 10_000; word++) {
+            assertEquals(word, vocabulary.idOf("word" + word), "Words should keep their ids after growing!");
+        }
+
+        assertEquals(Vocabulary.NO_TERM, vocabulary.idOf("word10000"), "Unknown words should have no id!");
+    }
 }
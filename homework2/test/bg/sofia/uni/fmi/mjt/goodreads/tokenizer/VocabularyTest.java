@@ -0,0 +1,80 @@
+package bg.sofia.uni.fmi.mjt.goodreads.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VocabularyTest {
+
+    @Test
+    void testIdsInOrderOfFirstAppearance() {
+        Vocabulary vocabulary = new Vocabulary();
+
+        assertEquals(0, vocabulary.add("first"), "First word should get the first id!");
+        assertEquals(1, vocabulary.add("second"), "New words should get the next id!");
+        assertEquals(0, vocabulary.add("first".toCharArray(), 0, 5), "Known words should keep their id!");
+        assertEquals(Vocabulary.NO_TERM, vocabulary.idOf("third"), "Unknown words should have no id!");
+        assertEquals("second", vocabulary.term(1), "Words should be found by their id!");
+        assertEquals(2, vocabulary.size(), "Words should be counted once!");
+    }
+
+    @Test
+    void testLookupsWhileWordsAreAdded() throws Exception {
+        Vocabulary vocabulary = new Vocabulary();
+        int known = 1_000;
+        int added = 200_000;
+
+        for (int word = 0; word < known; word++) {
+            vocabulary.add("known" + word);
+        }
+
+        AtomicBoolean adding = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+
+            for (int reader = 0; reader < 2; reader++) {
+                readers.add(executor.submit(() -> {
+                    for (int round = 0; adding.get() || round == 0; round++) {
+                        for (int word = 0; word < known; word++) {
+                            assertEquals(word, vocabulary.idOf("known" + word),
+                                "Known words should keep their id while others are added!");
+                        }
+
+                        int id = vocabulary.idOf("new" + round);
+
+                        assertTrue(id == Vocabulary.NO_TERM || vocabulary.term(id).equals("new" + round),
+                            "A word should be either unknown or found with its own id!");
+                    }
+                }));
+            }
+
+            Future<?> writer = executor.submit(() -> {
+                for (int word = 0; word < added; word++) {
+                    vocabulary.add("new" + word);
+                }
+
+                adding.set(false);
+            });
+
+            writer.get();
+
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(known + added, vocabulary.size(), "Every added word should be counted!");
+    }
+}